@@ -0,0 +1,19 @@
+package com.github.javachat.common;
+
+/**
+ * Commits the operations reported to {@link RangeEvents} as {@link RangeOperationEvent}s; loaded by reflection, only
+ * when the JVM supports Flight Recorder.
+ */
+final class FlightRecorderSink implements RangeEventSink {
+    @Override
+    public RangeEvent begin() {
+        return RangeOperationEvent.start();
+    }
+
+    @Override
+    public void commit(final RangeEvent event, final String structure, final String operation, final int inputSize,
+                       final int otherInputSize, final int outputSize) {
+        RangeOperationEvent.commit((RangeOperationEvent) event, structure, operation, inputSize, otherInputSize,
+                outputSize);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.javachat.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The Flight Recorder event of {@link RangeEvents}; only loaded, through {@link FlightRecorderSink}, when events are
+ * enabled.
+ */
+@Name("com.github.javachat.RangeOperation")
+@Label("Range Operation")
+@Category({"Java Library", "Primitive Ranges"})
+@Description("A rebuild, batch lookup or set operation on a range structure")
+final class RangeOperationEvent extends Event implements RangeEvent {
+    @Label("Structure")
+    String structure;
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Input Size")
+    int inputSize;
+
+    @Label("Other Input Size")
+    int otherInputSize;
+
+    @Label("Output Size")
+    int outputSize;
+
+    // Null when Flight Recorder does not record the event, so that operations are not timed for nothing
+    static RangeOperationEvent start() {
+        final RangeOperationEvent event = new RangeOperationEvent();
+        if (!event.isEnabled())
+            return null;
+        event.begin();
+        return event;
+    }
+
+    static void commit(final RangeOperationEvent event, final String structure, final String operation,
+                       final int inputSize, final int otherInputSize, final int outputSize) {
+        event.structure = structure;
+        event.operation = operation;
+        event.inputSize = inputSize;
+        event.otherInputSize = otherInputSize;
+        event.outputSize = outputSize;
+        event.commit();
+    }
+}
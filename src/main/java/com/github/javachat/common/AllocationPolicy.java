@@ -0,0 +1,16 @@
+package com.github.javachat.common;
+
+/**
+ * How a range allocator chooses the free block to carve an allocation from.
+ */
+public enum AllocationPolicy {
+    /**
+     * The free block with the lowest values among those which are large enough: fast, and keeps high values free.
+     */
+    FIRST_FIT,
+
+    /**
+     * The smallest free block which is large enough, the lowest one on a tie: slower, and keeps large blocks free.
+     */
+    BEST_FIT
+}
@@ -0,0 +1,127 @@
+package com.github.javachat.common;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A reusable {@link CharSequence} view over a slice of a {@link ByteBuffer}, one char per byte.
+ * <p>
+ * This allows text which is known to be ASCII, such as the textual representation of ranges, to be read directly
+ * from UTF-8 encoded buffers: any byte outside of the ASCII range is part of a multi-byte sequence and shows up as a
+ * char which is not valid in such text. The view does not copy the bytes, and is therefore only valid as long as the
+ * buffer is not modified.
+ */
+public final class AsciiSequence implements CharSequence {
+    static final int LINE_BUFFER_BYTES = 1024 * 1024;
+
+    /**
+     * Receives the lines read by {@link #forEachLine(Path, LineConsumer)}.
+     */
+    @FunctionalInterface
+    public interface LineConsumer {
+        /**
+         * @param text  The text holding the line, only valid for the duration of the call
+         * @param start The index of the first char of the line
+         * @param end   The index following the last char of the line, line terminator excluded
+         */
+        void accept(CharSequence text, int start, int end);
+    }
+
+    private ByteBuffer buffer;
+    private int offset;
+    private int length;
+
+    /**
+     * Points this view at the bytes of the given buffer from <code>start</code> (included) to <code>end</code>
+     * (excluded), as absolute indices.
+     */
+    public AsciiSequence wrap(final ByteBuffer buffer, final int start, final int end) {
+        this.buffer = buffer;
+        this.offset = start;
+        this.length = end - start;
+        return this;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(final int index) {
+        if (index < 0 || index >= length)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+        return (char) (buffer.get(offset + index) & 0xFF);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+        if (start < 0 || end > length || start > end)
+            throw new IndexOutOfBoundsException(start + ".." + end);
+        return copy(start, end);
+    }
+
+    @Override
+    public String toString() {
+        return copy(0, length);
+    }
+
+    private String copy(final int start, final int end) {
+        final char[] chars = new char[end - start];
+        for (int i = 0; i < chars.length; i++)
+            chars[i] = (char) (buffer.get(offset + start + i) & 0xFF);
+        return new String(chars);
+    }
+
+    /**
+     * Reads a file line by line through a single direct buffer, skipping blank lines. Lines may end with
+     * <code>\n</code> or <code>\r\n</code>.
+     */
+    public static void forEachLine(final Path path, final LineConsumer consumer) throws IOException {
+        final AsciiSequence line = new AsciiSequence();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(LINE_BUFFER_BYTES);
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            boolean endOfFile = false;
+            while (!endOfFile) {
+                if (!buffer.hasRemaining()) {
+                    // A single line fills the buffer
+                    final ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                    buffer.flip();
+                    buffer = larger.put(buffer);
+                }
+                endOfFile = channel.read(buffer) < 0;
+                buffer.flip();
+
+                int start = 0;
+                for (int index = 0; index < buffer.limit(); index++) {
+                    if (buffer.get(index) == '\n') {
+                        accept(consumer, line.wrap(buffer, start, index));
+                        start = index + 1;
+                    }
+                }
+                if (endOfFile && start < buffer.limit()) {
+                    accept(consumer, line.wrap(buffer, start, buffer.limit()));
+                    start = buffer.limit();
+                }
+
+                buffer.position(start);
+                buffer.compact();
+            }
+        }
+    }
+
+    private static void accept(final LineConsumer consumer, final AsciiSequence line) {
+        int end = line.length;
+        while (end > 0 && Character.isWhitespace(line.charAt(end - 1)))
+            end--;
+        int start = 0;
+        while (start < end && Character.isWhitespace(line.charAt(start)))
+            start++;
+        if (start < end)
+            consumer.accept(line, start, end);
+    }
+}
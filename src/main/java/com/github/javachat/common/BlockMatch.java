@@ -0,0 +1,21 @@
+package com.github.javachat.common;
+
+/**
+ * How the values of a block, as summarized by a zone map, relate to the values of a query range.
+ */
+public enum BlockMatch {
+    /**
+     * No value of the block is in the query range: the block is skipped.
+     */
+    NONE,
+
+    /**
+     * Some values of the block may be in the query range: the block is scanned.
+     */
+    SOME,
+
+    /**
+     * All the values of the block are in the query range: the block is accepted without being scanned.
+     */
+    ALL
+}
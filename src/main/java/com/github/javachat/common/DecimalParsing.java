@@ -0,0 +1,144 @@
+package com.github.javachat.common;
+
+import java.math.BigInteger;
+
+/**
+ * Correctly rounded conversion of decimal numbers to floating point values.
+ * <p>
+ * A 64-bit decimal significand w and an exponent q are converted with the Eisel-Lemire algorithm (Daniel Lemire,
+ * "Number Parsing at a Gigabyte per Second", 2021): w is multiplied by the 128 most significant bits of 5^q, which
+ * always gives enough bits to round w * 10^q to nearest, ties to even (Noble Mushtak and Daniel Lemire, "Fast Number
+ * Parsing Without Fallback", 2023). Unlike {@link Double#parseDouble(String)}, no object is created.
+ */
+final class DecimalParsing {
+    private DecimalParsing() {
+        throw new Error("Not instantiable");
+    }
+
+    /**
+     * Range of decimal exponents q for which 5^q is tabulated: w * 10^q rounds to zero below, and to infinity above,
+     * for any non-zero w of at most 19 digits.
+     */
+    private static final int Q_MIN = -342;
+    private static final int Q_MAX = 308;
+
+    private static final long MASK_32 = 0xFFFFFFFFL;
+
+    /**
+     * For each q, the 128 most significant bits of 5^q, truncated for q &gt;= 0 and rounded up otherwise; the 64 high
+     * bits are at index 2 * (q - Q_MIN), the 64 low bits right after.
+     */
+    private static final long[] POWERS_OF_FIVE = new long[2 * (Q_MAX - Q_MIN + 1)];
+
+    static {
+        final BigInteger five = BigInteger.valueOf(5);
+        for (int q = Q_MIN; q <= Q_MAX; q++) {
+            BigInteger power;
+            if (q >= 0) {
+                power = five.pow(q);
+            } else {
+                // 2^b / 5^-q with enough bits for any product to round correctly
+                final BigInteger divisor = five.pow(-q);
+                final int z = divisor.bitLength();
+                final int b = q >= -27 ? z + 127 : 2 * z + 128;
+                power = BigInteger.ONE.shiftLeft(b).divide(divisor).add(BigInteger.ONE);
+            }
+            final int bits = power.bitLength();
+            power = bits < 128 ? power.shiftLeft(128 - bits) : power.shiftRight(bits - 128);
+            POWERS_OF_FIVE[2 * (q - Q_MIN)] = power.shiftRight(64).longValue();
+            POWERS_OF_FIVE[2 * (q - Q_MIN) + 1] = power.longValue();
+        }
+    }
+
+    /**
+     * Returns the bits of the double nearest to w * 10^q, w being read as an unsigned long.
+     */
+    static long doubleBits(final long w, final int q) {
+        return toBits(w, q, 52, -1023, 0x7FF, -4, 23);
+    }
+
+    /**
+     * Returns the bits of the float nearest to w * 10^q, w being read as an unsigned long.
+     */
+    static int floatBits(final long w, final int q) {
+        return (int) toBits(w, q, 23, -127, 0xFF, -17, 10);
+    }
+
+    /**
+     * Rounds w * 10^q to a binary format of the given parameters.
+     *
+     * @param mantissaBits  The number of explicit bits of the mantissa
+     * @param minExponent   The opposite of the exponent bias
+     * @param infinitePower The biased exponent of infinities
+     * @param minRoundToEven The lowest q for which w * 10^q may be exactly halfway between two values
+     * @param maxRoundToEven The highest such q
+     */
+    private static long toBits(long w, final int q, final int mantissaBits, final int minExponent,
+                               final int infinitePower, final int minRoundToEven, final int maxRoundToEven) {
+        if (w == 0 || q < Q_MIN)
+            return 0;
+        if (q > Q_MAX)
+            return (long) infinitePower << mantissaBits;
+
+        final int leadingZeros = Long.numberOfLeadingZeros(w);
+        w <<= leadingZeros;
+        final int index = 2 * (q - Q_MIN);
+        long high = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index]);
+        long low = w * POWERS_OF_FIVE[index];
+        // The low bits of 5^q only matter when the bits below the mantissa and rounding bit may all be ones
+        final long precisionMask = -1L >>> mantissaBits + 3;
+        if ((high & precisionMask) == precisionMask) {
+            final long secondHigh = unsignedMultiplyHigh(w, POWERS_OF_FIVE[index + 1]);
+            low += secondHigh;
+            if (Long.compareUnsigned(secondHigh, low) > 0)
+                high++;
+        }
+
+        final int upperBit = (int) (high >>> 63);
+        final int shift = upperBit + 64 - mantissaBits - 3;
+        long mantissa = high >>> shift;
+        // floor(log2(10^q)) + 63, the position of the most significant bit of the product
+        int power2 = ((152_170 + 65_536) * q >> 16) + 63 + upperBit - leadingZeros - minExponent;
+
+        if (power2 <= 0) {
+            // Subnormal, or rounded up to the smallest normal value
+            if (-power2 + 1 >= Long.SIZE)
+                return 0;
+            mantissa >>>= -power2 + 1;
+            mantissa += mantissa & 1;
+            mantissa >>>= 1;
+            power2 = mantissa < 1L << mantissaBits ? 0 : 1;
+            return mantissa | (long) power2 << mantissaBits;
+        }
+
+        // An exact product halfway between two values rounds to even instead of up
+        if (Long.compareUnsigned(low, 1) <= 0 && q >= minRoundToEven && q <= maxRoundToEven
+                && (mantissa & 3) == 1 && mantissa << shift == high)
+            mantissa &= ~1L;
+
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if (mantissa >= 2L << mantissaBits) {
+            mantissa = 1L << mantissaBits;
+            power2++;
+        }
+        mantissa &= ~(1L << mantissaBits);
+        if (power2 >= infinitePower)
+            return (long) infinitePower << mantissaBits;
+        return mantissa | (long) power2 << mantissaBits;
+    }
+
+    /**
+     * The 64 most significant bits of the 128 bit product of two unsigned longs, as Math.unsignedMultiplyHigh() in
+     * Java 18.
+     */
+    private static long unsignedMultiplyHigh(final long x, final long y) {
+        final long x1 = x >>> 32;
+        final long x2 = x & MASK_32;
+        final long y1 = y >>> 32;
+        final long y2 = y & MASK_32;
+        final long t = x1 * y2 + (x2 * y2 >>> 32);
+        final long u = x2 * y1 + (t & MASK_32);
+        return x1 * y1 + (t >>> 32) + (u >>> 32);
+    }
+}
@@ -0,0 +1,9 @@
+package com.github.javachat.common;
+
+/**
+ * Receives pairs of indices, such as the positions of matching elements in the two inputs of a join.
+ */
+@FunctionalInterface
+public interface IndexPairConsumer {
+    void accept(int left, int right);
+}
@@ -0,0 +1,97 @@
+package com.github.javachat.common;
+
+/**
+ * Sorting of indices by primitive keys, for containers which keep the fields of their elements in parallel arrays
+ * and need to reorder all of them alike.
+ * <p>
+ * The sort is a bottom-up merge sort working on int arrays only, hence stable and free of boxing: indices of equal
+ * keys keep their ascending order.
+ */
+public final class IndexSort {
+    private IndexSort() {
+        throw new Error("Not instantiable");
+    }
+
+    /**
+     * Returns the indices from 0 (included) to <code>size</code> (excluded) sorted by ascending
+     * <code>keys[index]</code>.
+     */
+    public static int[] sortedIndices(final int[] keys, final int size) {
+        int[] source = identity(size);
+        int[] target = new int[size];
+
+        for (int width = 1; width < size; width *= 2) {
+            for (int start = 0; start < size; start += 2 * width) {
+                final int middle = Math.min(start + width, size);
+                final int end = Math.min(start + 2 * width, size);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    if (left < middle && (right == end || keys[source[left]] <= keys[source[right]]))
+                        target[i] = source[left++];
+                    else
+                        target[i] = source[right++];
+                }
+            }
+            final int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        return source;
+    }
+
+    /**
+     * Returns the indices from 0 (included) to <code>size</code> (excluded) sorted by ascending
+     * <code>keys[index]</code>.
+     */
+    public static int[] sortedIndices(final long[] keys, final int size) {
+        int[] source = identity(size);
+        int[] target = new int[size];
+
+        for (int width = 1; width < size; width *= 2) {
+            for (int start = 0; start < size; start += 2 * width) {
+                final int middle = Math.min(start + width, size);
+                final int end = Math.min(start + 2 * width, size);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    if (left < middle && (right == end || keys[source[left]] <= keys[source[right]]))
+                        target[i] = source[left++];
+                    else
+                        target[i] = source[right++];
+                }
+            }
+            final int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        return source;
+    }
+
+    /**
+     * Returns <code>values</code> reordered so that element i is <code>values[indices[i]]</code>.
+     */
+    public static int[] permute(final int[] values, final int[] indices) {
+        final int[] result = new int[values.length];
+        for (int i = 0; i < indices.length; i++)
+            result[i] = values[indices[i]];
+        return result;
+    }
+
+    /**
+     * @see #permute(int[], int[])
+     */
+    public static long[] permute(final long[] values, final int[] indices) {
+        final long[] result = new long[values.length];
+        for (int i = 0; i < indices.length; i++)
+            result[i] = values[indices[i]];
+        return result;
+    }
+
+    private static int[] identity(final int size) {
+        final int[] indices = new int[size];
+        for (int i = 0; i < size; i++)
+            indices[i] = i;
+        return indices;
+    }
+}
@@ -0,0 +1,316 @@
+package com.github.javachat.common;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, disjoint and non-adjacent ranges of long values, compressed in blocks of {@link #BLOCK_SIZE} ranges.
+ * <p>
+ * Each block has a header holding the lowest value of its first range; the other endpoints of the block are stored as
+ * the differences between consecutive ones, that is the length of each range and the gap before it, which are small
+ * for ranges of nearby values. All the differences of a block are bit-packed with a same width, the frame of
+ * reference, chosen so that the few which do not fit are patched in as exceptions instead of widening all the others.
+ * A lookup binary searches the headers, then decodes the block which may contain the value, up to that value.
+ * <p>
+ * This is the storage of the packed int and long range sets, which widen int values to long.
+ */
+public final class PackedRanges {
+    /**
+     * Number of ranges of a block but the last one.
+     */
+    public static final int BLOCK_SIZE = 128;
+
+    static final String NOT_ASCENDING = "range from %d to %d does not start above %d";
+
+    // Bits taken by an exception: its position in the block and the high bits of its difference
+    private static final int EXCEPTION_BITS = Byte.SIZE + Long.SIZE;
+
+    private static final PackedRanges EMPTY = new Builder().build();
+
+    private final int size;
+    // Header of each block: lowest value of its first range, position of its first bit, width of its differences
+    private final long[] firstLowest;
+    private final long[] firstBits;
+    private final byte[] widths;
+    // Exceptions of each block, from exceptionStarts[block] included to exceptionStarts[block + 1] excluded
+    private final int[] exceptionStarts;
+    private final byte[] exceptionPositions;
+    private final long[] exceptionValues;
+    private final long[] words;
+
+    public static PackedRanges empty() {
+        return EMPTY;
+    }
+
+    private PackedRanges(final int size, final long[] firstLowest, final long[] firstBits, final byte[] widths,
+                         final int[] exceptionStarts, final byte[] exceptionPositions, final long[] exceptionValues,
+                         final long[] words) {
+        this.size = size;
+        this.firstLowest = firstLowest;
+        this.firstBits = firstBits;
+        this.widths = widths;
+        this.exceptionStarts = exceptionStarts;
+        this.exceptionPositions = exceptionPositions;
+        this.exceptionValues = exceptionValues;
+        this.words = words;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int blockCount() {
+        return firstLowest.length;
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by these ranges.
+     */
+    public long footprintBytes() {
+        return 48 + 2 * RangeStats.arrayBytes(firstLowest.length, 8) + RangeStats.arrayBytes(widths.length, 1)
+                + RangeStats.arrayBytes(exceptionStarts.length, 4)
+                + RangeStats.arrayBytes(exceptionPositions.length, 1)
+                + RangeStats.arrayBytes(exceptionValues.length, 8) + RangeStats.arrayBytes(words.length, 8);
+    }
+
+    /**
+     * Returns the index of the range containing the given value, or -1 if there is no such range.
+     */
+    public int indexOf(final long value) {
+        // Last block starting at or below the value
+        int low = 0;
+        int high = firstLowest.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (firstLowest[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        final int block = low - 1;
+        if (block < 0)
+            return -1;
+
+        final int width = widths[block] & 0xFF;
+        final int exceptionEnd = exceptionStarts[block + 1];
+        final int last = rangeCount(block) - 1;
+        long bit = firstBits[block];
+        int exception = exceptionStarts[block];
+        long lowest = firstLowest[block];
+        long highest = lowest;
+        // Differences alternate between the length of a range and the gap before the next one
+        for (int position = 0; ; position++) {
+            long difference = readBits(bit, width);
+            bit += width;
+            if (exception < exceptionEnd && (exceptionPositions[exception] & 0xFF) == position)
+                difference |= exceptionValues[exception++] << width;
+
+            if ((position & 1) == 0) {
+                highest = lowest + difference;
+                if (value <= highest)
+                    return block * BLOCK_SIZE + position / 2;
+                if (position / 2 == last)
+                    return -1;
+            } else {
+                lowest = highest + 2 + difference;
+                if (value < lowest)
+                    return -1;
+            }
+        }
+    }
+
+    public boolean contains(final long value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Decodes the ranges of a block, both values included.
+     *
+     * @return The number of ranges of the block, at most {@link #BLOCK_SIZE}
+     */
+    public int decodeBlock(final int block, final long[] lowestValues, final long[] highestValues) {
+        final int width = widths[block] & 0xFF;
+        final int count = rangeCount(block);
+        long bit = firstBits[block];
+        int exception = exceptionStarts[block];
+        long lowest = firstLowest[block];
+        for (int position = 0; position < 2 * count - 1; position++) {
+            long difference = readBits(bit, width);
+            bit += width;
+            if (exception < exceptionStarts[block + 1] && (exceptionPositions[exception] & 0xFF) == position)
+                difference |= exceptionValues[exception++] << width;
+
+            if ((position & 1) == 0) {
+                lowestValues[position / 2] = lowest;
+                highestValues[position / 2] = lowest + difference;
+            } else {
+                lowest = highestValues[position / 2] + 2 + difference;
+            }
+        }
+        return count;
+    }
+
+    private int rangeCount(final int block) {
+        return block < firstLowest.length - 1 ? BLOCK_SIZE : size - block * BLOCK_SIZE;
+    }
+
+    private long readBits(final long bit, final int width) {
+        if (width == 0)
+            return 0;
+        final int index = (int) (bit >>> 6);
+        final int shift = (int) bit & 63;
+        long bits = words[index] >>> shift;
+        if (shift + width > Long.SIZE)
+            bits |= words[index + 1] << -shift;
+        return width == Long.SIZE ? bits : bits & (1L << width) - 1;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(firstLowest) + Arrays.hashCode(words);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof PackedRanges)) // also takes care of obj == null
+            return false;
+        // The encoding of given ranges is deterministic
+        final PackedRanges other = (PackedRanges) obj;
+        return size == other.size && Arrays.equals(firstLowest, other.firstLowest)
+                && Arrays.equals(widths, other.widths) && Arrays.equals(exceptionStarts, other.exceptionStarts)
+                && Arrays.equals(exceptionPositions, other.exceptionPositions)
+                && Arrays.equals(exceptionValues, other.exceptionValues) && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public String toString() {
+        return size + " ranges in " + firstLowest.length + " blocks";
+    }
+
+    /**
+     * Packs ranges given in ascending order, coalescing the ones which overlap or are adjacent. A block is packed as
+     * soon as the range following it is known, so that only the packed ranges are kept in memory.
+     */
+    public static final class Builder {
+        // Ranges of the block being filled, both values included
+        private final long[] lowest = new long[BLOCK_SIZE];
+        private final long[] highest = new long[BLOCK_SIZE];
+        private int pending;
+        private int size;
+
+        private final long[] differences = new long[2 * BLOCK_SIZE - 1];
+        private final int[] widthCounts = new int[Long.SIZE + 1];
+
+        private long[] firstLowest = new long[16];
+        private long[] firstBits = new long[16];
+        private byte[] widths = new byte[16];
+        private int[] exceptionStarts = new int[17];
+        private int blockCount;
+        private byte[] exceptionPositions = new byte[16];
+        private long[] exceptionValues = new long[16];
+        private int exceptionCount;
+        private long[] words = new long[16];
+        private long bitCount;
+
+        /**
+         * Adds the values from <code>lowestValue</code> to <code>highestValue</code>, both included.
+         *
+         * @throws IllegalArgumentException the values start below those of the previous range
+         */
+        public Builder add(final long lowestValue, final long highestValue) {
+            if (pending > 0) {
+                final long previous = highest[pending - 1];
+                if (lowestValue < lowest[pending - 1])
+                    throw new IllegalArgumentException(String.format(NOT_ASCENDING,
+                            lowestValue, highestValue, lowest[pending - 1]));
+                if (previous == Long.MAX_VALUE || lowestValue <= previous + 1) {
+                    highest[pending - 1] = Math.max(previous, highestValue);
+                    return this;
+                }
+            }
+            if (pending == BLOCK_SIZE)
+                flush();
+            lowest[pending] = lowestValue;
+            highest[pending] = highestValue;
+            pending++;
+            size++;
+            return this;
+        }
+
+        public PackedRanges build() {
+            if (pending > 0)
+                flush();
+            return new PackedRanges(size, Arrays.copyOf(firstLowest, blockCount),
+                    Arrays.copyOf(firstBits, blockCount), Arrays.copyOf(widths, blockCount),
+                    Arrays.copyOf(exceptionStarts, blockCount + 1),
+                    Arrays.copyOf(exceptionPositions, exceptionCount), Arrays.copyOf(exceptionValues, exceptionCount),
+                    Arrays.copyOf(words, (int) ((bitCount + 63) >>> 6)));
+        }
+
+        private void flush() {
+            final int count = 2 * pending - 1;
+            Arrays.fill(widthCounts, 0);
+            for (int i = 0; i < pending; i++) {
+                if (i > 0)
+                    differences[2 * i - 1] = lowest[i] - highest[i - 1] - 2;
+                differences[2 * i] = highest[i] - lowest[i];
+            }
+            for (int i = 0; i < count; i++)
+                widthCounts[Long.SIZE - Long.numberOfLeadingZeros(differences[i])]++;
+
+            // Width for which the packed differences and the exceptions take the fewest bits
+            int width = Long.SIZE;
+            long fewestBits = (long) count * Long.SIZE;
+            int exceptions = 0;
+            for (int candidate = Long.SIZE; candidate >= 0; candidate--) {
+                final long bits = (long) count * candidate + (long) exceptions * EXCEPTION_BITS;
+                if (bits < fewestBits) {
+                    width = candidate;
+                    fewestBits = bits;
+                }
+                exceptions += widthCounts[candidate];
+            }
+
+            if (blockCount == firstLowest.length) {
+                firstLowest = Arrays.copyOf(firstLowest, blockCount * 2);
+                firstBits = Arrays.copyOf(firstBits, blockCount * 2);
+                widths = Arrays.copyOf(widths, blockCount * 2);
+                exceptionStarts = Arrays.copyOf(exceptionStarts, blockCount * 2 + 1);
+            }
+            firstLowest[blockCount] = lowest[0];
+            firstBits[blockCount] = bitCount;
+            widths[blockCount] = (byte) width;
+
+            final long wordCount = (bitCount + (long) count * width + 63 >>> 6) + 1;
+            if (wordCount > words.length)
+                words = Arrays.copyOf(words, (int) Math.max(wordCount, Math.min(2L * words.length, Integer.MAX_VALUE)));
+            for (int i = 0; i < count; i++) {
+                writeBits(differences[i], width);
+                if (width < Long.SIZE && differences[i] >>> width != 0) {
+                    if (exceptionCount == exceptionValues.length) {
+                        exceptionPositions = Arrays.copyOf(exceptionPositions, exceptionCount * 2);
+                        exceptionValues = Arrays.copyOf(exceptionValues, exceptionCount * 2);
+                    }
+                    exceptionPositions[exceptionCount] = (byte) i;
+                    exceptionValues[exceptionCount++] = differences[i] >>> width;
+                }
+            }
+            blockCount++;
+            exceptionStarts[blockCount] = exceptionCount;
+            pending = 0;
+        }
+
+        private void writeBits(final long value, final int width) {
+            if (width == 0)
+                return;
+            final long bits = width == Long.SIZE ? value : value & (1L << width) - 1;
+            final int index = (int) (bitCount >>> 6);
+            final int shift = (int) bitCount & 63;
+            words[index] |= bits << shift;
+            if (shift + width > Long.SIZE)
+                words[index + 1] |= bits >>> -shift;
+            bitCount += width;
+        }
+    }
+}
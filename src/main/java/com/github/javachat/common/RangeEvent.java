@@ -0,0 +1,8 @@
+package com.github.javachat.common;
+
+/**
+ * An operation being recorded, from {@link RangeEvents#start()} to {@link RangeEvents#commit}; <code>null</code> when
+ * events are disabled.
+ */
+public interface RangeEvent {
+}
@@ -0,0 +1,17 @@
+package com.github.javachat.common;
+
+/**
+ * Receives the operations reported to {@link RangeEvents} once events are enabled.
+ * <p>
+ * The Flight Recorder implementation is compiled separately, into the optional <code>jfr</code> artifact, and only
+ * loaded when the JVM supports Flight Recorder, so that this package still compiles and runs on JVMs without it.
+ */
+interface RangeEventSink {
+    /**
+     * Starts timing an operation; returns <code>null</code> if it is not recorded.
+     */
+    RangeEvent begin();
+
+    void commit(RangeEvent event, String structure, String operation, int inputSize, int otherInputSize,
+                int outputSize);
+}
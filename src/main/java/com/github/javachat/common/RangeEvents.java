@@ -0,0 +1,79 @@
+package com.github.javachat.common;
+
+/**
+ * Opt-in Java Flight Recorder events for costly operations on range structures: rebuilds from unsorted ranges, batch
+ * lookups, and set algebra.
+ * <p>
+ * Events are only emitted when the system property <code>com.github.javachat.events</code> is <code>true</code>, the
+ * JVM supports Flight Recorder, and the operation involves at least {@link #MIN_EVENT_SIZE} ranges or values; they then
+ * appear in recordings as <code>com.github.javachat.RangeOperation</code>. Otherwise, operations only pay for the test
+ * of a constant, which the JIT compiler removes. The event class is shipped separately, in the artifact with the
+ * <code>jfr</code> classifier, and loaded by reflection only when events are enabled, so that this library still
+ * compiles and runs on JVMs without Flight Recorder.
+ */
+public final class RangeEvents {
+    /**
+     * Operations on fewer ranges or values than this do not emit events.
+     */
+    public static final int MIN_EVENT_SIZE = 1 << 10;
+
+    private static final String SINK_CLASS = "com.github.javachat.common.FlightRecorderSink";
+
+    // Null when events are disabled
+    private static final RangeEventSink SINK = Boolean.getBoolean("com.github.javachat.events")
+            && isFlightRecorderPresent() ? loadSink() : null;
+
+    /**
+     * Whether events are emitted.
+     */
+    public static final boolean ENABLED = SINK != null;
+
+    private RangeEvents() {
+        throw new Error("Not instantiable");
+    }
+
+    /**
+     * Starts timing an operation, to be given to {@link #commit}.
+     *
+     * @return The recorded operation, or <code>null</code> if events are disabled
+     */
+    public static RangeEvent start() {
+        return ENABLED ? SINK.begin() : null;
+    }
+
+    /**
+     * Emits the event of an operation, if it was recorded and is large enough.
+     *
+     * @param structure      The simple name of the class of the structure
+     * @param operation      The name of the method
+     * @param inputSize      The number of ranges or values of the first input
+     * @param otherInputSize The number of ranges or values of the second input, or 0
+     * @param outputSize     The number of ranges or values of the output
+     * @param event          The value returned by {@link #start()} when the operation started
+     */
+    public static void commit(final String structure, final String operation, final int inputSize,
+                              final int otherInputSize, final int outputSize, final RangeEvent event) {
+        if (event == null || (long) inputSize + otherInputSize + outputSize < MIN_EVENT_SIZE)
+            return;
+        SINK.commit(event, structure, operation, inputSize, otherInputSize, outputSize);
+    }
+
+    private static boolean isFlightRecorderPresent() {
+        try {
+            Class.forName("jdk.jfr.Event", false, RangeEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError ignored) {
+            return false;
+        }
+    }
+
+    // The class is missing unless the jfr artifact is on the class path
+    static RangeEventSink loadSink() {
+        try {
+            return Class.forName(SINK_CLASS, true, RangeEvents.class.getClassLoader())
+                    .asSubclass(RangeEventSink.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.github.javachat.common;
+
+import java.math.BigInteger;
+
+/**
+ * Formatting of range endpoints.
+ * <p>
+ * Floating point values are written with the shortest decimal which rounds back to the same value, computed with the
+ * Schubfach algorithm (Raffaello Giulietti, "The Schubfach way to render doubles", 2020). The layout is the one of
+ * {@link Double#toString(double)}: plain notation with at least one fractional digit from <code>0.001</code> to
+ * <code>10000000</code>, computerized scientific notation (<code>1.0E-5</code>) otherwise, and infinities written as
+ * {@link Constants#INFINITY_REPRESENTATION}. Unlike a shared <code>DecimalFormat</code>, all methods are thread-safe
+ * and create no object.
+ */
+public final class RangeFormatting {
+    private RangeFormatting() {
+        throw new Error("Not instantiable");
+    }
+
+    // Double precision parameters
+    private static final int DOUBLE_P = 53;
+    private static final int DOUBLE_Q_MIN = -1074;
+    private static final long DOUBLE_C_MIN = 1L << (DOUBLE_P - 1);
+    private static final long DOUBLE_C_TINY = 3;
+    private static final int DOUBLE_BQ_MASK = 0x7FF;
+    private static final long DOUBLE_T_MASK = DOUBLE_C_MIN - 1;
+
+    // Single precision parameters
+    private static final int FLOAT_P = 24;
+    private static final int FLOAT_Q_MIN = -149;
+    private static final int FLOAT_C_MIN = 1 << (FLOAT_P - 1);
+    private static final int FLOAT_C_TINY = 8;
+    private static final int FLOAT_BQ_MASK = 0xFF;
+    private static final int FLOAT_T_MASK = FLOAT_C_MIN - 1;
+
+    private static final long MASK_32 = 0xFFFFFFFFL;
+    private static final long MASK_63 = Long.MAX_VALUE;
+
+    /**
+     * Range of decimal exponents k for which 10^-k is tabulated.
+     */
+    private static final int K_MIN = -324;
+    private static final int K_MAX = 292;
+
+    /**
+     * For each k, 10^-k = beta * 2^r with 2^125 &lt;= beta &lt; 2^126, and g = floor(beta) + 1; G1 holds the 63 most
+     * significant bits of g, G0 the 63 least significant ones.
+     */
+    private static final long[] G1 = new long[K_MAX - K_MIN + 1];
+    private static final long[] G0 = new long[K_MAX - K_MIN + 1];
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    private static final ThreadLocal<StringBuilder> SCRATCH = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    static {
+        for (int k = K_MIN; k <= K_MAX; k++) {
+            final int e = -k;
+            final int r = flog2pow10(e) - 125;
+            final BigInteger beta;
+            if (e >= 0) {
+                final BigInteger power = BigInteger.TEN.pow(e);
+                beta = r >= 0 ? power.shiftRight(r) : power.shiftLeft(-r);
+            } else {
+                beta = BigInteger.ONE.shiftLeft(-r).divide(BigInteger.TEN.pow(-e));
+            }
+            final BigInteger g = beta.add(BigInteger.ONE);
+            G1[k - K_MIN] = g.shiftRight(63).longValue();
+            G0[k - K_MIN] = g.longValue() & MASK_63;
+        }
+
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++)
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    /**
+     * Returns an empty string builder private to the current thread, for formatting to an {@link Appendable} which
+     * is not a {@link StringBuilder}.
+     */
+    public static StringBuilder scratchBuilder() {
+        final StringBuilder sb = SCRATCH.get();
+        sb.setLength(0);
+        return sb;
+    }
+
+    /**
+     * Appends the shortest decimal representation of a double which rounds back to it.
+     */
+    public static StringBuilder appendDouble(final StringBuilder sb, final double value) {
+        final long bits = Double.doubleToRawLongBits(value);
+        final long t = bits & DOUBLE_T_MASK;
+        final int bq = (int) (bits >>> (DOUBLE_P - 1)) & DOUBLE_BQ_MASK;
+
+        if (bq == DOUBLE_BQ_MASK)
+            return appendSpecial(sb, t != 0, bits < 0);
+        if (bits < 0)
+            sb.append('-');
+
+        if (bq != 0) {
+            final int mq = -DOUBLE_Q_MIN + 1 - bq;
+            final long c = DOUBLE_C_MIN | t;
+            // Integers below 2^53 are their own shortest representation
+            if (0 < mq && mq < DOUBLE_P) {
+                final long f = c >> mq;
+                if (f << mq == c)
+                    return appendDecimal(sb, f, 0);
+            }
+            return doubleToDecimal(sb, -mq, c, 0);
+        }
+        if (t != 0) {
+            // Subnormal
+            return t < DOUBLE_C_TINY
+                    ? doubleToDecimal(sb, DOUBLE_Q_MIN, 10 * t, -1)
+                    : doubleToDecimal(sb, DOUBLE_Q_MIN, t, 0);
+        }
+        return sb.append("0.0");
+    }
+
+    /**
+     * Appends the shortest decimal representation of a float which rounds back to it.
+     */
+    public static StringBuilder appendFloat(final StringBuilder sb, final float value) {
+        final int bits = Float.floatToRawIntBits(value);
+        final int t = bits & FLOAT_T_MASK;
+        final int bq = (bits >>> (FLOAT_P - 1)) & FLOAT_BQ_MASK;
+
+        if (bq == FLOAT_BQ_MASK)
+            return appendSpecial(sb, t != 0, bits < 0);
+        if (bits < 0)
+            sb.append('-');
+
+        if (bq != 0) {
+            final int mq = -FLOAT_Q_MIN + 1 - bq;
+            final int c = FLOAT_C_MIN | t;
+            // Integers below 2^24 are their own shortest representation
+            if (0 < mq && mq < FLOAT_P) {
+                final int f = c >> mq;
+                if (f << mq == c)
+                    return appendDecimal(sb, f, 0);
+            }
+            return floatToDecimal(sb, -mq, c, 0);
+        }
+        if (t != 0) {
+            // Subnormal
+            return t < FLOAT_C_TINY
+                    ? floatToDecimal(sb, FLOAT_Q_MIN, 10 * t, -1)
+                    : floatToDecimal(sb, FLOAT_Q_MIN, t, 0);
+        }
+        return sb.append("0.0");
+    }
+
+    private static StringBuilder appendSpecial(final StringBuilder sb, final boolean isNaN, final boolean negative) {
+        if (isNaN)
+            return sb.append("NaN");
+        if (negative)
+            sb.append('-');
+        return sb.append(Constants.INFINITY_REPRESENTATION);
+    }
+
+    /**
+     * Formats the double c * 2^q, whose decimal exponent is adjusted by dk.
+     */
+    private static StringBuilder doubleToDecimal(final StringBuilder sb, final int q, final long c, final int dk) {
+        final int out = (int) c & 0x1;
+        final long cb = c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+
+        // The interval of values rounding to c * 2^q is narrower below a power of two
+        if (c != DOUBLE_C_MIN || q == DOUBLE_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 2;
+
+        final long g1 = G1[k - K_MIN];
+        final long g0 = G0[k - K_MIN];
+        final long vb = roundToOdd(g1, g0, cb << h);
+        final long vbl = roundToOdd(g1, g0, cbl << h);
+        final long vbr = roundToOdd(g1, g0, cbr << h);
+
+        final long s = vb >> 2;
+        if (s >= 100) {
+            // Try one digit less: s rounded down to a multiple of ten, or the next multiple
+            final long sp10 = 10 * multiplyHigh(s, 115_292_150_460_684_698L << 4);
+            final long tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return appendDecimal(sb, upin ? sp10 : tp10, k);
+        }
+
+        final long t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return appendDecimal(sb, uin ? s : t, k + dk);
+
+        // Both candidates round back to the value: pick the closest one, the even one on a tie
+        final long cmp = vb - (s + t << 1);
+        return appendDecimal(sb, cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    /**
+     * Formats the float c * 2^q, whose decimal exponent is adjusted by dk.
+     */
+    private static StringBuilder floatToDecimal(final StringBuilder sb, final int q, final int c, final int dk) {
+        final int out = c & 0x1;
+        final long cb = (long) c << 2;
+        final long cbr = cb + 2;
+        final long cbl;
+        final int k;
+
+        if (c != FLOAT_C_MIN || q == FLOAT_Q_MIN) {
+            cbl = cb - 2;
+            k = flog10pow2(q);
+        } else {
+            cbl = cb - 1;
+            k = flog10threeQuartersPow2(q);
+        }
+        final int h = q + flog2pow10(-k) + 33;
+
+        final long g = G1[k - K_MIN] + 1;
+        final int vb = roundToOdd(g, cb << h);
+        final int vbl = roundToOdd(g, cbl << h);
+        final int vbr = roundToOdd(g, cbr << h);
+
+        final int s = vb >> 2;
+        if (s >= 100) {
+            final int sp10 = 10 * (int) (s * 1_717_986_919L >>> 34);
+            final int tp10 = sp10 + 10;
+            final boolean upin = vbl + out <= sp10 << 2;
+            final boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin)
+                return appendDecimal(sb, upin ? sp10 : tp10, k);
+        }
+
+        final int t = s + 1;
+        final boolean uin = vbl + out <= s << 2;
+        final boolean win = (t << 2) + out <= vbr;
+        if (uin != win)
+            return appendDecimal(sb, uin ? s : t, k + dk);
+
+        final int cmp = vb - (s + t << 1);
+        return appendDecimal(sb, cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    /**
+     * Computes g * cp / 2^127, g being the 126 bits g1 * 2^63 + g0, rounded to odd.
+     */
+    private static long roundToOdd(final long g1, final long g0, final long cp) {
+        final long x1 = multiplyHigh(g0, cp);
+        final long y0 = g1 * cp;
+        final long y1 = multiplyHigh(g1, cp);
+        final long z = (y0 >>> 1) + x1;
+        final long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
+
+    /**
+     * Computes g * cp / 2^95 rounded to odd.
+     */
+    private static int roundToOdd(final long g, final long cp) {
+        final long x1 = multiplyHigh(g, cp);
+        final long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
+    }
+
+    /**
+     * Appends f * 10^e, f being positive.
+     */
+    private static StringBuilder appendDecimal(final StringBuilder sb, long f, int e) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int length = 1;
+        while (length < POWERS_OF_TEN.length && f >= POWERS_OF_TEN[length])
+            length++;
+
+        // Exponent of the leading digit
+        final int exponent = e + length - 1;
+
+        if (exponent < -3 || exponent >= 7) {
+            appendDigits(sb, f, length, 0, 1);
+            sb.append('.');
+            if (length > 1)
+                appendDigits(sb, f, length, 1, length);
+            else
+                sb.append('0');
+            return sb.append('E').append(exponent);
+        }
+
+        if (exponent < 0) {
+            sb.append("0.");
+            for (int i = -1; i > exponent; i--)
+                sb.append('0');
+            return appendDigits(sb, f, length, 0, length);
+        }
+
+        appendDigits(sb, f, length, 0, Math.min(length, exponent + 1));
+        for (int i = length; i <= exponent; i++)
+            sb.append('0');
+        sb.append('.');
+        if (length > exponent + 1)
+            return appendDigits(sb, f, length, exponent + 1, length);
+        return sb.append('0');
+    }
+
+    /**
+     * Appends the digits of f from index <code>from</code> (included) to <code>to</code> (excluded), the most
+     * significant digit having index 0.
+     */
+    private static StringBuilder appendDigits(final StringBuilder sb, final long f, final int length,
+                                              final int from, final int to) {
+        for (int i = from; i < to; i++)
+            sb.append((char) ('0' + f / POWERS_OF_TEN[length - 1 - i] % 10));
+        return sb;
+    }
+
+    /**
+     * floor(log10(2^e))
+     */
+    private static int flog10pow2(final int e) {
+        return (int) (e * 661_971_961_083L >> 41);
+    }
+
+    /**
+     * floor(log10(3/4 * 2^e))
+     */
+    private static int flog10threeQuartersPow2(final int e) {
+        return (int) (e * 661_971_961_083L + -274_743_187_321L >> 41);
+    }
+
+    /**
+     * floor(log2(10^e))
+     */
+    private static int flog2pow10(final int e) {
+        return (int) (e * 913_124_641_741L >> 38);
+    }
+
+    /**
+     * The 64 most significant bits of the 128 bit product of two longs, as Math.multiplyHigh() in Java 9.
+     */
+    private static long multiplyHigh(final long x, final long y) {
+        final long x1 = x >> 32;
+        final long x2 = x & MASK_32;
+        final long y1 = y >> 32;
+        final long y2 = y & MASK_32;
+        final long z2 = x2 * y2;
+        final long t = x1 * y2 + (z2 >>> 32);
+        long z1 = t & MASK_32;
+        final long z0 = t >> 32;
+        z1 += x2 * y1;
+        return x1 * y1 + z0 + (z1 >> 32);
+    }
+}
@@ -0,0 +1,317 @@
+package com.github.javachat.common;
+
+/**
+ * Scanner for the textual representation of ranges produced by their <code>toString()</code> method, such as
+ * <code>[1..5)</code> or <code>(-Infinity..3.5]</code>.
+ * <p>
+ * The scanner works on a slice of a {@link CharSequence} and records the bound types and the positions of the
+ * endpoints, without creating any intermediate object; endpoints are then converted with {@link #parseLong(int, int)},
+ * {@link #parseDouble(int, int)} or {@link #parseFloat(int, int)}. An instance is meant to be reused, and is
+ * therefore not thread-safe.
+ */
+public final class RangeScanner {
+    public static final String INVALID_RANGE = "invalid range: %s";
+    public static final String INVALID_NUMBER = "invalid number: %s";
+    public static final String NUMBER_OUT_OF_RANGE = "number out of range: %s";
+
+    private static final String SEPARATOR = "..";
+
+    /**
+     * Largest power of ten such that any integer up to 2^53 (resp. 2^24) multiplied or divided by it is correctly
+     * rounded by a single floating point operation.
+     */
+    private static final int MAX_EXACT_DOUBLE_POWER = 22;
+    private static final int MAX_EXACT_FLOAT_POWER = 10;
+
+    private static final double[] DOUBLE_POWERS_OF_TEN = new double[MAX_EXACT_DOUBLE_POWER + 1];
+    private static final float[] FLOAT_POWERS_OF_TEN = new float[MAX_EXACT_FLOAT_POWER + 1];
+
+    static {
+        DOUBLE_POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < DOUBLE_POWERS_OF_TEN.length; i++)
+            DOUBLE_POWERS_OF_TEN[i] = DOUBLE_POWERS_OF_TEN[i - 1] * 10;
+        FLOAT_POWERS_OF_TEN[0] = 1.0f;
+        for (int i = 1; i < FLOAT_POWERS_OF_TEN.length; i++)
+            FLOAT_POWERS_OF_TEN[i] = FLOAT_POWERS_OF_TEN[i - 1] * 10;
+    }
+
+    private CharSequence text;
+    private BoundType lowerBoundType;
+    private BoundType upperBoundType;
+    private int lowerStart;
+    private int lowerEnd;
+    private int upperStart;
+    private int upperEnd;
+
+    // Decimal decomposition of the last number: (-1)^negative * significand * 10^exponent, significand being unsigned
+    // and below the number when non-zero digits were truncated
+    private boolean negative;
+    private long significand;
+    private int significantDigits;
+    private int exponent;
+    private boolean truncated;
+
+    /**
+     * Scans a range, ignoring leading and trailing whitespace.
+     *
+     * @throws IllegalArgumentException the text is not a range
+     */
+    public void scan(final CharSequence text, int start, int end) {
+        this.text = text;
+        while (start < end && Character.isWhitespace(text.charAt(start)))
+            start++;
+        while (end > start && Character.isWhitespace(text.charAt(end - 1)))
+            end--;
+
+        if (end - start < 2 + SEPARATOR.length() + 2)
+            throw invalid(INVALID_RANGE, start, end);
+
+        lowerBoundType = boundType(text.charAt(start), '[', '(', start, end);
+        upperBoundType = boundType(text.charAt(end - 1), ']', ')', start, end);
+
+        final int separator = indexOfSeparator(start + 1, end - 1);
+        if (separator < 0)
+            throw invalid(INVALID_RANGE, start, end);
+
+        lowerStart = start + 1;
+        lowerEnd = separator;
+        upperStart = separator + SEPARATOR.length();
+        upperEnd = end - 1;
+        if (lowerStart == lowerEnd || upperStart == upperEnd)
+            throw invalid(INVALID_RANGE, start, end);
+    }
+
+    public BoundType lowerBoundType() {
+        return lowerBoundType;
+    }
+
+    public BoundType upperBoundType() {
+        return upperBoundType;
+    }
+
+    public int lowerStart() {
+        return lowerStart;
+    }
+
+    public int lowerEnd() {
+        return lowerEnd;
+    }
+
+    public int upperStart() {
+        return upperStart;
+    }
+
+    public int upperEnd() {
+        return upperEnd;
+    }
+
+    /**
+     * Whether the lower endpoint is <code>-Infinity</code>, as written for unbounded ranges.
+     */
+    public boolean isLowerInfinite() {
+        return isInfinity(lowerStart, lowerEnd, true);
+    }
+
+    /**
+     * Whether the upper endpoint is <code>Infinity</code>, as written for unbounded ranges.
+     */
+    public boolean isUpperInfinite() {
+        return isInfinity(upperStart, upperEnd, false);
+    }
+
+    /**
+     * Parses a decimal long from the scanned text.
+     *
+     * @throws IllegalArgumentException the text is not a long
+     */
+    public long parseLong(final int start, final int end) {
+        int index = start;
+        final boolean negative = text.charAt(index) == '-';
+        if (negative || text.charAt(index) == '+')
+            index++;
+        if (index == end)
+            throw invalid(INVALID_NUMBER, start, end);
+
+        // Accumulated negatively, as Long.MIN_VALUE has no positive counterpart
+        long result = 0;
+        for (; index < end; index++) {
+            final int digit = text.charAt(index) - '0';
+            if (digit < 0 || digit > 9)
+                throw invalid(INVALID_NUMBER, start, end);
+            if (result < Long.MIN_VALUE / 10 || result * 10 < Long.MIN_VALUE + digit)
+                throw invalid(NUMBER_OUT_OF_RANGE, start, end);
+            result = result * 10 - digit;
+        }
+
+        if (!negative && result == Long.MIN_VALUE)
+            throw invalid(NUMBER_OUT_OF_RANGE, start, end);
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses a decimal int from the scanned text.
+     *
+     * @throws IllegalArgumentException the text is not an int
+     */
+    public int parseInt(final int start, final int end) {
+        final long result = parseLong(start, end);
+        if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE)
+            throw invalid(NUMBER_OUT_OF_RANGE, start, end);
+        return (int) result;
+    }
+
+    /**
+     * Parses a double from the scanned text, in the syntax of {@link Double#toString(double)} or of a plain decimal
+     * number.
+     * <p>
+     * Numbers of at most 15 significant digits with a small exponent are converted exactly with a single floating
+     * point operation; others are rounded from their first 19 significant digits with the Eisel-Lemire algorithm,
+     * without creating any object either. Only when the digits past the 19th could change the rounding does this fall
+     * back to {@link Double#parseDouble(String)}.
+     *
+     * @throws IllegalArgumentException the text is not a double
+     */
+    public double parseDouble(final int start, final int end) {
+        if (isInfinity(start, end, true))
+            return Double.NEGATIVE_INFINITY;
+        if (isInfinity(start, end, false))
+            return Double.POSITIVE_INFINITY;
+
+        decompose(start, end);
+        if (significantDigits <= 15 && Math.abs(exponent) <= MAX_EXACT_DOUBLE_POWER) {
+            double result = significand;
+            result = exponent < 0 ? result / DOUBLE_POWERS_OF_TEN[-exponent] : result * DOUBLE_POWERS_OF_TEN[exponent];
+            return negative ? -result : result;
+        }
+        final long bits = DecimalParsing.doubleBits(significand, exponent);
+        if (truncated && DecimalParsing.doubleBits(significand + 1, exponent) != bits)
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        final double result = Double.longBitsToDouble(bits);
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses a float from the scanned text.
+     *
+     * @see #parseDouble(int, int)
+     */
+    public float parseFloat(final int start, final int end) {
+        if (isInfinity(start, end, true))
+            return Float.NEGATIVE_INFINITY;
+        if (isInfinity(start, end, false))
+            return Float.POSITIVE_INFINITY;
+
+        decompose(start, end);
+        if (significantDigits <= 7 && Math.abs(exponent) <= MAX_EXACT_FLOAT_POWER) {
+            float result = significand;
+            result = exponent < 0 ? result / FLOAT_POWERS_OF_TEN[-exponent] : result * FLOAT_POWERS_OF_TEN[exponent];
+            return negative ? -result : result;
+        }
+        final int bits = DecimalParsing.floatBits(significand, exponent);
+        if (truncated && DecimalParsing.floatBits(significand + 1, exponent) != bits)
+            return Float.parseFloat(text.subSequence(start, end).toString());
+        final float result = Float.intBitsToFloat(bits);
+        return negative ? -result : result;
+    }
+
+    /**
+     * Splits a decimal number into its sign, significand and exponent. Digits past the 19th, which may overflow the
+     * significand as an unsigned long, are not accumulated but still counted.
+     */
+    private void decompose(final int start, final int end) {
+        int index = start;
+        negative = text.charAt(index) == '-';
+        if (negative || text.charAt(index) == '+')
+            index++;
+
+        significand = 0;
+        significantDigits = 0;
+        exponent = 0;
+        truncated = false;
+        int digits = 0;
+        boolean fraction = false;
+
+        for (; index < end; index++) {
+            final char c = text.charAt(index);
+            if (c == '.' && !fraction) {
+                fraction = true;
+                continue;
+            }
+            final int digit = c - '0';
+            if (digit < 0 || digit > 9)
+                break;
+            digits++;
+            if (significantDigits > 0 || digit != 0)
+                significantDigits++;
+            if (significantDigits <= 19) {
+                significand = significand * 10 + digit;
+                if (fraction)
+                    exponent--;
+            } else {
+                truncated |= digit != 0;
+                if (!fraction)
+                    exponent++;
+            }
+        }
+        if (digits == 0)
+            throw invalid(INVALID_NUMBER, start, end);
+
+        if (index < end) {
+            if (text.charAt(index) != 'e' && text.charAt(index) != 'E')
+                throw invalid(INVALID_NUMBER, start, end);
+            index++;
+            final boolean negativeExponent = index < end && text.charAt(index) == '-';
+            if (index < end && (negativeExponent || text.charAt(index) == '+'))
+                index++;
+            if (index == end)
+                throw invalid(INVALID_NUMBER, start, end);
+
+            int value = 0;
+            for (; index < end; index++) {
+                final int digit = text.charAt(index) - '0';
+                if (digit < 0 || digit > 9)
+                    throw invalid(INVALID_NUMBER, start, end);
+                // Saturate, any exponent this large rounds to zero or infinity anyway
+                value = Math.min(value * 10 + digit, 100_000);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+    }
+
+    private boolean isInfinity(final int start, final int end, final boolean negative) {
+        final String infinity = Constants.INFINITY_REPRESENTATION;
+        int index = start;
+        if (negative) {
+            if (index == end || text.charAt(index) != '-')
+                return false;
+            index++;
+        }
+        if (end - index != infinity.length())
+            return false;
+        for (int i = 0; i < infinity.length(); i++) {
+            if (text.charAt(index + i) != infinity.charAt(i))
+                return false;
+        }
+        return true;
+    }
+
+    private int indexOfSeparator(final int start, final int end) {
+        for (int index = start; index < end - 1; index++) {
+            if (text.charAt(index) == '.' && text.charAt(index + 1) == '.')
+                return index;
+        }
+        return -1;
+    }
+
+    private BoundType boundType(final char c, final char closed, final char open, final int start, final int end) {
+        if (c == closed)
+            return BoundType.CLOSED;
+        if (c == open)
+            return BoundType.OPEN;
+        throw invalid(INVALID_RANGE, start, end);
+    }
+
+    private IllegalArgumentException invalid(final String format, final int start, final int end) {
+        return new IllegalArgumentException(String.format(format, text.subSequence(start, end)));
+    }
+}
@@ -0,0 +1,125 @@
+package com.github.javachat.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usage statistics of a named range structure, such as a table of ranges looked up on every request.
+ * <p>
+ * Statistics are opt-in: a structure only records them once it is monitored, for instance with
+ * <code>LongRangeSet#monitored(RangeStats)</code>, which returns a copy of the set sharing its arrays. Each lookup of a
+ * monitored structure then adds to two {@link LongAdder}s, which scale with concurrent lookups; the structures which
+ * result from operations on a monitored one are not monitored themselves.
+ * <p>
+ * Instances are registered by name, so that {@link #all()} reports every monitored structure of the application, and
+ * the successive versions of a structure may share the statistics of a same name.
+ */
+public final class RangeStats {
+    private static final ConcurrentMap<String, RangeStats> REGISTRY = new ConcurrentHashMap<>();
+
+    // Object header and array length, then elements, as laid out by a 64-bit JVM with compressed references
+    private static final int ARRAY_HEADER_BYTES = 16;
+    private static final int OBJECT_ALIGNMENT = 8;
+
+    private final String name;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder searchSteps = new LongAdder();
+    private volatile int rangeCount;
+    private volatile long footprintBytes;
+
+    /**
+     * Returns the statistics registered under the given name, creating them if needed.
+     */
+    public static RangeStats named(final String name) {
+        return REGISTRY.computeIfAbsent(name, RangeStats::new);
+    }
+
+    /**
+     * Returns a snapshot of the registered statistics.
+     */
+    public static Collection<RangeStats> all() {
+        return new ArrayList<>(REGISTRY.values());
+    }
+
+    /**
+     * Unregisters the statistics of the given name; structures which still record into them keep doing so.
+     */
+    public static void remove(final String name) {
+        REGISTRY.remove(name);
+    }
+
+    /**
+     * Returns the approximate number of bytes taken by an array of primitive values.
+     */
+    public static long arrayBytes(final int length, final int elementBytes) {
+        final long bytes = ARRAY_HEADER_BYTES + (long) length * elementBytes;
+        return (bytes + OBJECT_ALIGNMENT - 1) / OBJECT_ALIGNMENT * OBJECT_ALIGNMENT;
+    }
+
+    private RangeStats(final String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Records a lookup which took the given number of binary search steps.
+     */
+    public void recordLookup(final int steps) {
+        lookups.increment();
+        searchSteps.add(steps);
+    }
+
+    /**
+     * Records the shape of the structure being monitored, replacing that of a previous version.
+     */
+    public void recordShape(final int rangeCount, final long footprintBytes) {
+        this.rangeCount = rangeCount;
+        this.footprintBytes = footprintBytes;
+    }
+
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /**
+     * Returns the average number of binary search steps per lookup, or 0 if there was none.
+     */
+    public double averageSearchDepth() {
+        final long count = lookups.sum();
+        return count == 0 ? 0 : (double) searchSteps.sum() / count;
+    }
+
+    /**
+     * Returns the number of ranges or entries of the structure last monitored.
+     */
+    public int rangeCount() {
+        return rangeCount;
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by the structure last monitored, excluding the values of a map.
+     */
+    public long footprintBytes() {
+        return footprintBytes;
+    }
+
+    /**
+     * Resets the lookup counters, leaving the shape unchanged.
+     */
+    public void reset() {
+        lookups.reset();
+        searchSteps.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d lookups, %.2f steps on average, %d ranges, %d bytes",
+                name, lookups(), averageSearchDepth(), rangeCount, footprintBytes);
+    }
+}
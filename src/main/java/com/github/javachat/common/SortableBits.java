@@ -0,0 +1,53 @@
+package com.github.javachat.common;
+
+/**
+ * Order-preserving integer encodings of floating-point values, for containers which compare floating-point values
+ * as integers.
+ * <p>
+ * The raw bits of a non-negative value already grow with it; those of a negative value have all bits but the sign one
+ * flipped, so that they grow with it too, and are then shifted by one so that <code>-0.0</code> and <code>0.0</code>
+ * share the key 0. As a result, the keys of the non-NaN values are consecutive integers, the key of a value being one
+ * less than the key of the next value up:
+ * <ul>
+ * <li>{@link #doubleKey(double)} of {@link Double#NEGATIVE_INFINITY} is {@link #DOUBLE_NEGATIVE_INFINITY_KEY} and that
+ * of {@link Double#POSITIVE_INFINITY} is {@link #DOUBLE_POSITIVE_INFINITY_KEY};</li>
+ * <li>a NaN, whose bits are not canonicalized, has a key greater than that of positive infinity if its sign bit is
+ * clear, and less than that of negative infinity otherwise.</li>
+ * </ul>
+ */
+public final class SortableBits {
+    public static final long DOUBLE_NEGATIVE_INFINITY_KEY = doubleKey(Double.NEGATIVE_INFINITY);
+    public static final long DOUBLE_POSITIVE_INFINITY_KEY = doubleKey(Double.POSITIVE_INFINITY);
+    public static final int FLOAT_NEGATIVE_INFINITY_KEY = floatKey(Float.NEGATIVE_INFINITY);
+    public static final int FLOAT_POSITIVE_INFINITY_KEY = floatKey(Float.POSITIVE_INFINITY);
+
+    private SortableBits() {
+        throw new Error("Not instantiable");
+    }
+
+    public static long doubleKey(final double value) {
+        final long bits = Double.doubleToRawLongBits(value);
+        return (bits ^ (bits >> 63) >>> 1) + (bits >>> 63);
+    }
+
+    /**
+     * Returns the value of the given key, 0 giving <code>0.0</code>.
+     */
+    public static double keyToDouble(final long key) {
+        final long shifted = key - (key >>> 63);
+        return Double.longBitsToDouble(shifted ^ (shifted >> 63) >>> 1);
+    }
+
+    public static int floatKey(final float value) {
+        final int bits = Float.floatToRawIntBits(value);
+        return (bits ^ (bits >> 31) >>> 1) + (bits >>> 31);
+    }
+
+    /**
+     * Returns the value of the given key, 0 giving <code>0.0f</code>.
+     */
+    public static float keyToFloat(final int key) {
+        final int shifted = key - (key >>> 31);
+        return Float.intBitsToFloat(shifted ^ (shifted >> 31) >>> 1);
+    }
+}
@@ -2,12 +2,10 @@ package com.github.javachat.doublerange;
 
 import com.github.javachat.common.BoundType;
 import com.github.javachat.common.Constants;
+import com.github.javachat.common.RangeFormatting;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.text.NumberFormat;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.Locale;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.function.DoublePredicate;
@@ -41,17 +39,6 @@ public class DoubleRange {
             + "the lower bound must be strictly less than the upper bound";
     static final String BOUNDARY_IS_NAN = "No boundary can be NaN";
 
-    // Formatting specifics
-    static final DecimalFormatSymbols TO_STRING_FORMAT_SYMBOLS;
-    static final NumberFormat TO_STRING_FORMAT;
-
-    static {
-        // Better to have consistent formatting symbols.
-        TO_STRING_FORMAT_SYMBOLS = DecimalFormatSymbols.getInstance(Locale.US);
-        TO_STRING_FORMAT_SYMBOLS.setInfinity(Constants.INFINITY_REPRESENTATION);
-        TO_STRING_FORMAT = new DecimalFormat("#0.0#####", TO_STRING_FORMAT_SYMBOLS);
-    }
-
     private final BoundType lowerBoundType;
     private final BoundType upperBoundType;
     private final double lowerBound;
@@ -157,10 +144,15 @@ public class DoubleRange {
             throw new NoSuchElementException("Given array is empty");
         }
 
-        // Create a sorted copy and use the first and last element.
-        double[] copy = Arrays.copyOf(values, values.length);
-        Arrays.sort(copy);
-        return DoubleRange.closed(copy[0], copy[copy.length - 1]);
+        // A single pass for the lowest and highest values, -0.0 being lower than 0.0 as with Arrays.sort(); a NaN
+        // makes an illegal bound
+        double lowest = values[0];
+        double highest = values[0];
+        for (final double value : values) {
+            lowest = Math.min(lowest, value);
+            highest = Math.max(highest, value);
+        }
+        return DoubleRange.closed(lowest, highest);
     }
 
     /**
@@ -207,10 +199,6 @@ public class DoubleRange {
         }
     }
 
-    private DoubleRange(DoubleCut lower, DoubleCut upper) {
-        this(lower.getValue(), lower.getBoundType(), upper.getValue(), upper.getBoundType());
-    }
-
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#hasLowerBound()">Guava JavaDoc</a>
      */
@@ -278,8 +266,12 @@ public class DoubleRange {
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#containsAll(java.lang.Iterable)">Guava JavaDoc</a>
      */
     public boolean containsAll(double... values) {
-        return Arrays.stream(values)
-                .allMatch(this::contains);
+        for (final double value : values) {
+            if (!contains(value)) {
+                return false;
+            }
+        }
+        return true;
     }
 
 
@@ -312,9 +304,14 @@ public class DoubleRange {
             throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
         }
 
+        // The greater lower bound and the smaller upper bound, this range winning ties
+        final boolean thisLower = lowerBound >= other.lowerBound;
+        final boolean thisUpper = upperBound <= other.upperBound;
         return new DoubleRange(
-                DoubleCut.max(this.toLowerCut(), other.toLowerCut()),
-                DoubleCut.min(this.toUpperCut(), other.toUpperCut())
+                thisLower ? lowerBound : other.lowerBound,
+                thisLower ? lowerBoundType : other.lowerBoundType,
+                thisUpper ? upperBound : other.upperBound,
+                thisUpper ? upperBoundType : other.upperBoundType
         );
     }
 
@@ -323,23 +320,73 @@ public class DoubleRange {
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#span(com.google.common.collect.Range)">Guava JavaDoc</a>
      */
     public DoubleRange span(DoubleRange other) {
+        // The smaller lower bound and the greater upper bound, this range winning ties
+        final boolean thisLower = lowerBound <= other.lowerBound;
+        final boolean thisUpper = upperBound >= other.upperBound;
         return new DoubleRange(
-                DoubleCut.min(this.toLowerCut(), other.toLowerCut()),
-                DoubleCut.max(this.toUpperCut(), other.toUpperCut())
+                thisLower ? lowerBound : other.lowerBound,
+                thisLower ? lowerBoundType : other.lowerBoundType,
+                thisUpper ? upperBound : other.upperBound,
+                thisUpper ? upperBoundType : other.upperBoundType
         );
     }
 
-    DoubleCut toLowerCut() {
-        return new DoubleCut(lowerBound, lowerBoundType);
+    /**
+     * The smallest value for which {@link #contains(double)} returns true, negative zero being reported as positive zero.
+     * <p>
+     * The result is greater than {@link #highestValue()} if the range contains no value at all.
+     */
+    double lowestValue() {
+        if (Double.isInfinite(lowerBound)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        return (lowerBoundType == BoundType.OPEN ? lowerBound : Math.nextUp(lowerBound)) + 0.0;
+    }
+
+    /**
+     * The greatest value for which {@link #contains(double)} returns true, negative zero being reported as positive zero.
+     */
+    double highestValue() {
+        if (Double.isInfinite(upperBound)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return (upperBoundType == BoundType.OPEN ? upperBound : Math.nextDown(upperBound)) + 0.0;
+    }
+
+    /**
+     * Whether {@link #contains(double)} returns true for {@link Double#NaN}, which is the case when no side is bounded.
+     */
+    boolean containsNaN() {
+        return Double.isInfinite(lowerBound) && Double.isInfinite(upperBound);
     }
 
-    DoubleCut toUpperCut() {
-        return new DoubleCut(upperBound, upperBoundType);
+    /**
+     * Builds a range which contains exactly the values from <code>lowest</code> to <code>highest</code>, both
+     * included, with the exception of {@link Double#NaN} which is contained if both values are infinite.
+     */
+    static DoubleRange ofValues(double lowest, double highest) {
+        if (lowest == Double.NEGATIVE_INFINITY && highest == Double.NEGATIVE_INFINITY) {
+            return new DoubleRange(Double.NEGATIVE_INFINITY, BoundType.OPEN, -Double.MAX_VALUE, BoundType.CLOSED);
+        }
+        if (lowest == Double.POSITIVE_INFINITY && highest == Double.POSITIVE_INFINITY) {
+            return new DoubleRange(Double.MAX_VALUE, BoundType.CLOSED, Double.POSITIVE_INFINITY, BoundType.OPEN);
+        }
+        if (lowest == highest) {
+            // open(x, x) is illegal; exclude a neighbouring value instead, without reaching an infinity
+            return lowest == -Double.MAX_VALUE
+                    ? new DoubleRange(lowest, BoundType.OPEN, Math.nextUp(highest), BoundType.CLOSED)
+                    : new DoubleRange(Math.nextDown(lowest), BoundType.CLOSED, highest, BoundType.OPEN);
+        }
+        return new DoubleRange(lowest, BoundType.OPEN, highest, BoundType.OPEN);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(lowerBound, lowerBoundType, upperBound, upperBoundType);
+        // Same as Objects.hash(lowerBound, lowerBoundType, upperBound, upperBoundType), without boxing
+        int result = 31 + Double.hashCode(lowerBound);
+        result = 31 * result + lowerBoundType.hashCode();
+        result = 31 * result + Double.hashCode(upperBound);
+        return 31 * result + upperBoundType.hashCode();
     }
 
 
@@ -366,13 +413,33 @@ public class DoubleRange {
      */
     @Override
     public String toString() {
-        @SuppressWarnings("StringBufferReplaceableByString")
-        final StringBuilder sb = new StringBuilder();
+        return appendTo(new StringBuilder(32)).toString();
+    }
 
-        sb.append(lowerBoundType == BoundType.CLOSED ? "[" : "(");
-        sb.append(TO_STRING_FORMAT.format(lowerBound)).append("..").append(TO_STRING_FORMAT.format(upperBound));
-        sb.append(upperBoundType == BoundType.CLOSED ? "]" : ")");
+    /**
+     * Appends the representation returned by {@link #toString()} to the given builder.
+     *
+     * @return The given builder
+     */
+    public StringBuilder appendTo(final StringBuilder sb) {
+        sb.append(lowerBoundType == BoundType.CLOSED ? '[' : '(');
+        RangeFormatting.appendDouble(sb, lowerBound);
+        sb.append("..");
+        RangeFormatting.appendDouble(sb, upperBound);
+        return sb.append(upperBoundType == BoundType.CLOSED ? ']' : ')');
+    }
 
-        return sb.toString();
+    /**
+     * Appends the representation returned by {@link #toString()} to the given appendable, through a builder
+     * private to the current thread unless the appendable is a {@link StringBuilder} itself.
+     *
+     * @return The given appendable
+     */
+    public <A extends Appendable> A appendTo(final A appendable) throws IOException {
+        if (appendable instanceof StringBuilder)
+            appendTo((StringBuilder) appendable);
+        else
+            appendable.append(appendTo(RangeFormatting.scratchBuilder()));
+        return appendable;
     }
 }
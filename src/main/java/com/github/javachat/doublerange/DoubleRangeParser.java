@@ -0,0 +1,59 @@
+package com.github.javachat.doublerange;
+
+import com.github.javachat.common.AsciiSequence;
+import com.github.javachat.common.RangeScanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Parser for the textual representation of {@link DoubleRange}s, as produced by {@link DoubleRange#toString()}.
+ * <p>
+ * Text is read in place, from a slice of a {@link CharSequence} or of a UTF-8 encoded {@link ByteBuffer}, so that the
+ * only object created per range is the range itself, save for the rare endpoints whose digits past the 19th decide
+ * the rounding. An instance is meant to be reused, and is therefore not thread-safe.
+ */
+public final class DoubleRangeParser {
+    private final RangeScanner scanner = new RangeScanner();
+    private final AsciiSequence bytes = new AsciiSequence();
+
+    /**
+     * @throws IllegalArgumentException the text is not a valid range
+     */
+    public DoubleRange parse(final CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses the range between <code>start</code> (included) and <code>end</code> (excluded) in the given text.
+     *
+     * @throws IllegalArgumentException the text is not a valid range
+     */
+    public DoubleRange parse(final CharSequence text, final int start, final int end) {
+        scanner.scan(text, start, end);
+        final double lowerBound = scanner.parseDouble(scanner.lowerStart(), scanner.lowerEnd());
+        final double upperBound = scanner.parseDouble(scanner.upperStart(), scanner.upperEnd());
+
+        return new DoubleRange(lowerBound, scanner.lowerBoundType(), upperBound, scanner.upperBoundType());
+    }
+
+    /**
+     * Parses the range held by the remaining bytes of the buffer, without changing its position.
+     *
+     * @throws IllegalArgumentException the text is not a valid range
+     */
+    public DoubleRange parse(final ByteBuffer buffer) {
+        return parse(bytes.wrap(buffer, buffer.position(), buffer.limit()), 0, buffer.remaining());
+    }
+
+    /**
+     * Parses a file holding one range per line, blank lines being ignored.
+     *
+     * @throws IllegalArgumentException a line is not a valid range
+     */
+    public void parseLines(final Path path, final Consumer<DoubleRange> consumer) throws IOException {
+        AsciiSequence.forEachLine(path, (text, start, end) -> consumer.accept(parse(text, start, end)));
+    }
+}
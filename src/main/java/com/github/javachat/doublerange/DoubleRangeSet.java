@@ -0,0 +1,552 @@
+package com.github.javachat.doublerange;
+
+import com.github.javachat.common.RangeEvent;
+import com.github.javachat.common.RangeEvents;
+import com.github.javachat.common.RangeStats;
+import com.github.javachat.common.SortableBits;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.DoublePredicate;
+
+/**
+ * An immutable set of double values, made of disjoint {@link DoubleRange}s.
+ * <p>
+ * This is the primitive counterpart of Guava's <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/ImmutableRangeSet.html">ImmutableRangeSet&lt;Double&gt;</a>.
+ * The set is always kept in canonical form: its ranges are sorted, disjoint and never adjacent, as doubles are
+ * discrete values. As a consequence, boolean combinations of range conditions can be expressed with
+ * {@link #union(DoubleRangeSet)}, {@link #intersection(DoubleRangeSet)}, {@link #difference(DoubleRangeSet)} and
+ * {@link #complement()}, normalized once, and then evaluated through the predicate returned by {@link #asPredicate()}.
+ * <p>
+ * The rules of {@link DoubleRange} apply: <code>-0.0</code> and <code>0.0</code> are the same value, and
+ * {@link Double#NaN} is only part of a set built from a range without any bound, or of the complement of a set which
+ * does not contain it.
+ * <p>
+ * Ranges are stored as the {@link SortableBits#doubleKey(double) sortable keys} of their lowest and highest values,
+ * so that lookups and combinations only compare longs, and consecutive doubles have consecutive keys: ranges are
+ * adjacent when a key follows the other, <code>-0.0</code> needs no special case, and no range can contain the key of
+ * a NaN since they lie beyond those of the infinities.
+ */
+public final class DoubleRangeSet {
+    /**
+     * Up to this number of ranges, {@link #asPredicate()} tests each range in turn instead of binary searching.
+     */
+    static final int UNROLLED_PREDICATE_MAX_SIZE = 4;
+
+    /**
+     * Below this number of values, {@link #parallelIndexOfAll} joins sequentially.
+     */
+    static final int PARALLEL_JOIN_THRESHOLD = 1 << 13;
+
+    static final String UNSORTED_VALUES = "values are not sorted: %s follows %s at index %d";
+    static final String LENGTH_MISMATCH = "%d values but %d indices";
+
+    private static final long NEGATIVE_INFINITY = SortableBits.DOUBLE_NEGATIVE_INFINITY_KEY;
+    private static final long POSITIVE_INFINITY = SortableBits.DOUBLE_POSITIVE_INFINITY_KEY;
+
+    private static final DoubleRangeSet EMPTY = new DoubleRangeSet(new long[0], new long[0], false);
+
+    private static final DoubleRangeSet ALL = new DoubleRangeSet(new long[]{NEGATIVE_INFINITY},
+            new long[]{POSITIVE_INFINITY}, true);
+
+    // Keys of the lowest and highest value of each range, both included
+    private final long[] lowestKeys;
+    private final long[] highestKeys;
+    private final boolean containsNaN;
+    // Records lookups when this set is monitored, null otherwise
+    private final RangeStats stats;
+
+    public static DoubleRangeSet empty() {
+        return EMPTY;
+    }
+
+    public static DoubleRangeSet all() {
+        return ALL;
+    }
+
+    /**
+     * Builds the set of the values contained in at least one of the given ranges.
+     */
+    public static DoubleRangeSet of(final DoubleRange... ranges) {
+        return copyOf(Arrays.asList(ranges));
+    }
+
+    /**
+     * Builds the set of the values contained in at least one of the given ranges.
+     */
+    public static DoubleRangeSet copyOf(final Iterable<DoubleRange> ranges) {
+        long[] lowest = new long[16];
+        long[] highest = new long[16];
+        int size = 0;
+        boolean containsNaN = false;
+
+        for (final DoubleRange range : ranges) {
+            containsNaN |= range.containsNaN();
+            final double low = range.lowestValue();
+            final double high = range.highestValue();
+            if (low > high)
+                continue;
+            if (size == lowest.length) {
+                lowest = Arrays.copyOf(lowest, size * 2);
+                highest = Arrays.copyOf(highest, size * 2);
+            }
+            lowest[size] = SortableBits.doubleKey(low);
+            highest[size] = SortableBits.doubleKey(high);
+            size++;
+        }
+
+        if (size == 0)
+            return containsNaN ? new DoubleRangeSet(new long[0], new long[0], true) : EMPTY;
+
+        final RangeEvent event = RangeEvents.start();
+        // Lowest and highest values may be sorted independently, see IntRangeSet#union(int[], int[], int)
+        Arrays.sort(lowest, 0, size);
+        Arrays.sort(highest, 0, size);
+
+        final Builder builder = new Builder(size);
+        for (int i = 0; i < size; i++)
+            builder.add(lowest[i], highest[i]);
+
+        return committed("copyOf", size, 0, builder.build(containsNaN), event);
+    }
+
+    private DoubleRangeSet(final long[] lowestKeys, final long[] highestKeys, final boolean containsNaN) {
+        this(lowestKeys, highestKeys, containsNaN, null);
+    }
+
+    private DoubleRangeSet(final long[] lowestKeys, final long[] highestKeys, final boolean containsNaN,
+                           final RangeStats stats) {
+        this.lowestKeys = lowestKeys;
+        this.highestKeys = highestKeys;
+        this.containsNaN = containsNaN;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns a copy of this set, sharing its arrays, whose lookups are recorded in the given statistics; its size and
+     * footprint are recorded at once.
+     *
+     * @see RangeStats
+     */
+    public DoubleRangeSet monitored(final RangeStats stats) {
+        stats.recordShape(size(), footprintBytes());
+        return new DoubleRangeSet(lowestKeys, highestKeys, containsNaN, stats);
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by this set.
+     */
+    public long footprintBytes() {
+        return 24 + 2 * RangeStats.arrayBytes(size(), 8);
+    }
+
+    /**
+     * Returns the number of disjoint ranges of this set.
+     */
+    public int size() {
+        return lowestKeys.length;
+    }
+
+    public boolean isEmpty() {
+        return lowestKeys.length == 0 && !containsNaN;
+    }
+
+    public boolean containsNaN() {
+        return containsNaN;
+    }
+
+    /**
+     * Returns the lowest value of the range at the given index, in ascending order.
+     */
+    public double lowestValue(final int index) {
+        return SortableBits.keyToDouble(lowestKeys[index]);
+    }
+
+    /**
+     * Returns the highest value of the range at the given index, in ascending order.
+     */
+    public double highestValue(final int index) {
+        return SortableBits.keyToDouble(highestKeys[index]);
+    }
+
+    /**
+     * Returns the range at the given index, in ascending order.
+     * <p>
+     * A range going from one infinity to the other always contains {@link Double#NaN}, whether or not this set
+     * does.
+     */
+    public DoubleRange get(final int index) {
+        return DoubleRange.ofValues(lowestValue(index), highestValue(index));
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#asRanges()">Guava JavaDoc</a>
+     */
+    public List<DoubleRange> asRanges() {
+        return new RangeList();
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#contains(C)">Guava JavaDoc</a>
+     */
+    public boolean contains(final double value) {
+        return value != value ? containsNaN : indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index of the range containing the given value, or -1 if there is no such range (which is always
+     * the case for {@link Double#NaN}).
+     */
+    public int indexOf(final double value) {
+        final long key = SortableBits.doubleKey(value);
+        if (stats != null)
+            return monitoredIndexOf(key);
+        int index = Arrays.binarySearch(lowestKeys, key);
+        if (index >= 0)
+            return index;
+
+        // Last range starting below the value
+        index = -index - 2;
+        return index >= 0 && key <= highestKeys[index] ? index : -1;
+    }
+
+    /**
+     * Same as {@link #indexOf(double)}, counting the steps of the binary search.
+     */
+    private int monitoredIndexOf(final long key) {
+        int steps = 0;
+        int low = 0;
+        int high = lowestKeys.length;
+        while (low < high) {
+            steps++;
+            final int middle = (low + high) >>> 1;
+            if (lowestKeys[middle] <= key)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        stats.recordLookup(steps);
+
+        // Last range starting at or below the value
+        final int index = low - 1;
+        return index >= 0 && key <= highestKeys[index] ? index : -1;
+    }
+
+    /**
+     * Stores in <code>indices[i]</code> the result of {@link #indexOf(double)} for <code>sortedValues[i]</code>, in a
+     * single merge pass over the values and the ranges. Values equal to {@link Double#NaN},
+     * which {@link Arrays#sort(double[])} places last, get -1.
+     *
+     * @throws IllegalArgumentException the values are not sorted, or the arrays have different lengths
+     */
+    public void indexOfAll(final double[] sortedValues, final int[] indices) {
+        checkJoin(sortedValues.length, indices.length);
+        final RangeEvent event = RangeEvents.start();
+        indexOfAll(sortedValues, 0, sortedValues.length, 0, size(), indices);
+        RangeEvents.commit("DoubleRangeSet", "indexOfAll", size(), sortedValues.length, indices.length, event);
+    }
+
+    /**
+     * Same as {@link #indexOfAll(double[], int[])}, the values being split in halves recursively and the ranges at the
+     * middle values, so that each half is joined with only the ranges it may fall into.
+     */
+    public void parallelIndexOfAll(final double[] sortedValues, final int[] indices) {
+        checkJoin(sortedValues.length, indices.length);
+        final RangeEvent event = RangeEvents.start();
+        ForkJoinPool.commonPool().invoke(
+                new IndexOfAllTask(sortedValues, 0, sortedValues.length, 0, size(), indices));
+        RangeEvents.commit("DoubleRangeSet", "parallelIndexOfAll", size(), sortedValues.length, indices.length, event);
+    }
+
+    private static void checkJoin(final int valueCount, final int indexCount) {
+        if (valueCount != indexCount)
+            throw new IllegalArgumentException(String.format(LENGTH_MISMATCH, valueCount, indexCount));
+    }
+
+    private void indexOfAll(final double[] values, final int from, final int to,
+                            final int rangeFrom, final int rangeTo, final int[] indices) {
+        int range = rangeFrom;
+        for (int i = from; i < to; i++) {
+            final double value = values[i];
+            if (i > 0 && value < values[i - 1])
+                throw new IllegalArgumentException(String.format(UNSORTED_VALUES, value, values[i - 1], i));
+
+            final long key = joinKey(value);
+            while (range < rangeTo && highestKeys[range] < key)
+                range++;
+            indices[i] = range < rangeTo && lowestKeys[range] <= key ? range : -1;
+        }
+    }
+
+    /**
+     * The key of a value of a sorted array: {@link Arrays#sort(double[])} places all NaNs last, whatever their sign.
+     */
+    private static long joinKey(final double value) {
+        return value != value ? Long.MAX_VALUE : SortableBits.doubleKey(value);
+    }
+
+    /**
+     * Joins a slice of the values with a slice of the ranges which holds all those that may contain them.
+     */
+    private final class IndexOfAllTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] values;
+        private final int from;
+        private final int to;
+        private final int rangeFrom;
+        private final int rangeTo;
+        private final int[] indices;
+
+        IndexOfAllTask(final double[] values, final int from, final int to,
+                       final int rangeFrom, final int rangeTo, final int[] indices) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.rangeFrom = rangeFrom;
+            this.rangeTo = rangeTo;
+            this.indices = indices;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_JOIN_THRESHOLD) {
+                indexOfAll(values, from, to, rangeFrom, rangeTo, indices);
+                return;
+            }
+
+            // The first range not entirely below the pivot is the only one which may hold values of both halves
+            final int middle = (from + to) >>> 1;
+            final long pivot = joinKey(values[middle]);
+            int low = rangeFrom;
+            int high = rangeTo;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (highestKeys[mid] < pivot)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+
+            invokeAll(new IndexOfAllTask(values, from, middle, rangeFrom, Math.min(low + 1, rangeTo), indices),
+                    new IndexOfAllTask(values, middle, to, low, rangeTo, indices));
+        }
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#encloses(com.google.common.collect.Range)">Guava JavaDoc</a>
+     */
+    public boolean encloses(final DoubleRange range) {
+        if (range.containsNaN() && !containsNaN)
+            return false;
+
+        final double low = range.lowestValue();
+        final double high = range.highestValue();
+        if (low > high)
+            return true;
+
+        final int index = indexOf(low);
+        return index >= 0 && SortableBits.doubleKey(high) <= highestKeys[index];
+    }
+
+    public DoubleRangeSet union(final DoubleRangeSet other) {
+        final RangeEvent event = RangeEvents.start();
+        final Builder builder = new Builder(size() + other.size());
+        int i = 0;
+        int j = 0;
+
+        while (i < size() || j < other.size()) {
+            if (j == other.size() || i < size() && lowestKeys[i] <= other.lowestKeys[j]) {
+                builder.add(lowestKeys[i], highestKeys[i]);
+                i++;
+            } else {
+                builder.add(other.lowestKeys[j], other.highestKeys[j]);
+                j++;
+            }
+        }
+
+        return committed("union", size(), other.size(), builder.build(containsNaN || other.containsNaN), event);
+    }
+
+    public DoubleRangeSet intersection(final DoubleRangeSet other) {
+        final RangeEvent event = RangeEvents.start();
+        final Builder builder = new Builder(Math.max(size(), other.size()));
+        int i = 0;
+        int j = 0;
+
+        while (i < size() && j < other.size()) {
+            final long low = Math.max(lowestKeys[i], other.lowestKeys[j]);
+            final long high = Math.min(highestKeys[i], other.highestKeys[j]);
+            if (low <= high)
+                builder.add(low, high);
+            if (highestKeys[i] < other.highestKeys[j])
+                i++;
+            else
+                j++;
+        }
+
+        return committed("intersection", size(), other.size(), builder.build(containsNaN && other.containsNaN), event);
+    }
+
+    public DoubleRangeSet difference(final DoubleRangeSet other) {
+        return intersection(other.complement());
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#complement()">Guava JavaDoc</a>
+     */
+    public DoubleRangeSet complement() {
+        final RangeEvent event = RangeEvents.start();
+        final Builder builder = new Builder(size() + 1);
+        long next = NEGATIVE_INFINITY;
+
+        for (int i = 0; i < size(); i++) {
+            if (lowestKeys[i] > next)
+                builder.add(next, lowestKeys[i] - 1);
+            if (highestKeys[i] == POSITIVE_INFINITY)
+                return committed("complement", size(), 0, builder.build(!containsNaN), event);
+            next = highestKeys[i] + 1;
+        }
+        builder.add(next, POSITIVE_INFINITY);
+
+        return committed("complement", size(), 0, builder.build(!containsNaN), event);
+    }
+
+    /**
+     * Returns a predicate testing membership in this set.
+     * <p>
+     * The predicate is specialized according to the shape of the set: small sets are tested with a chain of
+     * comparisons against constants, larger ones with a binary search over the keys.
+     */
+    public DoublePredicate asPredicate() {
+        final int unrolled = Math.min(size(), UNROLLED_PREDICATE_MAX_SIZE);
+        final double[] low = new double[unrolled];
+        final double[] high = new double[unrolled];
+        for (int i = 0; i < unrolled; i++) {
+            low[i] = lowestValue(i);
+            high[i] = highestValue(i);
+        }
+        // Comparisons with NaN are always false, so that each predicate tests it first
+        final boolean nan = containsNaN;
+
+        switch (size()) {
+            case 0:
+                return value -> value != value && nan;
+            case 1: {
+                final double l0 = low[0], h0 = high[0];
+                return value -> value != value ? nan : value >= l0 && value <= h0;
+            }
+            case 2: {
+                final double l0 = low[0], h0 = high[0];
+                final double l1 = low[1], h1 = high[1];
+                return value -> value != value ? nan : value >= l0 && value <= h0
+                        || value >= l1 && value <= h1;
+            }
+            case 3: {
+                final double l0 = low[0], h0 = high[0];
+                final double l1 = low[1], h1 = high[1];
+                final double l2 = low[2], h2 = high[2];
+                return value -> value != value ? nan : value >= l0 && value <= h0
+                        || value >= l1 && value <= h1
+                        || value >= l2 && value <= h2;
+            }
+            case 4: {
+                final double l0 = low[0], h0 = high[0];
+                final double l1 = low[1], h1 = high[1];
+                final double l2 = low[2], h2 = high[2];
+                final double l3 = low[3], h3 = high[3];
+                return value -> value != value ? nan : value >= l0 && value <= h0
+                        || value >= l1 && value <= h1
+                        || value >= l2 && value <= h2
+                        || value >= l3 && value <= h3;
+            }
+            default:
+                return value -> value != value ? nan : indexOf(value) >= 0;
+        }
+    }
+
+    /**
+     * Emits the event of an operation which produced the given set, and returns it.
+     */
+    private static DoubleRangeSet committed(final String operation, final int inputSize, final int otherInputSize,
+                                            final DoubleRangeSet result, final RangeEvent event) {
+        RangeEvents.commit("DoubleRangeSet", operation, inputSize, otherInputSize, result.size(), event);
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(lowestKeys) + Arrays.hashCode(highestKeys))
+                + Boolean.hashCode(containsNaN);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof DoubleRangeSet)) // also takes care of obj == null
+            return false;
+        final DoubleRangeSet other = (DoubleRangeSet) obj;
+        return containsNaN == other.containsNaN
+                && Arrays.equals(lowestKeys, other.lowestKeys)
+                && Arrays.equals(highestKeys, other.highestKeys);
+    }
+
+    @Override
+    public String toString() {
+        return asRanges().toString();
+    }
+
+    private final class RangeList extends AbstractList<DoubleRange> implements RandomAccess {
+        @Override
+        public DoubleRange get(final int index) {
+            return DoubleRangeSet.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return DoubleRangeSet.this.size();
+        }
+    }
+
+    /**
+     * Accumulates ranges given in ascending order of their lowest value, coalescing the ones which overlap or are
+     * adjacent. Ranges are given as the keys of their lowest and highest values.
+     */
+    static final class Builder {
+        private long[] lowest;
+        private long[] highest;
+        private int size;
+
+        Builder(final int expectedSize) {
+            lowest = new long[Math.max(expectedSize, 1)];
+            highest = new long[lowest.length];
+        }
+
+        void add(final long low, final long high) {
+            // Keys never reach Long.MAX_VALUE, so the next key up cannot overflow
+            if (size > 0 && low <= highest[size - 1] + 1) {
+                if (high > highest[size - 1])
+                    highest[size - 1] = high;
+                return;
+            }
+            if (size == lowest.length) {
+                lowest = Arrays.copyOf(lowest, size * 2);
+                highest = Arrays.copyOf(highest, size * 2);
+            }
+            lowest[size] = low;
+            highest[size] = high;
+            size++;
+        }
+
+        DoubleRangeSet build(final boolean containsNaN) {
+            if (size == 0 && !containsNaN)
+                return EMPTY;
+            return new DoubleRangeSet(Arrays.copyOf(lowest, size), Arrays.copyOf(highest, size), containsNaN);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.github.javachat.doublerange;
+
+import com.github.javachat.common.BlockMatch;
+
+import java.util.Arrays;
+
+/**
+ * A zone map: the lowest and highest value of each block of a sequence of doubles, to skip blocks when looking up
+ * the values of a range.
+ * <p>
+ * The sequence, such as an array or a mapped file, is split in blocks of {@link #blockSize()} values, the last one
+ * possibly shorter. The {@link #summary(int) summary} of a block is the smallest range enclosing its values. A
+ * query then {@link #match(int, DoubleRange) matches} a block with two comparisons: the block is skipped if its summary
+ * does not intersect the query range, accepted as a whole if the query range encloses it, and scanned otherwise.
+ * When the values are mostly ordered, as timestamps are, nearly every block is skipped or accepted.
+ * <p>
+ * The map is immutable and takes 2 doubles per block; it does not keep the values it summarizes.
+ */
+public final class DoubleZoneMap {
+    static final String ILLEGAL_BLOCK_SIZE = "block size must be positive: %d";
+    static final String SIZE_MISMATCH = "zone map of %d values used for %d values";
+
+    private final int blockSize;
+    private final long size;
+    // Lowest and highest value of each block, both included, NaN aside; a block of NaNs only has a lowest value
+    // greater than its highest one
+    private final double[] lowestValues;
+    private final double[] highestValues;
+    // Bit i % 64 of word i / 64 is set if block i contains NaN
+    private final long[] nanBlocks;
+
+    /**
+     * Summarizes the values of the array.
+     *
+     * @throws IllegalArgumentException the block size is not positive
+     */
+    public static DoubleZoneMap of(final double[] values, final int blockSize) {
+        final Builder builder = new Builder(blockSize);
+        for (final double value : values)
+            builder.add(value);
+        return builder.build();
+    }
+
+    /**
+     * Returns a builder to which the values of the sequence are added in order.
+     *
+     * @throws IllegalArgumentException the block size is not positive
+     */
+    public static Builder builder(final int blockSize) {
+        return new Builder(blockSize);
+    }
+
+    private DoubleZoneMap(final int blockSize, final long size, final double[] lowestValues,
+                          final double[] highestValues, final long[] nanBlocks) {
+        this.blockSize = blockSize;
+        this.size = size;
+        this.lowestValues = lowestValues;
+        this.highestValues = highestValues;
+        this.nanBlocks = nanBlocks;
+    }
+
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the number of values summarized.
+     */
+    public long size() {
+        return size;
+    }
+
+    public int blockCount() {
+        return lowestValues.length;
+    }
+
+    /**
+     * Returns the smallest range enclosing the values of the block, NaN aside.
+     */
+    public DoubleRange summary(final int block) {
+        final double lowest = lowestValues[block];
+        final double highest = highestValues[block];
+        if (lowest > highest)
+            return DoubleRange.closedOpen(0.0, 0.0);
+        return DoubleRange.ofValues(lowest, highest);
+    }
+
+    /**
+     * Tells whether the values of the block are in the query range: none of them when the summary of the block is
+     * not connected to the query range, or only touches it; all of them when the query range encloses the summary.
+     * <p>
+     * This is equivalent to testing the summary with {@link DoubleRange#isConnected(DoubleRange)} and
+     * {@link DoubleRange#encloses(DoubleRange)}, without building it.
+     */
+    public BlockMatch match(final int block, final DoubleRange query) {
+        // Only a range without any bound contains NaN, and it encloses any block
+        if (query.containsNaN())
+            return BlockMatch.ALL;
+        final double low = query.lowestValue();
+        final double high = query.highestValue();
+        final double lowest = lowestValues[block];
+        final double highest = highestValues[block];
+        if (low > high || lowest > highest || highest < low || lowest > high)
+            return BlockMatch.NONE;
+        final boolean containsNaN = (nanBlocks[block >>> 6] & 1L << block) != 0;
+        return !containsNaN && low <= lowest && highest <= high ? BlockMatch.ALL : BlockMatch.SOME;
+    }
+
+    /**
+     * Counts the values of the array in the query range, scanning only the blocks partly in it.
+     *
+     * @throws IllegalArgumentException this map does not summarize an array of this size
+     */
+    public long count(final double[] values, final DoubleRange query) {
+        checkSize(values.length);
+        long count = 0;
+        for (int block = 0; block < blockCount(); block++) {
+            final int from = block * blockSize;
+            final int to = (int) Math.min((long) from + blockSize, values.length);
+            switch (match(block, query)) {
+                case ALL:
+                    count += to - from;
+                    break;
+                case SOME:
+                    for (int i = from; i < to; i++) {
+                        if (query.contains(values[i]))
+                            count++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the indices of the values of the array in the query range, in ascending order, scanning only the blocks
+     * partly in it.
+     *
+     * @throws IllegalArgumentException this map does not summarize an array of this size
+     */
+    public int[] select(final double[] values, final DoubleRange query) {
+        checkSize(values.length);
+        int[] indices = new int[16];
+        int count = 0;
+        for (int block = 0; block < blockCount(); block++) {
+            final int from = block * blockSize;
+            final int to = (int) Math.min((long) from + blockSize, values.length);
+            final BlockMatch match = match(block, query);
+            if (match == BlockMatch.NONE)
+                continue;
+            if (count + blockSize > indices.length)
+                indices = Arrays.copyOf(indices, Math.max(2 * indices.length, count + blockSize));
+            for (int i = from; i < to; i++) {
+                if (match == BlockMatch.ALL || query.contains(values[i]))
+                    indices[count++] = i;
+            }
+        }
+        return Arrays.copyOf(indices, count);
+    }
+
+    private void checkSize(final long valueCount) {
+        if (valueCount != size)
+            throw new IllegalArgumentException(String.format(SIZE_MISMATCH, size, valueCount));
+    }
+
+    @Override
+    public String toString() {
+        return "zone map of " + blockCount() + " blocks of " + blockSize + " values";
+    }
+
+    /**
+     * Summarizes values added in order, block by block.
+     */
+    public static final class Builder {
+        private final int blockSize;
+        private double[] lowest = new double[16];
+        private double[] highest = new double[16];
+        private long[] nanBlocks = new long[1];
+        private long size;
+        private int blockCount;
+        // Number of values of the last block, 0 when it is full
+        private int inBlock;
+
+        private Builder(final int blockSize) {
+            if (blockSize <= 0)
+                throw new IllegalArgumentException(String.format(ILLEGAL_BLOCK_SIZE, blockSize));
+            this.blockSize = blockSize;
+        }
+
+        public Builder add(final double value) {
+            if (inBlock == 0) {
+                if (blockCount == lowest.length) {
+                    lowest = Arrays.copyOf(lowest, blockCount * 2);
+                    highest = Arrays.copyOf(highest, blockCount * 2);
+                    nanBlocks = Arrays.copyOf(nanBlocks, (blockCount * 2 + 63) / 64);
+                }
+                lowest[blockCount] = Double.POSITIVE_INFINITY;
+                highest[blockCount] = Double.NEGATIVE_INFINITY;
+                blockCount++;
+            }
+            final int block = blockCount - 1;
+            if (value != value) {
+                nanBlocks[block >>> 6] |= 1L << block;
+            } else {
+                if (value < lowest[block])
+                    lowest[block] = value;
+                if (value > highest[block])
+                    highest[block] = value;
+            }
+            size++;
+            if (++inBlock == blockSize)
+                inBlock = 0;
+            return this;
+        }
+
+        public DoubleZoneMap build() {
+            return new DoubleZoneMap(blockSize, size, Arrays.copyOf(lowest, blockCount),
+                    Arrays.copyOf(highest, blockCount),
+                    Arrays.copyOf(nanBlocks, (blockCount + 63) / 64));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.github.javachat.doublerange;
+
+import com.github.javachat.common.BoundType;
+import com.github.javachat.common.Constants;
+
+import java.util.Objects;
+
+/**
+ * A range of double values which can be re-pointed at new endpoints.
+ * <p>
+ * This is a flyweight for loops which would otherwise build a transient {@link DoubleRange} per iteration: the
+ * queries follow the semantics of {@link DoubleRange}, including those of infinite endpoints and NaN, but evaluate the
+ * bounds inline, and {@link #set(double, BoundType, double, BoundType)} validates the endpoints without creating any
+ * object unless they are invalid. {@link #freeze()} returns the equivalent immutable range when one has to be kept.
+ * <p>
+ * Instances are not thread-safe, and do not override {@link #equals(Object)} and {@link #hashCode()} as their value
+ * changes over time.
+ */
+public final class MutableDoubleRange {
+    private BoundType lowerBoundType = BoundType.OPEN;
+    private BoundType upperBoundType = BoundType.OPEN;
+    private double lowerBound = Double.NEGATIVE_INFINITY;
+    private double upperBound = Double.POSITIVE_INFINITY;
+
+    /**
+     * Creates a range initially spanning all values, as {@link DoubleRange#all()}.
+     */
+    public MutableDoubleRange() {
+    }
+
+    /**
+     * Validates and stores the endpoints, as {@link DoubleRange#range(double, BoundType, double, BoundType)}. The
+     * range is left unchanged if they are invalid.
+     */
+    public MutableDoubleRange set(final double lowerBound, final BoundType lowerBoundType,
+                                  final double upperBound, final BoundType upperBoundType) {
+        if (Double.isNaN(lowerBound) || Double.isNaN(upperBound))
+            throw new IllegalArgumentException(DoubleRange.BOUNDARY_IS_NAN);
+
+        if (Double.compare(lowerBound, upperBound) > 0)
+            throw new IllegalArgumentException(String.format(DoubleRange.ILLEGAL_BOUND, lowerBound, upperBound));
+
+        if (lowerBound == upperBound
+                && lowerBoundType == BoundType.OPEN
+                && lowerBoundType == upperBoundType)
+            throw new IllegalArgumentException(DoubleRange.ILLEGAL_OPEN_RANGE);
+
+        this.lowerBoundType = Objects.requireNonNull(lowerBoundType);
+        this.upperBoundType = Objects.requireNonNull(upperBoundType);
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        return this;
+    }
+
+    /**
+     * @see DoubleRange#open(double, double)
+     */
+    public MutableDoubleRange setOpen(final double lowerBound, final double upperBound) {
+        return set(lowerBound, BoundType.OPEN, upperBound, BoundType.OPEN);
+    }
+
+    /**
+     * @see DoubleRange#closed(double, double)
+     */
+    public MutableDoubleRange setClosed(final double lowerBound, final double upperBound) {
+        return set(lowerBound, BoundType.CLOSED, upperBound, BoundType.CLOSED);
+    }
+
+    /**
+     * @see DoubleRange#upTo(double, BoundType)
+     */
+    public MutableDoubleRange setUpTo(final double endpoint, final BoundType boundType) {
+        return set(Double.NEGATIVE_INFINITY, BoundType.OPEN, endpoint, boundType);
+    }
+
+    /**
+     * @see DoubleRange#downTo(double, BoundType)
+     */
+    public MutableDoubleRange setDownTo(final double endpoint, final BoundType boundType) {
+        return set(endpoint, boundType, Double.POSITIVE_INFINITY, BoundType.OPEN);
+    }
+
+    /**
+     * @see DoubleRange#all()
+     */
+    public MutableDoubleRange setAll() {
+        return set(Double.NEGATIVE_INFINITY, BoundType.OPEN, Double.POSITIVE_INFINITY, BoundType.OPEN);
+    }
+
+    public MutableDoubleRange set(final DoubleRange range) {
+        return set(range.lowerEndpoint(), range.lowerBoundType(), range.upperEndpoint(), range.upperBoundType());
+    }
+
+    public MutableDoubleRange set(final MutableDoubleRange range) {
+        return set(range.lowerBound, range.lowerBoundType, range.upperBound, range.upperBoundType);
+    }
+
+    public boolean hasLowerBound() {
+        return Double.isFinite(lowerBound);
+    }
+
+    public double lowerEndpoint() {
+        return lowerBound;
+    }
+
+    public BoundType lowerBoundType() {
+        return lowerBoundType;
+    }
+
+    public boolean hasUpperBound() {
+        return Double.isFinite(upperBound);
+    }
+
+    public double upperEndpoint() {
+        return upperBound;
+    }
+
+    public BoundType upperBoundType() {
+        return upperBoundType;
+    }
+
+    public boolean isEmpty() {
+        return lowerBound == upperBound;
+    }
+
+    public boolean contains(final double value) {
+        return lowerCheck(value) && upperCheck(value);
+    }
+
+    /**
+     * @see DoubleRange#encloses(DoubleRange)
+     */
+    public boolean encloses(final DoubleRange other) {
+        return encloses(other.lowerEndpoint(), other.lowerBoundType(), other.upperEndpoint(), other.upperBoundType());
+    }
+
+    public boolean encloses(final MutableDoubleRange other) {
+        return encloses(other.lowerBound, other.lowerBoundType, other.upperBound, other.upperBoundType);
+    }
+
+    /**
+     * @see DoubleRange#isConnected(DoubleRange)
+     */
+    public boolean isConnected(final DoubleRange other) {
+        return isConnected(other.lowerEndpoint(), other.upperEndpoint());
+    }
+
+    public boolean isConnected(final MutableDoubleRange other) {
+        return isConnected(other.lowerBound, other.upperBound);
+    }
+
+    /**
+     * Stores the intersection of this range and the given one into <code>result</code>, which may be this range.
+     *
+     * @return <code>result</code>
+     * @see DoubleRange#intersection(DoubleRange)
+     */
+    public MutableDoubleRange intersection(final DoubleRange other, final MutableDoubleRange result) {
+        if (!isConnected(other))
+            throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
+
+        return intersection(other.lowerEndpoint(), other.lowerBoundType(),
+                other.upperEndpoint(), other.upperBoundType(), result);
+    }
+
+    public MutableDoubleRange intersection(final MutableDoubleRange other, final MutableDoubleRange result) {
+        if (!isConnected(other))
+            throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
+
+        return intersection(other.lowerBound, other.lowerBoundType, other.upperBound, other.upperBoundType, result);
+    }
+
+    /**
+     * Returns an immutable copy of the current value of this range.
+     */
+    public DoubleRange freeze() {
+        return new DoubleRange(lowerBound, lowerBoundType, upperBound, upperBoundType);
+    }
+
+    @Override
+    public String toString() {
+        return freeze().toString();
+    }
+
+    private boolean lowerCheck(final double value) {
+        if (Double.isInfinite(lowerBound))
+            return true;
+        return lowerBoundType == BoundType.OPEN ? value >= lowerBound : value > lowerBound;
+    }
+
+    private boolean upperCheck(final double value) {
+        if (Double.isInfinite(upperBound))
+            return true;
+        return upperBoundType == BoundType.OPEN ? value <= upperBound : value < upperBound;
+    }
+
+    private boolean encloses(final double otherLower, final BoundType otherLowerType,
+                             final double otherUpper, final BoundType otherUpperType) {
+        // Same as DoubleRange: enclosure is reflexive
+        final boolean isEqual = lowerBound == otherLower
+                && upperBound == otherUpper
+                && lowerBoundType == otherLowerType
+                && upperBoundType == otherUpperType;
+
+        return isEqual
+                || (lowerCheck(otherLower)
+                && lowerCheck(otherUpper)
+                && upperCheck(otherLower)
+                && upperCheck(otherUpper));
+    }
+
+    private boolean isConnected(final double otherLower, final double otherUpper) {
+        return (lowerCheck(otherUpper) && upperCheck(otherUpper))
+                || (upperCheck(otherLower) && lowerCheck(otherLower));
+    }
+
+    /**
+     * Picks the greater lower cut and the smaller upper cut, this range winning ties as in
+     * {@link DoubleRange#intersection(DoubleRange)}.
+     */
+    private MutableDoubleRange intersection(final double otherLower, final BoundType otherLowerType,
+                                            final double otherUpper, final BoundType otherUpperType,
+                                            final MutableDoubleRange result) {
+        final boolean thisLower = lowerBound >= otherLower;
+        final boolean thisUpper = upperBound <= otherUpper;
+
+        return result.set(
+                thisLower ? lowerBound : otherLower,
+                thisLower ? lowerBoundType : otherLowerType,
+                thisUpper ? upperBound : otherUpper,
+                thisUpper ? upperBoundType : otherUpperType);
+    }
+}
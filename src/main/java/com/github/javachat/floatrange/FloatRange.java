@@ -2,12 +2,10 @@ package com.github.javachat.floatrange;
 
 import com.github.javachat.common.BoundType;
 import com.github.javachat.common.Constants;
+import com.github.javachat.common.RangeFormatting;
 
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.text.NumberFormat;
+import java.io.IOException;
 import java.util.Arrays;
-import java.util.Locale;
 import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.function.DoublePredicate;
@@ -42,17 +40,6 @@ public class FloatRange {
             + "the lower bound must be strictly less than the upper bound";
     static final String BOUNDARY_IS_NAN = "No boundary can be NaN";
 
-    // Formatting specifics
-    static final DecimalFormatSymbols TO_STRING_FORMAT_SYMBOLS;
-    static final NumberFormat TO_STRING_FORMAT;
-
-    static {
-        // Better to have consistent formatting symbols.
-        TO_STRING_FORMAT_SYMBOLS = DecimalFormatSymbols.getInstance(Locale.US);
-        TO_STRING_FORMAT_SYMBOLS.setInfinity(Constants.INFINITY_REPRESENTATION);
-        TO_STRING_FORMAT = new DecimalFormat("#0.0#####", TO_STRING_FORMAT_SYMBOLS);
-    }
-
     private final BoundType lowerBoundType;
     private final BoundType upperBoundType;
     private final float lowerBound;
@@ -158,10 +145,15 @@ public class FloatRange {
             throw new NoSuchElementException("Given array is empty");
         }
 
-        // Create a sorted copy and use the first and last element.
-        float[] copy = Arrays.copyOf(values, values.length);
-        Arrays.sort(copy);
-        return FloatRange.closed(copy[0], copy[copy.length - 1]);
+        // A single pass for the lowest and highest values, -0.0 being lower than 0.0 as with Arrays.sort(); a NaN
+        // makes an illegal bound
+        float lowest = values[0];
+        float highest = values[0];
+        for (final float value : values) {
+            lowest = Math.min(lowest, value);
+            highest = Math.max(highest, value);
+        }
+        return FloatRange.closed(lowest, highest);
     }
 
     /**
@@ -208,10 +200,6 @@ public class FloatRange {
         }
     }
 
-    private FloatRange(FloatCut lower, FloatCut upper) {
-        this(lower.getValue(), lower.getBoundType(), upper.getValue(), upper.getBoundType());
-    }
-
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#hasLowerBound()">Guava JavaDoc</a>
      */
@@ -279,9 +267,12 @@ public class FloatRange {
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#containsAll(java.lang.Iterable)">Guava JavaDoc</a>
      */
     public boolean containsAll(float... values) {
-        return IntStream.range(0, values.length)
-                .mapToObj(idx -> values[idx]) // Boxing necessary, there is no FloatStream, so use float -> Float -> float instead
-                .allMatch(this::contains);
+        for (final float value : values) {
+            if (!contains(value)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -313,9 +304,14 @@ public class FloatRange {
             throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
         }
 
+        // The greater lower bound and the smaller upper bound, this range winning ties
+        final boolean thisLower = lowerBound >= other.lowerBound;
+        final boolean thisUpper = upperBound <= other.upperBound;
         return new FloatRange(
-                FloatCut.max(this.toLowerCut(), other.toLowerCut()),
-                FloatCut.min(this.toUpperCut(), other.toUpperCut())
+                thisLower ? lowerBound : other.lowerBound,
+                thisLower ? lowerBoundType : other.lowerBoundType,
+                thisUpper ? upperBound : other.upperBound,
+                thisUpper ? upperBoundType : other.upperBoundType
         );
     }
 
@@ -324,23 +320,73 @@ public class FloatRange {
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#span(com.google.common.collect.Range)">Guava JavaDoc</a>
      */
     public FloatRange span(FloatRange other) {
+        // The smaller lower bound and the greater upper bound, this range winning ties
+        final boolean thisLower = lowerBound <= other.lowerBound;
+        final boolean thisUpper = upperBound >= other.upperBound;
         return new FloatRange(
-                FloatCut.min(this.toLowerCut(), other.toLowerCut()),
-                FloatCut.max(this.toUpperCut(), other.toUpperCut())
+                thisLower ? lowerBound : other.lowerBound,
+                thisLower ? lowerBoundType : other.lowerBoundType,
+                thisUpper ? upperBound : other.upperBound,
+                thisUpper ? upperBoundType : other.upperBoundType
         );
     }
 
-    FloatCut toLowerCut() {
-        return new FloatCut(lowerBound, lowerBoundType);
+    /**
+     * The smallest value for which {@link #contains(float)} returns true, negative zero being reported as positive zero.
+     * <p>
+     * The result is greater than {@link #highestValue()} if the range contains no value at all.
+     */
+    float lowestValue() {
+        if (Float.isInfinite(lowerBound)) {
+            return Float.NEGATIVE_INFINITY;
+        }
+        return (lowerBoundType == BoundType.OPEN ? lowerBound : Math.nextUp(lowerBound)) + 0.0f;
+    }
+
+    /**
+     * The greatest value for which {@link #contains(float)} returns true, negative zero being reported as positive zero.
+     */
+    float highestValue() {
+        if (Float.isInfinite(upperBound)) {
+            return Float.POSITIVE_INFINITY;
+        }
+        return (upperBoundType == BoundType.OPEN ? upperBound : Math.nextDown(upperBound)) + 0.0f;
+    }
+
+    /**
+     * Whether {@link #contains(float)} returns true for {@link Float#NaN}, which is the case when no side is bounded.
+     */
+    boolean containsNaN() {
+        return Float.isInfinite(lowerBound) && Float.isInfinite(upperBound);
     }
 
-    FloatCut toUpperCut() {
-        return new FloatCut(upperBound, upperBoundType);
+    /**
+     * Builds a range which contains exactly the values from <code>lowest</code> to <code>highest</code>, both
+     * included, with the exception of {@link Float#NaN} which is contained if both values are infinite.
+     */
+    static FloatRange ofValues(float lowest, float highest) {
+        if (lowest == Float.NEGATIVE_INFINITY && highest == Float.NEGATIVE_INFINITY) {
+            return new FloatRange(Float.NEGATIVE_INFINITY, BoundType.OPEN, -Float.MAX_VALUE, BoundType.CLOSED);
+        }
+        if (lowest == Float.POSITIVE_INFINITY && highest == Float.POSITIVE_INFINITY) {
+            return new FloatRange(Float.MAX_VALUE, BoundType.CLOSED, Float.POSITIVE_INFINITY, BoundType.OPEN);
+        }
+        if (lowest == highest) {
+            // open(x, x) is illegal; exclude a neighbouring value instead, without reaching an infinity
+            return lowest == -Float.MAX_VALUE
+                    ? new FloatRange(lowest, BoundType.OPEN, Math.nextUp(highest), BoundType.CLOSED)
+                    : new FloatRange(Math.nextDown(lowest), BoundType.CLOSED, highest, BoundType.OPEN);
+        }
+        return new FloatRange(lowest, BoundType.OPEN, highest, BoundType.OPEN);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(lowerBound, lowerBoundType, upperBound, upperBoundType);
+        // Same as Objects.hash(lowerBound, lowerBoundType, upperBound, upperBoundType), without boxing
+        int result = 31 + Float.hashCode(lowerBound);
+        result = 31 * result + lowerBoundType.hashCode();
+        result = 31 * result + Float.hashCode(upperBound);
+        return 31 * result + upperBoundType.hashCode();
     }
 
 
@@ -367,13 +413,33 @@ public class FloatRange {
      */
     @Override
     public String toString() {
-        @SuppressWarnings("StringBufferReplaceableByString")
-        final StringBuilder sb = new StringBuilder();
+        return appendTo(new StringBuilder(32)).toString();
+    }
 
-        sb.append(lowerBoundType == BoundType.CLOSED ? "[" : "(");
-        sb.append(TO_STRING_FORMAT.format(lowerBound)).append("..").append(TO_STRING_FORMAT.format(upperBound));
-        sb.append(upperBoundType == BoundType.CLOSED ? "]" : ")");
+    /**
+     * Appends the representation returned by {@link #toString()} to the given builder.
+     *
+     * @return The given builder
+     */
+    public StringBuilder appendTo(final StringBuilder sb) {
+        sb.append(lowerBoundType == BoundType.CLOSED ? '[' : '(');
+        RangeFormatting.appendFloat(sb, lowerBound);
+        sb.append("..");
+        RangeFormatting.appendFloat(sb, upperBound);
+        return sb.append(upperBoundType == BoundType.CLOSED ? ']' : ')');
+    }
 
-        return sb.toString();
+    /**
+     * Appends the representation returned by {@link #toString()} to the given appendable, through a builder
+     * private to the current thread unless the appendable is a {@link StringBuilder} itself.
+     *
+     * @return The given appendable
+     */
+    public <A extends Appendable> A appendTo(final A appendable) throws IOException {
+        if (appendable instanceof StringBuilder)
+            appendTo((StringBuilder) appendable);
+        else
+            appendable.append(appendTo(RangeFormatting.scratchBuilder()));
+        return appendable;
     }
 }
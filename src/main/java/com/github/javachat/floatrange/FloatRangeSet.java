@@ -0,0 +1,381 @@
+package com.github.javachat.floatrange;
+
+import com.github.javachat.common.RangeEvent;
+import com.github.javachat.common.RangeEvents;
+import com.github.javachat.common.RangeStats;
+import com.github.javachat.common.SortableBits;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * An immutable set of float values, made of disjoint {@link FloatRange}s.
+ * <p>
+ * This is the primitive counterpart of Guava's <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/ImmutableRangeSet.html">ImmutableRangeSet&lt;Float&gt;</a>.
+ * The set is always kept in canonical form: its ranges are sorted, disjoint and never adjacent, as floats are
+ * discrete values. As a consequence, boolean combinations of range conditions can be expressed with
+ * {@link #union(FloatRangeSet)}, {@link #intersection(FloatRangeSet)}, {@link #difference(FloatRangeSet)} and
+ * {@link #complement()}, normalized once, and then evaluated with {@link #contains(float)}.
+ * <p>
+ * The rules of {@link FloatRange} apply: <code>-0.0f</code> and <code>0.0f</code> are the same value, and
+ * {@link Float#NaN} is only part of a set built from a range without any bound, or of the complement of a set which
+ * does not contain it.
+ * <p>
+ * Ranges are stored as the {@link SortableBits#floatKey(float) sortable int keys} of their lowest and highest values,
+ * so that the set takes 8 bytes per range and values are never widened to double: lookups and combinations only
+ * compare ints.
+ */
+public final class FloatRangeSet {
+    private static final int NEGATIVE_INFINITY = SortableBits.FLOAT_NEGATIVE_INFINITY_KEY;
+    private static final int POSITIVE_INFINITY = SortableBits.FLOAT_POSITIVE_INFINITY_KEY;
+
+    private static final FloatRangeSet EMPTY = new FloatRangeSet(new int[0], new int[0], false);
+
+    private static final FloatRangeSet ALL = new FloatRangeSet(new int[]{NEGATIVE_INFINITY},
+            new int[]{POSITIVE_INFINITY}, true);
+
+    // Keys of the lowest and highest value of each range, both included
+    private final int[] lowestKeys;
+    private final int[] highestKeys;
+    private final boolean containsNaN;
+    // Records lookups when this set is monitored, null otherwise
+    private final RangeStats stats;
+
+    public static FloatRangeSet empty() {
+        return EMPTY;
+    }
+
+    public static FloatRangeSet all() {
+        return ALL;
+    }
+
+    /**
+     * Builds the set of the values contained in at least one of the given ranges.
+     */
+    public static FloatRangeSet of(final FloatRange... ranges) {
+        return copyOf(Arrays.asList(ranges));
+    }
+
+    /**
+     * Builds the set of the values contained in at least one of the given ranges.
+     */
+    public static FloatRangeSet copyOf(final Iterable<FloatRange> ranges) {
+        int[] lowest = new int[16];
+        int[] highest = new int[16];
+        int size = 0;
+        boolean containsNaN = false;
+
+        for (final FloatRange range : ranges) {
+            containsNaN |= range.containsNaN();
+            final float low = range.lowestValue();
+            final float high = range.highestValue();
+            if (low > high)
+                continue;
+            if (size == lowest.length) {
+                lowest = Arrays.copyOf(lowest, size * 2);
+                highest = Arrays.copyOf(highest, size * 2);
+            }
+            lowest[size] = SortableBits.floatKey(low);
+            highest[size] = SortableBits.floatKey(high);
+            size++;
+        }
+
+        if (size == 0)
+            return containsNaN ? new FloatRangeSet(new int[0], new int[0], true) : EMPTY;
+
+        final RangeEvent event = RangeEvents.start();
+        // Lowest and highest values may be sorted independently, see IntRangeSet#union(int[], int[], int)
+        Arrays.sort(lowest, 0, size);
+        Arrays.sort(highest, 0, size);
+
+        final Builder builder = new Builder(size);
+        for (int i = 0; i < size; i++)
+            builder.add(lowest[i], highest[i]);
+
+        return committed("copyOf", size, 0, builder.build(containsNaN), event);
+    }
+
+    private FloatRangeSet(final int[] lowestKeys, final int[] highestKeys, final boolean containsNaN) {
+        this(lowestKeys, highestKeys, containsNaN, null);
+    }
+
+    private FloatRangeSet(final int[] lowestKeys, final int[] highestKeys, final boolean containsNaN,
+                          final RangeStats stats) {
+        this.lowestKeys = lowestKeys;
+        this.highestKeys = highestKeys;
+        this.containsNaN = containsNaN;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns a copy of this set, sharing its arrays, whose lookups are recorded in the given statistics; its size and
+     * footprint are recorded at once.
+     *
+     * @see RangeStats
+     */
+    public FloatRangeSet monitored(final RangeStats stats) {
+        stats.recordShape(size(), footprintBytes());
+        return new FloatRangeSet(lowestKeys, highestKeys, containsNaN, stats);
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by this set.
+     */
+    public long footprintBytes() {
+        return 24 + 2 * RangeStats.arrayBytes(size(), 4);
+    }
+
+    /**
+     * Returns the number of disjoint ranges of this set.
+     */
+    public int size() {
+        return lowestKeys.length;
+    }
+
+    public boolean isEmpty() {
+        return lowestKeys.length == 0 && !containsNaN;
+    }
+
+    public boolean containsNaN() {
+        return containsNaN;
+    }
+
+    /**
+     * Returns the lowest value of the range at the given index, in ascending order.
+     */
+    public float lowestValue(final int index) {
+        return SortableBits.keyToFloat(lowestKeys[index]);
+    }
+
+    /**
+     * Returns the highest value of the range at the given index, in ascending order.
+     */
+    public float highestValue(final int index) {
+        return SortableBits.keyToFloat(highestKeys[index]);
+    }
+
+    /**
+     * Returns the range at the given index, in ascending order.
+     * <p>
+     * A range going from one infinity to the other always contains {@link Float#NaN}, whether or not this set
+     * does.
+     */
+    public FloatRange get(final int index) {
+        return FloatRange.ofValues(lowestValue(index), highestValue(index));
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#asRanges()">Guava JavaDoc</a>
+     */
+    public List<FloatRange> asRanges() {
+        return new RangeList();
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#contains(C)">Guava JavaDoc</a>
+     */
+    public boolean contains(final float value) {
+        return value != value ? containsNaN : indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index of the range containing the given value, or -1 if there is no such range (which is always
+     * the case for {@link Float#NaN}).
+     */
+    public int indexOf(final float value) {
+        final int key = SortableBits.floatKey(value);
+        if (stats != null)
+            return monitoredIndexOf(key);
+        int index = Arrays.binarySearch(lowestKeys, key);
+        if (index >= 0)
+            return index;
+
+        // Last range starting below the value
+        index = -index - 2;
+        return index >= 0 && key <= highestKeys[index] ? index : -1;
+    }
+
+    /**
+     * Same as {@link #indexOf(float)}, counting the steps of the binary search.
+     */
+    private int monitoredIndexOf(final int key) {
+        int steps = 0;
+        int low = 0;
+        int high = lowestKeys.length;
+        while (low < high) {
+            steps++;
+            final int middle = (low + high) >>> 1;
+            if (lowestKeys[middle] <= key)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        stats.recordLookup(steps);
+
+        // Last range starting at or below the value
+        final int index = low - 1;
+        return index >= 0 && key <= highestKeys[index] ? index : -1;
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#encloses(com.google.common.collect.Range)">Guava JavaDoc</a>
+     */
+    public boolean encloses(final FloatRange range) {
+        if (range.containsNaN() && !containsNaN)
+            return false;
+
+        final float low = range.lowestValue();
+        final float high = range.highestValue();
+        if (low > high)
+            return true;
+
+        final int index = indexOf(low);
+        return index >= 0 && SortableBits.floatKey(high) <= highestKeys[index];
+    }
+
+    public FloatRangeSet union(final FloatRangeSet other) {
+        final RangeEvent event = RangeEvents.start();
+        final Builder builder = new Builder(size() + other.size());
+        int i = 0;
+        int j = 0;
+
+        while (i < size() || j < other.size()) {
+            if (j == other.size() || i < size() && lowestKeys[i] <= other.lowestKeys[j]) {
+                builder.add(lowestKeys[i], highestKeys[i]);
+                i++;
+            } else {
+                builder.add(other.lowestKeys[j], other.highestKeys[j]);
+                j++;
+            }
+        }
+
+        return committed("union", size(), other.size(), builder.build(containsNaN || other.containsNaN), event);
+    }
+
+    public FloatRangeSet intersection(final FloatRangeSet other) {
+        final RangeEvent event = RangeEvents.start();
+        final Builder builder = new Builder(Math.max(size(), other.size()));
+        int i = 0;
+        int j = 0;
+
+        while (i < size() && j < other.size()) {
+            final int low = Math.max(lowestKeys[i], other.lowestKeys[j]);
+            final int high = Math.min(highestKeys[i], other.highestKeys[j]);
+            if (low <= high)
+                builder.add(low, high);
+            if (highestKeys[i] < other.highestKeys[j])
+                i++;
+            else
+                j++;
+        }
+
+        return committed("intersection", size(), other.size(), builder.build(containsNaN && other.containsNaN), event);
+    }
+
+    public FloatRangeSet difference(final FloatRangeSet other) {
+        return intersection(other.complement());
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#complement()">Guava JavaDoc</a>
+     */
+    public FloatRangeSet complement() {
+        final RangeEvent event = RangeEvents.start();
+        final Builder builder = new Builder(size() + 1);
+        int next = NEGATIVE_INFINITY;
+
+        for (int i = 0; i < size(); i++) {
+            if (lowestKeys[i] > next)
+                builder.add(next, lowestKeys[i] - 1);
+            if (highestKeys[i] == POSITIVE_INFINITY)
+                return committed("complement", size(), 0, builder.build(!containsNaN), event);
+            next = highestKeys[i] + 1;
+        }
+        builder.add(next, POSITIVE_INFINITY);
+
+        return committed("complement", size(), 0, builder.build(!containsNaN), event);
+    }
+
+    /**
+     * Emits the event of an operation which produced the given set, and returns it.
+     */
+    private static FloatRangeSet committed(final String operation, final int inputSize, final int otherInputSize,
+                                           final FloatRangeSet result, final RangeEvent event) {
+        RangeEvents.commit("FloatRangeSet", operation, inputSize, otherInputSize, result.size(), event);
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(lowestKeys) + Arrays.hashCode(highestKeys))
+                + Boolean.hashCode(containsNaN);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof FloatRangeSet)) // also takes care of obj == null
+            return false;
+        final FloatRangeSet other = (FloatRangeSet) obj;
+        return containsNaN == other.containsNaN
+                && Arrays.equals(lowestKeys, other.lowestKeys)
+                && Arrays.equals(highestKeys, other.highestKeys);
+    }
+
+    @Override
+    public String toString() {
+        return asRanges().toString();
+    }
+
+    private final class RangeList extends AbstractList<FloatRange> implements RandomAccess {
+        @Override
+        public FloatRange get(final int index) {
+            return FloatRangeSet.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return FloatRangeSet.this.size();
+        }
+    }
+
+    /**
+     * Accumulates ranges given in ascending order of their lowest value, coalescing the ones which overlap or are
+     * adjacent. Ranges are given as the keys of their lowest and highest values.
+     */
+    static final class Builder {
+        private int[] lowest;
+        private int[] highest;
+        private int size;
+
+        Builder(final int expectedSize) {
+            lowest = new int[Math.max(expectedSize, 1)];
+            highest = new int[lowest.length];
+        }
+
+        void add(final int low, final int high) {
+            // Keys never reach Integer.MAX_VALUE, so the next key up cannot overflow
+            if (size > 0 && low <= highest[size - 1] + 1) {
+                if (high > highest[size - 1])
+                    highest[size - 1] = high;
+                return;
+            }
+            if (size == lowest.length) {
+                lowest = Arrays.copyOf(lowest, size * 2);
+                highest = Arrays.copyOf(highest, size * 2);
+            }
+            lowest[size] = low;
+            highest[size] = high;
+            size++;
+        }
+
+        FloatRangeSet build(final boolean containsNaN) {
+            if (size == 0 && !containsNaN)
+                return EMPTY;
+            return new FloatRangeSet(Arrays.copyOf(lowest, size), Arrays.copyOf(highest, size), containsNaN);
+        }
+    }
+}
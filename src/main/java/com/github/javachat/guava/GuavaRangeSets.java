@@ -0,0 +1,116 @@
+package com.github.javachat.guava;
+
+import com.github.javachat.intrange.IntRangeSet;
+import com.github.javachat.longrange.LongRangeMap;
+import com.github.javachat.longrange.LongRangeSet;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.RangeSet;
+
+import java.util.Map;
+
+/**
+ * Views of primitive range sets as Guava's <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html">RangeSet</a>,
+ * and bulk conversions of Guava's range sets and maps into primitive ones.
+ * <p>
+ * Views copy nothing: their Guava ranges are created when they are accessed, and they cannot be modified. Converting
+ * a view back returns the set it was created from. Other conversions make a single pass over the ranges, storing
+ * their lowest and highest values in primitive arrays without creating any primitive range.
+ * <p>
+ * Guava is an optional dependency of this library: it is only needed at run time by the users of this package.
+ */
+public final class GuavaRangeSets {
+    private GuavaRangeSets() {
+        throw new Error("Not instantiable");
+    }
+
+    public static RangeSet<Integer> asRangeSet(final IntRangeSet set) {
+        return new IntRangeSetView(set);
+    }
+
+    public static RangeSet<Long> asRangeSet(final LongRangeSet set) {
+        return new LongRangeSetView(set);
+    }
+
+    public static IntRangeSet toIntRangeSet(final RangeSet<Integer> rangeSet) {
+        if (rangeSet instanceof IntRangeSetView)
+            return ((IntRangeSetView) rangeSet).unwrap();
+
+        final int[] lowest = new int[rangeSet.asRanges().size()];
+        final int[] highest = new int[lowest.length];
+        int size = 0;
+        for (final Range<Integer> range : rangeSet.asRanges()) {
+            if (!hasValues(range, Integer.MIN_VALUE, Integer.MAX_VALUE))
+                continue;
+            lowest[size] = (int) lowestValue(range, Integer.MIN_VALUE);
+            highest[size] = (int) highestValue(range, Integer.MAX_VALUE);
+            size++;
+        }
+        return IntRangeSet.ofValues(lowest, highest, size);
+    }
+
+    public static LongRangeSet toLongRangeSet(final RangeSet<Long> rangeSet) {
+        if (rangeSet instanceof LongRangeSetView)
+            return ((LongRangeSetView) rangeSet).unwrap();
+
+        final long[] lowest = new long[rangeSet.asRanges().size()];
+        final long[] highest = new long[lowest.length];
+        int size = 0;
+        for (final Range<Long> range : rangeSet.asRanges()) {
+            if (!hasValues(range, Long.MIN_VALUE, Long.MAX_VALUE))
+                continue;
+            lowest[size] = lowestValue(range, Long.MIN_VALUE);
+            highest[size] = highestValue(range, Long.MAX_VALUE);
+            size++;
+        }
+        return LongRangeSet.ofValues(lowest, highest, size);
+    }
+
+    /**
+     * Converts a range map, whose entries Guava keeps sorted and disjoint.
+     */
+    public static <V> LongRangeMap<V> toLongRangeMap(final RangeMap<Long, V> rangeMap) {
+        final LongRangeMap.Builder<V> builder = LongRangeMap.builder();
+        for (final Map.Entry<Range<Long>, V> entry : rangeMap.asMapOfRanges().entrySet()) {
+            final Range<Long> range = entry.getKey();
+            if (hasValues(range, Long.MIN_VALUE, Long.MAX_VALUE))
+                builder.put(lowestValue(range, Long.MIN_VALUE), highestValue(range, Long.MAX_VALUE), entry.getValue());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Whether an integral range of values from <code>min</code> to <code>max</code> contains at least one of them.
+     * When it does not, {@link #lowestValue(Range, long)} and {@link #highestValue(Range, long)} are meaningless.
+     */
+    static boolean hasValues(final Range<? extends Number> range, final long min, final long max) {
+        if (range.hasLowerBound() && range.lowerBoundType() == BoundType.OPEN
+                && range.lowerEndpoint().longValue() == max)
+            return false;
+        if (range.hasUpperBound() && range.upperBoundType() == BoundType.OPEN
+                && range.upperEndpoint().longValue() == min)
+            return false;
+        return lowestValue(range, min) <= highestValue(range, max);
+    }
+
+    /**
+     * The smallest value of an integral range, or <code>min</code> if it is unbounded below.
+     */
+    static long lowestValue(final Range<? extends Number> range, final long min) {
+        if (!range.hasLowerBound())
+            return min;
+        final long endpoint = range.lowerEndpoint().longValue();
+        return range.lowerBoundType() == BoundType.CLOSED ? endpoint : endpoint + 1;
+    }
+
+    /**
+     * The greatest value of an integral range, or <code>max</code> if it is unbounded above.
+     */
+    static long highestValue(final Range<? extends Number> range, final long max) {
+        if (!range.hasUpperBound())
+            return max;
+        final long endpoint = range.upperEndpoint().longValue();
+        return range.upperBoundType() == BoundType.CLOSED ? endpoint : endpoint - 1;
+    }
+}
@@ -0,0 +1,137 @@
+package com.github.javachat.guava;
+
+import com.github.javachat.doublerange.DoubleRange;
+import com.github.javachat.intrange.IntRange;
+import com.github.javachat.longrange.LongRange;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+
+/**
+ * Conversions between primitive ranges and Guava's <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html">Range</a>.
+ * <p>
+ * A converted range contains the same values as the original one. Its endpoints are the same, while the meaning of
+ * bound types differs between the two libraries: an {@link com.github.javachat.common.BoundType#OPEN open} bound of a
+ * primitive range includes its endpoint, like a {@link BoundType#CLOSED closed} bound of Guava. The only exception is
+ * a primitive range which excludes a same endpoint on both sides, which has no Guava counterpart and is converted to
+ * the empty range <code>[endpoint..endpoint)</code>; conversely, a Guava range whose bounds include a same endpoint is
+ * converted to a primitive range of that sole value with a neighbouring endpoint.
+ * <p>
+ * Guava's ranges of doubles order values by {@link Double#compareTo(Double)}, which tells <code>-0.0</code> from
+ * <code>0.0</code> and puts {@link Double#NaN} above all values; the rules of {@link DoubleRange} apply to converted
+ * ranges instead. Infinite endpoints make unbounded sides, as they do in {@link DoubleRange}.
+ * <p>
+ * Guava is an optional dependency of this library: it is only needed at run time by the users of this package.
+ */
+public final class GuavaRanges {
+    private GuavaRanges() {
+        throw new Error("Not instantiable");
+    }
+
+    public static Range<Integer> toGuava(final IntRange range) {
+        if (!range.hasLowerBound())
+            return range.hasUpperBound() ? Range.upTo(range.upperEndpoint(), convert(range.upperBoundType()))
+                    : Range.<Integer>all();
+        if (!range.hasUpperBound())
+            return Range.downTo(range.lowerEndpoint(), convert(range.lowerBoundType()));
+        return toGuava(range.lowerEndpoint(), range.lowerBoundType(), range.upperEndpoint(), range.upperBoundType());
+    }
+
+    public static Range<Long> toGuava(final LongRange range) {
+        if (!range.hasLowerBound())
+            return range.hasUpperBound() ? Range.upTo(range.upperEndpoint(), convert(range.upperBoundType()))
+                    : Range.<Long>all();
+        if (!range.hasUpperBound())
+            return Range.downTo(range.lowerEndpoint(), convert(range.lowerBoundType()));
+        return toGuava(range.lowerEndpoint(), range.lowerBoundType(), range.upperEndpoint(), range.upperBoundType());
+    }
+
+    public static Range<Double> toGuava(final DoubleRange range) {
+        if (!range.hasLowerBound())
+            return range.hasUpperBound() ? Range.upTo(range.upperEndpoint(), convert(range.upperBoundType()))
+                    : Range.<Double>all();
+        if (!range.hasUpperBound())
+            return Range.downTo(range.lowerEndpoint(), convert(range.lowerBoundType()));
+        return toGuava(range.lowerEndpoint(), range.lowerBoundType(), range.upperEndpoint(), range.upperBoundType());
+    }
+
+    public static IntRange toIntRange(final Range<Integer> range) {
+        if (!range.hasLowerBound())
+            return range.hasUpperBound() ? IntRange.upTo(range.upperEndpoint(), convert(range.upperBoundType()))
+                    : IntRange.all();
+        if (!range.hasUpperBound())
+            return IntRange.downTo(range.lowerEndpoint(), convert(range.lowerBoundType()));
+
+        final int lower = range.lowerEndpoint();
+        final int upper = range.upperEndpoint();
+        if (lower == upper && range.lowerBoundType() == BoundType.CLOSED
+                && range.upperBoundType() == BoundType.CLOSED) {
+            return lower == Integer.MIN_VALUE
+                    ? IntRange.openClosed(lower, lower + 1)
+                    : IntRange.closedOpen(lower - 1, upper);
+        }
+        return IntRange.range(lower, convert(range.lowerBoundType()), upper, convert(range.upperBoundType()));
+    }
+
+    public static LongRange toLongRange(final Range<Long> range) {
+        if (!range.hasLowerBound())
+            return range.hasUpperBound() ? LongRange.upTo(range.upperEndpoint(), convert(range.upperBoundType()))
+                    : LongRange.all();
+        if (!range.hasUpperBound())
+            return LongRange.downTo(range.lowerEndpoint(), convert(range.lowerBoundType()));
+
+        final long lower = range.lowerEndpoint();
+        final long upper = range.upperEndpoint();
+        if (lower == upper && range.lowerBoundType() == BoundType.CLOSED
+                && range.upperBoundType() == BoundType.CLOSED) {
+            return lower == Long.MIN_VALUE
+                    ? LongRange.openClosed(lower, lower + 1)
+                    : LongRange.closedOpen(lower - 1, upper);
+        }
+        return LongRange.range(lower, convert(range.lowerBoundType()), upper, convert(range.upperBoundType()));
+    }
+
+    /**
+     * @throws IllegalArgumentException an endpoint is {@link Double#NaN}
+     */
+    public static DoubleRange toDoubleRange(final Range<Double> range) {
+        if (!range.hasLowerBound())
+            return range.hasUpperBound() ? DoubleRange.upTo(range.upperEndpoint(), convert(range.upperBoundType()))
+                    : DoubleRange.all();
+        if (!range.hasUpperBound())
+            return DoubleRange.downTo(range.lowerEndpoint(), convert(range.lowerBoundType()));
+
+        final double lower = range.lowerEndpoint();
+        final double upper = range.upperEndpoint();
+        if (lower == upper && range.lowerBoundType() == BoundType.CLOSED
+                && range.upperBoundType() == BoundType.CLOSED) {
+            // The neighbouring endpoint must not be infinite, which would make the range unbounded
+            if (lower == Double.NEGATIVE_INFINITY)
+                return DoubleRange.lessThan(-Double.MAX_VALUE);
+            if (lower == Double.POSITIVE_INFINITY)
+                return DoubleRange.greaterThan(Double.MAX_VALUE);
+            return lower == -Double.MAX_VALUE
+                    ? DoubleRange.openClosed(lower, Math.nextUp(lower))
+                    : DoubleRange.closedOpen(Math.nextDown(lower), upper);
+        }
+        return DoubleRange.range(lower, convert(range.lowerBoundType()), upper, convert(range.upperBoundType()));
+    }
+
+    private static <C extends Comparable<?>> Range<C> toGuava(
+            final C lower, final com.github.javachat.common.BoundType lowerBoundType,
+            final C upper, final com.github.javachat.common.BoundType upperBoundType) {
+        if (lower.equals(upper) && lowerBoundType == com.github.javachat.common.BoundType.CLOSED
+                && upperBoundType == com.github.javachat.common.BoundType.CLOSED)
+            return Range.closedOpen(lower, upper);
+        return Range.range(lower, convert(lowerBoundType), upper, convert(upperBoundType));
+    }
+
+    private static BoundType convert(final com.github.javachat.common.BoundType boundType) {
+        return boundType == com.github.javachat.common.BoundType.OPEN ? BoundType.CLOSED : BoundType.OPEN;
+    }
+
+    private static com.github.javachat.common.BoundType convert(final BoundType boundType) {
+        return boundType == BoundType.CLOSED
+                ? com.github.javachat.common.BoundType.OPEN
+                : com.github.javachat.common.BoundType.CLOSED;
+    }
+}
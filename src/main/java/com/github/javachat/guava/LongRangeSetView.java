@@ -0,0 +1,217 @@
+package com.github.javachat.guava;
+
+import com.github.javachat.longrange.LongRangeSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A read-only {@link RangeSet} backed by a {@link LongRangeSet}, creating Guava ranges only when they are accessed.
+ * <p>
+ * The range holding the values from <code>lowest</code> to <code>highest</code> is <code>[lowest..highest]</code>,
+ * unbounded on the sides reaching {@link Long#MIN_VALUE} or {@link Long#MAX_VALUE}. As the primitive set is
+ * canonical, adjacent ranges are coalesced, which Guava's range sets do not do for ranges such as
+ * <code>[1..2]</code> and <code>[3..4]</code>.
+ */
+final class LongRangeSetView implements RangeSet<Long> {
+    private final LongRangeSet set;
+
+    LongRangeSetView(final LongRangeSet set) {
+        this.set = set;
+    }
+
+    LongRangeSet unwrap() {
+        return set;
+    }
+
+    @Override
+    public boolean contains(final Long value) {
+        return set.contains(value);
+    }
+
+    @Override
+    public Range<Long> rangeContaining(final Long value) {
+        final int index = set.indexOf(value);
+        return index >= 0 ? range(index) : null;
+    }
+
+    /**
+     * Like Guava's range sets, which do not canonicalize ranges, tells whether a range of this set contains both
+     * endpoints of the given range, whatever their bound types.
+     */
+    @Override
+    public boolean encloses(final Range<Long> range) {
+        final long lower = range.hasLowerBound() ? range.lowerEndpoint() : Long.MIN_VALUE;
+        final long upper = range.hasUpperBound() ? range.upperEndpoint() : Long.MAX_VALUE;
+        final int index = set.indexOf(lower);
+        return index >= 0 && upper <= set.highestValue(index);
+    }
+
+    /**
+     * Tells whether a range of this set and the given one have a non-empty intersection, as Guava's
+     * <code>RangeSet.intersects(Range)</code> does.
+     * <p>
+     * That method only exists from Guava 20 on, where it is abstract; it is implemented here without overriding
+     * anything, so that the view compiles against Guava 19 and does not throw {@link AbstractMethodError} on later
+     * versions.
+     */
+    public boolean intersects(final Range<Long> range) {
+        // Only the last range starting at or below the lower endpoint and the range after it can be the first to
+        // intersect the given one
+        int low = 0;
+        int high = set.size();
+        if (range.hasLowerBound()) {
+            final long lower = range.lowerEndpoint();
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (set.lowestValue(middle) <= lower)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+        }
+        for (int index = Math.max(low - 1, 0); index <= low && index < set.size(); index++) {
+            final Range<Long> candidate = range(index);
+            if (candidate.isConnected(range) && !candidate.intersection(range).isEmpty())
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean enclosesAll(final RangeSet<Long> other) {
+        for (final Range<Long> range : other.asRanges()) {
+            if (!encloses(range))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return set.isEmpty();
+    }
+
+    @Override
+    public Range<Long> span() {
+        if (set.isEmpty())
+            throw new NoSuchElementException();
+        return range(set.lowestValue(0), set.highestValue(set.size() - 1));
+    }
+
+    @Override
+    public Set<Range<Long>> asRanges() {
+        return new RangeSetView(false);
+    }
+
+    @Override
+    public Set<Range<Long>> asDescendingSetOfRanges() {
+        return new RangeSetView(true);
+    }
+
+    @Override
+    public RangeSet<Long> complement() {
+        return new LongRangeSetView(set.complement());
+    }
+
+    @Override
+    public RangeSet<Long> subRangeSet(final Range<Long> view) {
+        if (!GuavaRangeSets.hasValues(view, Long.MIN_VALUE, Long.MAX_VALUE))
+            return new LongRangeSetView(LongRangeSet.empty());
+        final long lowest = GuavaRangeSets.lowestValue(view, Long.MIN_VALUE);
+        final long highest = GuavaRangeSets.highestValue(view, Long.MAX_VALUE);
+        return new LongRangeSetView(set.intersection(
+                LongRangeSet.ofValues(new long[]{lowest}, new long[]{highest}, 1)));
+    }
+
+    @Override
+    public void add(final Range<Long> range) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void remove(final Range<Long> range) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void clear() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void addAll(final RangeSet<Long> other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeAll(final RangeSet<Long> other) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public int hashCode() {
+        return asRanges().hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof RangeSet)) // also takes care of obj == null
+            return false;
+        return asRanges().equals(((RangeSet<?>) obj).asRanges());
+    }
+
+    @Override
+    public String toString() {
+        return asRanges().toString();
+    }
+
+    private Range<Long> range(final int index) {
+        return range(set.lowestValue(index), set.highestValue(index));
+    }
+
+    private static Range<Long> range(final long lowest, final long highest) {
+        if (lowest == Long.MIN_VALUE)
+            return highest == Long.MAX_VALUE ? Range.<Long>all() : Range.atMost(highest);
+        return highest == Long.MAX_VALUE ? Range.atLeast(lowest) : Range.closed(lowest, highest);
+    }
+
+    private final class RangeSetView extends AbstractSet<Range<Long>> {
+        private final boolean descending;
+
+        RangeSetView(final boolean descending) {
+            this.descending = descending;
+        }
+
+        @Override
+        public Iterator<Range<Long>> iterator() {
+            return new Iterator<Range<Long>>() {
+                private int next = 0;
+
+                @Override
+                public boolean hasNext() {
+                    return next < set.size();
+                }
+
+                @Override
+                public Range<Long> next() {
+                    if (next == set.size())
+                        throw new NoSuchElementException();
+                    final int index = next++;
+                    return range(descending ? set.size() - 1 - index : index);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return set.size();
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package com.github.javachat.intrange;
+
+import java.util.Arrays;
+
+/**
+ * The free blocks of a {@link IntRangeAllocator}, indexed for allocation policies.
+ * <p>
+ * Blocks are the nodes of two treaps: one ordered by lowest value, in which each node also holds the length of the
+ * largest block of its subtree, for first fit queries; and one ordered by length, then lowest value, for best fit
+ * queries. Lookups, insertions and removals thus take O(log n) steps on average. Nodes are indices in primitive arrays,
+ * reused once removed; {@link #NONE} stands for no node.
+ * <p>
+ * The length of a block is stored as the difference of its endpoints, which is unsigned as it overflows for blocks of
+ * more than 2^31 values.
+ */
+final class IntFreeBlocks {
+    static final int NONE = 0;
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private int[] lowest = new int[DEFAULT_CAPACITY];
+    private int[] highest = new int[DEFAULT_CAPACITY];
+    private int[] priority = new int[DEFAULT_CAPACITY];
+    // Children in the tree ordered by lowest value, and largest difference of endpoints of their subtree
+    private int[] left = new int[DEFAULT_CAPACITY];
+    private int[] right = new int[DEFAULT_CAPACITY];
+    private int[] maxSpan = new int[DEFAULT_CAPACITY];
+    // Children in the tree ordered by length
+    private int[] shorter = new int[DEFAULT_CAPACITY];
+    private int[] longer = new int[DEFAULT_CAPACITY];
+
+    private int root = NONE;
+    private int lengthRoot = NONE;
+    private int size;
+    // First node never used, and list of removed nodes, linked through left
+    private int unused = 1;
+    private int removed = NONE;
+    private int seed = 0x9E3779B9;
+    // Roots of the trees split by the last call of splitByLowest or splitByLength
+    private int before;
+    private int after;
+
+    int size() {
+        return size;
+    }
+
+    int lowest(final int node) {
+        return lowest[node];
+    }
+
+    int highest(final int node) {
+        return highest[node];
+    }
+
+    /**
+     * Returns the block with the greatest lowest value at or below the given one.
+     */
+    int floor(final int value) {
+        int floor = NONE;
+        for (int node = root; node != NONE; ) {
+            if (lowest[node] <= value) {
+                floor = node;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return floor;
+    }
+
+    /**
+     * Returns the block with the lowest lowest value above the given one.
+     */
+    int higher(final int value) {
+        int higher = NONE;
+        for (int node = root; node != NONE; ) {
+            if (lowest[node] > value) {
+                higher = node;
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        return higher;
+    }
+
+    /**
+     * Returns the lowest block of at least <code>count</code> values.
+     */
+    int firstFit(final int count) {
+        int node = root;
+        if (node == NONE || !fits(maxSpan[node], count))
+            return NONE;
+        while (true) {
+            if (left[node] != NONE && fits(maxSpan[left[node]], count))
+                node = left[node];
+            else if (fits(highest[node] - lowest[node], count))
+                return node;
+            else
+                node = right[node];
+        }
+    }
+
+    /**
+     * Returns the lowest block of at least <code>count</code> values among those whose lowest value is above the given
+     * one.
+     */
+    int firstFitAbove(final int value, final int count) {
+        return firstFitAbove(root, value, count);
+    }
+
+    private int firstFitAbove(final int node, final int value, final int count) {
+        if (node == NONE || !fits(maxSpan[node], count))
+            return NONE;
+        if (lowest[node] <= value)
+            return firstFitAbove(right[node], value, count);
+        final int fit = firstFitAbove(left[node], value, count);
+        if (fit != NONE)
+            return fit;
+        return fits(highest[node] - lowest[node], count) ? node : firstFitAbove(right[node], value, count);
+    }
+
+    /**
+     * Returns the smallest block of at least <code>count</code> values, the lowest one on a tie.
+     */
+    int bestFit(final int count) {
+        int best = NONE;
+        for (int node = lengthRoot; node != NONE; ) {
+            if (fits(highest[node] - lowest[node], count)) {
+                best = node;
+                node = shorter[node];
+            } else {
+                node = longer[node];
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the largest block, the lowest one on a tie.
+     */
+    int largest() {
+        int node = root;
+        if (node == NONE)
+            return NONE;
+        final int span = maxSpan[node];
+        while (true) {
+            if (left[node] != NONE && maxSpan[left[node]] == span)
+                node = left[node];
+            else if (highest[node] - lowest[node] == span)
+                return node;
+            else
+                node = right[node];
+        }
+    }
+
+    /**
+     * Adds a block, which must neither overlap nor be adjacent to another one.
+     */
+    void add(final int low, final int high) {
+        final int node = newNode();
+        lowest[node] = low;
+        highest[node] = high;
+        maxSpan[node] = high - low;
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        priority[node] = seed;
+
+        splitByLowest(root, low);
+        root = mergeByLowest(mergeByLowest(before, node), after);
+        splitByLength(lengthRoot, high - low, low);
+        lengthRoot = mergeByLength(mergeByLength(before, node), after);
+        size++;
+    }
+
+    void remove(final int node) {
+        root = removeByLowest(root, node);
+        lengthRoot = removeByLength(lengthRoot, node);
+        left[node] = removed;
+        removed = node;
+        size--;
+    }
+
+    /**
+     * Adds the blocks, in ascending order, to the builder.
+     */
+    void collect(final IntRangeSet.Builder builder) {
+        collect(root, builder);
+    }
+
+    private void collect(final int node, final IntRangeSet.Builder builder) {
+        if (node == NONE)
+            return;
+        collect(left[node], builder);
+        builder.add(lowest[node], highest[node]);
+        collect(right[node], builder);
+    }
+
+    private static boolean fits(final int span, final int count) {
+        return Integer.compareUnsigned(span, count - 1) >= 0;
+    }
+
+    /**
+     * Splits the subtree in the nodes whose lowest value is below the given one, and the others.
+     */
+    private void splitByLowest(final int node, final int low) {
+        if (node == NONE) {
+            before = after = NONE;
+        } else if (lowest[node] < low) {
+            splitByLowest(right[node], low);
+            right[node] = before;
+            update(node);
+            before = node;
+        } else {
+            splitByLowest(left[node], low);
+            left[node] = after;
+            update(node);
+            after = node;
+        }
+    }
+
+    private int mergeByLowest(final int first, final int second) {
+        if (first == NONE)
+            return second;
+        if (second == NONE)
+            return first;
+        if (priority[first] > priority[second]) {
+            right[first] = mergeByLowest(right[first], second);
+            update(first);
+            return first;
+        }
+        left[second] = mergeByLowest(first, left[second]);
+        update(second);
+        return second;
+    }
+
+    private int removeByLowest(final int subtree, final int node) {
+        if (subtree == node)
+            return mergeByLowest(left[node], right[node]);
+        if (lowest[node] < lowest[subtree])
+            left[subtree] = removeByLowest(left[subtree], node);
+        else
+            right[subtree] = removeByLowest(right[subtree], node);
+        update(subtree);
+        return subtree;
+    }
+
+    private void update(final int node) {
+        int span = highest[node] - lowest[node];
+        if (left[node] != NONE && Integer.compareUnsigned(maxSpan[left[node]], span) > 0)
+            span = maxSpan[left[node]];
+        if (right[node] != NONE && Integer.compareUnsigned(maxSpan[right[node]], span) > 0)
+            span = maxSpan[right[node]];
+        maxSpan[node] = span;
+    }
+
+    /**
+     * Whether the node comes before the block of the given length and lowest value in the tree ordered by length.
+     */
+    private boolean isShorter(final int node, final int span, final int low) {
+        final int comparison = Integer.compareUnsigned(highest[node] - lowest[node], span);
+        return comparison < 0 || comparison == 0 && lowest[node] < low;
+    }
+
+    /**
+     * Splits the subtree in the nodes shorter than the given block, and the others.
+     */
+    private void splitByLength(final int node, final int span, final int low) {
+        if (node == NONE) {
+            before = after = NONE;
+        } else if (isShorter(node, span, low)) {
+            splitByLength(longer[node], span, low);
+            longer[node] = before;
+            before = node;
+        } else {
+            splitByLength(shorter[node], span, low);
+            shorter[node] = after;
+            after = node;
+        }
+    }
+
+    private int mergeByLength(final int first, final int second) {
+        if (first == NONE)
+            return second;
+        if (second == NONE)
+            return first;
+        if (priority[first] > priority[second]) {
+            longer[first] = mergeByLength(longer[first], second);
+            return first;
+        }
+        shorter[second] = mergeByLength(first, shorter[second]);
+        return second;
+    }
+
+    private int removeByLength(final int subtree, final int node) {
+        if (subtree == node)
+            return mergeByLength(shorter[node], longer[node]);
+        if (isShorter(node, highest[subtree] - lowest[subtree], lowest[subtree]))
+            shorter[subtree] = removeByLength(shorter[subtree], node);
+        else
+            longer[subtree] = removeByLength(longer[subtree], node);
+        return subtree;
+    }
+
+    private int newNode() {
+        final int node;
+        if (removed != NONE) {
+            node = removed;
+            removed = left[node];
+        } else {
+            if (unused == lowest.length)
+                grow();
+            node = unused++;
+        }
+        left[node] = right[node] = shorter[node] = longer[node] = NONE;
+        return node;
+    }
+
+    private void grow() {
+        final int capacity = lowest.length * 2;
+        lowest = Arrays.copyOf(lowest, capacity);
+        highest = Arrays.copyOf(highest, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        maxSpan = Arrays.copyOf(maxSpan, capacity);
+        shorter = Arrays.copyOf(shorter, capacity);
+        longer = Arrays.copyOf(longer, capacity);
+    }
+}
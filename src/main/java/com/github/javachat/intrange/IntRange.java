@@ -2,8 +2,9 @@ package com.github.javachat.intrange;
 
 import com.github.javachat.common.BoundType;
 import com.github.javachat.common.Constants;
+import com.github.javachat.common.RangeFormatting;
 
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.Objects;
 import java.util.function.IntPredicate;
 
@@ -121,10 +122,16 @@ public final class IntRange {
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#encloseAll(java.lang.Iterable)">Guava JavaDoc</a>
      */
     public static IntRange encloseAll(int... values) {
-        // Create sorted copy, lowest and highest values are the endpoints
-        int[] copy = Arrays.copyOf(values, values.length);
-        Arrays.sort(copy);
-        return IntRange.closed(copy[0], copy[copy.length - 1]);
+        // A single pass for the lowest and highest values, which are the endpoints
+        int lowest = values[0];
+        int highest = values[0];
+        for (final int value : values) {
+            if (value < lowest)
+                lowest = value;
+            else if (value > highest)
+                highest = value;
+        }
+        return IntRange.closed(lowest, highest);
     }
 
     /**
@@ -178,14 +185,6 @@ public final class IntRange {
         this(lowerBound, lowerBoundType, true, upperBound, upperBoundType, true);
     }
 
-    /**
-     * Convenience constructor with cuts
-     */
-    IntRange(final IntCut lowerBound, final IntCut upperBound) {
-        this(lowerBound.getValue(), lowerBound.getBoundType(), lowerBound.isBounded(),
-                upperBound.getValue(), upperBound.getBoundType(), upperBound.isBounded());
-    }
-
     public boolean hasLowerBound() {
         return hasLowerBound;
     }
@@ -242,9 +241,16 @@ public final class IntRange {
             throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
         }
 
+        // The greater lower bound and the smaller upper bound, this range winning ties
+        final boolean thisLower = lowerBound >= other.lowerBound;
+        final boolean thisUpper = upperBound <= other.upperBound;
         return new IntRange(
-                IntCut.max(this.toLowerCut(), other.toLowerCut()),
-                IntCut.min(this.toUpperCut(), other.toUpperCut())
+                thisLower ? lowerBound : other.lowerBound,
+                thisLower ? lowerBoundType : other.lowerBoundType,
+                thisLower ? hasLowerBound : other.hasLowerBound,
+                thisUpper ? upperBound : other.upperBound,
+                thisUpper ? upperBoundType : other.upperBoundType,
+                thisUpper ? hasUpperBound : other.hasUpperBound
         );
     }
 
@@ -252,24 +258,68 @@ public final class IntRange {
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#intersection(com.google.common.collect.Range)">Guava JavaDoc</a>
      */
     public IntRange span(IntRange other) {
+        // The smaller lower bound and the greater upper bound, this range winning ties
+        final boolean thisLower = lowerBound <= other.lowerBound;
+        final boolean thisUpper = upperBound >= other.upperBound;
         return new IntRange(
-                IntCut.min(this.toLowerCut(), other.toLowerCut()),
-                IntCut.max(this.toUpperCut(), other.toUpperCut())
+                thisLower ? lowerBound : other.lowerBound,
+                thisLower ? lowerBoundType : other.lowerBoundType,
+                thisLower ? hasLowerBound : other.hasLowerBound,
+                thisUpper ? upperBound : other.upperBound,
+                thisUpper ? upperBoundType : other.upperBoundType,
+                thisUpper ? hasUpperBound : other.hasUpperBound
         );
     }
 
-    IntCut toLowerCut() {
-        return new IntCut(lowerBound, lowerBoundType, hasLowerBound);
+    /**
+     * The smallest value for which {@link #contains(int)} returns true.
+     * <p>
+     * Widened to a long so that a range with no values yields a result greater than {@link #highestValue()} instead of
+     * overflowing.
+     */
+    long lowestValue() {
+        if (!hasLowerBound)
+            return Integer.MIN_VALUE;
+        return lowerBoundType == BoundType.OPEN ? lowerBound : lowerBound + 1L;
+    }
+
+    /**
+     * The greatest value for which {@link #contains(int)} returns true.
+     *
+     * @see #lowestValue()
+     */
+    long highestValue() {
+        if (!hasUpperBound)
+            return Integer.MAX_VALUE;
+        return upperBoundType == BoundType.OPEN ? upperBound : upperBound - 1L;
     }
 
-    IntCut toUpperCut() {
-        return new IntCut(upperBound, upperBoundType, hasUpperBound);
+    /**
+     * Builds the range which contains exactly the values from <code>lowest</code> to <code>highest</code>, both
+     * included. A side reaching the extreme int value is left unbounded.
+     */
+    static IntRange ofValues(final int lowest, final int highest) {
+        final boolean hasLower = lowest != Integer.MIN_VALUE;
+        final boolean hasUpper = highest != Integer.MAX_VALUE;
+
+        if (lowest == highest) {
+            // open(x, x) is illegal; exclude the neighbouring value instead
+            return hasLower
+                    ? new IntRange(lowest - 1, BoundType.CLOSED, true, highest, BoundType.OPEN, hasUpper)
+                    : new IntRange(Integer.MIN_VALUE, BoundType.OPEN, false, highest + 1, BoundType.CLOSED, true);
+        }
+
+        return new IntRange(hasLower ? lowest : Integer.MIN_VALUE, BoundType.OPEN, hasLower,
+                hasUpper ? highest : Integer.MAX_VALUE, BoundType.OPEN, hasUpper);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(lowerBound, lowerBoundType, upperBound,
-                upperBoundType);
+        // Same as Objects.hash(lowerBound, lowerBoundType, upperBound, upperBoundType), without boxing
+        int result = 31 + Integer.hashCode(lowerBound);
+        result = 31 * result + lowerBoundType.hashCode();
+        result = 31 * result + Integer.hashCode(upperBound);
+        return 31 * result + upperBoundType.hashCode();
     }
 
     @SuppressWarnings("OverlyComplexBooleanExpression")
@@ -291,14 +341,39 @@ public final class IntRange {
 
     @Override
     public String toString() {
-        @SuppressWarnings("StringBufferReplaceableByString")
-        final StringBuilder sb = new StringBuilder();
-        sb.append(lowerBoundType == BoundType.CLOSED ? "[" : "(");
-        sb.append(hasLowerBound ? lowerBound : "-" + Constants.INFINITY_REPRESENTATION);
+        return appendTo(new StringBuilder(32)).toString();
+    }
+
+    /**
+     * Appends the representation returned by {@link #toString()} to the given builder.
+     *
+     * @return The given builder
+     */
+    public StringBuilder appendTo(final StringBuilder sb) {
+        sb.append(lowerBoundType == BoundType.CLOSED ? '[' : '(');
+        if (hasLowerBound)
+            sb.append(lowerBound);
+        else
+            sb.append('-').append(Constants.INFINITY_REPRESENTATION);
         sb.append("..");
-        sb.append(hasUpperBound ? upperBound : Constants.INFINITY_REPRESENTATION);
-        sb.append(upperBoundType == BoundType.CLOSED ? "]" : ")");
+        if (hasUpperBound)
+            sb.append(upperBound);
+        else
+            sb.append(Constants.INFINITY_REPRESENTATION);
+        return sb.append(upperBoundType == BoundType.CLOSED ? ']' : ')');
+    }
 
-        return sb.toString();
+    /**
+     * Appends the representation returned by {@link #toString()} to the given appendable, through a builder
+     * private to the current thread unless the appendable is a {@link StringBuilder} itself.
+     *
+     * @return The given appendable
+     */
+    public <A extends Appendable> A appendTo(final A appendable) throws IOException {
+        if (appendable instanceof StringBuilder)
+            appendTo((StringBuilder) appendable);
+        else
+            appendable.append(appendTo(RangeFormatting.scratchBuilder()));
+        return appendable;
     }
 }
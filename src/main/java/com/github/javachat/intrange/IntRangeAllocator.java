@@ -0,0 +1,173 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.AllocationPolicy;
+
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+import static com.github.javachat.intrange.IntFreeBlocks.NONE;
+
+/**
+ * Allocates contiguous blocks of int values, such as ports, from a pool.
+ * <p>
+ * Free blocks are kept coalesced: freeing a range merges it with the free blocks it is adjacent to. They are indexed
+ * both by lowest value and by length, see {@link IntFreeBlocks}, so that allocations, frees and lookups take O(log n)
+ * steps whatever the {@link AllocationPolicy}. Allocations are carved from the low end of the chosen free block.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class IntRangeAllocator {
+    static final String ILLEGAL_COUNT = "count must be positive: %d";
+    static final String NO_FREE_BLOCK = "no free block of %d values";
+    static final String NOT_ALLOCATED = "range %s is not allocated from this allocator";
+    static final String EMPTY_POOL = "pool %s contains no value";
+
+    private final AllocationPolicy policy;
+    private final int poolLowest;
+    private final int poolHighest;
+    private final IntFreeBlocks blocks = new IntFreeBlocks();
+
+    /**
+     * @param pool   The values to allocate from, all initially free
+     * @param policy How free blocks are chosen
+     */
+    public IntRangeAllocator(final IntRange pool, final AllocationPolicy policy) {
+        if (pool.lowestValue() > pool.highestValue())
+            throw new IllegalArgumentException(String.format(EMPTY_POOL, pool));
+
+        this.policy = Objects.requireNonNull(policy);
+        poolLowest = (int) pool.lowestValue();
+        poolHighest = (int) pool.highestValue();
+        blocks.add(poolLowest, poolHighest);
+    }
+
+    /**
+     * Allocates a range of <code>count</code> consecutive values.
+     *
+     * @throws NoSuchElementException no free block holds that many values
+     */
+    public IntRange allocate(final int count) {
+        final IntRange range = allocateOrNull(count);
+        if (range == null)
+            throw new NoSuchElementException(String.format(NO_FREE_BLOCK, count));
+        return range;
+    }
+
+    /**
+     * Same as {@link #allocate(int)}, returning null when no free block is large enough.
+     */
+    IntRange allocateOrNull(final int count) {
+        if (count <= 0)
+            throw new IllegalArgumentException(String.format(ILLEGAL_COUNT, count));
+
+        final int block = policy == AllocationPolicy.FIRST_FIT ? blocks.firstFit(count) : blocks.bestFit(count);
+        if (block == NONE)
+            return null;
+
+        final int low = blocks.lowest(block);
+        final int high = low + (count - 1);
+        final int blockHigh = blocks.highest(block);
+        blocks.remove(block);
+        if (high != blockHigh)
+            blocks.add(high + 1, blockHigh);
+        return IntRange.ofValues(low, high);
+    }
+
+    /**
+     * Returns a range to the free blocks.
+     *
+     * @throws IllegalArgumentException the range is empty, outside of the pool or not entirely allocated
+     */
+    public void free(final IntRange range) {
+        if (range.lowestValue() > range.highestValue() || !free((int) range.lowestValue(), (int) range.highestValue()))
+            throw new IllegalArgumentException(String.format(NOT_ALLOCATED, range));
+    }
+
+    /**
+     * Frees the values from <code>low</code> to <code>high</code>, merging them with the adjacent free blocks.
+     *
+     * @return false if they are outside of the pool or not entirely allocated, in which case nothing is freed
+     */
+    private boolean free(final int low, final int high) {
+        if (low < poolLowest || high > poolHighest)
+            return false;
+        final int previous = blocks.floor(low);
+        final int next = blocks.higher(low);
+        if (previous != NONE && blocks.highest(previous) >= low || next != NONE && blocks.lowest(next) <= high)
+            return false;
+
+        // Neither sum overflows, as the free blocks are apart from the range
+        int from = low;
+        int to = high;
+        if (previous != NONE && blocks.highest(previous) + 1 == low) {
+            from = blocks.lowest(previous);
+            blocks.remove(previous);
+        }
+        if (next != NONE && high + 1 == blocks.lowest(next)) {
+            to = blocks.highest(next);
+            blocks.remove(next);
+        }
+        blocks.add(from, to);
+        return true;
+    }
+
+    public boolean isFree(final int value) {
+        final int block = blocks.floor(value);
+        return block != NONE && value <= blocks.highest(block);
+    }
+
+    /**
+     * Returns the free block containing the value, or else the closest one below it, or null if there is none.
+     */
+    public IntRange floorFree(final int value) {
+        return block(blocks.floor(value));
+    }
+
+    /**
+     * Returns the free block containing the value, or else the closest one above it, or null if there is none.
+     */
+    public IntRange ceilingFree(final int value) {
+        final int block = blocks.floor(value);
+        return block(block != NONE && value <= blocks.highest(block) ? block : blocks.higher(value));
+    }
+
+    /**
+     * Returns the first gap of <code>count</code> free values starting at or after the given value, without
+     * allocating it, or null if there is none.
+     */
+    public IntRange ceilingGap(final int value, final int count) {
+        if (count <= 0)
+            throw new IllegalArgumentException(String.format(ILLEGAL_COUNT, count));
+
+        final int floor = blocks.floor(value);
+        if (floor != NONE && value <= blocks.highest(floor)
+                && Integer.compareUnsigned(blocks.highest(floor) - value, count - 1) >= 0)
+            return IntRange.ofValues(value, value + (count - 1));
+        final int block = blocks.firstFitAbove(value, count);
+        return block == NONE ? null : IntRange.ofValues(blocks.lowest(block), blocks.lowest(block) + (count - 1));
+    }
+
+    /**
+     * Returns the largest free block, the lowest one on a tie, or null if all values are allocated.
+     */
+    public IntRange largestFreeBlock() {
+        return block(blocks.largest());
+    }
+
+    public int freeBlockCount() {
+        return blocks.size();
+    }
+
+    /**
+     * Returns a snapshot of the free values.
+     */
+    public IntRangeSet freeBlocks() {
+        final IntRangeSet.Builder builder = new IntRangeSet.Builder(blocks.size());
+        blocks.collect(builder);
+        return builder.build();
+    }
+
+    private IntRange block(final int block) {
+        return block == NONE ? null : IntRange.ofValues(blocks.lowest(block), blocks.highest(block));
+    }
+}
@@ -0,0 +1,265 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.BoundType;
+import com.github.javachat.common.IndexSort;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A growable sequence of ranges stored column by column.
+ * <p>
+ * Each range takes an int for each endpoint and four bits for its bound types and boundedness, that is about 9
+ * bytes, instead of an {@link IntRange} object with its two predicates. Queries work on the columns directly;
+ * {@link IntRange} instances are only created by {@link #get(int)} and the {@link #asList()} view.
+ * <p>
+ * Ranges follow the semantics of {@link IntRange}, the endpoints of unbounded sides being symbolic. This class is not
+ * thread-safe.
+ */
+public final class IntRangeArray {
+    static final String INDEX_OUT_OF_BOUNDS = "index %d out of bounds for size %d";
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Flags of a range, FLAGS_PER_WORD of them packed in each long
+    private static final int LOWER_OPEN = 1;
+    private static final int HAS_LOWER = 2;
+    private static final int UPPER_OPEN = 4;
+    private static final int HAS_UPPER = 8;
+    private static final int FLAG_BITS = 4;
+    private static final int FLAGS_PER_WORD = Long.SIZE / FLAG_BITS;
+    private static final int FLAG_MASK = (1 << FLAG_BITS) - 1;
+
+    private int[] lowers;
+    private int[] uppers;
+    private long[] flags;
+    private int size;
+
+    public IntRangeArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntRangeArray(final int initialCapacity) {
+        lowers = new int[initialCapacity];
+        uppers = new int[initialCapacity];
+        flags = new long[wordCount(initialCapacity)];
+    }
+
+    public static IntRangeArray copyOf(final Iterable<IntRange> ranges) {
+        final IntRangeArray array = new IntRangeArray();
+        for (final IntRange range : ranges)
+            array.add(range);
+        return array;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public IntRangeArray add(final IntRange range) {
+        return add(range.lowerEndpoint(), range.lowerBoundType(), range.hasLowerBound(),
+                range.upperEndpoint(), range.upperBoundType(), range.hasUpperBound());
+    }
+
+    /**
+     * Appends a bounded range, validated as {@link IntRange#range(int, BoundType, int, BoundType)}.
+     */
+    public IntRangeArray add(final int lowerBound, final BoundType lowerBoundType,
+                             final int upperBound, final BoundType upperBoundType) {
+        if (lowerBound > upperBound)
+            throw new IllegalArgumentException(String.format(IntRange.ILLEGAL_BOUNDS, lowerBound, upperBound));
+        if (lowerBound == upperBound
+                && lowerBoundType == BoundType.OPEN
+                && lowerBoundType == upperBoundType)
+            throw new IllegalArgumentException(IntRange.ILLEGAL_OPEN_RANGE);
+
+        return add(lowerBound, Objects.requireNonNull(lowerBoundType), true,
+                upperBound, Objects.requireNonNull(upperBoundType), true);
+    }
+
+    private IntRangeArray add(final int lowerBound, final BoundType lowerBoundType, final boolean hasLowerBound,
+                              final int upperBound, final BoundType upperBoundType, final boolean hasUpperBound) {
+        if (size == lowers.length)
+            grow();
+
+        lowers[size] = lowerBound;
+        uppers[size] = upperBound;
+        int rangeFlags = 0;
+        if (lowerBoundType == BoundType.OPEN)
+            rangeFlags |= LOWER_OPEN;
+        if (hasLowerBound)
+            rangeFlags |= HAS_LOWER;
+        if (upperBoundType == BoundType.OPEN)
+            rangeFlags |= UPPER_OPEN;
+        if (hasUpperBound)
+            rangeFlags |= HAS_UPPER;
+        flags[size / FLAGS_PER_WORD] |= (long) rangeFlags << shift(size);
+        size++;
+        return this;
+    }
+
+    public void clear() {
+        Arrays.fill(flags, 0, wordCount(size), 0L);
+        size = 0;
+    }
+
+    public int lowerEndpoint(final int index) {
+        checkIndex(index);
+        return lowers[index];
+    }
+
+    public int upperEndpoint(final int index) {
+        checkIndex(index);
+        return uppers[index];
+    }
+
+    public BoundType lowerBoundType(final int index) {
+        return (flagsAt(index) & LOWER_OPEN) != 0 ? BoundType.OPEN : BoundType.CLOSED;
+    }
+
+    public BoundType upperBoundType(final int index) {
+        return (flagsAt(index) & UPPER_OPEN) != 0 ? BoundType.OPEN : BoundType.CLOSED;
+    }
+
+    public boolean hasLowerBound(final int index) {
+        return (flagsAt(index) & HAS_LOWER) != 0;
+    }
+
+    public boolean hasUpperBound(final int index) {
+        return (flagsAt(index) & HAS_UPPER) != 0;
+    }
+
+    /**
+     * Creates the range at the given index.
+     */
+    public IntRange get(final int index) {
+        final int rangeFlags = flagsAt(index);
+        return new IntRange(lowers[index], (rangeFlags & LOWER_OPEN) != 0 ? BoundType.OPEN : BoundType.CLOSED,
+                (rangeFlags & HAS_LOWER) != 0,
+                uppers[index], (rangeFlags & UPPER_OPEN) != 0 ? BoundType.OPEN : BoundType.CLOSED,
+                (rangeFlags & HAS_UPPER) != 0);
+    }
+
+    /**
+     * Returns a view of the ranges, each created on access.
+     */
+    public List<IntRange> asList() {
+        return new RangeList();
+    }
+
+    /**
+     * Whether the range at the given index contains the value, as {@link IntRange#contains(int)}.
+     */
+    public boolean containsAt(final int index, final int value) {
+        checkIndex(index);
+        return contains(index, value);
+    }
+
+    /**
+     * Whether any of the ranges contains the value.
+     */
+    public boolean anyContains(final int value) {
+        for (int index = 0; index < size; index++) {
+            if (contains(index, value))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sorts the ranges by ascending lower endpoint. A range without lower bound has {@link Integer#MIN_VALUE} as its
+     * lower endpoint, and ranges with equal lower endpoints, bounded or not, keep their relative order.
+     */
+    public void sortByLower() {
+        final int[] order = IndexSort.sortedIndices(lowers, size);
+        final long[] sortedFlags = new long[flags.length];
+        for (int i = 0; i < size; i++)
+            sortedFlags[i / FLAGS_PER_WORD] |= (long) flags(order[i]) << shift(i);
+
+        lowers = IndexSort.permute(Arrays.copyOf(lowers, size), order);
+        uppers = IndexSort.permute(Arrays.copyOf(uppers, size), order);
+        flags = sortedFlags;
+    }
+
+    /**
+     * The smallest value contained by the range at the given index, as {@link IntRange#lowestValue()}.
+     */
+    long lowestValue(final int index) {
+        final int rangeFlags = flags(index);
+        if ((rangeFlags & HAS_LOWER) == 0)
+            return Integer.MIN_VALUE;
+        return (rangeFlags & LOWER_OPEN) != 0 ? lowers[index] : lowers[index] + 1L;
+    }
+
+    /**
+     * The greatest value contained by the range at the given index, as {@link IntRange#highestValue()}.
+     */
+    long highestValue(final int index) {
+        final int rangeFlags = flags(index);
+        if ((rangeFlags & HAS_UPPER) == 0)
+            return Integer.MAX_VALUE;
+        return (rangeFlags & UPPER_OPEN) != 0 ? uppers[index] : uppers[index] - 1L;
+    }
+
+    private boolean contains(final int index, final int value) {
+        final int rangeFlags = flags(index);
+        if ((rangeFlags & HAS_LOWER) != 0
+                && ((rangeFlags & LOWER_OPEN) != 0 ? value < lowers[index] : value <= lowers[index]))
+            return false;
+        return (rangeFlags & HAS_UPPER) == 0
+                || ((rangeFlags & UPPER_OPEN) != 0 ? value <= uppers[index] : value < uppers[index]);
+    }
+
+    private int flagsAt(final int index) {
+        checkIndex(index);
+        return flags(index);
+    }
+
+    private int flags(final int index) {
+        return (int) (flags[index / FLAGS_PER_WORD] >>> shift(index)) & FLAG_MASK;
+    }
+
+    private static int shift(final int index) {
+        return (index % FLAGS_PER_WORD) * FLAG_BITS;
+    }
+
+    private static int wordCount(final int capacity) {
+        return (capacity + FLAGS_PER_WORD - 1) / FLAGS_PER_WORD;
+    }
+
+    private void grow() {
+        final int capacity = Math.max(DEFAULT_CAPACITY, lowers.length + (lowers.length >> 1));
+        lowers = Arrays.copyOf(lowers, capacity);
+        uppers = Arrays.copyOf(uppers, capacity);
+        flags = Arrays.copyOf(flags, wordCount(capacity));
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(String.format(INDEX_OUT_OF_BOUNDS, index, size));
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+
+    private final class RangeList extends AbstractList<IntRange> implements RandomAccess {
+        @Override
+        public IntRange get(final int index) {
+            return IntRangeArray.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.github.javachat.intrange;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Merges several sources of ranges, each sorted by ascending lower bound, into a single sorted sequence of disjoint
+ * ranges.
+ * <p>
+ * Ranges which are connected, that is which overlap or leave no int value between them, are replaced by their span,
+ * so that the output is the one of {@link IntRangeSet#asRanges()} for the union of all sources. Unlike building an
+ * {@link IntRangeSet}, the output is produced incrementally: only the current range of each source is held, in a
+ * min-heap of source indices keyed by the lowest value of that range.
+ * <p>
+ * Ranges which contain no value are skipped. This class is not thread-safe.
+ */
+public final class IntRangeCoalescer implements Iterator<IntRange> {
+    static final String UNSORTED_SOURCE = "source %d is not sorted: %s follows %s";
+
+    private final List<? extends Iterator<IntRange>> sources;
+
+    // Current range of each source, and its lowest and highest value
+    private final IntRange[] heads;
+    private final long[] headLowest;
+    private final long[] headHighest;
+
+    // Indices of the non exhausted sources, as a binary min-heap on headLowest
+    private final int[] heap;
+    private int heapSize;
+
+    public static IntRangeCoalescer of(final List<? extends Iterator<IntRange>> sources) {
+        return new IntRangeCoalescer(sources);
+    }
+
+    /**
+     * Returns a stream of the coalesced ranges of the given sorted streams. Closing the returned stream closes the
+     * given streams.
+     */
+    public static Stream<IntRange> coalesce(final List<? extends Stream<IntRange>> streams) {
+        final List<Iterator<IntRange>> sources = new ArrayList<>(streams.size());
+        for (final Stream<IntRange> stream : streams)
+            sources.add(stream.iterator());
+
+        final Spliterator<IntRange> spliterator = Spliterators.spliteratorUnknownSize(of(sources),
+                Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(() -> streams.forEach(Stream::close));
+    }
+
+    private IntRangeCoalescer(final List<? extends Iterator<IntRange>> sources) {
+        this.sources = sources;
+        final int size = sources.size();
+        heads = new IntRange[size];
+        headLowest = new long[size];
+        headHighest = new long[size];
+        heap = new int[size];
+
+        for (int source = 0; source < size; source++) {
+            if (pull(source))
+                heap[heapSize++] = source;
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--)
+            siftDown(i);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return heapSize > 0;
+    }
+
+    @Override
+    public IntRange next() {
+        if (heapSize == 0)
+            throw new NoSuchElementException();
+
+        final long lowest = headLowest[heap[0]];
+        long highest = headHighest[heap[0]];
+        advance();
+
+        while (heapSize > 0 && headLowest[heap[0]] <= highest + 1) {
+            highest = Math.max(highest, headHighest[heap[0]]);
+            advance();
+        }
+
+        return IntRange.ofValues((int) lowest, (int) highest);
+    }
+
+    /**
+     * Replaces the range of the source at the top of the heap with its next one.
+     */
+    private void advance() {
+        if (!pull(heap[0]))
+            heap[0] = heap[--heapSize];
+        siftDown(0);
+    }
+
+    /**
+     * Reads the next range containing values from the given source, if any.
+     */
+    private boolean pull(final int source) {
+        final Iterator<IntRange> iterator = sources.get(source);
+        while (iterator.hasNext()) {
+            final IntRange range = iterator.next();
+            final long lowest = range.lowestValue();
+            final long highest = range.highestValue();
+            if (lowest > highest)
+                continue;
+            if (heads[source] != null && lowest < headLowest[source])
+                throw new IllegalStateException(String.format(UNSORTED_SOURCE, source, range, heads[source]));
+
+            heads[source] = range;
+            headLowest[source] = lowest;
+            headHighest[source] = highest;
+            return true;
+        }
+        return false;
+    }
+
+    private void siftDown(int index) {
+        final int source = heap[index];
+        final long key = headLowest[source];
+
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && headLowest[heap[child + 1]] < headLowest[heap[child]])
+                child++;
+            if (headLowest[heap[child]] >= key)
+                break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = source;
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.RangeStats;
+
+/**
+ * Looks up values in the ranges of an {@link IntRangeSet}, starting from the range found by the previous lookup.
+ * <p>
+ * A lookup first tests the last range found and the next one, then gallops away from them, doubling its step until it
+ * passes the value, and ends with a binary search over the last step. It costs a few comparisons when the value falls
+ * in the same range as the previous one or in the next, and a logarithm of the number of ranges skipped otherwise: a
+ * sequence of ordered or nearly ordered values, such as event timestamps, is looked up in amortized constant time,
+ * while a random sequence is still looked up in logarithmic time.
+ * <p>
+ * A cursor is obtained from {@link IntRangeSet#cursor()}. It is not thread-safe, but any number of cursors may share
+ * a same set.
+ */
+public final class IntRangeCursor {
+    // Lowest and highest value of each range, both included
+    private final int[] lowestValues;
+    private final int[] highestValues;
+    // Records lookups when the set is monitored, null otherwise
+    private final RangeStats stats;
+    // Last range starting at or below the previous value, -1 if none
+    private int position = -1;
+
+    IntRangeCursor(final int[] lowestValues, final int[] highestValues, final RangeStats stats) {
+        this.lowestValues = lowestValues;
+        this.highestValues = highestValues;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns the index of the range containing the given value, or -1 if there is no such range.
+     */
+    public int indexOf(final int value) {
+        final int index = seek(value);
+        return index >= 0 && value <= highestValues[index] ? index : -1;
+    }
+
+    public boolean contains(final int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Moves to the last range starting at or below the value, and returns its index, or -1 if there is none.
+     */
+    private int seek(final int value) {
+        final int[] lowest = lowestValues;
+        int steps = 1;
+        // Bounds of the search: lowest[low] <= value < lowest[high], -1 and length standing for infinite values
+        int low;
+        int high;
+        if (position < 0 || lowest[position] <= value) {
+            low = position;
+            high = low + 1;
+            for (int step = 1; high < lowest.length && lowest[high] <= value; step <<= 1, steps++) {
+                low = high;
+                high = (int) Math.min((long) high + step, lowest.length);
+            }
+        } else {
+            high = position;
+            low = high - 1;
+            for (int step = 1; low >= 0 && lowest[low] > value; step <<= 1, steps++) {
+                high = low;
+                low = Math.max(low - step, -1);
+            }
+        }
+        while (high - low > 1) {
+            steps++;
+            final int middle = (low + high) >>> 1;
+            if (lowest[middle] <= value)
+                low = middle;
+            else
+                high = middle;
+        }
+        if (stats != null)
+            stats.recordLookup(steps);
+        return position = low;
+    }
+
+    @Override
+    public String toString() {
+        return "cursor at " + position + " of " + lowestValues.length + " ranges";
+    }
+}
@@ -0,0 +1,178 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.IndexPairConsumer;
+import com.github.javachat.common.IndexSort;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Finds all pairs of overlapping ranges between two collections, the ranges of each side possibly overlapping each
+ * other.
+ * <p>
+ * Two ranges overlap when they have at least one value in common, so that bound types are honored at shared
+ * endpoints: <code>[1..5)</code> and <code>(5..9)</code> overlap while <code>(1..5]</code> and <code>(5..9)</code> do
+ * not. Ranges which contain no value overlap nothing.
+ * <p>
+ * Both sides are sorted by lowest value once, when the join is created. The join is then a forward scan sweep: the
+ * range with the smallest lowest value is taken from either side, paired with the ranges of the other side which
+ * start before it ends, and discarded. Pairs are emitted through a callback as they are found, each exactly once.
+ */
+public final class IntRangeOverlapJoin {
+    /**
+     * The parallel join does not create partitions of fewer ranges than this.
+     */
+    static final int MIN_PARTITION_SIZE = 1 << 14;
+
+    private final Side left;
+    private final Side right;
+
+    public static IntRangeOverlapJoin of(final List<IntRange> left, final List<IntRange> right) {
+        return new IntRangeOverlapJoin(Side.of(left), Side.of(right));
+    }
+
+    public static IntRangeOverlapJoin of(final IntRangeArray left, final IntRangeArray right) {
+        return new IntRangeOverlapJoin(Side.of(left), Side.of(right));
+    }
+
+    private IntRangeOverlapJoin(final Side left, final Side right) {
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * Passes the index in the left collection and the index in the right collection of every pair of overlapping
+     * ranges to the consumer.
+     */
+    public void forEachOverlap(final IndexPairConsumer consumer) {
+        sweep(0, left.size(), 0, right.size(), consumer);
+    }
+
+    /**
+     * Same as {@link #forEachOverlap(IndexPairConsumer)}, with partitions of the sweep running concurrently on the
+     * common pool; the consumer must therefore be thread-safe, and receives pairs in no particular order.
+     * <p>
+     * Partitions are delimited by pivot values: the ranges of both sides starting between two consecutive pivots
+     * are those which the sequential sweep would discard in a row, so each partition only has to position its scan
+     * with a binary search on each side.
+     */
+    public void parallelForEachOverlap(final IndexPairConsumer consumer) {
+        final Side larger = left.size() >= right.size() ? left : right;
+        final int partitions = (int) Math.min(4L * ForkJoinPool.getCommonPoolParallelism(),
+                Math.max(1, (left.size() + (long) right.size()) / MIN_PARTITION_SIZE));
+        if (partitions <= 1) {
+            forEachOverlap(consumer);
+            return;
+        }
+
+        // Partition p holds the ranges whose lowest value is in [pivots[p], pivots[p + 1])
+        final int[] pivots = new int[partitions + 1];
+        pivots[0] = Integer.MIN_VALUE;
+        for (int p = 1; p < partitions; p++)
+            pivots[p] = larger.lowest[(int) ((long) p * larger.size() / partitions)];
+
+        IntStream.range(0, partitions).parallel().forEach(p -> {
+            final boolean last = p == partitions - 1;
+            sweep(left.firstAtLeast(pivots[p]), last ? left.size() : left.firstAtLeast(pivots[p + 1]),
+                    right.firstAtLeast(pivots[p]), last ? right.size() : right.firstAtLeast(pivots[p + 1]),
+                    consumer);
+        });
+    }
+
+    /**
+     * Runs the sweep from the given positions, discarding ranges until both sides reach the given ends. Scans for
+     * overlaps continue past these ends.
+     */
+    private void sweep(int i, final int leftEnd, int j, final int rightEnd, final IndexPairConsumer consumer) {
+        final int[] leftLowest = left.lowest;
+        final int[] rightLowest = right.lowest;
+
+        while (i < leftEnd || j < rightEnd) {
+            if (i < leftEnd && (j == rightEnd || leftLowest[i] <= rightLowest[j])) {
+                final int highest = left.highest[i];
+                for (int k = j; k < rightLowest.length && rightLowest[k] <= highest; k++)
+                    consumer.accept(left.indices[i], right.indices[k]);
+                i++;
+            } else {
+                final int highest = right.highest[j];
+                for (int k = i; k < leftLowest.length && leftLowest[k] <= highest; k++)
+                    consumer.accept(left.indices[k], right.indices[j]);
+                j++;
+            }
+        }
+    }
+
+    /**
+     * The ranges of one side which contain values, sorted by lowest value.
+     */
+    private static final class Side {
+        final int[] lowest;
+        final int[] highest;
+        // Index of each range in the original collection
+        final int[] indices;
+
+        static Side of(final List<IntRange> ranges) {
+            final int[] lowest = new int[ranges.size()];
+            final int[] highest = new int[ranges.size()];
+            final int[] indices = new int[ranges.size()];
+            int size = 0;
+
+            for (int i = 0; i < ranges.size(); i++) {
+                final IntRange range = ranges.get(i);
+                if (range.lowestValue() <= range.highestValue()) {
+                    lowest[size] = (int) range.lowestValue();
+                    highest[size] = (int) range.highestValue();
+                    indices[size] = i;
+                    size++;
+                }
+            }
+            return new Side(lowest, highest, indices, size);
+        }
+
+        static Side of(final IntRangeArray ranges) {
+            final int[] lowest = new int[ranges.size()];
+            final int[] highest = new int[ranges.size()];
+            final int[] indices = new int[ranges.size()];
+            int size = 0;
+
+            for (int i = 0; i < ranges.size(); i++) {
+                if (ranges.lowestValue(i) <= ranges.highestValue(i)) {
+                    lowest[size] = (int) ranges.lowestValue(i);
+                    highest[size] = (int) ranges.highestValue(i);
+                    indices[size] = i;
+                    size++;
+                }
+            }
+            return new Side(lowest, highest, indices, size);
+        }
+
+        private Side(final int[] lowest, final int[] highest, final int[] indices, final int size) {
+            final int[] order = IndexSort.sortedIndices(lowest, size);
+            this.lowest = IndexSort.permute(Arrays.copyOf(lowest, size), order);
+            this.highest = IndexSort.permute(Arrays.copyOf(highest, size), order);
+            this.indices = IndexSort.permute(Arrays.copyOf(indices, size), order);
+        }
+
+        int size() {
+            return lowest.length;
+        }
+
+        /**
+         * The position of the first range whose lowest value is at least the given one.
+         */
+        int firstAtLeast(final int value) {
+            int low = 0;
+            int high = lowest.length;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (lowest[middle] < value)
+                    low = middle + 1;
+                else
+                    high = middle;
+            }
+            return low;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.IndexSort;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Scatters values into contiguous regions, one per bin, the bins being disjoint ranges.
+ * <p>
+ * The bins are sorted once, when the partitioner is created, so that the bin of a value is found with a binary search
+ * instead of testing every bin. A partition then makes two passes over the values: the first counts the values of
+ * each bin, which gives the region of each bin in the output, and the second copies every value at the next position
+ * of its region. Values keep their relative order within a region, and values in no bin are left out.
+ * <p>
+ * The parallel partition splits the values in chunks, each counted into its own histogram on the common pool; the
+ * histograms give each chunk its own positions in every region, so that the chunks are then scattered concurrently
+ * with the same result as the sequential partition.
+ */
+public final class IntRangePartitioner {
+    /**
+     * The parallel partition does not create chunks of fewer values than this.
+     */
+    static final int MIN_CHUNK_SIZE = 1 << 16;
+
+    static final String OVERLAPPING_BINS = "bins %s and %s overlap";
+    static final String OUTPUT_TOO_SHORT = "output of %d values for %d values in bins";
+
+    private final int binCount;
+    // The bins which contain values, sorted by lowest value, both bounds included
+    private final int[] lowest;
+    private final int[] highest;
+    // Index of each of these bins in the original array
+    private final int[] indices;
+
+    /**
+     * @throws IllegalArgumentException two bins have a value in common
+     */
+    public static IntRangePartitioner of(final IntRange... bins) {
+        final int[] lowest = new int[bins.length];
+        final int[] highest = new int[bins.length];
+        final int[] indices = new int[bins.length];
+        int size = 0;
+
+        for (int i = 0; i < bins.length; i++) {
+            if (bins[i].lowestValue() <= bins[i].highestValue()) {
+                lowest[size] = (int) bins[i].lowestValue();
+                highest[size] = (int) bins[i].highestValue();
+                indices[size] = i;
+                size++;
+            }
+        }
+
+        final int[] order = IndexSort.sortedIndices(lowest, size);
+        final IntRangePartitioner partitioner = new IntRangePartitioner(bins.length,
+                IndexSort.permute(Arrays.copyOf(lowest, size), order),
+                IndexSort.permute(Arrays.copyOf(highest, size), order),
+                IndexSort.permute(Arrays.copyOf(indices, size), order));
+        for (int i = 1; i < size; i++) {
+            if (partitioner.highest[i - 1] >= partitioner.lowest[i])
+                throw new IllegalArgumentException(String.format(OVERLAPPING_BINS,
+                        bins[partitioner.indices[i - 1]], bins[partitioner.indices[i]]));
+        }
+        return partitioner;
+    }
+
+    private IntRangePartitioner(final int binCount, final int[] lowest, final int[] highest, final int[] indices) {
+        this.binCount = binCount;
+        this.lowest = lowest;
+        this.highest = highest;
+        this.indices = indices;
+    }
+
+    public int binCount() {
+        return binCount;
+    }
+
+    /**
+     * Returns the index of the bin containing the value, or -1 if no bin contains it.
+     */
+    public int binOf(final int value) {
+        int low = 0;
+        int high = lowest.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (lowest[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low > 0 && highest[low - 1] >= value ? indices[low - 1] : -1;
+    }
+
+    /**
+     * Copies the values of each bin to a contiguous region of the output, bins in order.
+     *
+     * @return The offsets of the regions: the values of bin {@code b} are written from {@code offsets[b]} included to
+     * {@code offsets[b + 1]} excluded, so that {@code offsets[binCount()]} values are written
+     * @throws IllegalArgumentException the output is shorter than the number of values in bins
+     */
+    public int[] partition(final int[] values, final int[] output) {
+        final int[] positions = new int[binCount];
+        count(values, 0, values.length, positions);
+        final int[] offsets = offsets(new int[][]{positions}, output.length);
+        scatter(values, 0, values.length, positions, output);
+        return offsets;
+    }
+
+    /**
+     * Same as {@link #partition(int[], int[])}, with chunks of the values counted and scattered concurrently on the
+     * common pool.
+     */
+    public int[] parallelPartition(final int[] values, final int[] output) {
+        final int chunks = (int) Math.min(4L * ForkJoinPool.getCommonPoolParallelism(),
+                Math.max(1, values.length / MIN_CHUNK_SIZE));
+        if (chunks <= 1)
+            return partition(values, output);
+
+        final int[][] positions = new int[chunks][binCount];
+        IntStream.range(0, chunks).parallel().forEach(c ->
+                count(values, chunkStart(c, chunks, values.length), chunkStart(c + 1, chunks, values.length),
+                        positions[c]));
+        final int[] offsets = offsets(positions, output.length);
+        IntStream.range(0, chunks).parallel().forEach(c ->
+                scatter(values, chunkStart(c, chunks, values.length), chunkStart(c + 1, chunks, values.length),
+                        positions[c], output));
+        return offsets;
+    }
+
+    private static int chunkStart(final int chunk, final int chunks, final int size) {
+        return (int) ((long) chunk * size / chunks);
+    }
+
+    private void count(final int[] values, final int from, final int to, final int[] histogram) {
+        for (int i = from; i < to; i++) {
+            final int bin = binOf(values[i]);
+            if (bin >= 0)
+                histogram[bin]++;
+        }
+    }
+
+    /**
+     * Turns the histogram of each chunk into the position at which the chunk writes its first value of each bin,
+     * and returns the offsets of the regions.
+     */
+    private int[] offsets(final int[][] histograms, final int outputSize) {
+        final int[] offsets = new int[binCount + 1];
+        int position = 0;
+        for (int bin = 0; bin < binCount; bin++) {
+            offsets[bin] = position;
+            for (final int[] histogram : histograms) {
+                final int count = histogram[bin];
+                histogram[bin] = position;
+                position += count;
+            }
+        }
+        if (position > outputSize)
+            throw new IllegalArgumentException(String.format(OUTPUT_TOO_SHORT, outputSize, position));
+        offsets[binCount] = position;
+        return offsets;
+    }
+
+    // Bins are looked up again rather than remembered from the count, which would take as much memory as the output
+    private void scatter(final int[] values, final int from, final int to, final int[] positions,
+                         final int[] output) {
+        for (int i = from; i < to; i++) {
+            final int bin = binOf(values[i]);
+            if (bin >= 0)
+                output[positions[bin]++] = values[i];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "partitioner of " + binCount + " bins";
+    }
+}
@@ -0,0 +1,538 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.RangeEvent;
+import com.github.javachat.common.RangeEvents;
+import com.github.javachat.common.RangeStats;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable set of int values, made of disjoint {@link IntRange}s.
+ * <p>
+ * This is the primitive counterpart of Guava's <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/ImmutableRangeSet.html">ImmutableRangeSet&lt;Integer&gt;</a>.
+ * The set is always kept in canonical form: its ranges are sorted, disjoint and never adjacent. As a consequence,
+ * boolean combinations of range conditions can be expressed with {@link #union(IntRangeSet)},
+ * {@link #intersection(IntRangeSet)}, {@link #difference(IntRangeSet)} and {@link #complement()}, normalized once,
+ * and then evaluated through the predicate returned by {@link #asPredicate()}.
+ */
+public final class IntRangeSet {
+    /**
+     * Up to this number of ranges, {@link #asPredicate()} tests each range in turn instead of binary searching.
+     */
+    static final int UNROLLED_PREDICATE_MAX_SIZE = 4;
+
+    /**
+     * Below this number of values, {@link #parallelIndexOfAll} joins sequentially.
+     */
+    static final int PARALLEL_JOIN_THRESHOLD = 1 << 13;
+
+    static final String UNSORTED_VALUES = "values are not sorted: %s follows %s at index %d";
+    static final String LENGTH_MISMATCH = "%d values but %d indices";
+
+    private static final IntRangeSet EMPTY = new IntRangeSet(new int[0], new int[0]);
+
+    private static final IntRangeSet ALL = new IntRangeSet(new int[]{Integer.MIN_VALUE},
+            new int[]{Integer.MAX_VALUE});
+
+    // Lowest and highest value of each range, both included
+    private final int[] lowestValues;
+    private final int[] highestValues;
+    // Records lookups when this set is monitored, null otherwise
+    private final RangeStats stats;
+
+    public static IntRangeSet empty() {
+        return EMPTY;
+    }
+
+    public static IntRangeSet all() {
+        return ALL;
+    }
+
+    /**
+     * Builds the set of the values contained in at least one of the given ranges.
+     */
+    public static IntRangeSet of(final IntRange... ranges) {
+        return copyOf(Arrays.asList(ranges));
+    }
+
+    /**
+     * Builds the set of the values contained in at least one of the given ranges.
+     */
+    public static IntRangeSet copyOf(final Iterable<IntRange> ranges) {
+        int[] lowest = new int[16];
+        int[] highest = new int[16];
+        int size = 0;
+
+        for (final IntRange range : ranges) {
+            final long low = range.lowestValue();
+            final long high = range.highestValue();
+            if (low > high)
+                continue;
+            if (size == lowest.length) {
+                lowest = Arrays.copyOf(lowest, size * 2);
+                highest = Arrays.copyOf(highest, size * 2);
+            }
+            lowest[size] = (int) low;
+            highest[size] = (int) high;
+            size++;
+        }
+
+        return union(lowest, highest, size);
+    }
+
+    /**
+     * Builds the set of the values from <code>lowestValues[i]</code> to <code>highestValues[i]</code>, both included,
+     * for each index below <code>size</code>, without creating any range. The arrays are sorted in place.
+     *
+     * @throws IllegalArgumentException a lowest value is greater than its highest value
+     */
+    public static IntRangeSet ofValues(final int[] lowestValues, final int[] highestValues, final int size) {
+        for (int i = 0; i < size; i++) {
+            if (lowestValues[i] > highestValues[i])
+                throw new IllegalArgumentException(String.format(IntRange.ILLEGAL_BOUNDS,
+                        lowestValues[i], highestValues[i]));
+        }
+        return union(lowestValues, highestValues, size);
+    }
+
+    /**
+     * Computes the union of unsorted, possibly overlapping ranges. The arrays are sorted in place.
+     * <p>
+     * Lowest and highest values are sorted independently: if the <code>k + 1</code> smallest highest values are all
+     * lower than the <code>(k + 2)</code>th lowest value, no range covers the values in between.
+     */
+    static IntRangeSet union(final int[] lowest, final int[] highest, final int size) {
+        if (size == 0)
+            return EMPTY;
+
+        final RangeEvent event = RangeEvents.start();
+        Arrays.sort(lowest, 0, size);
+        Arrays.sort(highest, 0, size);
+
+        final Builder builder = new Builder(size);
+        for (int i = 0; i < size; i++)
+            builder.add(lowest[i], highest[i]);
+
+        return committed("copyOf", size, 0, builder.build(), event);
+    }
+
+    private IntRangeSet(final int[] lowestValues, final int[] highestValues) {
+        this(lowestValues, highestValues, null);
+    }
+
+    private IntRangeSet(final int[] lowestValues, final int[] highestValues, final RangeStats stats) {
+        this.lowestValues = lowestValues;
+        this.highestValues = highestValues;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns a copy of this set, sharing its arrays, whose lookups are recorded in the given statistics; its size and
+     * footprint are recorded at once.
+     *
+     * @see RangeStats
+     */
+    public IntRangeSet monitored(final RangeStats stats) {
+        stats.recordShape(size(), footprintBytes());
+        return new IntRangeSet(lowestValues, highestValues, stats);
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by this set.
+     */
+    public long footprintBytes() {
+        return 24 + 2 * RangeStats.arrayBytes(size(), 4);
+    }
+
+    /**
+     * Returns the number of disjoint ranges of this set.
+     */
+    public int size() {
+        return lowestValues.length;
+    }
+
+    public boolean isEmpty() {
+        return lowestValues.length == 0;
+    }
+
+    /**
+     * Returns the lowest value of the range at the given index, in ascending order.
+     */
+    public int lowestValue(final int index) {
+        return lowestValues[index];
+    }
+
+    /**
+     * Returns the highest value of the range at the given index, in ascending order.
+     */
+    public int highestValue(final int index) {
+        return highestValues[index];
+    }
+
+    /**
+     * Returns the range at the given index, in ascending order.
+     */
+    public IntRange get(final int index) {
+        return IntRange.ofValues(lowestValues[index], highestValues[index]);
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#asRanges()">Guava JavaDoc</a>
+     */
+    public List<IntRange> asRanges() {
+        return new RangeList();
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#contains(C)">Guava JavaDoc</a>
+     */
+    public boolean contains(final int value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index of the range containing the given value, or -1 if there is no such range.
+     */
+    public int indexOf(final int value) {
+        if (stats != null)
+            return monitoredIndexOf(value);
+        int index = Arrays.binarySearch(lowestValues, value);
+        if (index >= 0)
+            return index;
+
+        // Last range starting below the value
+        index = -index - 2;
+        return index >= 0 && value <= highestValues[index] ? index : -1;
+    }
+
+    /**
+     * Returns a cursor looking up values from the range found by its previous lookup, for sequences of ordered or
+     * nearly ordered values.
+     */
+    public IntRangeCursor cursor() {
+        return new IntRangeCursor(lowestValues, highestValues, stats);
+    }
+
+    /**
+     * Same as {@link #indexOf(int)}, counting the steps of the binary search.
+     */
+    private int monitoredIndexOf(final int value) {
+        int steps = 0;
+        int low = 0;
+        int high = lowestValues.length;
+        while (low < high) {
+            steps++;
+            final int middle = (low + high) >>> 1;
+            if (lowestValues[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        stats.recordLookup(steps);
+
+        // Last range starting at or below the value
+        final int index = low - 1;
+        return index >= 0 && value <= highestValues[index] ? index : -1;
+    }
+
+    /**
+     * Stores in <code>indices[i]</code> the result of {@link #indexOf(int)} for <code>sortedValues[i]</code>, in a
+     * single merge pass over the values and the ranges.
+     *
+     * @throws IllegalArgumentException the values are not sorted, or the arrays have different lengths
+     */
+    public void indexOfAll(final int[] sortedValues, final int[] indices) {
+        checkJoin(sortedValues.length, indices.length);
+        final RangeEvent event = RangeEvents.start();
+        indexOfAll(sortedValues, 0, sortedValues.length, 0, size(), indices);
+        RangeEvents.commit("IntRangeSet", "indexOfAll", size(), sortedValues.length, indices.length, event);
+    }
+
+    /**
+     * Same as {@link #indexOfAll(int[], int[])}, the values being split in halves recursively and the ranges at the
+     * middle values, so that each half is joined with only the ranges it may fall into.
+     */
+    public void parallelIndexOfAll(final int[] sortedValues, final int[] indices) {
+        checkJoin(sortedValues.length, indices.length);
+        final RangeEvent event = RangeEvents.start();
+        ForkJoinPool.commonPool().invoke(
+                new IndexOfAllTask(sortedValues, 0, sortedValues.length, 0, size(), indices));
+        RangeEvents.commit("IntRangeSet", "parallelIndexOfAll", size(), sortedValues.length, indices.length, event);
+    }
+
+    private static void checkJoin(final int valueCount, final int indexCount) {
+        if (valueCount != indexCount)
+            throw new IllegalArgumentException(String.format(LENGTH_MISMATCH, valueCount, indexCount));
+    }
+
+    private void indexOfAll(final int[] values, final int from, final int to,
+                            final int rangeFrom, final int rangeTo, final int[] indices) {
+        int range = rangeFrom;
+        for (int i = from; i < to; i++) {
+            final int value = values[i];
+            if (i > 0 && value < values[i - 1])
+                throw new IllegalArgumentException(String.format(UNSORTED_VALUES, value, values[i - 1], i));
+
+            while (range < rangeTo && highestValues[range] < value)
+                range++;
+            indices[i] = range < rangeTo && lowestValues[range] <= value ? range : -1;
+        }
+    }
+
+    /**
+     * Joins a slice of the values with a slice of the ranges which holds all those that may contain them.
+     */
+    private final class IndexOfAllTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] values;
+        private final int from;
+        private final int to;
+        private final int rangeFrom;
+        private final int rangeTo;
+        private final int[] indices;
+
+        IndexOfAllTask(final int[] values, final int from, final int to,
+                       final int rangeFrom, final int rangeTo, final int[] indices) {
+            this.values = values;
+            this.from = from;
+            this.to = to;
+            this.rangeFrom = rangeFrom;
+            this.rangeTo = rangeTo;
+            this.indices = indices;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_JOIN_THRESHOLD) {
+                indexOfAll(values, from, to, rangeFrom, rangeTo, indices);
+                return;
+            }
+
+            // The first range not entirely below the pivot is the only one which may hold values of both halves
+            final int middle = (from + to) >>> 1;
+            final int pivot = values[middle];
+            int low = rangeFrom;
+            int high = rangeTo;
+            while (low < high) {
+                final int mid = (low + high) >>> 1;
+                if (highestValues[mid] < pivot)
+                    low = mid + 1;
+                else
+                    high = mid;
+            }
+
+            invokeAll(new IndexOfAllTask(values, from, middle, rangeFrom, Math.min(low + 1, rangeTo), indices),
+                    new IndexOfAllTask(values, middle, to, low, rangeTo, indices));
+        }
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#encloses(com.google.common.collect.Range)">Guava JavaDoc</a>
+     */
+    public boolean encloses(final IntRange range) {
+        final long low = range.lowestValue();
+        final long high = range.highestValue();
+        if (low > high)
+            return true;
+
+        final int index = indexOf((int) low);
+        return index >= 0 && high <= highestValues[index];
+    }
+
+    public IntRangeSet union(final IntRangeSet other) {
+        final RangeEvent event = RangeEvents.start();
+        final Builder builder = new Builder(size() + other.size());
+        int i = 0;
+        int j = 0;
+
+        while (i < size() || j < other.size()) {
+            if (j == other.size() || i < size() && lowestValues[i] <= other.lowestValues[j]) {
+                builder.add(lowestValues[i], highestValues[i]);
+                i++;
+            } else {
+                builder.add(other.lowestValues[j], other.highestValues[j]);
+                j++;
+            }
+        }
+
+        return committed("union", size(), other.size(), builder.build(), event);
+    }
+
+    public IntRangeSet intersection(final IntRangeSet other) {
+        final RangeEvent event = RangeEvents.start();
+        final Builder builder = new Builder(Math.max(size(), other.size()));
+        int i = 0;
+        int j = 0;
+
+        while (i < size() && j < other.size()) {
+            final int low = Math.max(lowestValues[i], other.lowestValues[j]);
+            final int high = Math.min(highestValues[i], other.highestValues[j]);
+            if (low <= high)
+                builder.add(low, high);
+            if (highestValues[i] < other.highestValues[j])
+                i++;
+            else
+                j++;
+        }
+
+        return committed("intersection", size(), other.size(), builder.build(), event);
+    }
+
+    public IntRangeSet difference(final IntRangeSet other) {
+        return intersection(other.complement());
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeSet.html#complement()">Guava JavaDoc</a>
+     */
+    public IntRangeSet complement() {
+        final RangeEvent event = RangeEvents.start();
+        final Builder builder = new Builder(size() + 1);
+        long next = Integer.MIN_VALUE;
+
+        for (int i = 0; i < size(); i++) {
+            if (lowestValues[i] > next)
+                builder.add((int) next, lowestValues[i] - 1);
+            next = highestValues[i] + 1L;
+        }
+        if (next <= Integer.MAX_VALUE)
+            builder.add((int) next, Integer.MAX_VALUE);
+
+        return committed("complement", size(), 0, builder.build(), event);
+    }
+
+    /**
+     * Returns a predicate testing membership in this set.
+     * <p>
+     * The predicate is specialized according to the shape of the set: small sets are tested with a chain of
+     * comparisons against constants, larger ones with a binary search. Each range is tested with a single unsigned
+     * comparison, which also copes with ranges reaching {@link Integer#MIN_VALUE} or {@link Integer#MAX_VALUE}.
+     */
+    public IntPredicate asPredicate() {
+        final int[] low = lowestValues;
+        // Highest value relative to the lowest, biased so that a signed comparison acts as an unsigned one
+        final int[] span = new int[Math.min(size(), UNROLLED_PREDICATE_MAX_SIZE)];
+        for (int i = 0; i < span.length; i++)
+            span[i] = highestValues[i] - low[i] + Integer.MIN_VALUE;
+
+        switch (size()) {
+            case 0:
+                return value -> false;
+            case 1: {
+                final int l0 = low[0], s0 = span[0];
+                return value -> value - l0 + Integer.MIN_VALUE <= s0;
+            }
+            case 2: {
+                final int l0 = low[0], s0 = span[0];
+                final int l1 = low[1], s1 = span[1];
+                return value -> value - l0 + Integer.MIN_VALUE <= s0
+                        || value - l1 + Integer.MIN_VALUE <= s1;
+            }
+            case 3: {
+                final int l0 = low[0], s0 = span[0];
+                final int l1 = low[1], s1 = span[1];
+                final int l2 = low[2], s2 = span[2];
+                return value -> value - l0 + Integer.MIN_VALUE <= s0
+                        || value - l1 + Integer.MIN_VALUE <= s1
+                        || value - l2 + Integer.MIN_VALUE <= s2;
+            }
+            case 4: {
+                final int l0 = low[0], s0 = span[0];
+                final int l1 = low[1], s1 = span[1];
+                final int l2 = low[2], s2 = span[2];
+                final int l3 = low[3], s3 = span[3];
+                return value -> value - l0 + Integer.MIN_VALUE <= s0
+                        || value - l1 + Integer.MIN_VALUE <= s1
+                        || value - l2 + Integer.MIN_VALUE <= s2
+                        || value - l3 + Integer.MIN_VALUE <= s3;
+            }
+            default:
+                return this::contains;
+        }
+    }
+
+    /**
+     * Emits the event of an operation which produced the given set, and returns it.
+     */
+    private static IntRangeSet committed(final String operation, final int inputSize, final int otherInputSize,
+                                         final IntRangeSet result, final RangeEvent event) {
+        RangeEvents.commit("IntRangeSet", operation, inputSize, otherInputSize, result.size(), event);
+        return result;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(lowestValues) + Arrays.hashCode(highestValues);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof IntRangeSet)) // also takes care of obj == null
+            return false;
+        final IntRangeSet other = (IntRangeSet) obj;
+        return Arrays.equals(lowestValues, other.lowestValues)
+                && Arrays.equals(highestValues, other.highestValues);
+    }
+
+    @Override
+    public String toString() {
+        return asRanges().toString();
+    }
+
+    private final class RangeList extends AbstractList<IntRange> implements RandomAccess {
+        @Override
+        public IntRange get(final int index) {
+            return IntRangeSet.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return IntRangeSet.this.size();
+        }
+    }
+
+    /**
+     * Accumulates ranges given in ascending order of their lowest value, coalescing the ones which overlap or are
+     * adjacent.
+     */
+    static final class Builder {
+        private int[] lowest;
+        private int[] highest;
+        private int size;
+
+        Builder(final int expectedSize) {
+            lowest = new int[Math.max(expectedSize, 1)];
+            highest = new int[lowest.length];
+        }
+
+        void add(final int low, final int high) {
+            if (size > 0 && low <= highest[size - 1] + 1L) {
+                if (high > highest[size - 1])
+                    highest[size - 1] = high;
+                return;
+            }
+            if (size == lowest.length) {
+                lowest = Arrays.copyOf(lowest, size * 2);
+                highest = Arrays.copyOf(highest, size * 2);
+            }
+            lowest[size] = low;
+            highest[size] = high;
+            size++;
+        }
+
+        IntRangeSet build() {
+            if (size == 0)
+                return EMPTY;
+            return new IntRangeSet(Arrays.copyOf(lowest, size), Arrays.copyOf(highest, size));
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.BoundType;
+import com.github.javachat.common.Constants;
+
+import java.util.Objects;
+
+/**
+ * A range of int values which can be re-pointed at new endpoints.
+ * <p>
+ * This is a flyweight for loops which would otherwise build a transient {@link IntRange} per iteration: the queries
+ * follow the semantics of {@link IntRange} but evaluate the bounds inline, and {@link #set(int, BoundType, int,
+ * BoundType)} validates the endpoints without creating any object unless they are invalid. {@link #freeze()} returns
+ * the equivalent immutable range when one has to be kept.
+ * <p>
+ * Instances are not thread-safe, and do not override {@link #equals(Object)} and {@link #hashCode()} as their value
+ * changes over time.
+ */
+public final class MutableIntRange {
+    private BoundType lowerBoundType = BoundType.OPEN;
+    private BoundType upperBoundType = BoundType.OPEN;
+    private int lowerBound = Integer.MIN_VALUE;
+    private int upperBound = Integer.MAX_VALUE;
+    private boolean hasLowerBound;
+    private boolean hasUpperBound;
+
+    /**
+     * Creates a range initially spanning all values, as {@link IntRange#all()}.
+     */
+    public MutableIntRange() {
+    }
+
+    /**
+     * @see IntRange#range(int, BoundType, int, BoundType)
+     */
+    public MutableIntRange set(final int lowerBound, final BoundType lowerBoundType,
+                               final int upperBound, final BoundType upperBoundType) {
+        return set(lowerBound, lowerBoundType, true, upperBound, upperBoundType, true);
+    }
+
+    /**
+     * @see IntRange#open(int, int)
+     */
+    public MutableIntRange setOpen(final int lowerBound, final int upperBound) {
+        return set(lowerBound, BoundType.OPEN, true, upperBound, BoundType.OPEN, true);
+    }
+
+    /**
+     * @see IntRange#closed(int, int)
+     */
+    public MutableIntRange setClosed(final int lowerBound, final int upperBound) {
+        return set(lowerBound, BoundType.CLOSED, true, upperBound, BoundType.CLOSED, true);
+    }
+
+    /**
+     * @see IntRange#upTo(int, BoundType)
+     */
+    public MutableIntRange setUpTo(final int endpoint, final BoundType boundType) {
+        return set(Integer.MIN_VALUE, BoundType.OPEN, false, endpoint, boundType, true);
+    }
+
+    /**
+     * @see IntRange#downTo(int, BoundType)
+     */
+    public MutableIntRange setDownTo(final int endpoint, final BoundType boundType) {
+        return set(endpoint, boundType, true, Integer.MAX_VALUE, BoundType.OPEN, false);
+    }
+
+    /**
+     * @see IntRange#all()
+     */
+    public MutableIntRange setAll() {
+        return set(Integer.MIN_VALUE, BoundType.OPEN, false, Integer.MAX_VALUE, BoundType.OPEN, false);
+    }
+
+    public MutableIntRange set(final IntRange range) {
+        return set(range.lowerEndpoint(), range.lowerBoundType(), range.hasLowerBound(),
+                range.upperEndpoint(), range.upperBoundType(), range.hasUpperBound());
+    }
+
+    public MutableIntRange set(final MutableIntRange range) {
+        return set(range.lowerBound, range.lowerBoundType, range.hasLowerBound,
+                range.upperBound, range.upperBoundType, range.hasUpperBound);
+    }
+
+    /**
+     * Validates and stores the endpoints, as the constructor of {@link IntRange}. The range is left unchanged if they
+     * are invalid.
+     */
+    MutableIntRange set(final int lowerBound, final BoundType lowerBoundType, final boolean hasLowerBound,
+                        final int upperBound, final BoundType upperBoundType, final boolean hasUpperBound) {
+        if (lowerBound > upperBound)
+            throw new IllegalArgumentException(String.format(IntRange.ILLEGAL_BOUNDS, lowerBound, upperBound));
+
+        if (lowerBound == upperBound
+                && lowerBoundType == BoundType.OPEN
+                && lowerBoundType == upperBoundType)
+            throw new IllegalArgumentException(IntRange.ILLEGAL_OPEN_RANGE);
+
+        this.lowerBoundType = Objects.requireNonNull(lowerBoundType);
+        this.upperBoundType = Objects.requireNonNull(upperBoundType);
+        this.lowerBound = lowerBound;
+        this.hasLowerBound = hasLowerBound;
+        this.upperBound = upperBound;
+        this.hasUpperBound = hasUpperBound;
+        return this;
+    }
+
+    public boolean hasLowerBound() {
+        return hasLowerBound;
+    }
+
+    public int lowerEndpoint() {
+        return lowerBound;
+    }
+
+    public BoundType lowerBoundType() {
+        return lowerBoundType;
+    }
+
+    public boolean hasUpperBound() {
+        return hasUpperBound;
+    }
+
+    public int upperEndpoint() {
+        return upperBound;
+    }
+
+    public BoundType upperBoundType() {
+        return upperBoundType;
+    }
+
+    public boolean isEmpty() {
+        return hasLowerBound && hasUpperBound && lowerBound == upperBound;
+    }
+
+    public boolean contains(final int value) {
+        return lowerCheck(value) && upperCheck(value);
+    }
+
+    /**
+     * @see IntRange#encloses(IntRange)
+     */
+    public boolean encloses(final IntRange other) {
+        return encloses(other.lowerEndpoint(), other.lowerBoundType(), other.upperEndpoint(), other.upperBoundType());
+    }
+
+    public boolean encloses(final MutableIntRange other) {
+        return encloses(other.lowerBound, other.lowerBoundType, other.upperBound, other.upperBoundType);
+    }
+
+    /**
+     * @see IntRange#isConnected(IntRange)
+     */
+    public boolean isConnected(final IntRange other) {
+        return isConnected(other.lowerEndpoint(), other.upperEndpoint());
+    }
+
+    public boolean isConnected(final MutableIntRange other) {
+        return isConnected(other.lowerBound, other.upperBound);
+    }
+
+    /**
+     * Stores the intersection of this range and the given one into <code>result</code>, which may be this range.
+     *
+     * @return <code>result</code>
+     * @see IntRange#intersection(IntRange)
+     */
+    public MutableIntRange intersection(final IntRange other, final MutableIntRange result) {
+        if (!isConnected(other))
+            throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
+
+        return intersection(other.lowerEndpoint(), other.lowerBoundType(), other.hasLowerBound(),
+                other.upperEndpoint(), other.upperBoundType(), other.hasUpperBound(), result);
+    }
+
+    public MutableIntRange intersection(final MutableIntRange other, final MutableIntRange result) {
+        if (!isConnected(other))
+            throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
+
+        return intersection(other.lowerBound, other.lowerBoundType, other.hasLowerBound,
+                other.upperBound, other.upperBoundType, other.hasUpperBound, result);
+    }
+
+    /**
+     * Returns an immutable copy of the current value of this range.
+     */
+    public IntRange freeze() {
+        return new IntRange(lowerBound, lowerBoundType, hasLowerBound, upperBound, upperBoundType, hasUpperBound);
+    }
+
+    @Override
+    public String toString() {
+        return freeze().toString();
+    }
+
+    private boolean lowerCheck(final int value) {
+        if (!hasLowerBound)
+            return true;
+        return lowerBoundType == BoundType.OPEN ? value >= lowerBound : value > lowerBound;
+    }
+
+    private boolean upperCheck(final int value) {
+        if (!hasUpperBound)
+            return true;
+        return upperBoundType == BoundType.OPEN ? value <= upperBound : value < upperBound;
+    }
+
+    private boolean encloses(final int otherLower, final BoundType otherLowerType,
+                             final int otherUpper, final BoundType otherUpperType) {
+        // Same as IntRange: enclosure is reflexive, and an unbounded range equals any other
+        final boolean isEqual = (!hasLowerBound && !hasUpperBound)
+                || (lowerBound == otherLower
+                && upperBound == otherUpper
+                && lowerBoundType == otherLowerType
+                && upperBoundType == otherUpperType);
+
+        return isEqual
+                || (lowerCheck(otherLower)
+                && lowerCheck(otherUpper)
+                && upperCheck(otherLower)
+                && upperCheck(otherUpper));
+    }
+
+    private boolean isConnected(final int otherLower, final int otherUpper) {
+        return (lowerCheck(otherUpper) && upperCheck(otherUpper))
+                || (upperCheck(otherLower) && lowerCheck(otherLower));
+    }
+
+    /**
+     * Picks the greater lower cut and the smaller upper cut, this range winning ties as in
+     * {@link IntRange#intersection(IntRange)}.
+     */
+    private MutableIntRange intersection(final int otherLower, final BoundType otherLowerType,
+                                         final boolean otherHasLower, final int otherUpper,
+                                         final BoundType otherUpperType, final boolean otherHasUpper,
+                                         final MutableIntRange result) {
+        final boolean thisLower = lowerBound >= otherLower;
+        final boolean thisUpper = upperBound <= otherUpper;
+
+        return result.set(
+                thisLower ? lowerBound : otherLower,
+                thisLower ? lowerBoundType : otherLowerType,
+                thisLower ? hasLowerBound : otherHasLower,
+                thisUpper ? upperBound : otherUpper,
+                thisUpper ? upperBoundType : otherUpperType,
+                thisUpper ? hasUpperBound : otherHasUpper);
+    }
+}
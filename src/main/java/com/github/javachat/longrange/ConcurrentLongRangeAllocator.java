@@ -0,0 +1,212 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.AllocationPolicy;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A thread-safe {@link LongRangeAllocator} in which each thread allocates from a chunk it caches.
+ * <p>
+ * Allocations of at most <code>chunkSize</code> values are carved from the low end of the chunk of the calling
+ * thread, and frees are buffered by the thread, up to {@value #FREE_BATCH_SIZE} of them, then freed all at once.
+ * These are the only operations which avoid the lock: everything else takes the single monitor of the shared
+ * allocator, which is therefore contended by refilling a chunk, larger allocations, flushing the buffered frees and
+ * queries. When the shared allocator has no chunk left, the remainder of the calling thread's chunk is returned to it
+ * and the allocation is made directly, so that no value is out of reach as long as the other threads release their
+ * chunks.
+ * <p>
+ * Values held in thread chunks or buffered frees are neither free nor allocated: queries see them as allocated, and a
+ * thread should call {@link #releaseCachedChunk()} before it terminates. As buffered frees are only checked against
+ * the shared allocator when they are flushed, a range which was not allocated may be reported by a later call of the
+ * same thread; a range cached in the chunk of another thread cannot be told from an allocated one.
+ */
+public final class ConcurrentLongRangeAllocator {
+    /**
+     * The number of frees a thread buffers before returning them to the shared allocator.
+     */
+    static final int FREE_BATCH_SIZE = 64;
+
+    static final String ILLEGAL_CHUNK_SIZE = "chunk size must be positive: %d";
+
+    private final LongRangeAllocator allocator;
+    private final long chunkSize;
+    private final ThreadLocal<Chunk> chunks = ThreadLocal.withInitial(Chunk::new);
+
+    /**
+     * @param pool      The values to allocate from, all initially free
+     * @param policy    How free blocks are chosen for chunks and large allocations
+     * @param chunkSize The number of values a thread takes at once from the shared allocator
+     */
+    public ConcurrentLongRangeAllocator(final LongRange pool, final AllocationPolicy policy, final long chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException(String.format(ILLEGAL_CHUNK_SIZE, chunkSize));
+
+        this.allocator = new LongRangeAllocator(pool, policy);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @see LongRangeAllocator#allocate(long)
+     */
+    public LongRange allocate(final long count) {
+        if (count <= 0)
+            throw new IllegalArgumentException(String.format(LongRangeAllocator.ILLEGAL_COUNT, count));
+        if (count > chunkSize) {
+            synchronized (allocator) {
+                return allocator.allocate(count);
+            }
+        }
+
+        final Chunk chunk = chunks.get();
+        if (chunk.remaining < count && !refill(chunk))
+            return allocateDirectly(chunk, count);
+
+        final long low = chunk.next;
+        chunk.next += count;
+        chunk.remaining -= count;
+        return LongRange.ofValues(low, low + (count - 1));
+    }
+
+    /**
+     * Same as {@link LongRangeAllocator#free(LongRange)}, except that a range which is not allocated may be reported
+     * by a later call, when the frees buffered by the calling thread are flushed.
+     *
+     * @throws IllegalArgumentException the range, or a range freed before by the calling thread, is not allocated
+     */
+    public void free(final LongRange range) {
+        if (!range.hasValues())
+            throw new IllegalArgumentException(String.format(LongRangeAllocator.NOT_ALLOCATED, range));
+        final long low = range.lowestValue();
+        final long high = range.highestValue();
+        final Chunk chunk = chunks.get();
+        if (chunk.remaining > 0 && low <= chunk.next + (chunk.remaining - 1) && high >= chunk.next)
+            throw new IllegalArgumentException(String.format(LongRangeAllocator.NOT_ALLOCATED, range));
+
+        chunk.freedLowest[chunk.freedCount] = low;
+        chunk.freedHighest[chunk.freedCount] = high;
+        if (++chunk.freedCount == FREE_BATCH_SIZE) {
+            synchronized (allocator) {
+                flushFrees(chunk);
+            }
+        }
+    }
+
+    /**
+     * Returns the unused values of the calling thread's chunk and the frees it buffers to the shared allocator.
+     */
+    public void releaseCachedChunk() {
+        final Chunk chunk = chunks.get();
+        if (chunk.remaining > 0 || chunk.freedCount > 0) {
+            synchronized (allocator) {
+                release(chunk);
+                flushFrees(chunk);
+            }
+        }
+    }
+
+    /**
+     * @see LongRangeAllocator#isFree(long)
+     */
+    public boolean isFree(final long value) {
+        synchronized (allocator) {
+            return allocator.isFree(value);
+        }
+    }
+
+    /**
+     * @see LongRangeAllocator#floorFree(long)
+     */
+    public LongRange floorFree(final long value) {
+        synchronized (allocator) {
+            return allocator.floorFree(value);
+        }
+    }
+
+    /**
+     * @see LongRangeAllocator#ceilingFree(long)
+     */
+    public LongRange ceilingFree(final long value) {
+        synchronized (allocator) {
+            return allocator.ceilingFree(value);
+        }
+    }
+
+    /**
+     * @see LongRangeAllocator#ceilingGap(long, long)
+     */
+    public LongRange ceilingGap(final long value, final long count) {
+        synchronized (allocator) {
+            return allocator.ceilingGap(value, count);
+        }
+    }
+
+    /**
+     * @see LongRangeAllocator#freeBlocks()
+     */
+    public LongRangeSet freeBlocks() {
+        synchronized (allocator) {
+            return allocator.freeBlocks();
+        }
+    }
+
+    /**
+     * Replaces the thread's chunk with a new one, releasing what is left of the current one.
+     *
+     * @return false if the shared allocator has no free block of <code>chunkSize</code> values
+     */
+    private boolean refill(final Chunk chunk) {
+        synchronized (allocator) {
+            flushFrees(chunk);
+            final LongRange range = allocator.allocateOrNull(chunkSize);
+            if (range == null)
+                return false;
+            release(chunk);
+            chunk.next = range.lowestValue();
+            chunk.remaining = chunkSize;
+            return true;
+        }
+    }
+
+    private LongRange allocateDirectly(final Chunk chunk, final long count) {
+        synchronized (allocator) {
+            release(chunk);
+            flushFrees(chunk);
+            final LongRange range = allocator.allocateOrNull(count);
+            if (range == null)
+                throw new NoSuchElementException(String.format(LongRangeAllocator.NO_FREE_BLOCK, count));
+            return range;
+        }
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private void release(final Chunk chunk) {
+        if (chunk.remaining == 0)
+            return;
+        allocator.free(LongRange.ofValues(chunk.next, chunk.next + (chunk.remaining - 1)));
+        chunk.remaining = 0;
+    }
+
+    /**
+     * Frees the ranges buffered by the thread. Must be called with the lock held.
+     */
+    private void flushFrees(final Chunk chunk) {
+        final int count = chunk.freedCount;
+        if (count == 0)
+            return;
+        chunk.freedCount = 0;
+        allocator.freeAll(chunk.freedLowest, chunk.freedHighest, count);
+    }
+
+    /**
+     * The unused part of a thread's chunk, and the frees it buffers.
+     */
+    private static final class Chunk {
+        long next;
+        long remaining;
+        final long[] freedLowest = new long[FREE_BATCH_SIZE];
+        final long[] freedHighest = new long[FREE_BATCH_SIZE];
+        int freedCount;
+    }
+}
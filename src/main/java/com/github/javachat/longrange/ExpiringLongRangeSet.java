@@ -0,0 +1,299 @@
+package com.github.javachat.longrange;
+
+import java.util.Arrays;
+import java.util.function.LongSupplier;
+
+/**
+ * A set of ranges which each expire after their own time to live, such as the ranges of a time-bounded blacklist.
+ * <p>
+ * Time is read from a clock given at construction, in any unit, for instance {@code System::currentTimeMillis}; a
+ * range added at time {@code t} with a time to live {@code ttl} is in the set until the clock reaches
+ * {@code t + ttl}. There is no background thread: every operation first evicts the ranges which expired since the
+ * previous one, so that lookups never see them. The ranges are kept in a min-heap of expiry times and in a treap
+ * ordered by lowest value, each node also holding the highest value of its subtree, so that adding or evicting a
+ * range and looking up a value take a logarithmic time and no range is ever evicted twice; nothing is rebuilt.
+ * <p>
+ * Ranges may overlap: a value stays in the set as long as one of the ranges containing it has not expired. Ranges
+ * are stored as their lowest and highest values in primitive arrays, whose slots are reused once evicted.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class ExpiringLongRangeSet {
+    static final String ILLEGAL_TIME_TO_LIVE = "time to live must be positive: %d";
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int NIL = -1;
+
+    private final LongSupplier clock;
+
+    // Slots of the ranges, both values included, and of the nodes of the treap
+    private long[] lowest = new long[DEFAULT_CAPACITY];
+    private long[] highest = new long[DEFAULT_CAPACITY];
+    private long[] expiries = new long[DEFAULT_CAPACITY];
+    private int[] left = new int[DEFAULT_CAPACITY];
+    private int[] right = new int[DEFAULT_CAPACITY];
+    private int[] priorities = new int[DEFAULT_CAPACITY];
+    // Highest value of the subtree of each node
+    private long[] subtreeHighest = new long[DEFAULT_CAPACITY];
+    private int slotCount;
+    // Evicted slots, reused before new ones
+    private int[] freeSlots = new int[DEFAULT_CAPACITY];
+    private int freeCount;
+
+    private int root = NIL;
+    // Min-heap of the slots in use, by expiry time
+    private int[] heap = new int[DEFAULT_CAPACITY];
+    private int size;
+    private long seed;
+
+    // Results of split()
+    private int splitLeft;
+    private int splitRight;
+
+    public ExpiringLongRangeSet(final LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Adds the range until the clock reaches the current time plus the time to live. Ranges which contain no value
+     * are ignored.
+     *
+     * @throws IllegalArgumentException the time to live is not positive
+     */
+    public ExpiringLongRangeSet add(final LongRange range, final long timeToLive) {
+        if (timeToLive <= 0)
+            throw new IllegalArgumentException(String.format(ILLEGAL_TIME_TO_LIVE, timeToLive));
+        final long now = clock.getAsLong();
+        expire(now);
+        if (!range.hasValues())
+            return this;
+
+        final int slot = allocate();
+        lowest[slot] = range.lowestValue();
+        highest[slot] = range.highestValue();
+        // Saturates rather than overflowing into the past
+        expiries[slot] = now + timeToLive < now ? Long.MAX_VALUE : now + timeToLive;
+        left[slot] = NIL;
+        right[slot] = NIL;
+        subtreeHighest[slot] = highest[slot];
+        priorities[slot] = nextPriority();
+        root = insert(root, slot);
+        push(slot);
+        return this;
+    }
+
+    /**
+     * Tells whether a range which has not expired contains the value.
+     */
+    public boolean contains(final long value) {
+        expire(clock.getAsLong());
+        int node = root;
+        while (node != NIL) {
+            if (lowest[node] <= value && value <= highest[node])
+                return true;
+            // If a range of the left subtree reaches the value without containing it, it starts above the value, and
+            // so do all the ranges of the right subtree
+            if (left[node] != NIL && subtreeHighest[left[node]] >= value)
+                node = left[node];
+            else if (lowest[node] > value)
+                return false;
+            else
+                node = right[node];
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of ranges which have not expired.
+     */
+    public int size() {
+        expire(clock.getAsLong());
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Evicts the ranges which have expired. Other operations already do it, so this is only useful to release them
+     * while the set is not used.
+     *
+     * @return The number of ranges evicted
+     */
+    public int expire() {
+        return expire(clock.getAsLong());
+    }
+
+    /**
+     * Returns the values contained by the ranges which have not expired.
+     */
+    public LongRangeSet toRangeSet() {
+        expire(clock.getAsLong());
+        final LongRangeSet.Builder builder = new LongRangeSet.Builder(size);
+        collect(root, builder);
+        return builder.build();
+    }
+
+    @Override
+    public String toString() {
+        return "expiring set of " + size + " ranges";
+    }
+
+    private int expire(final long now) {
+        int evicted = 0;
+        while (size > 0 && expiries[heap[0]] <= now) {
+            final int slot = pop();
+            root = delete(root, slot);
+            if (freeCount == freeSlots.length)
+                freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+            freeSlots[freeCount++] = slot;
+            evicted++;
+        }
+        return evicted;
+    }
+
+    private int allocate() {
+        if (freeCount > 0)
+            return freeSlots[--freeCount];
+        if (slotCount == lowest.length) {
+            final int capacity = slotCount * 2;
+            lowest = Arrays.copyOf(lowest, capacity);
+            highest = Arrays.copyOf(highest, capacity);
+            expiries = Arrays.copyOf(expiries, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+            subtreeHighest = Arrays.copyOf(subtreeHighest, capacity);
+            heap = Arrays.copyOf(heap, capacity);
+        }
+        return slotCount++;
+    }
+
+    // SplitMix64, so that the shape of the treap does not depend on the order of the ranges
+    private int nextPriority() {
+        long z = seed += 0x9E37_79B9_7F4A_7C15L;
+        z = (z ^ z >>> 30) * 0xBF58_476D_1CE4_E5B9L;
+        z = (z ^ z >>> 27) * 0x94D0_49BB_1331_11EBL;
+        return (int) (z ^ z >>> 31);
+    }
+
+    /**
+     * Orders the nodes by lowest value, then by slot so that equal ranges are distinct nodes.
+     */
+    private boolean before(final int node, final int other) {
+        return lowest[node] < lowest[other] || lowest[node] == lowest[other] && node < other;
+    }
+
+    private void update(final int node) {
+        long high = highest[node];
+        if (left[node] != NIL && subtreeHighest[left[node]] > high)
+            high = subtreeHighest[left[node]];
+        if (right[node] != NIL && subtreeHighest[right[node]] > high)
+            high = subtreeHighest[right[node]];
+        subtreeHighest[node] = high;
+    }
+
+    private int insert(final int tree, final int node) {
+        if (tree == NIL)
+            return node;
+        if (priorities[node] > priorities[tree]) {
+            split(tree, node);
+            left[node] = splitLeft;
+            right[node] = splitRight;
+        } else if (before(node, tree)) {
+            left[tree] = insert(left[tree], node);
+        } else {
+            right[tree] = insert(right[tree], node);
+        }
+        final int top = priorities[node] > priorities[tree] ? node : tree;
+        update(top);
+        return top;
+    }
+
+    /**
+     * Splits the tree into the nodes before the given one, in {@link #splitLeft}, and the others, in
+     * {@link #splitRight}.
+     */
+    private void split(final int tree, final int node) {
+        if (tree == NIL) {
+            splitLeft = NIL;
+            splitRight = NIL;
+        } else if (before(tree, node)) {
+            split(right[tree], node);
+            right[tree] = splitLeft;
+            update(tree);
+            splitLeft = tree;
+        } else {
+            split(left[tree], node);
+            left[tree] = splitRight;
+            update(tree);
+            splitRight = tree;
+        }
+    }
+
+    private int delete(final int tree, final int node) {
+        if (tree == node)
+            return merge(left[node], right[node]);
+        if (before(node, tree))
+            left[tree] = delete(left[tree], node);
+        else
+            right[tree] = delete(right[tree], node);
+        update(tree);
+        return tree;
+    }
+
+    private int merge(final int first, final int second) {
+        if (first == NIL)
+            return second;
+        if (second == NIL)
+            return first;
+        if (priorities[first] > priorities[second]) {
+            right[first] = merge(right[first], second);
+            update(first);
+            return first;
+        }
+        left[second] = merge(first, left[second]);
+        update(second);
+        return second;
+    }
+
+    private void collect(final int tree, final LongRangeSet.Builder builder) {
+        if (tree == NIL)
+            return;
+        collect(left[tree], builder);
+        builder.add(lowest[tree], highest[tree]);
+        collect(right[tree], builder);
+    }
+
+    private void push(final int slot) {
+        int index = size++;
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (expiries[heap[parent]] <= expiries[slot])
+                break;
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = slot;
+    }
+
+    private int pop() {
+        final int top = heap[0];
+        final int last = heap[--size];
+        int index = 0;
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && expiries[heap[child + 1]] < expiries[heap[child]])
+                child++;
+            if (expiries[last] <= expiries[heap[child]])
+                break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = last;
+        return top;
+    }
+}
@@ -2,8 +2,9 @@ package com.github.javachat.longrange;
 
 import com.github.javachat.common.BoundType;
 import com.github.javachat.common.Constants;
+import com.github.javachat.common.RangeFormatting;
 
-import java.util.Arrays;
+import java.io.IOException;
 import java.util.Objects;
 import java.util.function.LongPredicate;
 
@@ -27,104 +28,110 @@ public final class LongRange {
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#open(C, C)">Guava JavaDoc</a>
      */
-    public static LongRange open(final int lowerBound, final int upperBound) {
+    public static LongRange open(final long lowerBound, final long upperBound) {
         return new LongRange(lowerBound, BoundType.OPEN, upperBound, BoundType.OPEN);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#closed(C, C)">Guava JavaDoc</a>
      */
-    public static LongRange closed(final int lowerBound, final int upperBound) {
+    public static LongRange closed(final long lowerBound, final long upperBound) {
         return new LongRange(lowerBound, BoundType.CLOSED, upperBound, BoundType.CLOSED);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#closedOpen(C, C)">Guava JavaDoc</a>
      */
-    public static LongRange closedOpen(final int lowerBound, final int upperBound) {
+    public static LongRange closedOpen(final long lowerBound, final long upperBound) {
         return new LongRange(lowerBound, BoundType.CLOSED, upperBound, BoundType.OPEN);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#openClosed(C, C)">Guava JavaDoc</a>
      */
-    public static LongRange openClosed(final int lowerBound, final int upperBound) {
+    public static LongRange openClosed(final long lowerBound, final long upperBound) {
         return new LongRange(lowerBound, BoundType.OPEN, upperBound, BoundType.CLOSED);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#range(C, com.google.common.collect.BoundType, C, com.google.common.collect.BoundType)">Guava JavaDoc</a>
      */
-    public static LongRange range(final int lowerBound, final BoundType lowerBoundType,
-                                  final int upperBound, final BoundType upperBoundType) {
+    public static LongRange range(final long lowerBound, final BoundType lowerBoundType,
+                                  final long upperBound, final BoundType upperBoundType) {
         return new LongRange(lowerBound, lowerBoundType, upperBound, upperBoundType);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#lessThan(C)">Guava JavaDoc</a>
      */
-    public static LongRange lessThan(final int endpoint) {
+    public static LongRange lessThan(final long endpoint) {
         return LongRange.upTo(endpoint, BoundType.CLOSED);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#atMost(C)">Guava JavaDoc</a>
      */
-    public static LongRange atMost(final int endpoint) {
+    public static LongRange atMost(final long endpoint) {
         return LongRange.upTo(endpoint, BoundType.OPEN);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#upTo(C, com.google.common.collect.BoundType)">Guava JavaDoc</a>
      */
-    public static LongRange upTo(final int endpoint, final BoundType boundType) {
+    public static LongRange upTo(final long endpoint, final BoundType boundType) {
         // Lower/Higher bounds for (partially) unbounded ranges are ignored, values are purely symbolical.
-        return new LongRange(Integer.MIN_VALUE, BoundType.OPEN, false, endpoint, boundType, true);
+        return new LongRange(Long.MIN_VALUE, BoundType.OPEN, false, endpoint, boundType, true);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#greaterThan(C)">Guava JavaDoc</a>
      */
-    public static LongRange greaterThan(final int endpoint) {
+    public static LongRange greaterThan(final long endpoint) {
         return LongRange.downTo(endpoint, BoundType.CLOSED);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#atLeast(C)">Guava JavaDoc</a>
      */
-    public static LongRange atLeast(final int endpoint) {
+    public static LongRange atLeast(final long endpoint) {
         return LongRange.downTo(endpoint, BoundType.OPEN);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#downTo(C, com.google.common.collect.BoundType)">Guava JavaDoc</a>
      */
-    public static LongRange downTo(final int endpoint, final BoundType boundType) {
-        return new LongRange(endpoint, boundType, true, Integer.MAX_VALUE, BoundType.OPEN, false);
+    public static LongRange downTo(final long endpoint, final BoundType boundType) {
+        return new LongRange(endpoint, boundType, true, Long.MAX_VALUE, BoundType.OPEN, false);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#all()">Guava JavaDoc</a>
      */
     public static LongRange all() {
-        return new LongRange(Integer.MIN_VALUE, BoundType.OPEN, false, Integer.MAX_VALUE, BoundType.OPEN, false);
+        return new LongRange(Long.MIN_VALUE, BoundType.OPEN, false, Long.MAX_VALUE, BoundType.OPEN, false);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#singleton(C)">Guava JavaDoc</a>
      */
-    public static LongRange singleton(final int value) {
+    public static LongRange singleton(final long value) {
         return LongRange.closed(value, value);
     }
 
     /**
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#encloseAll(java.lang.Iterable)">Guava JavaDoc</a>
      */
-    public static LongRange encloseAll(int... values) {
-        // Create sorted copy, lowest and highest values are the endpoints
-        int[] copy = Arrays.copyOf(values, values.length);
-        Arrays.sort(copy);
-        return LongRange.closed(copy[0], copy[copy.length - 1]);
+    public static LongRange encloseAll(long... values) {
+        // A single pass for the lowest and highest values, which are the endpoints
+        long lowest = values[0];
+        long highest = values[0];
+        for (final long value : values) {
+            if (value < lowest)
+                lowest = value;
+            else if (value > highest)
+                highest = value;
+        }
+        return LongRange.closed(lowest, highest);
     }
 
     /**
@@ -173,19 +180,11 @@ public final class LongRange {
     /**
      * Convenience constructor for ranges that have both lower and upper bounds
      */
-    LongRange(final int lowerBound, final BoundType lowerBoundType,
-              final int upperBound, final BoundType upperBoundType) {
+    LongRange(final long lowerBound, final BoundType lowerBoundType,
+              final long upperBound, final BoundType upperBoundType) {
         this(lowerBound, lowerBoundType, true, upperBound, upperBoundType, true);
     }
 
-    /**
-     * Convenience constructor with cuts
-     */
-    LongRange(final LongCut lowerBound, final LongCut upperBound) {
-        this(lowerBound.getValue(), lowerBound.getBoundType(), lowerBound.isBounded(),
-                upperBound.getValue(), upperBound.getBoundType(), upperBound.isBounded());
-    }
-
     public boolean hasLowerBound() {
         return hasLowerBound;
     }
@@ -214,7 +213,7 @@ public final class LongRange {
         return hasLowerBound && hasUpperBound && lowerBound == upperBound;
     }
 
-    public boolean contains(final int value) {
+    public boolean contains(final long value) {
         return lowerCheck.test(value) && upperCheck.test(value);
     }
 
@@ -242,9 +241,16 @@ public final class LongRange {
             throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
         }
 
+        // The greater lower bound and the smaller upper bound, this range winning ties
+        final boolean thisLower = lowerBound >= other.lowerBound;
+        final boolean thisUpper = upperBound <= other.upperBound;
         return new LongRange(
-                LongCut.max(this.toLowerCut(), other.toLowerCut()),
-                LongCut.min(this.toUpperCut(), other.toUpperCut())
+                thisLower ? lowerBound : other.lowerBound,
+                thisLower ? lowerBoundType : other.lowerBoundType,
+                thisLower ? hasLowerBound : other.hasLowerBound,
+                thisUpper ? upperBound : other.upperBound,
+                thisUpper ? upperBoundType : other.upperBoundType,
+                thisUpper ? hasUpperBound : other.hasUpperBound
         );
     }
 
@@ -252,24 +258,75 @@ public final class LongRange {
      * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/Range.html#intersection(com.google.common.collect.Range)">Guava JavaDoc</a>
      */
     public LongRange span(LongRange other) {
+        // The smaller lower bound and the greater upper bound, this range winning ties
+        final boolean thisLower = lowerBound <= other.lowerBound;
+        final boolean thisUpper = upperBound >= other.upperBound;
         return new LongRange(
-                LongCut.min(this.toLowerCut(), other.toLowerCut()),
-                LongCut.max(this.toUpperCut(), other.toUpperCut())
+                thisLower ? lowerBound : other.lowerBound,
+                thisLower ? lowerBoundType : other.lowerBoundType,
+                thisLower ? hasLowerBound : other.hasLowerBound,
+                thisUpper ? upperBound : other.upperBound,
+                thisUpper ? upperBoundType : other.upperBoundType,
+                thisUpper ? hasUpperBound : other.hasUpperBound
         );
     }
 
-    LongCut toLowerCut() {
-        return new LongCut(lowerBound, lowerBoundType, hasLowerBound);
+    /**
+     * Whether {@link #contains(long)} returns true for at least one value. When it does not, {@link #lowestValue()}
+     * and {@link #highestValue()} are meaningless.
+     */
+    boolean hasValues() {
+        if (hasLowerBound && lowerBoundType == BoundType.CLOSED && lowerBound == Long.MAX_VALUE)
+            return false;
+        if (hasUpperBound && upperBoundType == BoundType.CLOSED && upperBound == Long.MIN_VALUE)
+            return false;
+        return lowestValue() <= highestValue();
+    }
+
+    /**
+     * The smallest value for which {@link #contains(long)} returns true.
+     */
+    long lowestValue() {
+        if (!hasLowerBound)
+            return Long.MIN_VALUE;
+        return lowerBoundType == BoundType.OPEN ? lowerBound : lowerBound + 1;
+    }
+
+    /**
+     * The greatest value for which {@link #contains(long)} returns true.
+     */
+    long highestValue() {
+        if (!hasUpperBound)
+            return Long.MAX_VALUE;
+        return upperBoundType == BoundType.OPEN ? upperBound : upperBound - 1;
     }
 
-    LongCut toUpperCut() {
-        return new LongCut(upperBound, upperBoundType, hasUpperBound);
+    /**
+     * Builds the range which contains exactly the values from <code>lowest</code> to <code>highest</code>, both
+     * included. A side reaching the extreme long value is left unbounded.
+     */
+    static LongRange ofValues(final long lowest, final long highest) {
+        final boolean hasLower = lowest != Long.MIN_VALUE;
+        final boolean hasUpper = highest != Long.MAX_VALUE;
+
+        if (lowest == highest) {
+            // open(x, x) is illegal; exclude the neighbouring value instead
+            return hasLower
+                    ? new LongRange(lowest - 1, BoundType.CLOSED, true, highest, BoundType.OPEN, hasUpper)
+                    : new LongRange(Long.MIN_VALUE, BoundType.OPEN, false, highest + 1, BoundType.CLOSED, true);
+        }
+
+        return new LongRange(hasLower ? lowest : Long.MIN_VALUE, BoundType.OPEN, hasLower,
+                hasUpper ? highest : Long.MAX_VALUE, BoundType.OPEN, hasUpper);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(lowerBound, lowerBoundType, upperBound,
-                upperBoundType);
+        // Same as Objects.hash(lowerBound, lowerBoundType, upperBound, upperBoundType), without boxing
+        int result = 31 + Long.hashCode(lowerBound);
+        result = 31 * result + lowerBoundType.hashCode();
+        result = 31 * result + Long.hashCode(upperBound);
+        return 31 * result + upperBoundType.hashCode();
     }
 
     @SuppressWarnings("OverlyComplexBooleanExpression")
@@ -291,14 +348,39 @@ public final class LongRange {
 
     @Override
     public String toString() {
-        @SuppressWarnings("StringBufferReplaceableByString")
-        final StringBuilder sb = new StringBuilder();
-        sb.append(lowerBoundType == BoundType.CLOSED ? "[" : "(");
-        sb.append(hasLowerBound ? lowerBound : "-" + Constants.INFINITY_REPRESENTATION);
+        return appendTo(new StringBuilder(32)).toString();
+    }
+
+    /**
+     * Appends the representation returned by {@link #toString()} to the given builder.
+     *
+     * @return The given builder
+     */
+    public StringBuilder appendTo(final StringBuilder sb) {
+        sb.append(lowerBoundType == BoundType.CLOSED ? '[' : '(');
+        if (hasLowerBound)
+            sb.append(lowerBound);
+        else
+            sb.append('-').append(Constants.INFINITY_REPRESENTATION);
         sb.append("..");
-        sb.append(hasUpperBound ? upperBound : Constants.INFINITY_REPRESENTATION);
-        sb.append(upperBoundType == BoundType.CLOSED ? "]" : ")");
+        if (hasUpperBound)
+            sb.append(upperBound);
+        else
+            sb.append(Constants.INFINITY_REPRESENTATION);
+        return sb.append(upperBoundType == BoundType.CLOSED ? ']' : ')');
+    }
 
-        return sb.toString();
+    /**
+     * Appends the representation returned by {@link #toString()} to the given appendable, through a builder
+     * private to the current thread unless the appendable is a {@link StringBuilder} itself.
+     *
+     * @return The given appendable
+     */
+    public <A extends Appendable> A appendTo(final A appendable) throws IOException {
+        if (appendable instanceof StringBuilder)
+            appendTo((StringBuilder) appendable);
+        else
+            appendable.append(appendTo(RangeFormatting.scratchBuilder()));
+        return appendable;
     }
 }
@@ -0,0 +1,277 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.BoundType;
+import com.github.javachat.common.IndexSort;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * A growable sequence of ranges stored column by column.
+ * <p>
+ * Each range takes a long for each endpoint and four bits for its bound types and boundedness, that is about
+ * 17 bytes, instead of an {@link LongRange} object with its two predicates. Queries work on the columns directly;
+ * {@link LongRange} instances are only created by {@link #get(int)} and the {@link #asList()} view.
+ * <p>
+ * Ranges follow the semantics of {@link LongRange}, the endpoints of unbounded sides being symbolic. This class is not
+ * thread-safe.
+ */
+public final class LongRangeArray {
+    static final String INDEX_OUT_OF_BOUNDS = "index %d out of bounds for size %d";
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Flags of a range, FLAGS_PER_WORD of them packed in each long
+    private static final int LOWER_OPEN = 1;
+    private static final int HAS_LOWER = 2;
+    private static final int UPPER_OPEN = 4;
+    private static final int HAS_UPPER = 8;
+    private static final int FLAG_BITS = 4;
+    private static final int FLAGS_PER_WORD = Long.SIZE / FLAG_BITS;
+    private static final int FLAG_MASK = (1 << FLAG_BITS) - 1;
+
+    private long[] lowers;
+    private long[] uppers;
+    private long[] flags;
+    private int size;
+
+    public LongRangeArray() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongRangeArray(final int initialCapacity) {
+        lowers = new long[initialCapacity];
+        uppers = new long[initialCapacity];
+        flags = new long[wordCount(initialCapacity)];
+    }
+
+    public static LongRangeArray copyOf(final Iterable<LongRange> ranges) {
+        final LongRangeArray array = new LongRangeArray();
+        for (final LongRange range : ranges)
+            array.add(range);
+        return array;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public LongRangeArray add(final LongRange range) {
+        return add(range.lowerEndpoint(), range.lowerBoundType(), range.hasLowerBound(),
+                range.upperEndpoint(), range.upperBoundType(), range.hasUpperBound());
+    }
+
+    /**
+     * Appends a bounded range, validated as {@link LongRange#range(long, BoundType, long, BoundType)}.
+     */
+    public LongRangeArray add(final long lowerBound, final BoundType lowerBoundType,
+                             final long upperBound, final BoundType upperBoundType) {
+        if (lowerBound > upperBound)
+            throw new IllegalArgumentException(String.format(LongRange.ILLEGAL_BOUNDS, lowerBound, upperBound));
+        if (lowerBound == upperBound
+                && lowerBoundType == BoundType.OPEN
+                && lowerBoundType == upperBoundType)
+            throw new IllegalArgumentException(LongRange.ILLEGAL_OPEN_RANGE);
+
+        return add(lowerBound, Objects.requireNonNull(lowerBoundType), true,
+                upperBound, Objects.requireNonNull(upperBoundType), true);
+    }
+
+    private LongRangeArray add(final long lowerBound, final BoundType lowerBoundType, final boolean hasLowerBound,
+                              final long upperBound, final BoundType upperBoundType, final boolean hasUpperBound) {
+        if (size == lowers.length)
+            grow();
+
+        lowers[size] = lowerBound;
+        uppers[size] = upperBound;
+        int rangeFlags = 0;
+        if (lowerBoundType == BoundType.OPEN)
+            rangeFlags |= LOWER_OPEN;
+        if (hasLowerBound)
+            rangeFlags |= HAS_LOWER;
+        if (upperBoundType == BoundType.OPEN)
+            rangeFlags |= UPPER_OPEN;
+        if (hasUpperBound)
+            rangeFlags |= HAS_UPPER;
+        flags[size / FLAGS_PER_WORD] |= (long) rangeFlags << shift(size);
+        size++;
+        return this;
+    }
+
+    public void clear() {
+        Arrays.fill(flags, 0, wordCount(size), 0L);
+        size = 0;
+    }
+
+    public long lowerEndpoint(final int index) {
+        checkIndex(index);
+        return lowers[index];
+    }
+
+    public long upperEndpoint(final int index) {
+        checkIndex(index);
+        return uppers[index];
+    }
+
+    public BoundType lowerBoundType(final int index) {
+        return (flagsAt(index) & LOWER_OPEN) != 0 ? BoundType.OPEN : BoundType.CLOSED;
+    }
+
+    public BoundType upperBoundType(final int index) {
+        return (flagsAt(index) & UPPER_OPEN) != 0 ? BoundType.OPEN : BoundType.CLOSED;
+    }
+
+    public boolean hasLowerBound(final int index) {
+        return (flagsAt(index) & HAS_LOWER) != 0;
+    }
+
+    public boolean hasUpperBound(final int index) {
+        return (flagsAt(index) & HAS_UPPER) != 0;
+    }
+
+    /**
+     * Creates the range at the given index.
+     */
+    public LongRange get(final int index) {
+        final int rangeFlags = flagsAt(index);
+        return new LongRange(lowers[index], (rangeFlags & LOWER_OPEN) != 0 ? BoundType.OPEN : BoundType.CLOSED,
+                (rangeFlags & HAS_LOWER) != 0,
+                uppers[index], (rangeFlags & UPPER_OPEN) != 0 ? BoundType.OPEN : BoundType.CLOSED,
+                (rangeFlags & HAS_UPPER) != 0);
+    }
+
+    /**
+     * Returns a view of the ranges, each created on access.
+     */
+    public List<LongRange> asList() {
+        return new RangeList();
+    }
+
+    /**
+     * Whether the range at the given index contains the value, as {@link LongRange#contains(long)}.
+     */
+    public boolean containsAt(final int index, final long value) {
+        checkIndex(index);
+        return contains(index, value);
+    }
+
+    /**
+     * Whether any of the ranges contains the value.
+     */
+    public boolean anyContains(final long value) {
+        for (int index = 0; index < size; index++) {
+            if (contains(index, value))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Sorts the ranges by ascending lower endpoint. A range without lower bound has {@link Long#MIN_VALUE} as its
+     * lower endpoint, and ranges with equal lower endpoints, bounded or not, keep their relative order.
+     */
+    public void sortByLower() {
+        final int[] order = IndexSort.sortedIndices(lowers, size);
+        final long[] sortedFlags = new long[flags.length];
+        for (int i = 0; i < size; i++)
+            sortedFlags[i / FLAGS_PER_WORD] |= (long) flags(order[i]) << shift(i);
+
+        lowers = IndexSort.permute(Arrays.copyOf(lowers, size), order);
+        uppers = IndexSort.permute(Arrays.copyOf(uppers, size), order);
+        flags = sortedFlags;
+    }
+
+    /**
+     * The smallest value contained by the range at the given index, as {@link LongRange#lowestValue()}.
+     */
+    long lowestValue(final int index) {
+        final int rangeFlags = flags(index);
+        if ((rangeFlags & HAS_LOWER) == 0)
+            return Long.MIN_VALUE;
+        return (rangeFlags & LOWER_OPEN) != 0 ? lowers[index] : lowers[index] + 1;
+    }
+
+    /**
+     * The greatest value contained by the range at the given index, as {@link LongRange#highestValue()}.
+     */
+    long highestValue(final int index) {
+        final int rangeFlags = flags(index);
+        if ((rangeFlags & HAS_UPPER) == 0)
+            return Long.MAX_VALUE;
+        return (rangeFlags & UPPER_OPEN) != 0 ? uppers[index] : uppers[index] - 1;
+    }
+
+    /**
+     * Whether the range at the given index contains any value, as {@link LongRange#hasValues()}.
+     */
+    boolean hasValues(final int index) {
+        final int rangeFlags = flags(index);
+        if ((rangeFlags & (HAS_LOWER | LOWER_OPEN)) == HAS_LOWER && lowers[index] == Long.MAX_VALUE)
+            return false;
+        if ((rangeFlags & (HAS_UPPER | UPPER_OPEN)) == HAS_UPPER && uppers[index] == Long.MIN_VALUE)
+            return false;
+        return lowestValue(index) <= highestValue(index);
+    }
+
+    private boolean contains(final int index, final long value) {
+        final int rangeFlags = flags(index);
+        if ((rangeFlags & HAS_LOWER) != 0
+                && ((rangeFlags & LOWER_OPEN) != 0 ? value < lowers[index] : value <= lowers[index]))
+            return false;
+        return (rangeFlags & HAS_UPPER) == 0
+                || ((rangeFlags & UPPER_OPEN) != 0 ? value <= uppers[index] : value < uppers[index]);
+    }
+
+    private int flagsAt(final int index) {
+        checkIndex(index);
+        return flags(index);
+    }
+
+    private int flags(final int index) {
+        return (int) (flags[index / FLAGS_PER_WORD] >>> shift(index)) & FLAG_MASK;
+    }
+
+    private static int shift(final int index) {
+        return (index % FLAGS_PER_WORD) * FLAG_BITS;
+    }
+
+    private static int wordCount(final int capacity) {
+        return (capacity + FLAGS_PER_WORD - 1) / FLAGS_PER_WORD;
+    }
+
+    private void grow() {
+        final int capacity = Math.max(DEFAULT_CAPACITY, lowers.length + (lowers.length >> 1));
+        lowers = Arrays.copyOf(lowers, capacity);
+        uppers = Arrays.copyOf(uppers, capacity);
+        flags = Arrays.copyOf(flags, wordCount(capacity));
+    }
+
+    private void checkIndex(final int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(String.format(INDEX_OUT_OF_BOUNDS, index, size));
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+
+    private final class RangeList extends AbstractList<LongRange> implements RandomAccess {
+        @Override
+        public LongRange get(final int index) {
+            return LongRangeArray.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
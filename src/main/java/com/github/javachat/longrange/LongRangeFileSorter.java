@@ -0,0 +1,328 @@
+package com.github.javachat.longrange;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sorts and coalesces files of ranges which do not fit in memory.
+ * <p>
+ * A range file is a sequence of {@link #RECORD_BYTES} byte records, each made of the lowest and the highest value of
+ * a range (both included) as big endian longs. The output of {@link #sortAndCoalesce(Path, Path)} is a range file
+ * holding the ranges of the {@link LongRangeSet} built from the input, in ascending order.
+ * <p>
+ * The input is read in runs which fill the memory budget; each run is sorted, coalesced and written to a temporary
+ * file. Runs are then merged through a min-heap, as many at a time as the memory budget allows for their read
+ * buffers, up to {@link #MAX_FAN_IN}, coalescing connected ranges on the fly.
+ */
+public final class LongRangeFileSorter {
+    public static final int RECORD_BYTES = 2 * Long.BYTES;
+
+    static final int MIN_BUFFER_BYTES = 64 * 1024;
+    static final int MAX_BUFFER_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * The largest number of runs merged at a time, each of which keeps a file open; larger memory budgets give them
+     * larger buffers instead.
+     */
+    static final int MAX_FAN_IN = 256;
+
+    static final String TRUNCATED_FILE = "file %s is not made of whole %d byte records";
+    static final String NOT_ENOUGH_MEMORY = "memory budget must be at least %d bytes";
+
+    private final long memoryBytes;
+    private final Path temporaryDirectory;
+
+    /**
+     * @param memoryBytes        Approximate number of bytes to use for sorting and merging, at least three times
+     *                           {@link #MIN_BUFFER_BYTES}
+     * @param temporaryDirectory Where to write the sorted runs; they are deleted once merged
+     */
+    public LongRangeFileSorter(final long memoryBytes, final Path temporaryDirectory) {
+        if (memoryBytes < 3L * MIN_BUFFER_BYTES)
+            throw new IllegalArgumentException(String.format(NOT_ENOUGH_MEMORY, 3 * MIN_BUFFER_BYTES));
+
+        this.memoryBytes = memoryBytes;
+        this.temporaryDirectory = temporaryDirectory;
+    }
+
+    /**
+     * Writes the given ranges as a range file, skipping those which contain no value.
+     */
+    public static void writeRecords(final Path path, final Iterable<LongRange> ranges) throws IOException {
+        try (final RecordWriter writer = new RecordWriter(path, MIN_BUFFER_BYTES)) {
+            for (final LongRange range : ranges) {
+                if (range.hasValues())
+                    writer.write(range.lowestValue(), range.highestValue());
+            }
+        }
+    }
+
+    /**
+     * Reads a range file, in order.
+     */
+    public static void readRecords(final Path path, final Consumer<LongRange> consumer) throws IOException {
+        try (final RecordReader reader = new RecordReader(path, MIN_BUFFER_BYTES)) {
+            while (reader.next())
+                consumer.accept(LongRange.ofValues(reader.lowest, reader.highest));
+        }
+    }
+
+    /**
+     * Sorts and coalesces the ranges of the input file into the output file.
+     *
+     * @return The number of ranges written
+     */
+    public long sortAndCoalesce(final Path input, final Path output) throws IOException {
+        final List<Path> runs = new ArrayList<>();
+        try {
+            if (writeRuns(input, output, runs))
+                return Files.size(output) / RECORD_BYTES;
+
+            final int fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, memoryBytes / MIN_BUFFER_BYTES - 1));
+            while (runs.size() > fanIn) {
+                final List<Path> group = new ArrayList<>(runs.subList(0, fanIn));
+                final Path merged = Files.createTempFile(temporaryDirectory, "ranges", ".run");
+                runs.add(merged);
+                merge(group, merged);
+                for (final Path run : group)
+                    Files.delete(run);
+                runs.removeAll(group);
+            }
+
+            return merge(runs, output);
+        } finally {
+            for (final Path run : runs)
+                Files.deleteIfExists(run);
+        }
+    }
+
+    /**
+     * Splits the input into sorted and coalesced runs.
+     *
+     * @return true if the input fitted in a single run, which was then written directly to the output
+     */
+    private boolean writeRuns(final Path input, final Path output, final List<Path> runs) throws IOException {
+        final int bufferBytes = bufferBytes(memoryBytes / 16);
+        final long inputRecords = Files.size(input) / RECORD_BYTES;
+        final int capacity = (int) Math.min(Math.min(inputRecords, Integer.MAX_VALUE - 8),
+                (memoryBytes - 2L * bufferBytes) / RECORD_BYTES);
+        final long[] lowest = new long[Math.max(capacity, 1)];
+        final long[] highest = new long[lowest.length];
+
+        try (final RecordReader reader = new RecordReader(input, bufferBytes)) {
+            while (true) {
+                int size = 0;
+                boolean exhausted = false;
+                while (size < lowest.length) {
+                    if (!reader.next()) {
+                        exhausted = true;
+                        break;
+                    }
+                    lowest[size] = reader.lowest;
+                    highest[size] = reader.highest;
+                    size++;
+                }
+
+                if (exhausted && runs.isEmpty()) {
+                    writeRun(lowest, highest, size, output, bufferBytes);
+                    return true;
+                }
+                if (size > 0) {
+                    final Path run = Files.createTempFile(temporaryDirectory, "ranges", ".run");
+                    runs.add(run);
+                    writeRun(lowest, highest, size, run, bufferBytes);
+                }
+                if (exhausted)
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Sorts and coalesces ranges in memory. Lowest and highest values are sorted independently, see
+     * {@link LongRangeSet#union(long[], long[], int)}.
+     */
+    private static void writeRun(final long[] lowest, final long[] highest, final int size, final Path path,
+                                 final int bufferBytes) throws IOException {
+        Arrays.sort(lowest, 0, size);
+        Arrays.sort(highest, 0, size);
+
+        try (final RecordWriter writer = new RecordWriter(path, bufferBytes)) {
+            if (size == 0)
+                return;
+            long low = lowest[0];
+            long high = highest[0];
+            for (int i = 1; i < size; i++) {
+                if (high != Long.MAX_VALUE && lowest[i] > high + 1) {
+                    writer.write(low, high);
+                    low = lowest[i];
+                }
+                high = highest[i];
+            }
+            writer.write(low, high);
+        }
+    }
+
+    /**
+     * Merges sorted, coalesced runs into a single one.
+     *
+     * @return The number of ranges written
+     */
+    private long merge(final List<Path> runs, final Path output) throws IOException {
+        final int bufferBytes = bufferBytes(memoryBytes / (runs.size() + 1));
+        final RecordReader[] readers = new RecordReader[runs.size()];
+        // Indices of the non exhausted readers, as a binary min-heap on their current lowest value
+        final int[] heap = new int[readers.length];
+        int heapSize = 0;
+
+        try (final RecordWriter writer = new RecordWriter(output, bufferBytes)) {
+            for (int i = 0; i < readers.length; i++) {
+                readers[i] = new RecordReader(runs.get(i), bufferBytes);
+                if (readers[i].next())
+                    heap[heapSize++] = i;
+            }
+            for (int i = heapSize / 2 - 1; i >= 0; i--)
+                siftDown(readers, heap, heapSize, i);
+
+            long written = 0;
+            while (heapSize > 0) {
+                final long low = readers[heap[0]].lowest;
+                long high = readers[heap[0]].highest;
+
+                do {
+                    high = Math.max(high, readers[heap[0]].highest);
+                    if (!readers[heap[0]].next())
+                        heap[0] = heap[--heapSize];
+                    siftDown(readers, heap, heapSize, 0);
+                } while (heapSize > 0 && (high == Long.MAX_VALUE || readers[heap[0]].lowest <= high + 1));
+
+                writer.write(low, high);
+                written++;
+            }
+            return written;
+        } finally {
+            for (final RecordReader reader : readers) {
+                if (reader != null)
+                    reader.close();
+            }
+        }
+    }
+
+    private static void siftDown(final RecordReader[] readers, final int[] heap, final int heapSize, int index) {
+        final int reader = heap[index];
+        final long key = readers[reader].lowest;
+
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= heapSize)
+                break;
+            if (child + 1 < heapSize && readers[heap[child + 1]].lowest < readers[heap[child]].lowest)
+                child++;
+            if (readers[heap[child]].lowest >= key)
+                break;
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = reader;
+    }
+
+    private static int bufferBytes(final long available) {
+        final long bytes = Math.max(MIN_BUFFER_BYTES, Math.min(MAX_BUFFER_BYTES, available));
+        return (int) (bytes - bytes % RECORD_BYTES);
+    }
+
+    /**
+     * Sequential reader of a range file through a direct buffer.
+     */
+    private static final class RecordReader implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        long lowest;
+        long highest;
+
+        RecordReader(final Path path, final int bufferBytes) throws IOException {
+            this.path = path;
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            buffer = ByteBuffer.allocateDirect(bufferBytes);
+            buffer.flip();
+        }
+
+        /**
+         * Reads the next record, skipping those which hold no value.
+         */
+        boolean next() throws IOException {
+            do {
+                if (buffer.remaining() < RECORD_BYTES && !fill())
+                    return false;
+                lowest = buffer.getLong();
+                highest = buffer.getLong();
+            } while (lowest > highest);
+            return true;
+        }
+
+        private boolean fill() throws IOException {
+            buffer.compact();
+            while (buffer.position() < RECORD_BYTES) {
+                if (channel.read(buffer) < 0) {
+                    buffer.flip();
+                    if (buffer.hasRemaining())
+                        throw new IOException(String.format(TRUNCATED_FILE, path, RECORD_BYTES));
+                    return false;
+                }
+            }
+            buffer.flip();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    /**
+     * Sequential writer of a range file through a direct buffer.
+     */
+    private static final class RecordWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+
+        RecordWriter(final Path path, final int bufferBytes) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            buffer = ByteBuffer.allocateDirect(bufferBytes);
+        }
+
+        void write(final long lowest, final long highest) throws IOException {
+            if (buffer.remaining() < RECORD_BYTES)
+                flush();
+            buffer.putLong(lowest).putLong(highest);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
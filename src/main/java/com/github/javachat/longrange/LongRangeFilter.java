@@ -0,0 +1,224 @@
+package com.github.javachat.longrange;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An approximate set of keys telling whether a range might hold any of them: a Bloom filter of the prefixes of the
+ * keys, in the spirit of Rosetta.
+ * <p>
+ * Every key is stored with its prefixes of 56, 48, ... 8 bits, down to the key itself. A range lookup probes the
+ * prefixes covering the range from the coarsest to the finest: a missing prefix rules out every key under it, and
+ * only the prefixes at both ends of the range, partly in it, are refined into longer ones. A lookup never misses a
+ * stored key; it answers {@code true} for a range holding none with about the given false positive rate for a
+ * single key or a short range, and a higher rate for wide ranges, which probe up to {@value #MAX_RANGE_PROBES}
+ * prefixes.
+ * <p>
+ * The filter is sized when built, from the number of distinct prefixes. Keys close to each other, such as those of
+ * a table of sequential ids, share their coarse prefixes; keys spread over all longs take up to {@value #LEVELS}
+ * times the bits of a Bloom filter of the keys alone. The filter is immutable and
+ * {@link #writeTo(ByteBuffer) serialized} as its bits.
+ */
+public final class LongRangeFilter {
+    static final int LEVEL_BITS = 8;
+    static final int LEVELS = Long.SIZE / LEVEL_BITS;
+    static final int MAX_RANGE_PROBES = (LEVELS - 1) * 2 * (1 << LEVEL_BITS) + (1 << LEVEL_BITS);
+    static final int MAX_HASHES = 32;
+
+    static final String ILLEGAL_RATE = "false positive rate must be between 0 and 1 exclusive: %s";
+    static final String MALFORMED_FILTER = "malformed filter of %d bytes";
+
+    private final int hashCount;
+    private final long[] words;
+    private final long bitCount;
+
+    /**
+     * Builds a filter of the keys.
+     *
+     * @param falsePositiveRate Rate of lookups of a single missing key answered with {@code true}
+     * @throws IllegalArgumentException the rate is not between 0 and 1 exclusive
+     */
+    public static LongRangeFilter of(final long[] keys, final double falsePositiveRate) {
+        final Builder builder = new Builder(falsePositiveRate);
+        for (final long key : keys)
+            builder.add(key);
+        return builder.build();
+    }
+
+    /**
+     * Returns a builder to which keys are added in any order.
+     *
+     * @param falsePositiveRate Rate of lookups of a single missing key answered with {@code true}
+     * @throws IllegalArgumentException the rate is not between 0 and 1 exclusive
+     */
+    public static Builder builder(final double falsePositiveRate) {
+        return new Builder(falsePositiveRate);
+    }
+
+    /**
+     * Reads a filter written by {@link #writeTo(ByteBuffer)}, in the byte order of the buffer.
+     *
+     * @throws IllegalArgumentException the buffer does not hold a filter at its position
+     */
+    public static LongRangeFilter readFrom(final ByteBuffer buffer) {
+        final int size = buffer.remaining();
+        try {
+            final int hashCount = buffer.getInt();
+            final int wordCount = buffer.getInt();
+            if (hashCount < 1 || hashCount > MAX_HASHES || wordCount < 1
+                    || (long) wordCount * Long.BYTES > buffer.remaining())
+                throw new IllegalArgumentException(String.format(MALFORMED_FILTER, size));
+
+            final long[] words = new long[wordCount];
+            buffer.asLongBuffer().get(words);
+            buffer.position(buffer.position() + wordCount * Long.BYTES);
+            return new LongRangeFilter(hashCount, words);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException(String.format(MALFORMED_FILTER, size), e);
+        }
+    }
+
+    private LongRangeFilter(final int hashCount, final long[] words) {
+        this.hashCount = hashCount;
+        this.words = words;
+        this.bitCount = (long) words.length * Long.SIZE;
+    }
+
+    /**
+     * Tells whether the key might have been added: {@code false} if it was not.
+     */
+    public boolean mightContain(final long key) {
+        return probe(0, key ^ Long.MIN_VALUE);
+    }
+
+    /**
+     * Tells whether any added key might be in the range: {@code false} if none is.
+     */
+    public boolean mightContainAny(final LongRange range) {
+        if (!range.hasValues())
+            return false;
+        // Keys are compared as unsigned numbers, with their sign bit flipped, so that prefixes are ordered as keys
+        return mightContainAny(range.lowestValue() ^ Long.MIN_VALUE, range.highestValue() ^ Long.MIN_VALUE,
+                LEVELS - 1);
+    }
+
+    private boolean mightContainAny(final long low, final long high, final int level) {
+        final int shift = level * LEVEL_BITS;
+        final long mask = shift == 0 ? 0 : -1L >>> (Long.SIZE - shift);
+        final long last = high >>> shift;
+        for (long prefix = low >>> shift; ; prefix++) {
+            final long from = prefix << shift;
+            final long to = from | mask;
+            if (probe(level, prefix)) {
+                // A prefix entirely in the range is not refined, which bounds the number of probes
+                final boolean enclosed = Long.compareUnsigned(low, from) <= 0 && Long.compareUnsigned(to, high) <= 0;
+                if (enclosed || mightContainAny(Long.compareUnsigned(low, from) > 0 ? low : from,
+                        Long.compareUnsigned(to, high) < 0 ? to : high, level - 1))
+                    return true;
+            }
+            if (prefix == last)
+                return false;
+        }
+    }
+
+    private boolean probe(final int level, final long prefix) {
+        final long hash = hash(level, prefix);
+        final long first = hash >>> 32;
+        final long step = hash & 0xFFFF_FFFFL | 1;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (first + i * step) % bitCount;
+            if ((words[(int) (bit >>> 6)] & 1L << bit) == 0)
+                return false;
+        }
+        return true;
+    }
+
+    private void set(final int level, final long prefix) {
+        final long hash = hash(level, prefix);
+        final long first = hash >>> 32;
+        final long step = hash & 0xFFFF_FFFFL | 1;
+        for (int i = 0; i < hashCount; i++) {
+            final long bit = (first + i * step) % bitCount;
+            words[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    public int serializedSize() {
+        return 2 * Integer.BYTES + words.length * Long.BYTES;
+    }
+
+    /**
+     * Writes this filter at the position of the buffer, in its byte order, taking {@link #serializedSize()} bytes.
+     */
+    public void writeTo(final ByteBuffer buffer) {
+        buffer.putInt(hashCount).putInt(words.length);
+        buffer.asLongBuffer().put(words);
+        buffer.position(buffer.position() + words.length * Long.BYTES);
+    }
+
+    @Override
+    public String toString() {
+        return "range filter of " + bitCount + " bits and " + hashCount + " hashes";
+    }
+
+    // The finalizer of MurmurHash3 applied to the prefix, tagged with its level
+    private static long hash(final int level, final long prefix) {
+        long hash = prefix * 0x9E37_79B9_7F4A_7C15L + level;
+        hash ^= hash >>> 33;
+        hash *= 0xFF51_AFD7_ED55_8CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CE_B9FE_1A85_EC53L;
+        return hash ^ hash >>> 33;
+    }
+
+    /**
+     * Collects keys, then sizes and fills the filter.
+     */
+    public static final class Builder {
+        private final double falsePositiveRate;
+        private long[] keys = new long[16];
+        private int size;
+
+        private Builder(final double falsePositiveRate) {
+            if (!(falsePositiveRate > 0 && falsePositiveRate < 1))
+                throw new IllegalArgumentException(String.format(ILLEGAL_RATE, falsePositiveRate));
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public Builder add(final long key) {
+            if (size == keys.length)
+                keys = Arrays.copyOf(keys, size * 2);
+            keys[size++] = key;
+            return this;
+        }
+
+        public LongRangeFilter build() {
+            // Sorted keys have their prefixes of every level sorted, as flipping the sign bit preserves the order
+            final long[] sorted = Arrays.copyOf(keys, size);
+            Arrays.sort(sorted);
+            long prefixCount = 0;
+            for (int level = 0; level < LEVELS; level++) {
+                final int shift = level * LEVEL_BITS;
+                for (int i = 0; i < size; i++) {
+                    if (i == 0 || (sorted[i] ^ Long.MIN_VALUE) >>> shift != (sorted[i - 1] ^ Long.MIN_VALUE) >>> shift)
+                        prefixCount++;
+                }
+            }
+
+            // The optimal number of bits and hashes of a Bloom filter of that many prefixes
+            final double bits = Math.max(1, prefixCount) * -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+            final int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, Math.ceil(bits / Long.SIZE)));
+            final int hashCount = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(-Math.log(falsePositiveRate)
+                    / Math.log(2))));
+
+            final LongRangeFilter filter = new LongRangeFilter(hashCount, new long[wordCount]);
+            for (int i = 0; i < size; i++) {
+                final long key = sorted[i] ^ Long.MIN_VALUE;
+                for (int level = 0; level < LEVELS; level++)
+                    filter.set(level, key >>> level * LEVEL_BITS);
+            }
+            return filter;
+        }
+    }
+}
@@ -0,0 +1,599 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.RangeStats;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * An immutable mapping from disjoint {@link LongRange}s to non-null values.
+ * <p>
+ * This is the primitive counterpart of Guava's <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/ImmutableRangeMap.html">ImmutableRangeMap&lt;Long, V&gt;</a>.
+ * Entries are stored as the lowest and highest values of their ranges, both included, in sorted primitive arrays, so
+ * that {@link #get(long)} is a binary search which allocates nothing. Adjacent entries are kept apart even when they
+ * map to equal values.
+ * <p>
+ * Updates such as {@link #put(LongRange, Object)} or {@link #split(long, Object)} return a new map and leave this one
+ * untouched; they copy the arrays, in a time linear in the number of entries, that is about 20 KB for a thousand
+ * entries.
+ *
+ * @param <V> The type of the values
+ */
+public final class LongRangeMap<V> {
+    static final String NO_ENTRY = "no entry contains %d";
+    static final String NOTHING_TO_SPLIT = "%d is the lowest value of its entry %s";
+    static final String NOT_ADJACENT = "entry %s is not followed by an adjacent entry";
+    static final String NOT_ASCENDING = "entry %s does not follow the previous entry %s";
+
+    private static final LongRangeMap<Object> EMPTY = new LongRangeMap<>(new long[0], new long[0], new Object[0]);
+
+    // Lowest and highest value of the range of each entry, both included
+    private final long[] lowestValues;
+    private final long[] highestValues;
+    private final Object[] values;
+    // Records lookups when this map is monitored, null otherwise
+    private final RangeStats stats;
+
+    @SuppressWarnings("unchecked")
+    public static <V> LongRangeMap<V> empty() {
+        return (LongRangeMap<V>) EMPTY;
+    }
+
+    /**
+     * Builds a map with a single entry, or an empty one if the range contains no value.
+     */
+    public static <V> LongRangeMap<V> of(final LongRange range, final V value) {
+        return LongRangeMap.<V>empty().put(range, value);
+    }
+
+    public static <V> Builder<V> builder() {
+        return new Builder<>();
+    }
+
+    private LongRangeMap(final long[] lowestValues, final long[] highestValues, final Object[] values) {
+        this(lowestValues, highestValues, values, null);
+    }
+
+    private LongRangeMap(final long[] lowestValues, final long[] highestValues, final Object[] values,
+                         final RangeStats stats) {
+        this.lowestValues = lowestValues;
+        this.highestValues = highestValues;
+        this.values = values;
+        this.stats = stats;
+    }
+
+    /**
+     * Returns a copy of this map, sharing its arrays, whose lookups are recorded in the given statistics; its size and
+     * footprint are recorded at once. The maps returned by updates of a monitored map are not monitored.
+     *
+     * @see RangeStats
+     */
+    public LongRangeMap<V> monitored(final RangeStats stats) {
+        stats.recordShape(size(), footprintBytes());
+        return recordingTo(stats);
+    }
+
+    /**
+     * Same as {@link #monitored(RangeStats)}, without recording the shape of this map.
+     */
+    LongRangeMap<V> recordingTo(final RangeStats stats) {
+        return new LongRangeMap<>(lowestValues, highestValues, values, stats);
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by this map, excluding its values.
+     */
+    public long footprintBytes() {
+        return 32 + 2 * RangeStats.arrayBytes(size(), 8) + RangeStats.arrayBytes(size(), 4);
+    }
+
+    /**
+     * Returns the number of entries of this map.
+     */
+    public int size() {
+        return lowestValues.length;
+    }
+
+    public boolean isEmpty() {
+        return lowestValues.length == 0;
+    }
+
+    /**
+     * Returns the lowest value of the range of the entry at the given index, in ascending order.
+     */
+    public long lowestValue(final int index) {
+        return lowestValues[index];
+    }
+
+    /**
+     * Returns the highest value of the range of the entry at the given index, in ascending order.
+     */
+    public long highestValue(final int index) {
+        return highestValues[index];
+    }
+
+    /**
+     * Returns the range of the entry at the given index, in ascending order.
+     */
+    public LongRange getRange(final int index) {
+        return LongRange.ofValues(lowestValues[index], highestValues[index]);
+    }
+
+    /**
+     * Returns the value of the entry at the given index, in ascending order.
+     */
+    @SuppressWarnings("unchecked")
+    public V getValue(final int index) {
+        return (V) values[index];
+    }
+
+    /**
+     * Returns the ranges of the entries, in ascending order.
+     */
+    public List<LongRange> asRanges() {
+        return new RangeList();
+    }
+
+    /**
+     * Returns the set of the values which are mapped, adjacent entries being coalesced.
+     */
+    public LongRangeSet domain() {
+        final LongRangeSet.Builder builder = new LongRangeSet.Builder(size());
+        for (int i = 0; i < size(); i++)
+            builder.add(lowestValues[i], highestValues[i]);
+        return builder.build();
+    }
+
+    /**
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeMap.html#get(K)">Guava JavaDoc</a>
+     */
+    @SuppressWarnings("unchecked")
+    public V get(final long key) {
+        final int index = indexOf(key);
+        return index >= 0 ? (V) values[index] : null;
+    }
+
+    /**
+     * Returns the index of the entry whose range contains the given key, or -1 if there is no such entry.
+     */
+    public int indexOf(final long key) {
+        if (stats != null)
+            return monitoredIndexOf(key);
+        int index = Arrays.binarySearch(lowestValues, key);
+        if (index >= 0)
+            return index;
+
+        // Last entry starting below the key
+        index = -index - 2;
+        return index >= 0 && key <= highestValues[index] ? index : -1;
+    }
+
+    /**
+     * Returns a cursor looking up keys from the entry found by its previous lookup, for sequences of ordered or nearly
+     * ordered keys; the value of the entry at the index it returns is {@link #getValue(int)}.
+     */
+    public LongRangeCursor cursor() {
+        return new LongRangeCursor(lowestValues, highestValues, stats);
+    }
+
+    /**
+     * Same as {@link #indexOf(long)}, counting the steps of the binary search.
+     */
+    private int monitoredIndexOf(final long key) {
+        int steps = 0;
+        int low = 0;
+        int high = lowestValues.length;
+        while (low < high) {
+            steps++;
+            final int middle = (low + high) >>> 1;
+            if (lowestValues[middle] <= key)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        stats.recordLookup(steps);
+
+        // Last entry starting at or below the key
+        final int index = low - 1;
+        return index >= 0 && key <= highestValues[index] ? index : -1;
+    }
+
+    /**
+     * Returns a map in which the values of the range are mapped to the given value, replacing the parts of the entries
+     * which overlap it. Nothing changes if the range contains no value.
+     *
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeMap.html#put(com.google.common.collect.Range, V)">Guava JavaDoc</a>
+     */
+    public LongRangeMap<V> put(final LongRange range, final V value) {
+        Objects.requireNonNull(value);
+        if (!range.hasValues())
+            return this;
+        return replace(range.lowestValue(), range.highestValue(), value);
+    }
+
+    /**
+     * Returns a map in which the values of the range are not mapped, the entries which overlap it being trimmed.
+     *
+     * @see <a href="http://google.github.io/guava/releases/19.0/api/docs/com/google/common/collect/RangeMap.html#remove(com.google.common.collect.Range)">Guava JavaDoc</a>
+     */
+    public LongRangeMap<V> remove(final LongRange range) {
+        if (!range.hasValues())
+            return this;
+        return replace(range.lowestValue(), range.highestValue(), null);
+    }
+
+    /**
+     * Returns a map in which the entry containing the given key is split in two: the values below the key keep their
+     * value, and the key with the values above it are mapped to <code>upperValue</code>.
+     *
+     * @throws IllegalArgumentException no entry contains the key, or the key is the lowest value of its entry
+     */
+    public LongRangeMap<V> split(final long key, final V upperValue) {
+        Objects.requireNonNull(upperValue);
+        final int index = indexOf(key);
+        if (index < 0)
+            throw new IllegalArgumentException(String.format(NO_ENTRY, key));
+        if (lowestValues[index] == key)
+            throw new IllegalArgumentException(String.format(NOTHING_TO_SPLIT, key, getRange(index)));
+
+        final int size = size();
+        final long[] lowest = new long[size + 1];
+        final long[] highest = new long[size + 1];
+        final Object[] newValues = new Object[size + 1];
+        System.arraycopy(lowestValues, 0, lowest, 0, index + 1);
+        System.arraycopy(highestValues, 0, highest, 0, index + 1);
+        System.arraycopy(values, 0, newValues, 0, index + 1);
+        System.arraycopy(lowestValues, index + 1, lowest, index + 2, size - index - 1);
+        System.arraycopy(highestValues, index + 1, highest, index + 2, size - index - 1);
+        System.arraycopy(values, index + 1, newValues, index + 2, size - index - 1);
+
+        highest[index] = key - 1;
+        lowest[index + 1] = key;
+        highest[index + 1] = highestValues[index];
+        newValues[index + 1] = upperValue;
+        return new LongRangeMap<>(lowest, highest, newValues);
+    }
+
+    /**
+     * Returns a map in which the entry containing the given key and the entry which follows it are merged into a
+     * single entry mapped to <code>mergedValue</code>.
+     *
+     * @throws IllegalArgumentException no entry contains the key, or the next entry is missing or not adjacent
+     */
+    public LongRangeMap<V> merge(final long key, final V mergedValue) {
+        Objects.requireNonNull(mergedValue);
+        final int index = indexOf(key);
+        if (index < 0)
+            throw new IllegalArgumentException(String.format(NO_ENTRY, key));
+        if (index + 1 == size() || highestValues[index] + 1 != lowestValues[index + 1])
+            throw new IllegalArgumentException(String.format(NOT_ADJACENT, getRange(index)));
+
+        final int size = size();
+        final long[] lowest = new long[size - 1];
+        final long[] highest = new long[size - 1];
+        final Object[] newValues = new Object[size - 1];
+        System.arraycopy(lowestValues, 0, lowest, 0, index + 1);
+        System.arraycopy(highestValues, 0, highest, 0, index);
+        System.arraycopy(values, 0, newValues, 0, index);
+        System.arraycopy(lowestValues, index + 2, lowest, index + 1, size - index - 2);
+        System.arraycopy(highestValues, index + 1, highest, index, size - index - 1);
+        System.arraycopy(values, index + 2, newValues, index + 1, size - index - 2);
+
+        newValues[index] = mergedValue;
+        return new LongRangeMap<>(lowest, highest, newValues);
+    }
+
+    /**
+     * Passes to the consumer every range of keys whose value differs between this map and the given one, a missing
+     * value being null. Ranges are maximal for a given pair of values and are passed in ascending order.
+     * <p>
+     * Both maps are swept once from their lowest entry, so that the cost is linear in their sizes.
+     */
+    @SuppressWarnings("unchecked")
+    public void forEachDifference(final LongRangeMap<? extends V> other,
+                                  final DifferenceConsumer<? super V> consumer) {
+        if (other == this)
+            return;
+
+        final DifferenceRun<V> run = new DifferenceRun<>(consumer);
+        int i = 0;
+        int j = 0;
+        long key = Long.MIN_VALUE;
+
+        while (true) {
+            while (i < size() && highestValues[i] < key)
+                i++;
+            while (j < other.size() && other.highestValues[j] < key)
+                j++;
+
+            // Values at the key, and last key until which they do not change
+            final boolean inThis = i < size() && lowestValues[i] <= key;
+            final boolean inOther = j < other.size() && other.lowestValues[j] <= key;
+            long last = inThis ? highestValues[i] : i < size() ? lowestValues[i] - 1 : Long.MAX_VALUE;
+            last = Math.min(last,
+                    inOther ? other.highestValues[j] : j < other.size() ? other.lowestValues[j] - 1 : Long.MAX_VALUE);
+
+            final V before = inThis ? (V) values[i] : null;
+            final V after = inOther ? (V) other.values[j] : null;
+            if (!Objects.equals(before, after))
+                run.add(key, last, before, after);
+
+            if (last == Long.MAX_VALUE)
+                break;
+            key = last + 1;
+        }
+        run.flush();
+    }
+
+    /**
+     * Returns the keys whose value differs between this map and the given one.
+     */
+    public LongRangeSet differingKeys(final LongRangeMap<? extends V> other) {
+        final LongRangeSet.Builder builder = new LongRangeSet.Builder(size() + other.size());
+        forEachDifference(other, (range, before, after) -> builder.add(range.lowestValue(), range.highestValue()));
+        return builder.build();
+    }
+
+    /**
+     * Returns the entries of the second map which are not entries of the first one, with the same range and an equal
+     * value, in a single sweep over both maps.
+     */
+    static <V> LongRangeMap<V> changedEntries(final LongRangeMap<?> before, final LongRangeMap<? extends V> after) {
+        final Builder<V> builder = new Builder<>();
+        int i = 0;
+        for (int j = 0; j < after.size(); j++) {
+            while (i < before.size() && before.lowestValues[i] < after.lowestValues[j])
+                i++;
+            if (i == before.size() || before.lowestValues[i] != after.lowestValues[j]
+                    || before.highestValues[i] != after.highestValues[j] || !before.values[i].equals(after.values[j]))
+                builder.put(after.lowestValues[j], after.highestValues[j], after.getValue(j));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a map in which the removed keys are not mapped and the entries of the other map replace the entries
+     * they overlap, in a single sweep over both maps.
+     */
+    LongRangeMap<V> patched(final LongRangeSet removed, final LongRangeMap<? extends V> puts) {
+        final LongRangeSet replaced = removed.union(puts.domain());
+        if (replaced.isEmpty())
+            return this;
+
+        final Builder<V> builder = new Builder<>();
+        int p = 0;
+        int r = 0;
+        for (int i = 0; i < size(); i++) {
+            // Pieces of the entry between the replaced ranges, each one preceded by the entries put below it
+            long low = lowestValues[i];
+            final long high = highestValues[i];
+            while (r < replaced.size() && replaced.highestValue(r) < low)
+                r++;
+            while (true) {
+                if (r < replaced.size() && replaced.lowestValue(r) <= low) {
+                    if (replaced.highestValue(r) >= high)
+                        break;
+                    low = replaced.highestValue(r++) + 1;
+                    continue;
+                }
+                final long pieceHigh = r < replaced.size() ? Math.min(high, replaced.lowestValue(r) - 1) : high;
+                for (; p < puts.size() && puts.lowestValues[p] < low; p++)
+                    builder.put(puts.lowestValues[p], puts.highestValues[p], puts.getValue(p));
+                builder.put(low, pieceHigh, getValue(i));
+                if (pieceHigh == high)
+                    break;
+                low = pieceHigh + 1;
+            }
+        }
+        for (; p < puts.size(); p++)
+            builder.put(puts.lowestValues[p], puts.highestValues[p], puts.getValue(p));
+        return builder.build();
+    }
+
+    /**
+     * Copies the entries, trimming those which overlap the given values and mapping these to the given value, or to
+     * nothing if it is null.
+     */
+    private LongRangeMap<V> replace(final long low, final long high, final V value) {
+        final int size = size();
+        // First entry not entirely below the values, and first entry entirely above them
+        int from = 0;
+        while (from < size && highestValues[from] < low)
+            from++;
+        int to = from;
+        while (to < size && lowestValues[to] <= high)
+            to++;
+        if (value == null && from == to)
+            return this;
+
+        final int capacity = size + 2;
+        final long[] lowest = new long[capacity];
+        final long[] highest = new long[capacity];
+        final Object[] newValues = new Object[capacity];
+        System.arraycopy(lowestValues, 0, lowest, 0, from);
+        System.arraycopy(highestValues, 0, highest, 0, from);
+        System.arraycopy(values, 0, newValues, 0, from);
+        int count = from;
+
+        if (from < to && lowestValues[from] < low) {
+            lowest[count] = lowestValues[from];
+            highest[count] = low - 1;
+            newValues[count++] = values[from];
+        }
+        if (value != null) {
+            lowest[count] = low;
+            highest[count] = high;
+            newValues[count++] = value;
+        }
+        if (from < to && highestValues[to - 1] > high) {
+            lowest[count] = high + 1;
+            highest[count] = highestValues[to - 1];
+            newValues[count++] = values[to - 1];
+        }
+
+        System.arraycopy(lowestValues, to, lowest, count, size - to);
+        System.arraycopy(highestValues, to, highest, count, size - to);
+        System.arraycopy(values, to, newValues, count, size - to);
+        count += size - to;
+
+        if (count == 0)
+            return empty();
+        return new LongRangeMap<>(Arrays.copyOf(lowest, count), Arrays.copyOf(highest, count),
+                Arrays.copyOf(newValues, count));
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * Arrays.hashCode(lowestValues) + Arrays.hashCode(highestValues)) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof LongRangeMap)) // also takes care of obj == null
+            return false;
+        final LongRangeMap<?> other = (LongRangeMap<?>) obj;
+        return Arrays.equals(lowestValues, other.lowestValues)
+                && Arrays.equals(highestValues, other.highestValues)
+                && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(16 + 32 * size()).append('{');
+        for (int i = 0; i < size(); i++) {
+            if (i > 0)
+                sb.append(", ");
+            getRange(i).appendTo(sb).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Receives the ranges of keys whose value differs between two maps.
+     *
+     * @param <V> The type of the values
+     */
+    @FunctionalInterface
+    public interface DifferenceConsumer<V> {
+        /**
+         * @param range  The keys, none of which is passed again
+         * @param before The value of the keys in the first map, or null
+         * @param after  The value of the keys in the second map, or null
+         */
+        void accept(LongRange range, V before, V after);
+    }
+
+    /**
+     * Accumulates entries given in ascending order, each one starting above the end of the previous one, without any
+     * copy of the entries already added.
+     *
+     * @param <V> The type of the values
+     */
+    public static final class Builder<V> {
+        private long[] lowest = new long[16];
+        private long[] highest = new long[16];
+        private Object[] values = new Object[16];
+        private int size;
+
+        private Builder() {
+        }
+
+        /**
+         * Adds an entry, unless the range contains no value.
+         *
+         * @throws IllegalArgumentException the range does not lie above the previous one
+         */
+        public Builder<V> put(final LongRange range, final V value) {
+            if (!range.hasValues())
+                return this;
+            return put(range.lowestValue(), range.highestValue(), value);
+        }
+
+        /**
+         * Adds an entry for the values from <code>lowestValue</code> to <code>highestValue</code>, both included.
+         *
+         * @throws IllegalArgumentException the values do not lie above those of the previous entry
+         */
+        public Builder<V> put(final long lowestValue, final long highestValue, final V value) {
+            Objects.requireNonNull(value);
+            if (lowestValue > highestValue)
+                throw new IllegalArgumentException(String.format(LongRange.ILLEGAL_BOUNDS,
+                        lowestValue, highestValue));
+            if (size > 0 && lowestValue <= highest[size - 1])
+                throw new IllegalArgumentException(String.format(NOT_ASCENDING,
+                        LongRange.ofValues(lowestValue, highestValue),
+                        LongRange.ofValues(lowest[size - 1], highest[size - 1])));
+
+            if (size == lowest.length) {
+                lowest = Arrays.copyOf(lowest, size * 2);
+                highest = Arrays.copyOf(highest, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            lowest[size] = lowestValue;
+            highest[size] = highestValue;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public LongRangeMap<V> build() {
+            if (size == 0)
+                return empty();
+            return new LongRangeMap<>(Arrays.copyOf(lowest, size), Arrays.copyOf(highest, size),
+                    Arrays.copyOf(values, size));
+        }
+    }
+
+    private final class RangeList extends AbstractList<LongRange> implements RandomAccess {
+        @Override
+        public LongRange get(final int index) {
+            return getRange(index);
+        }
+
+        @Override
+        public int size() {
+            return LongRangeMap.this.size();
+        }
+    }
+
+    /**
+     * The pending range of a difference sweep, extended as long as the following keys have the same pair of values.
+     */
+    private static final class DifferenceRun<V> {
+        private final DifferenceConsumer<? super V> consumer;
+        private boolean pending;
+        private long low;
+        private long high;
+        private V before;
+        private V after;
+
+        DifferenceRun(final DifferenceConsumer<? super V> consumer) {
+            this.consumer = consumer;
+        }
+
+        void add(final long low, final long high, final V before, final V after) {
+            if (pending && this.high + 1 == low
+                    && Objects.equals(this.before, before) && Objects.equals(this.after, after)) {
+                this.high = high;
+                return;
+            }
+            flush();
+            pending = true;
+            this.low = low;
+            this.high = high;
+            this.before = before;
+            this.after = after;
+        }
+
+        void flush() {
+            if (pending)
+                consumer.accept(LongRange.ofValues(low, high), before, after);
+            pending = false;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.javachat.longrange;
+
+import java.nio.ByteBuffer;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+import static com.github.javachat.longrange.LongRangeSetDelta.MALFORMED_DELTA;
+import static com.github.javachat.longrange.LongRangeSetDelta.readRanges;
+import static com.github.javachat.longrange.LongRangeSetDelta.readVarLong;
+import static com.github.javachat.longrange.LongRangeSetDelta.rangesSize;
+import static com.github.javachat.longrange.LongRangeSetDelta.varLongSize;
+import static com.github.javachat.longrange.LongRangeSetDelta.writeRanges;
+import static com.github.javachat.longrange.LongRangeSetDelta.writeVarLong;
+
+/**
+ * The keys removed and the entries put between two versions of a {@link LongRangeMap}, to bring a replica of the first
+ * version up to date without shipping the second one.
+ * <p>
+ * The delta holds the keys which are no longer mapped and the entries of the second version which are not entries of
+ * the first one, found in a linear sweep of both versions. Since adjacent entries are kept apart even when they map
+ * to equal values, an entry whose range changed is put again although some of its keys keep their value, so that
+ * applying the delta gives back the entries of the second version and not only its values. Keys are
+ * {@link #writeTo(ByteBuffer, BiConsumer) serialized} as variable-length gaps and lengths, as in
+ * {@link LongRangeSetDelta}, and values by a function given by the caller.
+ *
+ * @param <V> The type of the values
+ */
+public final class LongRangeMapDelta<V> {
+    private static final LongRangeMapDelta<?> EMPTY = new LongRangeMapDelta<>(LongRangeSet.empty(),
+            LongRangeMap.empty());
+
+    private final LongRangeSet removed;
+    private final LongRangeMap<V> puts;
+
+    @SuppressWarnings("unchecked")
+    public static <V> LongRangeMapDelta<V> empty() {
+        return (LongRangeMapDelta<V>) EMPTY;
+    }
+
+    /**
+     * Computes the delta which turns the first version into the second one.
+     */
+    public static <V> LongRangeMapDelta<V> between(final LongRangeMap<V> before,
+                                                   final LongRangeMap<? extends V> after) {
+        final LongRangeSet removed = before.domain().difference(after.domain());
+        return of(removed, LongRangeMap.changedEntries(before, after));
+    }
+
+    /**
+     * Reads a delta written by {@link #writeTo(ByteBuffer, BiConsumer)}, the values being read by the given function.
+     *
+     * @throws IllegalArgumentException the buffer does not hold a delta at its position
+     */
+    public static <V> LongRangeMapDelta<V> readFrom(final ByteBuffer buffer,
+                                                    final Function<? super ByteBuffer, ? extends V> valueReader) {
+        final LongRangeSet removed = readRanges(buffer);
+        final long count = readVarLong(buffer);
+        if (count < 0 || count > buffer.remaining() / 2)
+            throw new IllegalArgumentException(String.format(MALFORMED_DELTA, buffer.position()));
+
+        final LongRangeMap.Builder<V> puts = LongRangeMap.builder();
+        // Entries may be adjacent, so that gaps are counted from the value following the previous entry
+        long next = 0;
+        for (long i = 0; i < count; i++) {
+            final long lowest = next + readVarLong(buffer);
+            final long highest = lowest + readVarLong(buffer);
+            final boolean full = i > 0 && next == 0;
+            if (full || Long.compareUnsigned(lowest, next) < 0 || Long.compareUnsigned(highest, lowest) < 0)
+                throw new IllegalArgumentException(String.format(MALFORMED_DELTA, buffer.position()));
+            final V value = valueReader.apply(buffer);
+            if (value == null)
+                throw new IllegalArgumentException(String.format(MALFORMED_DELTA, buffer.position()));
+            puts.put(lowest ^ Long.MIN_VALUE, highest ^ Long.MIN_VALUE, value);
+            next = highest + 1;
+        }
+
+        final LongRangeMap<V> map = puts.build();
+        if (!removed.intersection(map.domain()).isEmpty())
+            throw new IllegalArgumentException(String.format(MALFORMED_DELTA, buffer.position()));
+        return of(removed, map);
+    }
+
+    private static <V> LongRangeMapDelta<V> of(final LongRangeSet removed, final LongRangeMap<V> puts) {
+        if (removed.isEmpty() && puts.isEmpty())
+            return empty();
+        return new LongRangeMapDelta<>(removed, puts);
+    }
+
+    private LongRangeMapDelta(final LongRangeSet removed, final LongRangeMap<V> puts) {
+        this.removed = removed;
+        this.puts = puts;
+    }
+
+    /**
+     * Returns the keys of the first version which are not in the second one.
+     */
+    public LongRangeSet removed() {
+        return removed;
+    }
+
+    /**
+     * Returns the entries of the second version which are not entries of the first one, with the same range and an
+     * equal value.
+     */
+    public LongRangeMap<V> puts() {
+        return puts;
+    }
+
+    public boolean isEmpty() {
+        return removed.isEmpty() && puts.isEmpty();
+    }
+
+    /**
+     * Returns the map without the removed keys and with the entries put, which is the second version when given the
+     * first one. The map and this delta are swept once, so that the cost is linear in their sizes.
+     */
+    public LongRangeMap<V> applyTo(final LongRangeMap<V> map) {
+        if (isEmpty())
+            return map;
+        return map.patched(removed, puts);
+    }
+
+    /**
+     * Returns the number of bytes taken by the keys of this delta, values excluded.
+     */
+    public int keysSize() {
+        int size = rangesSize(removed) + varLongSize(puts.size());
+        long next = 0;
+        for (int i = 0; i < puts.size(); i++) {
+            final LongRange range = puts.getRange(i);
+            final long lowest = range.lowestValue() ^ Long.MIN_VALUE;
+            final long highest = range.highestValue() ^ Long.MIN_VALUE;
+            size += varLongSize(lowest - next) + varLongSize(highest - lowest);
+            next = highest + 1;
+        }
+        return size;
+    }
+
+    /**
+     * Writes this delta at the position of the buffer, each value being written by the given function after its keys.
+     */
+    public void writeTo(final ByteBuffer buffer, final BiConsumer<? super V, ? super ByteBuffer> valueWriter) {
+        writeRanges(buffer, removed);
+        writeVarLong(buffer, puts.size());
+        long next = 0;
+        for (int i = 0; i < puts.size(); i++) {
+            final LongRange range = puts.getRange(i);
+            final long lowest = range.lowestValue() ^ Long.MIN_VALUE;
+            final long highest = range.highestValue() ^ Long.MIN_VALUE;
+            writeVarLong(buffer, lowest - next);
+            writeVarLong(buffer, highest - lowest);
+            valueWriter.accept(puts.getValue(i), buffer);
+            next = highest + 1;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * removed.hashCode() + puts.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof LongRangeMapDelta)) // also takes care of obj == null
+            return false;
+        final LongRangeMapDelta<?> other = (LongRangeMapDelta<?>) obj;
+        return removed.equals(other.removed) && puts.equals(other.puts);
+    }
+
+    @Override
+    public String toString() {
+        return "+" + puts + " -" + removed;
+    }
+}
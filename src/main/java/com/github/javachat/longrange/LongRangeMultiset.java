@@ -0,0 +1,199 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.IndexSort;
+import com.github.javachat.common.RangeEvent;
+import com.github.javachat.common.RangeEvents;
+
+import java.util.Arrays;
+
+/**
+ * A collection of possibly overlapping ranges, each with a multiplicity, answering coverage queries.
+ * <p>
+ * Ranges are recorded as their lowest and highest values in primitive arrays. On the first query after a change,
+ * their endpoints are sorted and swept once into a step function: a sorted array of breakpoints, each starting a
+ * segment of values covered by the same number of ranges, and a max segment tree over these counts. Then
+ * {@link #coverCount(long)} is a binary search, {@link #maxOverlap(LongRange)} a binary search and a tree query, and
+ * {@link #coveredAtLeast(long)} a scan of the segments.
+ * <p>
+ * This class is not thread-safe.
+ */
+public final class LongRangeMultiset {
+    static final String ILLEGAL_OCCURRENCES = "occurrences must be positive: %d";
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // Recorded ranges which contain values
+    private long[] lowest = new long[DEFAULT_CAPACITY];
+    private long[] highest = new long[DEFAULT_CAPACITY];
+    private long[] occurrences = new long[DEFAULT_CAPACITY];
+    private int size;
+
+    // Step function, null until computed for the current ranges: counts[i] ranges cover the values from breaks[i]
+    // to breaks[i + 1] - 1, the first break being Long.MIN_VALUE
+    private long[] breaks;
+    private long[] counts;
+    // Max segment tree over counts: leaves at [segments, 2 * segments)
+    private long[] tree;
+    private int segments;
+
+    public static LongRangeMultiset copyOf(final Iterable<LongRange> ranges) {
+        final LongRangeMultiset multiset = new LongRangeMultiset();
+        for (final LongRange range : ranges)
+            multiset.add(range);
+        return multiset;
+    }
+
+    public LongRangeMultiset add(final LongRange range) {
+        return add(range, 1);
+    }
+
+    /**
+     * Records the range the given number of times. Ranges which contain no value are ignored.
+     */
+    public LongRangeMultiset add(final LongRange range, final long occurrences) {
+        if (occurrences <= 0)
+            throw new IllegalArgumentException(String.format(ILLEGAL_OCCURRENCES, occurrences));
+        if (!range.hasValues())
+            return this;
+
+        if (size == lowest.length) {
+            lowest = Arrays.copyOf(lowest, size * 2);
+            highest = Arrays.copyOf(highest, size * 2);
+            this.occurrences = Arrays.copyOf(this.occurrences, size * 2);
+        }
+        lowest[size] = range.lowestValue();
+        highest[size] = range.highestValue();
+        this.occurrences[size] = occurrences;
+        size++;
+        breaks = null;
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the number of ranges containing the value, counting multiplicities.
+     */
+    public long coverCount(final long value) {
+        compile();
+        return counts[segmentOf(value)];
+    }
+
+    /**
+     * Returns the greatest number of ranges containing a same value.
+     */
+    public long maxOverlap() {
+        compile();
+        return tree[1];
+    }
+
+    /**
+     * Returns the greatest number of ranges containing a same value of the given range, or 0 if it contains none.
+     */
+    public long maxOverlap(final LongRange range) {
+        if (!range.hasValues())
+            return 0;
+        compile();
+
+        // Maximum over the leaves from the first to the last segment the range intersects
+        long max = 0;
+        int left = segmentOf(range.lowestValue()) + segments;
+        int right = segmentOf(range.highestValue()) + segments + 1;
+        while (left < right) {
+            if ((left & 1) != 0)
+                max = Math.max(max, tree[left++]);
+            if ((right & 1) != 0)
+                max = Math.max(max, tree[--right]);
+            left >>>= 1;
+            right >>>= 1;
+        }
+        return max;
+    }
+
+    /**
+     * Returns the values contained by at least <code>count</code> ranges.
+     */
+    public LongRangeSet coveredAtLeast(final long count) {
+        if (count <= 0)
+            return LongRangeSet.all();
+        compile();
+
+        final LongRangeSet.Builder builder = new LongRangeSet.Builder(segments / 2);
+        for (int segment = 0; segment < segments; segment++) {
+            if (counts[segment] >= count)
+                builder.add(breaks[segment], segment + 1 < segments ? breaks[segment + 1] - 1 : Long.MAX_VALUE);
+        }
+        return builder.build();
+    }
+
+    /**
+     * The segment holding the value: the last one whose break is not above it.
+     */
+    private int segmentOf(final long value) {
+        int low = 0;
+        int high = segments;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (breaks[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low - 1;
+    }
+
+    /**
+     * Sweeps the sorted starts and ends of the ranges into the step function, if not already done.
+     */
+    private void compile() {
+        if (breaks != null)
+            return;
+
+        final RangeEvent event = RangeEvents.start();
+        final int[] byLowest = IndexSort.sortedIndices(lowest, size);
+        final int[] byHighest = IndexSort.sortedIndices(highest, size);
+        final long[] newBreaks = new long[2 * size + 1];
+        final long[] newCounts = new long[newBreaks.length];
+        newBreaks[0] = Long.MIN_VALUE;
+        int count = 1;
+
+        long coverage = 0;
+        int i = 0;
+        int j = 0;
+        // Ranges ending at Long.MAX_VALUE never stop covering
+        while (i < size || j < size && highest[byHighest[j]] != Long.MAX_VALUE) {
+            // Next position where the coverage changes: a lowest value, or a value following a highest one
+            final long position = j == size || highest[byHighest[j]] == Long.MAX_VALUE
+                    || i < size && lowest[byLowest[i]] <= highest[byHighest[j]] + 1
+                    ? lowest[byLowest[i]]
+                    : highest[byHighest[j]] + 1;
+
+            while (i < size && lowest[byLowest[i]] == position)
+                coverage += occurrences[byLowest[i++]];
+            while (j < size && highest[byHighest[j]] != Long.MAX_VALUE && highest[byHighest[j]] + 1 == position)
+                coverage -= occurrences[byHighest[j++]];
+
+            if (coverage == newCounts[count - 1])
+                continue;
+            if (newBreaks[count - 1] == position) {
+                // Only possible for the first break
+                newCounts[count - 1] = coverage;
+            } else {
+                newBreaks[count] = position;
+                newCounts[count] = coverage;
+                count++;
+            }
+        }
+
+        segments = count;
+        breaks = newBreaks;
+        counts = newCounts;
+        tree = new long[2 * segments];
+        System.arraycopy(counts, 0, tree, segments, segments);
+        for (int node = segments - 1; node > 0; node--)
+            tree[node] = Math.max(tree[2 * node], tree[2 * node + 1]);
+        RangeEvents.commit("LongRangeMultiset", "rebuild", size, 0, segments, event);
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.AsciiSequence;
+import com.github.javachat.common.RangeScanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Parser for the textual representation of {@link LongRange}s, as produced by {@link LongRange#toString()}.
+ * <p>
+ * Text is read in place, from a slice of a {@link CharSequence} or of a UTF-8 encoded {@link ByteBuffer}, so that the
+ * only object created per range is the range itself. An instance is meant to be reused, and is therefore not
+ * thread-safe.
+ */
+public final class LongRangeParser {
+    private final RangeScanner scanner = new RangeScanner();
+    private final AsciiSequence bytes = new AsciiSequence();
+
+    /**
+     * @throws IllegalArgumentException the text is not a valid range
+     */
+    public LongRange parse(final CharSequence text) {
+        return parse(text, 0, text.length());
+    }
+
+    /**
+     * Parses the range between <code>start</code> (included) and <code>end</code> (excluded) in the given text.
+     *
+     * @throws IllegalArgumentException the text is not a valid range
+     */
+    public LongRange parse(final CharSequence text, final int start, final int end) {
+        scanner.scan(text, start, end);
+        final boolean hasLowerBound = !scanner.isLowerInfinite();
+        final boolean hasUpperBound = !scanner.isUpperInfinite();
+        // Lower/Higher bounds for (partially) unbounded ranges are symbolical, as in LongRange#upTo()
+        final long lowerBound = hasLowerBound
+                ? scanner.parseLong(scanner.lowerStart(), scanner.lowerEnd())
+                : Long.MIN_VALUE;
+        final long upperBound = hasUpperBound
+                ? scanner.parseLong(scanner.upperStart(), scanner.upperEnd())
+                : Long.MAX_VALUE;
+
+        return new LongRange(lowerBound, scanner.lowerBoundType(), hasLowerBound,
+                upperBound, scanner.upperBoundType(), hasUpperBound);
+    }
+
+    /**
+     * Parses the range held by the remaining bytes of the buffer, without changing its position.
+     *
+     * @throws IllegalArgumentException the text is not a valid range
+     */
+    public LongRange parse(final ByteBuffer buffer) {
+        return parse(bytes.wrap(buffer, buffer.position(), buffer.limit()), 0, buffer.remaining());
+    }
+
+    /**
+     * Parses a file holding one range per line, blank lines being ignored.
+     *
+     * @throws IllegalArgumentException a line is not a valid range
+     */
+    public void parseLines(final Path path, final Consumer<LongRange> consumer) throws IOException {
+        AsciiSequence.forEachLine(path, (text, start, end) -> consumer.accept(parse(text, start, end)));
+    }
+}
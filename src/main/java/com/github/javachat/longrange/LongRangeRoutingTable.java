@@ -0,0 +1,194 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.RangeStats;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+/**
+ * Routes long keys, such as shard keys, to targets by key range, through versioned snapshots published atomically.
+ * <p>
+ * The table holds a reference to its current {@link Version}: an immutable {@link LongRangeMap} and its version
+ * number. A lookup reads this reference once and binary searches the map, without any lock, so that it is never
+ * blocked by a rebalancing. An update computes a new map from the current one and publishes it with a compare and
+ * set, retrying from the new current version if another update was published in the meantime; updates must thus be
+ * free of side effects. Each published update increments the version number.
+ * <p>
+ * A router which needs several lookups to agree, or which wants to know what changed between two versions, should
+ * work on a {@link Version} obtained from {@link #current()}.
+ * <p>
+ * A table built with {@link RangeStats} monitors the routes of every version it publishes, so that the statistics
+ * describe the current version and count the lookups of all versions.
+ *
+ * @param <V> The type of the targets
+ */
+public final class LongRangeRoutingTable<V> {
+    private final AtomicReference<Version<V>> current;
+    // Monitors the routes of each published version, or null
+    private final RangeStats stats;
+
+    /**
+     * @param initial The routes of version 0
+     */
+    public LongRangeRoutingTable(final LongRangeMap<V> initial) {
+        this(initial, null);
+    }
+
+    /**
+     * @param initial The routes of version 0
+     * @param stats   The statistics recording the lookups of all versions, or null
+     * @see LongRangeMap#monitored(RangeStats)
+     */
+    public LongRangeRoutingTable(final LongRangeMap<V> initial, final RangeStats stats) {
+        this.stats = stats;
+        current = new AtomicReference<>(new Version<>(0, monitored(Objects.requireNonNull(initial))));
+        recordShape(initial);
+    }
+
+    /**
+     * Returns the version lookups currently run against.
+     */
+    public Version<V> current() {
+        return current.get();
+    }
+
+    /**
+     * Returns the target of the key in the current version, or null if the key is not routed.
+     */
+    public V route(final long key) {
+        return current.get().routes.get(key);
+    }
+
+    /**
+     * Publishes a new version made of the result of the function applied to the current routes. The function may be
+     * applied several times when updates race; if it returns its argument, nothing is published.
+     *
+     * @return The version published, or the current one if the routes are unchanged
+     */
+    public Version<V> update(final UnaryOperator<LongRangeMap<V>> function) {
+        while (true) {
+            final Version<V> version = current.get();
+            final LongRangeMap<V> routes = Objects.requireNonNull(function.apply(version.routes));
+            if (routes == version.routes)
+                return version;
+            final Version<V> next = new Version<>(version.number + 1, monitored(routes));
+            if (current.compareAndSet(version, next)) {
+                recordShape(routes);
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Publishes the given routes only if the current version is still the expected one, for updates computed
+     * elsewhere.
+     *
+     * @return The version published, or null if the current version is not the expected one
+     */
+    public Version<V> compareAndPublish(final Version<V> expected, final LongRangeMap<V> routes) {
+        Objects.requireNonNull(routes);
+        final Version<V> next = new Version<>(expected.number + 1, monitored(routes));
+        if (!current.compareAndSet(expected, next))
+            return null;
+        recordShape(routes);
+        return next;
+    }
+
+    /**
+     * Routes the keys of the range to the given target.
+     *
+     * @see LongRangeMap#put(LongRange, Object)
+     */
+    public Version<V> assign(final LongRange range, final V target) {
+        return update(routes -> routes.put(range, target));
+    }
+
+    /**
+     * Routes the given key and the keys above it in its range to a new target.
+     *
+     * @see LongRangeMap#split(long, Object)
+     */
+    public Version<V> split(final long key, final V upperTarget) {
+        return update(routes -> routes.split(key, upperTarget));
+    }
+
+    /**
+     * Routes the range of the given key and the next one to a single target.
+     *
+     * @see LongRangeMap#merge(long, Object)
+     */
+    public Version<V> merge(final long key, final V mergedTarget) {
+        return update(routes -> routes.merge(key, mergedTarget));
+    }
+
+    private LongRangeMap<V> monitored(final LongRangeMap<V> routes) {
+        return stats == null ? routes : routes.recordingTo(stats);
+    }
+
+    private void recordShape(final LongRangeMap<V> routes) {
+        if (stats != null)
+            stats.recordShape(routes.size(), routes.footprintBytes());
+    }
+
+    @Override
+    public String toString() {
+        return current.get().toString();
+    }
+
+    /**
+     * An immutable snapshot of the routes.
+     *
+     * @param <V> The type of the targets
+     */
+    public static final class Version<V> {
+        private final long number;
+        private final LongRangeMap<V> routes;
+
+        Version(final long number, final LongRangeMap<V> routes) {
+            this.number = number;
+            this.routes = routes;
+        }
+
+        /**
+         * Returns the number of updates published before this version.
+         */
+        public long number() {
+            return number;
+        }
+
+        public LongRangeMap<V> routes() {
+            return routes;
+        }
+
+        /**
+         * Returns the target of the key in this version, or null if the key is not routed.
+         */
+        public V route(final long key) {
+            return routes.get(key);
+        }
+
+        /**
+         * Passes to the consumer the keys whose target differs in the given version, with their target in this
+         * version and in the given one.
+         *
+         * @see LongRangeMap#forEachDifference(LongRangeMap, LongRangeMap.DifferenceConsumer)
+         */
+        public void forEachDifference(final Version<? extends V> other,
+                                      final LongRangeMap.DifferenceConsumer<? super V> consumer) {
+            routes.forEachDifference(other.routes, consumer);
+        }
+
+        /**
+         * Returns the keys whose target differs in the given version.
+         */
+        public LongRangeSet differingKeys(final Version<? extends V> other) {
+            return routes.differingKeys(other.routes);
+        }
+
+        @Override
+        public String toString() {
+            return "v" + number + ' ' + routes;
+        }
+    }
+}
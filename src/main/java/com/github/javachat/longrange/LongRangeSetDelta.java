@@ -0,0 +1,207 @@
+package com.github.javachat.longrange;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * The values added and removed between two versions of a {@link LongRangeSet}, to bring a replica of the first
+ * version up to date without shipping the second one.
+ * <p>
+ * The delta is minimal: its added values are those of the second version only and its removed values those of the
+ * first version only, both coalesced into disjoint ranges; it is computed with linear merges of the two versions.
+ * It is {@link #writeTo(ByteBuffer) serialized} as variable-length integers: the gap from the previous range and the
+ * length of each range, which take one or two bytes each for ranges of small ids close to each other.
+ */
+public final class LongRangeSetDelta {
+    static final String MALFORMED_DELTA = "malformed delta at byte %d";
+
+    private static final LongRangeSetDelta EMPTY = new LongRangeSetDelta(LongRangeSet.empty(), LongRangeSet.empty());
+
+    private final LongRangeSet added;
+    private final LongRangeSet removed;
+
+    public static LongRangeSetDelta empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Computes the delta which turns the first version into the second one.
+     */
+    public static LongRangeSetDelta between(final LongRangeSet before, final LongRangeSet after) {
+        if (before.equals(after))
+            return EMPTY;
+        return new LongRangeSetDelta(after.difference(before), before.difference(after));
+    }
+
+    /**
+     * Reads a delta written by {@link #writeTo(ByteBuffer)}.
+     *
+     * @throws IllegalArgumentException the buffer does not hold a delta at its position
+     */
+    public static LongRangeSetDelta readFrom(final ByteBuffer buffer) {
+        final LongRangeSet added = readRanges(buffer);
+        final LongRangeSet removed = readRanges(buffer);
+        if (added.isEmpty() && removed.isEmpty())
+            return EMPTY;
+        if (!added.intersection(removed).isEmpty())
+            throw new IllegalArgumentException(String.format(MALFORMED_DELTA, buffer.position()));
+        return new LongRangeSetDelta(added, removed);
+    }
+
+    private LongRangeSetDelta(final LongRangeSet added, final LongRangeSet removed) {
+        this.added = added;
+        this.removed = removed;
+    }
+
+    /**
+     * Returns the values of the second version which are not in the first one.
+     */
+    public LongRangeSet added() {
+        return added;
+    }
+
+    /**
+     * Returns the values of the first version which are not in the second one.
+     */
+    public LongRangeSet removed() {
+        return removed;
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * Returns the set with the added values and without the removed ones, which is the second version when given
+     * the first one.
+     */
+    public LongRangeSet applyTo(final LongRangeSet set) {
+        if (isEmpty())
+            return set;
+        return set.difference(removed).union(added);
+    }
+
+    /**
+     * Same as {@link #applyTo(LongRangeSet)}, with an update of the persistent set for each range of this delta,
+     * which copies a logarithmic number of nodes instead of the whole set.
+     */
+    public PersistentLongRangeSet applyTo(final PersistentLongRangeSet set) {
+        PersistentLongRangeSet result = set;
+        for (int i = 0; i < removed.size(); i++)
+            result = result.remove(LongRange.ofValues(removed.lowestValue(i), removed.highestValue(i)));
+        for (int i = 0; i < added.size(); i++)
+            result = result.add(LongRange.ofValues(added.lowestValue(i), added.highestValue(i)));
+        return result;
+    }
+
+    public int serializedSize() {
+        return rangesSize(added) + rangesSize(removed);
+    }
+
+    /**
+     * Writes this delta at the position of the buffer, taking {@link #serializedSize()} bytes.
+     */
+    public void writeTo(final ByteBuffer buffer) {
+        writeRanges(buffer, added);
+        writeRanges(buffer, removed);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * added.hashCode() + removed.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof LongRangeSetDelta)) // also takes care of obj == null
+            return false;
+        final LongRangeSetDelta other = (LongRangeSetDelta) obj;
+        return added.equals(other.added) && removed.equals(other.removed);
+    }
+
+    @Override
+    public String toString() {
+        return "+" + added + " -" + removed;
+    }
+
+    // Ranges are written as their count, then the gap from the previous one and their length minus one. Values are
+    // offset by Long.MIN_VALUE so that gaps are computed on unsigned numbers.
+
+    static int rangesSize(final LongRangeSet ranges) {
+        int size = varLongSize(ranges.size());
+        long next = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            final long lowest = ranges.lowestValue(i) ^ Long.MIN_VALUE;
+            final long highest = ranges.highestValue(i) ^ Long.MIN_VALUE;
+            size += varLongSize(lowest - next) + varLongSize(highest - lowest);
+            // Coalesced ranges are at least one value apart
+            next = highest + 2;
+        }
+        return size;
+    }
+
+    static void writeRanges(final ByteBuffer buffer, final LongRangeSet ranges) {
+        writeVarLong(buffer, ranges.size());
+        long next = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            final long lowest = ranges.lowestValue(i) ^ Long.MIN_VALUE;
+            final long highest = ranges.highestValue(i) ^ Long.MIN_VALUE;
+            writeVarLong(buffer, lowest - next);
+            writeVarLong(buffer, highest - lowest);
+            next = highest + 2;
+        }
+    }
+
+    static LongRangeSet readRanges(final ByteBuffer buffer) {
+        final long count = readVarLong(buffer);
+        if (count < 0 || count > buffer.remaining() / 2)
+            throw new IllegalArgumentException(String.format(MALFORMED_DELTA, buffer.position()));
+
+        final LongRangeSet.Builder builder = new LongRangeSet.Builder((int) count);
+        long next = 0;
+        for (long i = 0; i < count; i++) {
+            final long lowest = next + readVarLong(buffer);
+            final long highest = lowest + readVarLong(buffer);
+            // Values wrapping around the unsigned range would no longer be ascending
+            final boolean full = i > 0 && Long.compareUnsigned(next, 2) < 0;
+            if (full || Long.compareUnsigned(lowest, next) < 0 || Long.compareUnsigned(highest, lowest) < 0)
+                throw new IllegalArgumentException(String.format(MALFORMED_DELTA, buffer.position()));
+            builder.add(lowest ^ Long.MIN_VALUE, highest ^ Long.MIN_VALUE);
+            next = highest + 2;
+        }
+        return builder.build();
+    }
+
+    static int varLongSize(final long value) {
+        return value == 0 ? 1 : (Long.SIZE - Long.numberOfLeadingZeros(value) + 6) / 7;
+    }
+
+    /**
+     * Writes the value as an unsigned LEB128 integer: 7 bits per byte, the high bit of a byte telling whether another
+     * one follows.
+     */
+    static void writeVarLong(final ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long readVarLong(final ByteBuffer buffer) {
+        try {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += 7) {
+                final byte b = buffer.get();
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0)
+                    return value;
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException(String.format(MALFORMED_DELTA, buffer.position()), e);
+        }
+        throw new IllegalArgumentException(String.format(MALFORMED_DELTA, buffer.position()));
+    }
+}
@@ -0,0 +1,205 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.BlockMatch;
+
+import java.util.Arrays;
+
+/**
+ * A zone map: the lowest and highest value of each block of a sequence of longs, to skip blocks when looking up
+ * the values of a range.
+ * <p>
+ * The sequence, such as an array or a mapped file, is split in blocks of {@link #blockSize()} values, the last one
+ * possibly shorter. The {@link #summary(int) summary} of a block is the smallest range enclosing its values. A
+ * query then {@link #match(int, LongRange) matches} a block with two comparisons: the block is skipped if its summary
+ * does not intersect the query range, accepted as a whole if the query range encloses it, and scanned otherwise.
+ * When the values are mostly ordered, as timestamps are, nearly every block is skipped or accepted.
+ * <p>
+ * The map is immutable and takes 2 longs per block; it does not keep the values it summarizes.
+ */
+public final class LongZoneMap {
+    static final String ILLEGAL_BLOCK_SIZE = "block size must be positive: %d";
+    static final String SIZE_MISMATCH = "zone map of %d values used for %d values";
+
+    private final int blockSize;
+    private final long size;
+    // Lowest and highest value of each block, both included
+    private final long[] lowestValues;
+    private final long[] highestValues;
+
+    /**
+     * Summarizes the values of the array.
+     *
+     * @throws IllegalArgumentException the block size is not positive
+     */
+    public static LongZoneMap of(final long[] values, final int blockSize) {
+        final Builder builder = new Builder(blockSize);
+        for (final long value : values)
+            builder.add(value);
+        return builder.build();
+    }
+
+    /**
+     * Returns a builder to which the values of the sequence are added in order.
+     *
+     * @throws IllegalArgumentException the block size is not positive
+     */
+    public static Builder builder(final int blockSize) {
+        return new Builder(blockSize);
+    }
+
+    private LongZoneMap(final int blockSize, final long size, final long[] lowestValues,
+                        final long[] highestValues) {
+        this.blockSize = blockSize;
+        this.size = size;
+        this.lowestValues = lowestValues;
+        this.highestValues = highestValues;
+    }
+
+    public int blockSize() {
+        return blockSize;
+    }
+
+    /**
+     * Returns the number of values summarized.
+     */
+    public long size() {
+        return size;
+    }
+
+    public int blockCount() {
+        return lowestValues.length;
+    }
+
+    /**
+     * Returns the smallest range enclosing the values of the block.
+     */
+    public LongRange summary(final int block) {
+        return LongRange.ofValues(lowestValues[block], highestValues[block]);
+    }
+
+    /**
+     * Tells whether the values of the block are in the query range: none of them when the summary of the block is
+     * not connected to the query range, or only touches it; all of them when the query range encloses the summary.
+     * <p>
+     * This is equivalent to testing the summary with {@link LongRange#isConnected(LongRange)} and
+     * {@link LongRange#encloses(LongRange)}, without building it.
+     */
+    public BlockMatch match(final int block, final LongRange query) {
+        if (!query.hasValues())
+            return BlockMatch.NONE;
+        final long low = query.lowestValue();
+        final long high = query.highestValue();
+        if (highestValues[block] < low || lowestValues[block] > high)
+            return BlockMatch.NONE;
+        return low <= lowestValues[block] && highestValues[block] <= high ? BlockMatch.ALL : BlockMatch.SOME;
+    }
+
+    /**
+     * Counts the values of the array in the query range, scanning only the blocks partly in it.
+     *
+     * @throws IllegalArgumentException this map does not summarize an array of this size
+     */
+    public long count(final long[] values, final LongRange query) {
+        checkSize(values.length);
+        long count = 0;
+        for (int block = 0; block < blockCount(); block++) {
+            final int from = block * blockSize;
+            final int to = (int) Math.min((long) from + blockSize, values.length);
+            switch (match(block, query)) {
+                case ALL:
+                    count += to - from;
+                    break;
+                case SOME:
+                    for (int i = from; i < to; i++) {
+                        if (query.contains(values[i]))
+                            count++;
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns the indices of the values of the array in the query range, in ascending order, scanning only the blocks
+     * partly in it.
+     *
+     * @throws IllegalArgumentException this map does not summarize an array of this size
+     */
+    public int[] select(final long[] values, final LongRange query) {
+        checkSize(values.length);
+        int[] indices = new int[16];
+        int count = 0;
+        for (int block = 0; block < blockCount(); block++) {
+            final int from = block * blockSize;
+            final int to = (int) Math.min((long) from + blockSize, values.length);
+            final BlockMatch match = match(block, query);
+            if (match == BlockMatch.NONE)
+                continue;
+            if (count + blockSize > indices.length)
+                indices = Arrays.copyOf(indices, Math.max(2 * indices.length, count + blockSize));
+            for (int i = from; i < to; i++) {
+                if (match == BlockMatch.ALL || query.contains(values[i]))
+                    indices[count++] = i;
+            }
+        }
+        return Arrays.copyOf(indices, count);
+    }
+
+    private void checkSize(final long valueCount) {
+        if (valueCount != size)
+            throw new IllegalArgumentException(String.format(SIZE_MISMATCH, size, valueCount));
+    }
+
+    @Override
+    public String toString() {
+        return "zone map of " + blockCount() + " blocks of " + blockSize + " values";
+    }
+
+    /**
+     * Summarizes values added in order, block by block.
+     */
+    public static final class Builder {
+        private final int blockSize;
+        private long[] lowest = new long[16];
+        private long[] highest = new long[16];
+        private long size;
+        private int blockCount;
+        // Number of values of the last block, 0 when it is full
+        private int inBlock;
+
+        private Builder(final int blockSize) {
+            if (blockSize <= 0)
+                throw new IllegalArgumentException(String.format(ILLEGAL_BLOCK_SIZE, blockSize));
+            this.blockSize = blockSize;
+        }
+
+        public Builder add(final long value) {
+            if (inBlock == 0) {
+                if (blockCount == lowest.length) {
+                    lowest = Arrays.copyOf(lowest, blockCount * 2);
+                    highest = Arrays.copyOf(highest, blockCount * 2);
+                }
+                lowest[blockCount] = value;
+                highest[blockCount] = value;
+                blockCount++;
+            }
+            final int block = blockCount - 1;
+            if (value < lowest[block])
+                lowest[block] = value;
+            else if (value > highest[block])
+                highest[block] = value;
+            size++;
+            if (++inBlock == blockSize)
+                inBlock = 0;
+            return this;
+        }
+
+        public LongZoneMap build() {
+            return new LongZoneMap(blockSize, size, Arrays.copyOf(lowest, blockCount),
+                    Arrays.copyOf(highest, blockCount));
+        }
+    }
+}
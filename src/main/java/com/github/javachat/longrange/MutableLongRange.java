@@ -0,0 +1,249 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.BoundType;
+import com.github.javachat.common.Constants;
+
+import java.util.Objects;
+
+/**
+ * A range of long values which can be re-pointed at new endpoints.
+ * <p>
+ * This is a flyweight for loops which would otherwise build a transient {@link LongRange} per iteration: the queries
+ * follow the semantics of {@link LongRange} but evaluate the bounds inline, and {@link #set(long, BoundType, long,
+ * BoundType)} validates the endpoints without creating any object unless they are invalid. {@link #freeze()} returns
+ * the equivalent immutable range when one has to be kept.
+ * <p>
+ * Instances are not thread-safe, and do not override {@link #equals(Object)} and {@link #hashCode()} as their value
+ * changes over time.
+ */
+public final class MutableLongRange {
+    private BoundType lowerBoundType = BoundType.OPEN;
+    private BoundType upperBoundType = BoundType.OPEN;
+    private long lowerBound = Long.MIN_VALUE;
+    private long upperBound = Long.MAX_VALUE;
+    private boolean hasLowerBound;
+    private boolean hasUpperBound;
+
+    /**
+     * Creates a range initially spanning all values, as {@link LongRange#all()}.
+     */
+    public MutableLongRange() {
+    }
+
+    /**
+     * @see LongRange#range(long, BoundType, long, BoundType)
+     */
+    public MutableLongRange set(final long lowerBound, final BoundType lowerBoundType,
+                               final long upperBound, final BoundType upperBoundType) {
+        return set(lowerBound, lowerBoundType, true, upperBound, upperBoundType, true);
+    }
+
+    /**
+     * @see LongRange#open(long, long)
+     */
+    public MutableLongRange setOpen(final long lowerBound, final long upperBound) {
+        return set(lowerBound, BoundType.OPEN, true, upperBound, BoundType.OPEN, true);
+    }
+
+    /**
+     * @see LongRange#closed(long, long)
+     */
+    public MutableLongRange setClosed(final long lowerBound, final long upperBound) {
+        return set(lowerBound, BoundType.CLOSED, true, upperBound, BoundType.CLOSED, true);
+    }
+
+    /**
+     * @see LongRange#upTo(long, BoundType)
+     */
+    public MutableLongRange setUpTo(final long endpoint, final BoundType boundType) {
+        return set(Long.MIN_VALUE, BoundType.OPEN, false, endpoint, boundType, true);
+    }
+
+    /**
+     * @see LongRange#downTo(long, BoundType)
+     */
+    public MutableLongRange setDownTo(final long endpoint, final BoundType boundType) {
+        return set(endpoint, boundType, true, Long.MAX_VALUE, BoundType.OPEN, false);
+    }
+
+    /**
+     * @see LongRange#all()
+     */
+    public MutableLongRange setAll() {
+        return set(Long.MIN_VALUE, BoundType.OPEN, false, Long.MAX_VALUE, BoundType.OPEN, false);
+    }
+
+    public MutableLongRange set(final LongRange range) {
+        return set(range.lowerEndpoint(), range.lowerBoundType(), range.hasLowerBound(),
+                range.upperEndpoint(), range.upperBoundType(), range.hasUpperBound());
+    }
+
+    public MutableLongRange set(final MutableLongRange range) {
+        return set(range.lowerBound, range.lowerBoundType, range.hasLowerBound,
+                range.upperBound, range.upperBoundType, range.hasUpperBound);
+    }
+
+    /**
+     * Validates and stores the endpoints, as the constructor of {@link LongRange}. The range is left unchanged if they
+     * are invalid.
+     */
+    MutableLongRange set(final long lowerBound, final BoundType lowerBoundType, final boolean hasLowerBound,
+                        final long upperBound, final BoundType upperBoundType, final boolean hasUpperBound) {
+        if (lowerBound > upperBound)
+            throw new IllegalArgumentException(String.format(LongRange.ILLEGAL_BOUNDS, lowerBound, upperBound));
+
+        if (lowerBound == upperBound
+                && lowerBoundType == BoundType.OPEN
+                && lowerBoundType == upperBoundType)
+            throw new IllegalArgumentException(LongRange.ILLEGAL_OPEN_RANGE);
+
+        this.lowerBoundType = Objects.requireNonNull(lowerBoundType);
+        this.upperBoundType = Objects.requireNonNull(upperBoundType);
+        this.lowerBound = lowerBound;
+        this.hasLowerBound = hasLowerBound;
+        this.upperBound = upperBound;
+        this.hasUpperBound = hasUpperBound;
+        return this;
+    }
+
+    public boolean hasLowerBound() {
+        return hasLowerBound;
+    }
+
+    public long lowerEndpoint() {
+        return lowerBound;
+    }
+
+    public BoundType lowerBoundType() {
+        return lowerBoundType;
+    }
+
+    public boolean hasUpperBound() {
+        return hasUpperBound;
+    }
+
+    public long upperEndpoint() {
+        return upperBound;
+    }
+
+    public BoundType upperBoundType() {
+        return upperBoundType;
+    }
+
+    public boolean isEmpty() {
+        return hasLowerBound && hasUpperBound && lowerBound == upperBound;
+    }
+
+    public boolean contains(final long value) {
+        return lowerCheck(value) && upperCheck(value);
+    }
+
+    /**
+     * @see LongRange#encloses(LongRange)
+     */
+    public boolean encloses(final LongRange other) {
+        return encloses(other.lowerEndpoint(), other.lowerBoundType(), other.upperEndpoint(), other.upperBoundType());
+    }
+
+    public boolean encloses(final MutableLongRange other) {
+        return encloses(other.lowerBound, other.lowerBoundType, other.upperBound, other.upperBoundType);
+    }
+
+    /**
+     * @see LongRange#isConnected(LongRange)
+     */
+    public boolean isConnected(final LongRange other) {
+        return isConnected(other.lowerEndpoint(), other.upperEndpoint());
+    }
+
+    public boolean isConnected(final MutableLongRange other) {
+        return isConnected(other.lowerBound, other.upperBound);
+    }
+
+    /**
+     * Stores the intersection of this range and the given one into <code>result</code>, which may be this range.
+     *
+     * @return <code>result</code>
+     * @see LongRange#intersection(LongRange)
+     */
+    public MutableLongRange intersection(final LongRange other, final MutableLongRange result) {
+        if (!isConnected(other))
+            throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
+
+        return intersection(other.lowerEndpoint(), other.lowerBoundType(), other.hasLowerBound(),
+                other.upperEndpoint(), other.upperBoundType(), other.hasUpperBound(), result);
+    }
+
+    public MutableLongRange intersection(final MutableLongRange other, final MutableLongRange result) {
+        if (!isConnected(other))
+            throw new IllegalArgumentException(String.format(Constants.NO_CONNECTION, this, other));
+
+        return intersection(other.lowerBound, other.lowerBoundType, other.hasLowerBound,
+                other.upperBound, other.upperBoundType, other.hasUpperBound, result);
+    }
+
+    /**
+     * Returns an immutable copy of the current value of this range.
+     */
+    public LongRange freeze() {
+        return new LongRange(lowerBound, lowerBoundType, hasLowerBound, upperBound, upperBoundType, hasUpperBound);
+    }
+
+    @Override
+    public String toString() {
+        return freeze().toString();
+    }
+
+    private boolean lowerCheck(final long value) {
+        if (!hasLowerBound)
+            return true;
+        return lowerBoundType == BoundType.OPEN ? value >= lowerBound : value > lowerBound;
+    }
+
+    private boolean upperCheck(final long value) {
+        if (!hasUpperBound)
+            return true;
+        return upperBoundType == BoundType.OPEN ? value <= upperBound : value < upperBound;
+    }
+
+    private boolean encloses(final long otherLower, final BoundType otherLowerType,
+                             final long otherUpper, final BoundType otherUpperType) {
+        // Same as LongRange: enclosure is reflexive, and an unbounded range equals any other
+        final boolean isEqual = (!hasLowerBound && !hasUpperBound)
+                || (lowerBound == otherLower
+                && upperBound == otherUpper
+                && lowerBoundType == otherLowerType
+                && upperBoundType == otherUpperType);
+
+        return isEqual
+                || (lowerCheck(otherLower)
+                && lowerCheck(otherUpper)
+                && upperCheck(otherLower)
+                && upperCheck(otherUpper));
+    }
+
+    private boolean isConnected(final long otherLower, final long otherUpper) {
+        return (lowerCheck(otherUpper) && upperCheck(otherUpper))
+                || (upperCheck(otherLower) && lowerCheck(otherLower));
+    }
+
+    /**
+     * Picks the greater lower cut and the smaller upper cut, this range winning ties as in
+     * {@link LongRange#intersection(LongRange)}.
+     */
+    private MutableLongRange intersection(final long otherLower, final BoundType otherLowerType,
+                                         final boolean otherHasLower, final long otherUpper,
+                                         final BoundType otherUpperType, final boolean otherHasUpper,
+                                         final MutableLongRange result) {
+        final boolean thisLower = lowerBound >= otherLower;
+        final boolean thisUpper = upperBound <= otherUpper;
+
+        return result.set(
+                thisLower ? lowerBound : otherLower,
+                thisLower ? lowerBoundType : otherLowerType,
+                thisLower ? hasLowerBound : otherHasLower,
+                thisUpper ? upperBound : otherUpper,
+                thisUpper ? upperBoundType : otherUpperType,
+                thisUpper ? hasUpperBound : otherHasUpper);
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.PackedRanges;
+
+/**
+ * An immutable set of disjoint {@link LongRange}s compressed in blocks, for very large tables of ranges mostly
+ * separated by small gaps.
+ * <p>
+ * The ranges are stored as {@link PackedRanges}: each block of {@value PackedRanges#BLOCK_SIZE} ranges keeps the
+ * lowest value of its first range and bit-packs the lengths of its ranges and the gaps between them, a few bits each
+ * when these are small, where {@link LongRangeSet} takes 16 bytes per range. A lookup binary searches the first values
+ * of the blocks, then decodes a single block up to the value, which makes it a few times slower than a lookup in a
+ * {@link LongRangeSet} of the same ranges, but keeps much larger tables in the processor caches and in memory.
+ * <p>
+ * Connected ranges are coalesced, as in {@link LongRangeSet}. Sets are built from a {@link LongRangeSet} or, without
+ * ever holding the uncompressed ranges, from ascending ranges given to a {@link #builder()}.
+ */
+public final class PackedLongRangeSet {
+    private static final PackedLongRangeSet EMPTY = new PackedLongRangeSet(PackedRanges.empty());
+
+    private final PackedRanges ranges;
+
+    public static PackedLongRangeSet empty() {
+        return EMPTY;
+    }
+
+    public static PackedLongRangeSet copyOf(final LongRangeSet set) {
+        if (set.isEmpty())
+            return EMPTY;
+        final Builder builder = new Builder();
+        for (int i = 0; i < set.size(); i++)
+            builder.ranges.add(set.lowestValue(i), set.highestValue(i));
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private PackedLongRangeSet(final PackedRanges ranges) {
+        this.ranges = ranges;
+    }
+
+    /**
+     * Returns the number of disjoint ranges of this set.
+     */
+    public int size() {
+        return ranges.size();
+    }
+
+    public boolean isEmpty() {
+        return ranges.size() == 0;
+    }
+
+    public boolean contains(final long value) {
+        return ranges.indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index of the range containing the given value, in ascending order, or -1 if there is no such range.
+     */
+    public int indexOf(final long value) {
+        return ranges.indexOf(value);
+    }
+
+    /**
+     * Returns the approximate number of bytes retained by this set.
+     */
+    public long footprintBytes() {
+        return 16 + ranges.footprintBytes();
+    }
+
+    /**
+     * Decodes all the ranges of this set.
+     */
+    public LongRangeSet toRangeSet() {
+        final LongRangeSet.Builder builder = new LongRangeSet.Builder(ranges.size());
+        final long[] lowest = new long[PackedRanges.BLOCK_SIZE];
+        final long[] highest = new long[PackedRanges.BLOCK_SIZE];
+        for (int block = 0; block < ranges.blockCount(); block++) {
+            final int count = ranges.decodeBlock(block, lowest, highest);
+            for (int i = 0; i < count; i++)
+                builder.add(lowest[i], highest[i]);
+        }
+        return builder.build();
+    }
+
+    @Override
+    public int hashCode() {
+        return ranges.hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof PackedLongRangeSet)) // also takes care of obj == null
+            return false;
+        return ranges.equals(((PackedLongRangeSet) obj).ranges);
+    }
+
+    @Override
+    public String toString() {
+        return "packed set of " + ranges;
+    }
+
+    /**
+     * Packs ranges given in ascending order of their lowest value, coalescing the ones which overlap or are adjacent.
+     */
+    public static final class Builder {
+        private final PackedRanges.Builder ranges = new PackedRanges.Builder();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a range, unless it contains no value.
+         *
+         * @throws IllegalArgumentException the range starts below the previous one
+         */
+        public Builder add(final LongRange range) {
+            if (range.hasValues())
+                ranges.add(range.lowestValue(), range.highestValue());
+            return this;
+        }
+
+        public PackedLongRangeSet build() {
+            final PackedRanges built = ranges.build();
+            return built.size() == 0 ? EMPTY : new PackedLongRangeSet(built);
+        }
+    }
+}
@@ -0,0 +1,509 @@
+package com.github.javachat.longrange;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of disjoint {@link LongRange}s whose updates return a new version sharing most of its structure
+ * with the previous one, so that any number of versions can be kept as snapshots.
+ * <p>
+ * Ranges are stored as their lowest and highest values, both included, in the leaves of a B+tree ordered by lowest
+ * value: leaves hold up to {@value #MAX_WIDTH} ranges in primitive arrays, and inner nodes up to {@value #MAX_WIDTH}
+ * children. An update copies the nodes on the paths to the ranges it changes, and shares every other node with the
+ * previous version; it thus allocates a few kilobytes, whatever the size of the set, where {@link LongRangeSet}
+ * copies its arrays. Taking a snapshot is keeping a reference to a version.
+ * <p>
+ * As with {@link LongRangeSet}, connected ranges are coalesced: <code>[1..5]</code> and <code>[6..9]</code> are
+ * stored as <code>[1..9]</code>. {@link #contains(long)} descends the tree with a binary search in each node.
+ */
+public final class PersistentLongRangeSet {
+    static final int MAX_WIDTH = 64;
+    // Nodes narrower than this are merged with a neighbor after a removal
+    static final int MIN_WIDTH = MAX_WIDTH / 4;
+
+    private static final PersistentLongRangeSet EMPTY = new PersistentLongRangeSet(null);
+
+    // Null when empty
+    private final Node root;
+
+    public static PersistentLongRangeSet empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Builds a persistent version of the set, with full leaves.
+     */
+    public static PersistentLongRangeSet copyOf(final LongRangeSet set) {
+        if (set.isEmpty())
+            return EMPTY;
+
+        Node[] level = new Node[(set.size() + MAX_WIDTH - 1) / MAX_WIDTH];
+        for (int i = 0; i < level.length; i++) {
+            final int from = i * MAX_WIDTH;
+            final int width = Math.min(MAX_WIDTH, set.size() - from);
+            final long[] lowest = new long[width];
+            final long[] highest = new long[width];
+            for (int j = 0; j < width; j++) {
+                lowest[j] = set.lowestValue(from + j);
+                highest[j] = set.highestValue(from + j);
+            }
+            level[i] = new Leaf(lowest, highest);
+        }
+        while (level.length > 1) {
+            final Node[] parents = new Node[(level.length + MAX_WIDTH - 1) / MAX_WIDTH];
+            for (int i = 0; i < parents.length; i++) {
+                final int from = i * MAX_WIDTH;
+                parents[i] = new Inner(Arrays.copyOfRange(level, from, Math.min(level.length, from + MAX_WIDTH)));
+            }
+            level = parents;
+        }
+        return new PersistentLongRangeSet(level[0]);
+    }
+
+    private PersistentLongRangeSet(final Node root) {
+        this.root = root;
+    }
+
+    /**
+     * Returns the number of disjoint ranges.
+     */
+    public int size() {
+        return root == null ? 0 : root.count;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public boolean contains(final long value) {
+        final Leaf leaf = floorLeaf(value);
+        return leaf != null && value <= leaf.highest[lastAtOrBelow(leaf.lowest, value)];
+    }
+
+    /**
+     * Returns a version of this set which also contains the values of the range, or this set if it already does.
+     */
+    public PersistentLongRangeSet add(final LongRange range) {
+        if (!range.hasValues())
+            return this;
+        long lowest = range.lowestValue();
+        long highest = range.highestValue();
+
+        // A range containing or reaching the value before the lowest one is coalesced, as well as the ranges starting
+        // in the added one or right after it
+        final Leaf before = floorLeaf(lowest);
+        if (before != null) {
+            final int index = lastAtOrBelow(before.lowest, lowest);
+            if (before.highest[index] >= highest)
+                return this;
+            if (before.highest[index] == Long.MAX_VALUE || before.highest[index] + 1 >= lowest)
+                lowest = before.lowest[index];
+        }
+        final long next = highest == Long.MAX_VALUE ? highest : highest + 1;
+        final Leaf last = floorLeaf(next);
+        if (last != null)
+            highest = Math.max(highest, last.highest[lastAtOrBelow(last.lowest, next)]);
+
+        return new PersistentLongRangeSet(insert(delete(root, lowest, highest), lowest, highest));
+    }
+
+    /**
+     * Returns a version of this set which contains none of the values of the range, or this set if it already does
+     * not.
+     */
+    public PersistentLongRangeSet remove(final LongRange range) {
+        if (!range.hasValues())
+            return this;
+        final long lowest = range.lowestValue();
+        final long highest = range.highestValue();
+
+        // The ranges overlapping the removed one start in it, except for the one containing its lowest value
+        final Leaf before = floorLeaf(lowest);
+        final int beforeIndex = before == null ? -1 : lastAtOrBelow(before.lowest, lowest);
+        final boolean splitsBefore = before != null && before.lowest[beforeIndex] < lowest
+                && before.highest[beforeIndex] >= lowest;
+        final Leaf last = floorLeaf(highest);
+        if (last == null)
+            return this;
+        final long lastHighest = last.highest[lastAtOrBelow(last.lowest, highest)];
+        if (lastHighest < lowest)
+            return this;
+
+        final long from = splitsBefore ? before.lowest[beforeIndex] : lowest;
+        Node node = delete(root, from, highest);
+        if (splitsBefore)
+            node = insert(node, from, lowest - 1);
+        if (lastHighest > highest)
+            node = insert(node, highest + 1, lastHighest);
+        return node == null ? EMPTY : new PersistentLongRangeSet(node);
+    }
+
+    /**
+     * Copies the ranges of this version in a {@link LongRangeSet}.
+     */
+    public LongRangeSet toRangeSet() {
+        if (root == null)
+            return LongRangeSet.empty();
+        final LongRangeSet.Builder builder = new LongRangeSet.Builder(root.count);
+        root.collect(builder);
+        return builder.build();
+    }
+
+    /**
+     * Returns the leaf holding the last range starting at or below the value, or null if there is none; the range is
+     * at position <code>lastAtOrBelow(leaf.lowest, value)</code> in it.
+     */
+    private Leaf floorLeaf(final long value) {
+        Node node = root;
+        if (node == null || node.firstLowest() > value)
+            return null;
+        while (node instanceof Inner) {
+            final Inner inner = (Inner) node;
+            node = inner.children[lastAtOrBelow(inner.keys, value)];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Returns the leaf holding the range at the given position.
+     */
+    private static Leaf leafAt(final Node root, int position) {
+        Node node = root;
+        while (node instanceof Inner) {
+            final Node[] children = ((Inner) node).children;
+            int child = 0;
+            while (position >= children[child].count)
+                position -= children[child++].count;
+            node = children[child];
+        }
+        return (Leaf) node;
+    }
+
+    /**
+     * Returns the position of the last value at or below the given one, or -1 if there is none.
+     */
+    private static int lastAtOrBelow(final long[] sorted, final long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (sorted[middle] <= value)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low - 1;
+    }
+
+    private static Node insert(final Node root, final long lowest, final long highest) {
+        if (root == null)
+            return new Leaf(new long[]{lowest}, new long[]{highest});
+        final Node[] nodes = root.insert(lowest, highest);
+        return nodes.length == 1 ? nodes[0] : new Inner(nodes);
+    }
+
+    private static Node delete(final Node root, final long from, final long to) {
+        Node node = root == null ? null : root.delete(from, to);
+        while (node instanceof Inner && ((Inner) node).children.length == 1)
+            node = ((Inner) node).children[0];
+        return node;
+    }
+
+    /**
+     * Returns the hash code of the {@link LongRangeSet} of the same ranges.
+     */
+    @Override
+    public int hashCode() {
+        return root == null ? LongRangeSet.empty().hashCode() : 31 * root.hash(1, false) + root.hash(1, true);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj)
+            return true;
+        if (!(obj instanceof PersistentLongRangeSet)) // also takes care of obj == null
+            return false;
+        final PersistentLongRangeSet other = (PersistentLongRangeSet) obj;
+        if (size() != other.size())
+            return false;
+
+        // Both trees are walked leaf by leaf, although their leaves may split the ranges differently
+        Leaf leaf = null;
+        Leaf otherLeaf = null;
+        int index = 0;
+        int otherIndex = 0;
+        for (int position = 0; position < size(); position++, index++, otherIndex++) {
+            if (leaf == null || index == leaf.lowest.length) {
+                leaf = leafAt(root, position);
+                index = 0;
+            }
+            if (otherLeaf == null || otherIndex == otherLeaf.lowest.length) {
+                otherLeaf = leafAt(other.root, position);
+                otherIndex = 0;
+            }
+            if (leaf.lowest[index] != otherLeaf.lowest[otherIndex]
+                    || leaf.highest[index] != otherLeaf.highest[otherIndex])
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return toRangeSet().toString();
+    }
+
+    /**
+     * A node of the tree, never modified once built.
+     */
+    private abstract static class Node {
+        // Number of ranges in the subtree
+        final int count;
+
+        Node(final int count) {
+            this.count = count;
+        }
+
+        abstract int width();
+
+        abstract long firstLowest();
+
+        /**
+         * Returns this node with the range inserted, split in two nodes if it overflows.
+         */
+        abstract Node[] insert(long lowest, long highest);
+
+        /**
+         * Returns this node without the ranges whose lowest value is in the given interval, possibly narrower than
+         * {@link #MIN_WIDTH}, or null if no range remains.
+         */
+        abstract Node delete(long from, long to);
+
+        /**
+         * Returns the concatenation of this node and the next one, of the same height, split in two halves if it
+         * overflows.
+         */
+        abstract Node[] concat(Node next);
+
+        abstract void collect(LongRangeSet.Builder builder);
+
+        /**
+         * Continues the hash code of {@link java.util.Arrays#hashCode(long[])} with the lowest or highest values of the
+         * ranges of this node.
+         */
+        abstract int hash(int hash, boolean highestValues);
+    }
+
+    private static final class Leaf extends Node {
+        final long[] lowest;
+        final long[] highest;
+
+        Leaf(final long[] lowest, final long[] highest) {
+            super(lowest.length);
+            this.lowest = lowest;
+            this.highest = highest;
+        }
+
+        @Override
+        int width() {
+            return lowest.length;
+        }
+
+        @Override
+        long firstLowest() {
+            return lowest[0];
+        }
+
+        @Override
+        Node[] insert(final long low, final long high) {
+            final int position = lastAtOrBelow(lowest, low) + 1;
+            final long[] newLowest = new long[lowest.length + 1];
+            final long[] newHighest = new long[newLowest.length];
+            System.arraycopy(lowest, 0, newLowest, 0, position);
+            System.arraycopy(highest, 0, newHighest, 0, position);
+            newLowest[position] = low;
+            newHighest[position] = high;
+            System.arraycopy(lowest, position, newLowest, position + 1, lowest.length - position);
+            System.arraycopy(highest, position, newHighest, position + 1, lowest.length - position);
+            return split(newLowest, newHighest);
+        }
+
+        @Override
+        Node delete(final long from, final long to) {
+            final int first = from == Long.MIN_VALUE ? 0 : lastAtOrBelow(lowest, from - 1) + 1;
+            final int end = lastAtOrBelow(lowest, to) + 1;
+            if (first >= end)
+                return this;
+            if (end - first == lowest.length)
+                return null;
+            final long[] newLowest = new long[lowest.length - (end - first)];
+            final long[] newHighest = new long[newLowest.length];
+            System.arraycopy(lowest, 0, newLowest, 0, first);
+            System.arraycopy(highest, 0, newHighest, 0, first);
+            System.arraycopy(lowest, end, newLowest, first, lowest.length - end);
+            System.arraycopy(highest, end, newHighest, first, lowest.length - end);
+            return new Leaf(newLowest, newHighest);
+        }
+
+        @Override
+        Node[] concat(final Node next) {
+            final Leaf leaf = (Leaf) next;
+            final long[] newLowest = Arrays.copyOf(lowest, lowest.length + leaf.lowest.length);
+            final long[] newHighest = Arrays.copyOf(highest, newLowest.length);
+            System.arraycopy(leaf.lowest, 0, newLowest, lowest.length, leaf.lowest.length);
+            System.arraycopy(leaf.highest, 0, newHighest, lowest.length, leaf.lowest.length);
+            return split(newLowest, newHighest);
+        }
+
+        private static Node[] split(final long[] lowest, final long[] highest) {
+            if (lowest.length <= MAX_WIDTH)
+                return new Node[]{new Leaf(lowest, highest)};
+            final int half = lowest.length / 2;
+            return new Node[]{
+                    new Leaf(Arrays.copyOf(lowest, half), Arrays.copyOf(highest, half)),
+                    new Leaf(Arrays.copyOfRange(lowest, half, lowest.length),
+                            Arrays.copyOfRange(highest, half, lowest.length))
+            };
+        }
+
+        @Override
+        void collect(final LongRangeSet.Builder builder) {
+            for (int i = 0; i < lowest.length; i++)
+                builder.add(lowest[i], highest[i]);
+        }
+
+        @Override
+        int hash(int hash, final boolean highestValues) {
+            for (final long value : highestValues ? highest : lowest)
+                hash = 31 * hash + Long.hashCode(value);
+            return hash;
+        }
+    }
+
+    private static final class Inner extends Node {
+        final Node[] children;
+        // Lowest value of the first range of each child
+        final long[] keys;
+
+        Inner(final Node[] children) {
+            super(count(children));
+            this.children = children;
+            this.keys = new long[children.length];
+            for (int i = 0; i < children.length; i++)
+                keys[i] = children[i].firstLowest();
+        }
+
+        private static int count(final Node[] children) {
+            int count = 0;
+            for (final Node child : children)
+                count += child.count;
+            return count;
+        }
+
+        @Override
+        int width() {
+            return children.length;
+        }
+
+        @Override
+        long firstLowest() {
+            return keys[0];
+        }
+
+        @Override
+        Node[] insert(final long lowest, final long highest) {
+            final int index = Math.max(0, lastAtOrBelow(keys, lowest));
+            final Node[] inserted = children[index].insert(lowest, highest);
+            final Node[] newChildren = new Node[children.length + inserted.length - 1];
+            System.arraycopy(children, 0, newChildren, 0, index);
+            System.arraycopy(inserted, 0, newChildren, index, inserted.length);
+            System.arraycopy(children, index + 1, newChildren, index + inserted.length, children.length - index - 1);
+            return split(newChildren);
+        }
+
+        @Override
+        Node delete(final long from, final long to) {
+            // Children from the one holding the interval start to the one holding its end; those in between only hold
+            // ranges starting in the interval and are dropped as a whole
+            final int first = Math.max(0, lastAtOrBelow(keys, from));
+            final int last = lastAtOrBelow(keys, to);
+            if (last < 0)
+                return this;
+
+            final Node[] newChildren = new Node[children.length];
+            int width = 0;
+            for (int i = 0; i < first; i++)
+                newChildren[width++] = children[i];
+            final Node head = children[first].delete(from, to);
+            final Node tail = last > first ? children[last].delete(from, to) : null;
+            if (head == children[first] && last == first)
+                return this;
+            if (head != null)
+                newChildren[width++] = head;
+            if (tail != null)
+                newChildren[width++] = tail;
+            for (int i = last + 1; i < children.length; i++)
+                newChildren[width++] = children[i];
+            if (width == 0)
+                return null;
+            return new Inner(rebalance(newChildren, width));
+        }
+
+        /**
+         * Merges the children narrower than {@link #MIN_WIDTH} with their neighbors; only the children at the ends of
+         * a deleted interval, or the last ones of a set built by {@link #copyOf(LongRangeSet)}, may be so.
+         */
+        private static Node[] rebalance(final Node[] children, int width) {
+            int i = 0;
+            while (i < width && width > 1) {
+                if (children[i].width() >= MIN_WIDTH) {
+                    i++;
+                    continue;
+                }
+                final int left = i + 1 < width ? i : i - 1;
+                final Node[] merged = children[left].concat(children[left + 1]);
+                children[left] = merged[0];
+                if (merged.length == 2) {
+                    // Both halves of an overflowing concatenation are wide enough
+                    children[left + 1] = merged[1];
+                    i = left + 2;
+                } else {
+                    System.arraycopy(children, left + 2, children, left + 1, width - left - 2);
+                    width--;
+                    i = left;
+                }
+            }
+            return Arrays.copyOf(children, width);
+        }
+
+        @Override
+        Node[] concat(final Node next) {
+            final Inner inner = (Inner) next;
+            final Node[] newChildren = Arrays.copyOf(children, children.length + inner.children.length);
+            System.arraycopy(inner.children, 0, newChildren, children.length, inner.children.length);
+            return split(newChildren);
+        }
+
+        private static Node[] split(final Node[] children) {
+            if (children.length <= MAX_WIDTH)
+                return new Node[]{new Inner(children)};
+            final int half = children.length / 2;
+            return new Node[]{
+                    new Inner(Arrays.copyOf(children, half)),
+                    new Inner(Arrays.copyOfRange(children, half, children.length))
+            };
+        }
+
+        @Override
+        void collect(final LongRangeSet.Builder builder) {
+            for (final Node child : children)
+                child.collect(builder);
+        }
+
+        @Override
+        int hash(int hash, final boolean highestValues) {
+            for (final Node child : children)
+                hash = child.hash(hash, highestValues);
+            return hash;
+        }
+    }
+}
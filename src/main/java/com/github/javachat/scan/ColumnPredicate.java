@@ -0,0 +1,82 @@
+package com.github.javachat.scan;
+
+import com.github.javachat.doublerange.DoubleRange;
+import com.github.javachat.doublerange.DoubleRangeSet;
+import com.github.javachat.floatrange.FloatRange;
+import com.github.javachat.floatrange.FloatRangeSet;
+import com.github.javachat.intrange.IntRange;
+import com.github.javachat.intrange.IntRangeSet;
+import com.github.javachat.longrange.LongRange;
+import com.github.javachat.longrange.LongRangeSet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A condition on the values of a {@link MappedColumn}: membership in a range, or in a range set.
+ * <p>
+ * Each type of column has its own subclass, whose loops read values straight from the mapped bytes and compare them
+ * as primitives. A set made of a single range is tested with two comparisons; a larger one is binary searched.
+ */
+public abstract class ColumnPredicate {
+    private final ColumnType type;
+
+    public static ColumnPredicate of(final IntRange range) {
+        return of(IntRangeSet.of(range));
+    }
+
+    public static ColumnPredicate of(final IntRangeSet set) {
+        return new IntColumnPredicate(set);
+    }
+
+    public static ColumnPredicate of(final LongRange range) {
+        return of(LongRangeSet.of(range));
+    }
+
+    public static ColumnPredicate of(final LongRangeSet set) {
+        return new LongColumnPredicate(set);
+    }
+
+    public static ColumnPredicate of(final FloatRange range) {
+        return of(FloatRangeSet.of(range));
+    }
+
+    public static ColumnPredicate of(final FloatRangeSet set) {
+        return new FloatColumnPredicate(set);
+    }
+
+    public static ColumnPredicate of(final DoubleRange range) {
+        return of(DoubleRangeSet.of(range));
+    }
+
+    public static ColumnPredicate of(final DoubleRangeSet set) {
+        return new DoubleColumnPredicate(set);
+    }
+
+    ColumnPredicate(final ColumnType type) {
+        this.type = type;
+    }
+
+    /**
+     * Returns the type of the columns this predicate applies to.
+     */
+    public ColumnType type() {
+        return type;
+    }
+
+    /**
+     * Counts the matching values from index <code>from</code> to index <code>to</code> (excluded) of a chunk.
+     */
+    abstract long count(ByteBuffer chunk, int from, int to);
+
+    /**
+     * Adds the rows of the matching values from index <code>from</code> to index <code>to</code> (excluded) of a
+     * chunk whose first value is the given row.
+     */
+    abstract void select(ByteBuffer chunk, int from, int to, long firstRow, RowSelection selection);
+
+    /**
+     * Sets the bits of the rows of the matching values from index <code>from</code> to index <code>to</code>
+     * (excluded) of a chunk whose first value is the given row.
+     */
+    abstract void mark(ByteBuffer chunk, int from, int to, long firstRow, long[] words);
+}
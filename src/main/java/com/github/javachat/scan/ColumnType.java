@@ -0,0 +1,24 @@
+package com.github.javachat.scan;
+
+/**
+ * The type of the values of a {@link MappedColumn}, stored in little endian order.
+ */
+public enum ColumnType {
+    INT(Integer.BYTES),
+    LONG(Long.BYTES),
+    FLOAT(Float.BYTES),
+    DOUBLE(Double.BYTES);
+
+    private final int bytes;
+
+    ColumnType(final int bytes) {
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the number of bytes of a value.
+     */
+    public int bytes() {
+        return bytes;
+    }
+}
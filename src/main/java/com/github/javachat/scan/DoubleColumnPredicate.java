@@ -0,0 +1,59 @@
+package com.github.javachat.scan;
+
+import com.github.javachat.doublerange.DoubleRangeSet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tests double values read from a little endian buffer against a {@link DoubleRangeSet}.
+ */
+final class DoubleColumnPredicate extends ColumnPredicate {
+    private final DoubleRangeSet set;
+    // Bounds of the only range of the set, compared directly; an empty set has bounds no value satisfies
+    private final boolean singleRange;
+    private final double lowest;
+    private final double highest;
+    private final boolean containsNaN;
+
+    DoubleColumnPredicate(final DoubleRangeSet set) {
+        super(ColumnType.DOUBLE);
+        this.set = set;
+        singleRange = set.size() <= 1;
+        lowest = set.size() == 0 ? 1 : set.lowestValue(0);
+        highest = set.size() == 0 ? 0 : set.highestValue(0);
+        containsNaN = set.containsNaN();
+    }
+
+    private boolean test(final double value) {
+        return singleRange ? value >= lowest && value <= highest || value != value && containsNaN : set.contains(value);
+    }
+
+    @Override
+    long count(final ByteBuffer chunk, final int from, final int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getDouble(i << 3)))
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    void select(final ByteBuffer chunk, final int from, final int to, final long firstRow,
+                final RowSelection selection) {
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getDouble(i << 3)))
+                selection.add(firstRow + i);
+        }
+    }
+
+    @Override
+    void mark(final ByteBuffer chunk, final int from, final int to, final long firstRow, final long[] words) {
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getDouble(i << 3))) {
+                final long row = firstRow + i;
+                words[(int) (row >>> 6)] |= 1L << row;
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.github.javachat.scan;
+
+import com.github.javachat.floatrange.FloatRangeSet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tests float values read from a little endian buffer against a {@link FloatRangeSet}.
+ */
+final class FloatColumnPredicate extends ColumnPredicate {
+    private final FloatRangeSet set;
+    // Bounds of the only range of the set, compared directly; an empty set has bounds no value satisfies
+    private final boolean singleRange;
+    private final float lowest;
+    private final float highest;
+    private final boolean containsNaN;
+
+    FloatColumnPredicate(final FloatRangeSet set) {
+        super(ColumnType.FLOAT);
+        this.set = set;
+        singleRange = set.size() <= 1;
+        lowest = set.size() == 0 ? 1 : set.lowestValue(0);
+        highest = set.size() == 0 ? 0 : set.highestValue(0);
+        containsNaN = set.containsNaN();
+    }
+
+    private boolean test(final float value) {
+        return singleRange ? value >= lowest && value <= highest || value != value && containsNaN : set.contains(value);
+    }
+
+    @Override
+    long count(final ByteBuffer chunk, final int from, final int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getFloat(i << 2)))
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    void select(final ByteBuffer chunk, final int from, final int to, final long firstRow,
+                final RowSelection selection) {
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getFloat(i << 2)))
+                selection.add(firstRow + i);
+        }
+    }
+
+    @Override
+    void mark(final ByteBuffer chunk, final int from, final int to, final long firstRow, final long[] words) {
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getFloat(i << 2))) {
+                final long row = firstRow + i;
+                words[(int) (row >>> 6)] |= 1L << row;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.javachat.scan;
+
+import com.github.javachat.intrange.IntRangeSet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tests int values read from a little endian buffer against a {@link IntRangeSet}.
+ */
+final class IntColumnPredicate extends ColumnPredicate {
+    private final IntRangeSet set;
+    // Bounds of the only range of the set, compared directly; an empty set has bounds no value satisfies
+    private final boolean singleRange;
+    private final int lowest;
+    private final int highest;
+
+    IntColumnPredicate(final IntRangeSet set) {
+        super(ColumnType.INT);
+        this.set = set;
+        singleRange = set.size() <= 1;
+        lowest = set.size() == 0 ? 1 : set.lowestValue(0);
+        highest = set.size() == 0 ? 0 : set.highestValue(0);
+    }
+
+    private boolean test(final int value) {
+        return singleRange ? value >= lowest && value <= highest : set.contains(value);
+    }
+
+    @Override
+    long count(final ByteBuffer chunk, final int from, final int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getInt(i << 2)))
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    void select(final ByteBuffer chunk, final int from, final int to, final long firstRow,
+                final RowSelection selection) {
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getInt(i << 2)))
+                selection.add(firstRow + i);
+        }
+    }
+
+    @Override
+    void mark(final ByteBuffer chunk, final int from, final int to, final long firstRow, final long[] words) {
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getInt(i << 2))) {
+                final long row = firstRow + i;
+                words[(int) (row >>> 6)] |= 1L << row;
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.javachat.scan;
+
+import com.github.javachat.longrange.LongRangeSet;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Tests long values read from a little endian buffer against a {@link LongRangeSet}.
+ */
+final class LongColumnPredicate extends ColumnPredicate {
+    private final LongRangeSet set;
+    // Bounds of the only range of the set, compared directly; an empty set has bounds no value satisfies
+    private final boolean singleRange;
+    private final long lowest;
+    private final long highest;
+
+    LongColumnPredicate(final LongRangeSet set) {
+        super(ColumnType.LONG);
+        this.set = set;
+        singleRange = set.size() <= 1;
+        lowest = set.size() == 0 ? 1 : set.lowestValue(0);
+        highest = set.size() == 0 ? 0 : set.highestValue(0);
+    }
+
+    private boolean test(final long value) {
+        return singleRange ? value >= lowest && value <= highest : set.contains(value);
+    }
+
+    @Override
+    long count(final ByteBuffer chunk, final int from, final int to) {
+        long count = 0;
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getLong(i << 3)))
+                count++;
+        }
+        return count;
+    }
+
+    @Override
+    void select(final ByteBuffer chunk, final int from, final int to, final long firstRow,
+                final RowSelection selection) {
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getLong(i << 3)))
+                selection.add(firstRow + i);
+        }
+    }
+
+    @Override
+    void mark(final ByteBuffer chunk, final int from, final int to, final long firstRow, final long[] words) {
+        for (int i = from; i < to; i++) {
+            if (test(chunk.getLong(i << 3))) {
+                final long row = firstRow + i;
+                words[(int) (row >>> 6)] |= 1L << row;
+            }
+        }
+    }
+}
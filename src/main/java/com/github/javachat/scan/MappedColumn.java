@@ -0,0 +1,405 @@
+package com.github.javachat.scan;
+
+import com.github.javachat.common.BlockMatch;
+import com.github.javachat.doublerange.DoubleRange;
+import com.github.javachat.doublerange.DoubleZoneMap;
+import com.github.javachat.intrange.IntRange;
+import com.github.javachat.intrange.IntZoneMap;
+import com.github.javachat.longrange.LongRange;
+import com.github.javachat.longrange.LongZoneMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * A file of little endian numeric values, mapped in memory and filtered with {@link ColumnPredicate}s.
+ * <p>
+ * The file is mapped read-only with {@link FileChannel#map}, in chunks of up to {@link #CHUNK_BYTES} bytes, and values
+ * are read in place: a scan allocates nothing but its result, whatever the size of the file, and the pages of the
+ * file are left to the operating system cache. A scan returns the number of matching values, their row numbers (the
+ * row of a value being its index in the file) as a selection vector, or a bitmap of these rows.
+ * <p>
+ * The parallel scans split the rows in slices of {@link #PARALLEL_ROWS} rows, scanned in the common fork-join pool.
+ * <p>
+ * The blocks of an int, long or double column may be summarized by a zone map, such as {@link #intZoneMap(int)}, which
+ * lets the scans for the values of a range skip or accept whole blocks without reading them.
+ * <p>
+ * Instances are immutable and safe for concurrent scans. Mappings are released when the instance is garbage
+ * collected; the file must not be truncated in the meantime.
+ */
+public final class MappedColumn {
+    public static final int CHUNK_BYTES = 1 << 30;
+    public static final int PARALLEL_ROWS = 1 << 20;
+
+    static final String TRUNCATED_FILE = "file %s is not made of whole %d byte values";
+    static final String TYPE_MISMATCH = "%s predicate on a %s column";
+    static final String ILLEGAL_CHUNK = "chunk size must be a positive multiple of %d: %d";
+    static final String ILLEGAL_SLICE = "slice size must be a positive multiple of 64: %d";
+    static final String ZONES_MISMATCH = "zone map of %d values used for a column of %d values";
+
+    private final ColumnType type;
+    private final long size;
+    private final ByteBuffer[] chunks;
+    private final int chunkRows;
+    private final int sliceRows;
+
+    public static MappedColumn map(final Path path, final ColumnType type) throws IOException {
+        return map(path, type, CHUNK_BYTES, PARALLEL_ROWS);
+    }
+
+    /**
+     * @param chunkBytes The size of the mapped chunks, a multiple of the size of a value
+     * @param sliceRows  The number of rows scanned by a parallel task, a multiple of 64 so that tasks filling a bitmap
+     *                   set bits of different words
+     */
+    static MappedColumn map(final Path path, final ColumnType type, final int chunkBytes, final int sliceRows)
+            throws IOException {
+        if (chunkBytes <= 0 || chunkBytes % type.bytes() != 0)
+            throw new IllegalArgumentException(String.format(ILLEGAL_CHUNK, type.bytes(), chunkBytes));
+        if (sliceRows <= 0 || sliceRows % Long.SIZE != 0)
+            throw new IllegalArgumentException(String.format(ILLEGAL_SLICE, sliceRows));
+
+        try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long bytes = channel.size();
+            if (bytes % type.bytes() != 0)
+                throw new IllegalArgumentException(String.format(TRUNCATED_FILE, path, type.bytes()));
+
+            final ByteBuffer[] chunks = new ByteBuffer[(int) ((bytes + chunkBytes - 1) / chunkBytes)];
+            for (int i = 0; i < chunks.length; i++) {
+                final long position = (long) i * chunkBytes;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(chunkBytes, bytes - position))
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+            return new MappedColumn(type, bytes / type.bytes(), chunks, chunkBytes / type.bytes(), sliceRows);
+        }
+    }
+
+    private MappedColumn(final ColumnType type, final long size, final ByteBuffer[] chunks, final int chunkRows,
+                         final int sliceRows) {
+        this.type = type;
+        this.size = size;
+        this.chunks = chunks;
+        this.chunkRows = chunkRows;
+        this.sliceRows = sliceRows;
+    }
+
+    public ColumnType type() {
+        return type;
+    }
+
+    /**
+     * Returns the number of values of the column.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of values matching the predicate.
+     *
+     * @throws IllegalArgumentException the predicate applies to another type of column
+     */
+    public long count(final ColumnPredicate predicate) {
+        checkType(predicate);
+        return count(predicate, 0, size);
+    }
+
+    /**
+     * Returns the rows of the values matching the predicate, in ascending order.
+     *
+     * @throws IllegalArgumentException the predicate applies to another type of column, or more than about
+     *                                  {@link Integer#MAX_VALUE} values match
+     */
+    public long[] select(final ColumnPredicate predicate) {
+        checkType(predicate);
+        final RowSelection selection = new RowSelection();
+        select(predicate, 0, size, selection);
+        return selection.toArray();
+    }
+
+    /**
+     * Returns a bitmap of the rows of the values matching the predicate: the bit of a row is the bit
+     * <code>row % 64</code> of the word <code>row / 64</code>, as in {@link java.util.BitSet#valueOf(long[])}.
+     *
+     * @throws IllegalArgumentException the predicate applies to another type of column
+     */
+    public long[] bitmap(final ColumnPredicate predicate) {
+        checkType(predicate);
+        final long[] words = new long[wordCount()];
+        mark(predicate, 0, size, words);
+        return words;
+    }
+
+    /**
+     * Same as {@link #count(ColumnPredicate)}, scanning slices of rows in parallel.
+     */
+    public long parallelCount(final ColumnPredicate predicate) {
+        checkType(predicate);
+        return IntStream.range(0, sliceCount()).parallel()
+                .mapToLong(slice -> count(predicate, sliceStart(slice), sliceEnd(slice)))
+                .sum();
+    }
+
+    /**
+     * Same as {@link #select(ColumnPredicate)}, scanning slices of rows in parallel.
+     */
+    public long[] parallelSelect(final ColumnPredicate predicate) {
+        checkType(predicate);
+        final RowSelection[] slices = IntStream.range(0, sliceCount()).parallel()
+                .mapToObj(slice -> {
+                    final RowSelection selection = new RowSelection();
+                    select(predicate, sliceStart(slice), sliceEnd(slice), selection);
+                    return selection;
+                })
+                .toArray(RowSelection[]::new);
+
+        final RowSelection selection = new RowSelection();
+        for (final RowSelection slice : slices)
+            selection.addAll(slice);
+        return selection.toArray();
+    }
+
+    /**
+     * Same as {@link #bitmap(ColumnPredicate)}, scanning slices of rows in parallel.
+     */
+    public long[] parallelBitmap(final ColumnPredicate predicate) {
+        checkType(predicate);
+        final long[] words = new long[wordCount()];
+        IntStream.range(0, sliceCount()).parallel()
+                .forEach(slice -> mark(predicate, sliceStart(slice), sliceEnd(slice), words));
+        return words;
+    }
+
+    /**
+     * Summarizes the values of an INT column in blocks of the given number of rows.
+     *
+     * @throws IllegalArgumentException this is not an INT column
+     */
+    public IntZoneMap intZoneMap(final int blockRows) {
+        checkType(ColumnType.INT);
+        final IntZoneMap.Builder builder = IntZoneMap.builder(blockRows);
+        for (final ByteBuffer chunk : chunks) {
+            final int end = chunk.limit() >> 2;
+            for (int i = 0; i < end; i++)
+                builder.add(chunk.getInt(i << 2));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of values in the query range, scanning only the blocks which the zone map of this column
+     * tells are partly in it.
+     *
+     * @throws IllegalArgumentException this is not an INT column, or the zone map was built for another column
+     */
+    public long count(final IntRange query, final IntZoneMap zones) {
+        checkType(ColumnType.INT);
+        checkZones(zones.size());
+        return count(ColumnPredicate.of(query), zones.blockSize(), block -> zones.match(block, query));
+    }
+
+    /**
+     * Returns the rows of the values in the query range, in ascending order, scanning only the blocks which the zone
+     * map of this column tells are partly in it.
+     *
+     * @throws IllegalArgumentException this is not an INT column, or the zone map was built for another column
+     */
+    public long[] select(final IntRange query, final IntZoneMap zones) {
+        checkType(ColumnType.INT);
+        checkZones(zones.size());
+        return select(ColumnPredicate.of(query), zones.blockSize(), block -> zones.match(block, query));
+    }
+
+    /**
+     * Summarizes the values of a LONG column in blocks of the given number of rows.
+     *
+     * @throws IllegalArgumentException this is not a LONG column
+     */
+    public LongZoneMap longZoneMap(final int blockRows) {
+        checkType(ColumnType.LONG);
+        final LongZoneMap.Builder builder = LongZoneMap.builder(blockRows);
+        for (final ByteBuffer chunk : chunks) {
+            final int end = chunk.limit() >> 3;
+            for (int i = 0; i < end; i++)
+                builder.add(chunk.getLong(i << 3));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of values in the query range, scanning only the blocks which the zone map of this column
+     * tells are partly in it.
+     *
+     * @throws IllegalArgumentException this is not a LONG column, or the zone map was built for another column
+     */
+    public long count(final LongRange query, final LongZoneMap zones) {
+        checkType(ColumnType.LONG);
+        checkZones(zones.size());
+        return count(ColumnPredicate.of(query), zones.blockSize(), block -> zones.match(block, query));
+    }
+
+    /**
+     * Returns the rows of the values in the query range, in ascending order, scanning only the blocks which the zone
+     * map of this column tells are partly in it.
+     *
+     * @throws IllegalArgumentException this is not a LONG column, or the zone map was built for another column
+     */
+    public long[] select(final LongRange query, final LongZoneMap zones) {
+        checkType(ColumnType.LONG);
+        checkZones(zones.size());
+        return select(ColumnPredicate.of(query), zones.blockSize(), block -> zones.match(block, query));
+    }
+
+    /**
+     * Summarizes the values of a DOUBLE column in blocks of the given number of rows.
+     *
+     * @throws IllegalArgumentException this is not a DOUBLE column
+     */
+    public DoubleZoneMap doubleZoneMap(final int blockRows) {
+        checkType(ColumnType.DOUBLE);
+        final DoubleZoneMap.Builder builder = DoubleZoneMap.builder(blockRows);
+        for (final ByteBuffer chunk : chunks) {
+            final int end = chunk.limit() >> 3;
+            for (int i = 0; i < end; i++)
+                builder.add(chunk.getDouble(i << 3));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of values in the query range, scanning only the blocks which the zone map of this column
+     * tells are partly in it.
+     *
+     * @throws IllegalArgumentException this is not a DOUBLE column, or the zone map was built for another column
+     */
+    public long count(final DoubleRange query, final DoubleZoneMap zones) {
+        checkType(ColumnType.DOUBLE);
+        checkZones(zones.size());
+        return count(ColumnPredicate.of(query), zones.blockSize(), block -> zones.match(block, query));
+    }
+
+    /**
+     * Returns the rows of the values in the query range, in ascending order, scanning only the blocks which the zone
+     * map of this column tells are partly in it.
+     *
+     * @throws IllegalArgumentException this is not a DOUBLE column, or the zone map was built for another column
+     */
+    public long[] select(final DoubleRange query, final DoubleZoneMap zones) {
+        checkType(ColumnType.DOUBLE);
+        checkZones(zones.size());
+        return select(ColumnPredicate.of(query), zones.blockSize(), block -> zones.match(block, query));
+    }
+
+    @Override
+    public String toString() {
+        return type + " column of " + size + " values";
+    }
+
+    private void checkType(final ColumnPredicate predicate) {
+        checkType(predicate.type());
+    }
+
+    private void checkType(final ColumnType expected) {
+        if (expected != type)
+            throw new IllegalArgumentException(String.format(TYPE_MISMATCH, expected, type));
+    }
+
+    private void checkZones(final long zoneMapSize) {
+        if (zoneMapSize != size)
+            throw new IllegalArgumentException(String.format(ZONES_MISMATCH, zoneMapSize, size));
+    }
+
+    private int wordCount() {
+        return (int) ((size + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    private int sliceCount() {
+        return (int) ((size + sliceRows - 1) / sliceRows);
+    }
+
+    private long sliceStart(final int slice) {
+        return (long) slice * sliceRows;
+    }
+
+    private long sliceEnd(final int slice) {
+        return Math.min(sliceStart(slice) + sliceRows, size);
+    }
+
+    private long count(final ColumnPredicate predicate, final int blockRows, final IntFunction<BlockMatch> matches) {
+        long count = 0;
+        for (long from = 0; from < size; from += blockRows) {
+            final long to = Math.min(from + blockRows, size);
+            switch (matches.apply((int) (from / blockRows))) {
+                case ALL:
+                    count += to - from;
+                    break;
+                case SOME:
+                    count += count(predicate, from, to);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return count;
+    }
+
+    private long[] select(final ColumnPredicate predicate, final int blockRows,
+                          final IntFunction<BlockMatch> matches) {
+        final RowSelection selection = new RowSelection();
+        for (long from = 0; from < size; from += blockRows) {
+            final long to = Math.min(from + blockRows, size);
+            switch (matches.apply((int) (from / blockRows))) {
+                case ALL:
+                    for (long row = from; row < to; row++)
+                        selection.add(row);
+                    break;
+                case SOME:
+                    select(predicate, from, to, selection);
+                    break;
+                default:
+                    break;
+            }
+        }
+        return selection.toArray();
+    }
+
+    // Each of the following scans the rows from "from" to "to" (excluded), chunk by chunk
+
+    private long count(final ColumnPredicate predicate, long from, final long to) {
+        long count = 0;
+        while (from < to) {
+            final int chunk = (int) (from / chunkRows);
+            final long firstRow = (long) chunk * chunkRows;
+            final int end = (int) Math.min(to - firstRow, chunkRows);
+            count += predicate.count(chunks[chunk], (int) (from - firstRow), end);
+            from = firstRow + end;
+        }
+        return count;
+    }
+
+    private void select(final ColumnPredicate predicate, long from, final long to, final RowSelection selection) {
+        while (from < to) {
+            final int chunk = (int) (from / chunkRows);
+            final long firstRow = (long) chunk * chunkRows;
+            final int end = (int) Math.min(to - firstRow, chunkRows);
+            predicate.select(chunks[chunk], (int) (from - firstRow), end, firstRow, selection);
+            from = firstRow + end;
+        }
+    }
+
+    private void mark(final ColumnPredicate predicate, long from, final long to, final long[] words) {
+        while (from < to) {
+            final int chunk = (int) (from / chunkRows);
+            final long firstRow = (long) chunk * chunkRows;
+            final int end = (int) Math.min(to - firstRow, chunkRows);
+            predicate.mark(chunks[chunk], (int) (from - firstRow), end, firstRow, words);
+            from = firstRow + end;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.javachat.scan;
+
+import java.util.Arrays;
+
+/**
+ * A growable array of row numbers, in the order they are added.
+ */
+final class RowSelection {
+    static final String TOO_MANY_ROWS = "more than %d rows selected, use a bitmap instead";
+
+    // Leaves room for the array header, as ArrayList does
+    private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+
+    private long[] rows = new long[16];
+    private int size;
+
+    void add(final long row) {
+        if (size == rows.length)
+            grow(size + 1);
+        rows[size++] = row;
+    }
+
+    void addAll(final RowSelection other) {
+        if (size + (long) other.size > rows.length)
+            grow(size + (long) other.size);
+        System.arraycopy(other.rows, 0, rows, size, other.size);
+        size += other.size;
+    }
+
+    long[] toArray() {
+        return Arrays.copyOf(rows, size);
+    }
+
+    private void grow(final long minLength) {
+        if (minLength > MAX_SIZE)
+            throw new IllegalArgumentException(String.format(TOO_MANY_ROWS, MAX_SIZE));
+        rows = Arrays.copyOf(rows, (int) Math.min(Math.max(2L * rows.length, minLength), MAX_SIZE));
+    }
+}
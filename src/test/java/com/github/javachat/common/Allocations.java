@@ -0,0 +1,61 @@
+package com.github.javachat.common;
+
+import org.testng.SkipException;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.IntConsumer;
+
+/**
+ * Measures the bytes allocated by the current thread, for tests asserting that hot paths do not allocate.
+ * <p>
+ * Operations are run in a plain loop, mostly interpreted or compiled without escape analysis at first, so that an
+ * allocation shows up even when the JIT compiler would eventually remove it. Tests are skipped on JVMs which do not
+ * report allocated bytes.
+ */
+public final class Allocations {
+    private static final int CALLS = 10_000;
+    private static final int ATTEMPTS = 3;
+
+    private Allocations() {
+        throw new Error("Not instantiable");
+    }
+
+    /**
+     * Returns the bytes allocated by {@value #CALLS} calls of the operation, given the call number, after a first run
+     * which loads the classes involved. The smallest count of a few attempts is returned, to rule out allocations by
+     * the JVM itself.
+     */
+    public static long allocatedBytes(final IntConsumer operation) {
+        final com.sun.management.ThreadMXBean bean = threadBean();
+        final long thread = Thread.currentThread().getId();
+
+        run(operation);
+        long min = Long.MAX_VALUE;
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            // Reading the counter may allocate itself: measure it on its own first
+            final long overheadStart = bean.getThreadAllocatedBytes(thread);
+            final long overheadEnd = bean.getThreadAllocatedBytes(thread);
+            final long start = bean.getThreadAllocatedBytes(thread);
+            run(operation);
+            final long end = bean.getThreadAllocatedBytes(thread);
+            min = Math.min(min, end - start - (overheadEnd - overheadStart));
+        }
+        return Math.max(min, 0);
+    }
+
+    private static void run(final IntConsumer operation) {
+        for (int i = 0; i < CALLS; i++)
+            operation.accept(i);
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        final java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            throw new SkipException("allocated bytes are not reported by this JVM");
+        final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        if (!threadBean.isThreadAllocatedMemorySupported())
+            throw new SkipException("allocated bytes are not reported by this JVM");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+        return threadBean;
+    }
+}
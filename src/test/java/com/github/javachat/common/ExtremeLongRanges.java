@@ -0,0 +1,56 @@
+package com.github.javachat.common;
+
+import com.github.javachat.longrange.LongRange;
+
+import java.util.Random;
+
+/**
+ * Draws random long ranges around zero and next to both extremes, which are also the symbolical endpoints of unbounded
+ * sides, for tests of the boundary cases of range structures.
+ * <p>
+ * Ranges are drawn from the origins returned by {@link #origins(int)}, and their endpoints stay below
+ * <code>spread + maxLength</code> values above them: when this is at most <code>width</code>, they do not overflow
+ * next to {@link Long#MAX_VALUE}.
+ */
+public final class ExtremeLongRanges {
+    private ExtremeLongRanges() {
+        throw new Error("Not instantiable");
+    }
+
+    /**
+     * Returns {@link Long#MIN_VALUE}, the origin of <code>width</code> values centered on zero, and the origin of the
+     * last <code>width</code> values before {@link Long#MAX_VALUE}.
+     */
+    public static long[] origins(final int width) {
+        return new long[]{Long.MIN_VALUE, -(width / 2), Long.MAX_VALUE - width};
+    }
+
+    /**
+     * Returns a range whose lower endpoint is less than <code>spread</code> values above a random origin, and whose
+     * upper endpoint is 1 to <code>maxLength</code> values above its lower endpoint.
+     */
+    public static LongRange boundedRange(final Random random, final long[] origins, final int spread,
+                                         final int maxLength) {
+        final BoundType[] types = BoundType.values();
+        final long lower = origins[random.nextInt(origins.length)] + random.nextInt(spread);
+        return LongRange.range(lower, types[random.nextInt(2)], lower + 1 + random.nextInt(maxLength),
+                types[random.nextInt(2)]);
+    }
+
+    /**
+     * Same as {@link #boundedRange(Random, long[], int, int)}, except that one range in ten has no lower bound, and as
+     * many have no upper bound.
+     */
+    public static LongRange range(final Random random, final long[] origins, final int spread, final int maxLength) {
+        final BoundType[] types = BoundType.values();
+        final int shape = random.nextInt(10);
+        // upTo(Long.MIN_VALUE, OPEN) is illegal, so that the upper endpoint is above the origin
+        if (shape == 0)
+            return LongRange.upTo(origins[random.nextInt(origins.length)] + 1 + random.nextInt(spread),
+                    types[random.nextInt(2)]);
+        if (shape == 1)
+            return LongRange.downTo(origins[random.nextInt(origins.length)] + random.nextInt(spread),
+                    types[random.nextInt(2)]);
+        return boundedRange(random, origins, spread, maxLength);
+    }
+}
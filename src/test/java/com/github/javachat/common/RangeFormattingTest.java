@@ -0,0 +1,55 @@
+package com.github.javachat.common;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RangeFormattingTest {
+    private static String format(double value) {
+        return RangeFormatting.appendDouble(new StringBuilder(), value).toString();
+    }
+
+    private static String format(float value) {
+        return RangeFormatting.appendFloat(new StringBuilder(), value).toString();
+    }
+
+    @Test
+    public void testLayout() {
+        assertThat(format(0.0)).isEqualTo("0.0");
+        assertThat(format(-0.0)).isEqualTo("-0.0");
+        assertThat(format(100.0)).isEqualTo("100.0");
+        assertThat(format(0.001)).isEqualTo("0.001");
+        assertThat(format(1e-4)).isEqualTo("1.0E-4");
+        assertThat(format(9999999.0)).isEqualTo("9999999.0");
+        assertThat(format(1.25e7)).isEqualTo("1.25E7");
+        assertThat(format(Double.NEGATIVE_INFINITY)).isEqualTo("-Infinity");
+        assertThat(format(Double.NaN)).isEqualTo("NaN");
+    }
+
+    @Test
+    public void testShortestRepresentation() {
+        assertThat(format(0.1 + 0.2)).isEqualTo("0.30000000000000004");
+        assertThat(format(1e23)).isEqualTo("1.0E23");
+        assertThat(format(Double.MAX_VALUE)).isEqualTo("1.7976931348623157E308");
+        assertThat(format(Double.MIN_VALUE)).isEqualTo("4.9E-324");
+        assertThat(format(0.1f)).isEqualTo("0.1");
+        assertThat(format(Float.MAX_VALUE)).isEqualTo("3.4028235E38");
+        assertThat(format(Float.MIN_VALUE)).isEqualTo("1.4E-45");
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(value))
+                assertThat(Double.parseDouble(format(value))).isEqualTo(value);
+
+            float single = Float.intBitsToFloat(random.nextInt());
+            if (!Float.isNaN(single))
+                assertThat(Float.parseFloat(format(single))).isEqualTo(single);
+        }
+    }
+}
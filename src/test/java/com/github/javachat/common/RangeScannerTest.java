@@ -0,0 +1,104 @@
+package com.github.javachat.common;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static com.github.javachat.common.Allocations.allocatedBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RangeScannerTest {
+    private final RangeScanner scanner = new RangeScanner();
+    private double sink;
+
+    @DataProvider
+    public Object[][] hardNumbers() {
+        return new Object[][]{
+                // Halfway between two doubles, rounded to even
+                {"9007199254740993"},
+                {"9007199254740995"},
+                {"9007199254740993.0000000000000000000000001"},
+                {"2.2250738585072011e-308"},
+                {"2.2250738585072012e-308"},
+                {"2.2250738585072013e-308"},
+                {"2.2250738585072014e-308"},
+                {"4.9e-324"},
+                {"2.4703282292062327e-324"},
+                {"2.4703282292062328e-324"},
+                {"1e-400"},
+                {"1.7976931348623157e308"},
+                {"1.7976931348623158e308"},
+                {"1.7976931348623159e308"},
+                {"1e309"},
+                {"123456789012345678901234567890"},
+                {"0.000000000000000000000000000000000001234567890123456789"},
+                {"7.038531e-26"},
+                {"3.4028235e38"},
+                {"3.4028236e38"},
+                {"1.4e-45"},
+                {"7.0064923216240854e-46"},
+                {"1.00000005960464477539062499"},
+                {"1.000000059604644775390625"},
+                {"1.00000005960464477539062501"},
+                {"-0.0"},
+                {"0e999999"},
+        };
+    }
+
+    @Test(dataProvider = "hardNumbers")
+    public void testHardNumbersAreCorrectlyRounded(String text) {
+        scanner.scan("[" + text + ".." + text + "]", 0, text.length() * 2 + 4);
+
+        assertThat(scanner.parseDouble(1, text.length() + 1)).isEqualTo(Double.parseDouble(text));
+        assertThat(scanner.parseFloat(1, text.length() + 1)).isEqualTo(Float.parseFloat(text));
+    }
+
+    @Test
+    public void testLongSignificandsAreCorrectlyRounded() {
+        Random random = new Random(1);
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 100_000; i++) {
+            sb.setLength(0);
+            sb.append("[1..");
+            int digits = 1 + random.nextInt(25);
+            for (int d = 0; d < digits; d++)
+                sb.append((char) ('0' + random.nextInt(10)));
+            if (random.nextBoolean())
+                sb.insert(4 + random.nextInt(digits), '.');
+            sb.append('e').append(random.nextInt(700) - 350).append(']');
+            scanner.scan(sb, 0, sb.length());
+            String text = sb.substring(4, sb.length() - 1);
+
+            assertThat(scanner.parseDouble(4, sb.length() - 1)).as(text).isEqualTo(Double.parseDouble(text));
+            assertThat(scanner.parseFloat(4, sb.length() - 1)).as(text).isEqualTo(Float.parseFloat(text));
+        }
+    }
+
+    @Test
+    public void testShortestRepresentationsRoundTrip() {
+        Random random = new Random(2);
+
+        for (int i = 0; i < 100_000; i++) {
+            double value = Double.longBitsToDouble(random.nextLong() & Long.MAX_VALUE);
+            float floatValue = Float.intBitsToFloat(random.nextInt() & Integer.MAX_VALUE);
+            if (Double.isNaN(value) || Float.isNaN(floatValue))
+                continue;
+            String text = "[" + value + ".." + floatValue + "]";
+            scanner.scan(text, 0, text.length());
+
+            assertThat(scanner.parseDouble(scanner.lowerStart(), scanner.lowerEnd())).isEqualTo(value);
+            assertThat(scanner.parseFloat(scanner.upperStart(), scanner.upperEnd())).isEqualTo(floatValue);
+        }
+    }
+
+    @Test
+    public void testSlowPathDoesNotAllocate() {
+        String text = "[2.2250738585072013e-308..1.2345678901234567e89]";
+        scanner.scan(text, 0, text.length());
+
+        assertThat(allocatedBytes(i -> sink += scanner.parseDouble(scanner.lowerStart(), scanner.lowerEnd())
+                + scanner.parseFloat(scanner.upperStart(), scanner.upperEnd()))).isZero();
+    }
+}
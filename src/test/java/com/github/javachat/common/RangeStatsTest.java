@@ -0,0 +1,61 @@
+package com.github.javachat.common;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RangeStatsTest {
+    @Test
+    public void testStatsAreRegisteredByName() {
+        RangeStats stats = RangeStats.named("test-registry");
+        assertThat(RangeStats.named("test-registry")).isSameAs(stats);
+        assertThat(RangeStats.all()).contains(stats);
+
+        RangeStats.remove("test-registry");
+        assertThat(RangeStats.all()).doesNotContain(stats);
+        assertThat(RangeStats.named("test-registry")).isNotSameAs(stats);
+        RangeStats.remove("test-registry");
+    }
+
+    @Test
+    public void testLookupsAndShape() {
+        RangeStats stats = RangeStats.named("test-lookups");
+        assertThat(stats.averageSearchDepth()).isZero();
+
+        stats.recordLookup(3);
+        stats.recordLookup(4);
+        stats.recordShape(10, 200);
+        assertThat(stats.lookups()).isEqualTo(2);
+        assertThat(stats.averageSearchDepth()).isEqualTo(3.5);
+        assertThat(stats.toString()).isEqualTo("test-lookups: 2 lookups, 3.50 steps on average, 10 ranges, 200 bytes");
+
+        stats.reset();
+        assertThat(stats.lookups()).isZero();
+        assertThat(stats.rangeCount()).isEqualTo(10);
+        RangeStats.remove("test-lookups");
+    }
+
+    @Test
+    public void testArrayBytesAreAligned() {
+        assertThat(RangeStats.arrayBytes(0, 8)).isEqualTo(16);
+        assertThat(RangeStats.arrayBytes(1, 4)).isEqualTo(24);
+        assertThat(RangeStats.arrayBytes(2, 4)).isEqualTo(24);
+        assertThat(RangeStats.arrayBytes(1000, 8)).isEqualTo(8016);
+    }
+
+    @Test
+    public void testEventsAreDisabledByDefault() {
+        assertThat(RangeEvents.ENABLED).isFalse();
+        assertThat(RangeEvents.start()).isNull();
+        RangeEvents.commit("IntRangeSet", "union", 1 << 20, 1 << 20, 1 << 20, null);
+    }
+
+    @Test
+    public void testFlightRecorderSinkIsLoadedSeparately() {
+        // Tests run on a JVM with Flight Recorder, with the jfr classes on the class path
+        RangeEventSink sink = RangeEvents.loadSink();
+        assertThat(sink).isNotNull();
+        // Without a recording, operations are not timed
+        assertThat(sink.begin()).isNull();
+    }
+}
@@ -0,0 +1,47 @@
+package com.github.javachat.common;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SortableBitsTest {
+    @Test
+    public void testDoubleKeysAreConsecutive() {
+        double[] values = {Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.0, -Double.MIN_NORMAL,
+                -Double.MIN_VALUE, 0.0, Double.MIN_VALUE, Double.MIN_NORMAL, 1.0, Double.MAX_VALUE};
+        for (double value : values) {
+            long key = SortableBits.doubleKey(value);
+            assertThat(SortableBits.keyToDouble(key)).isEqualTo(value);
+            assertThat(SortableBits.doubleKey(Math.nextUp(value))).isEqualTo(key + 1);
+        }
+
+        assertThat(SortableBits.doubleKey(-0.0)).isZero();
+        assertThat(SortableBits.keyToDouble(0)).isEqualTo(0.0);
+        assertThat(SortableBits.doubleKey(Double.NaN)).isGreaterThan(SortableBits.DOUBLE_POSITIVE_INFINITY_KEY);
+        assertThat(SortableBits.doubleKey(Double.longBitsToDouble(0xfff8000000000000L)))
+                .isLessThan(SortableBits.DOUBLE_NEGATIVE_INFINITY_KEY);
+    }
+
+    @Test
+    public void testKeysPreserveOrder() {
+        Random random = new Random(38);
+        for (int i = 0; i < 100_000; i++) {
+            double a = Double.longBitsToDouble(random.nextLong());
+            double b = Double.longBitsToDouble(random.nextLong());
+            if (a != a || b != b)
+                continue;
+            assertThat(Long.signum(Long.compare(SortableBits.doubleKey(a), SortableBits.doubleKey(b))))
+                    .isEqualTo(a == b ? 0 : a < b ? -1 : 1);
+
+            float c = Float.intBitsToFloat(random.nextInt());
+            float d = Float.intBitsToFloat(random.nextInt());
+            if (c != c || d != d)
+                continue;
+            assertThat(Integer.signum(Integer.compare(SortableBits.floatKey(c), SortableBits.floatKey(d))))
+                    .isEqualTo(c == d ? 0 : c < d ? -1 : 1);
+            assertThat(SortableBits.keyToFloat(SortableBits.floatKey(c))).isEqualTo(c + 0.0f);
+        }
+    }
+}
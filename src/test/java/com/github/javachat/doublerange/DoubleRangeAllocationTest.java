@@ -0,0 +1,64 @@
+package com.github.javachat.doublerange;
+
+import org.testng.annotations.Test;
+
+import java.util.function.DoublePredicate;
+
+import static com.github.javachat.common.Allocations.allocatedBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookups, comparisons and set lookups must not allocate; intersections and spans only allocate their result.
+ */
+public class DoubleRangeAllocationTest {
+    private static final DoubleRange RANGE = DoubleRange.closedOpen(0.0, 100.0);
+    private static final DoubleRange OTHER = DoubleRange.open(50.0, 150.0);
+    private static final DoubleRange EQUAL = DoubleRange.closedOpen(0.0, 100.0);
+
+    // Results are kept so that calls cannot be optimized away
+    private boolean sink;
+    private int hashSink;
+    // Ranges stored here escape, so that the JIT compiler cannot remove their allocation
+    private Object escaped;
+
+    @Test
+    public void testRangeQueriesDoNotAllocate() {
+        assertThat(allocatedBytes(i -> sink ^= RANGE.contains(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.encloses(OTHER))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.isConnected(OTHER))).isZero();
+
+        final double[] values = {1, 2, 3, 99};
+        assertThat(allocatedBytes(i -> sink ^= RANGE.containsAll(values))).isZero();
+    }
+
+    @Test
+    public void testObjectMethodsDoNotAllocate() {
+        assertThat(allocatedBytes(i -> hashSink += RANGE.hashCode())).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.equals(EQUAL))).isZero();
+        assertThat(RANGE.hashCode()).isEqualTo(EQUAL.hashCode());
+    }
+
+    @Test
+    public void testIntersectionOnlyAllocatesItsResult() {
+        final long result = allocatedBytes(i -> escaped = DoubleRange.closed(50.0, 100.0));
+
+        assertThat(allocatedBytes(i -> escaped = RANGE.intersection(OTHER))).isEqualTo(result);
+        assertThat(allocatedBytes(i -> escaped = RANGE.span(OTHER))).isEqualTo(result);
+    }
+
+    @Test
+    public void testSetLookupsDoNotAllocate() {
+        final DoubleRangeSet set = DoubleRangeSet.of(RANGE, DoubleRange.open(200.0, 300.0));
+        final double[] values = new double[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i;
+        final int[] indices = new int[values.length];
+        final DoublePredicate predicate = set.asPredicate();
+
+        assertThat(allocatedBytes(i -> sink ^= set.contains(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> hashSink += set.indexOf(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= set.encloses(OTHER))).isZero();
+        assertThat(allocatedBytes(i -> set.indexOfAll(values, indices))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= predicate.test(i % 400))).isZero();
+    }
+}
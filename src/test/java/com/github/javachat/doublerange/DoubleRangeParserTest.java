@@ -0,0 +1,54 @@
+package com.github.javachat.doublerange;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DoubleRangeParserTest {
+    private final DoubleRangeParser parser = new DoubleRangeParser();
+
+    @Test
+    public void testToStringRoundTrip() {
+        for (DoubleRange range : new DoubleRange[]{DoubleRange.closedOpen(1, 2.5), DoubleRange.all(),
+                DoubleRange.atMost(-0.125), DoubleRange.open(-3, 1e6)}) {
+            assertThat(parser.parse(range.toString())).isEqualTo(range);
+        }
+    }
+
+    @Test
+    public void testInfinities() {
+        DoubleRange range = parser.parse("(-Infinity..Infinity)");
+
+        assertThat(range).isEqualTo(DoubleRange.all());
+        assertThat(range.contains(Double.NaN)).isTrue();
+    }
+
+    @Test
+    public void testNumbersAreCorrectlyRounded() {
+        Random random = new Random(1);
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 10_000; i++) {
+            String lower = Double.toString(random.nextDouble() * Math.pow(10, random.nextInt(40) - 20));
+            String upper = random.nextLong() + "." + Math.abs(random.nextInt(1000)) + "e" + (random.nextInt(30) - 15);
+            sb.setLength(0);
+            sb.append('[').append(lower).append("..").append(upper).append(']');
+            if (Double.parseDouble(lower) > Double.parseDouble(upper))
+                continue;
+
+            DoubleRange range = parser.parse(sb);
+
+            assertThat(range.lowerEndpoint()).isEqualTo(Double.parseDouble(lower));
+            assertThat(range.upperEndpoint()).isEqualTo(Double.parseDouble(upper));
+        }
+    }
+
+    @Test
+    public void testNegativeZero() {
+        DoubleRange range = parser.parse("(-0.0..1.0)");
+
+        assertThat(Double.doubleToRawLongBits(range.lowerEndpoint())).isEqualTo(Double.doubleToRawLongBits(-0.0));
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.javachat.doublerange;
+
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DoubleRangePartitionerTest {
+    @Test
+    public void testPartition() {
+        DoubleRangePartitioner partitioner = DoubleRangePartitioner.of(DoubleRange.greaterThan(0.0),
+                DoubleRange.closedOpen(-1.0, 0.0), DoubleRange.atMost(-1.0));
+        double[] output = new double[7];
+
+        int[] offsets = partitioner.partition(new double[]{-0.0, 0.5, Double.NaN, Double.NEGATIVE_INFINITY, -1.0,
+                Double.POSITIVE_INFINITY, 0.0, -0.5}, output);
+
+        assertThat(offsets).containsExactly(0, 2, 5, 7);
+        assertThat(output).containsExactly(0.5, Double.POSITIVE_INFINITY, -0.0, 0.0, -0.5, Double.NEGATIVE_INFINITY,
+                -1.0);
+        assertThat(partitioner.binOf(Double.NaN)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testNaN() {
+        DoubleRangePartitioner partitioner = DoubleRangePartitioner.of(DoubleRange.closed(5.0, 5.0),
+                DoubleRange.all());
+        double[] output = new double[3];
+
+        assertThat(partitioner.partition(new double[]{Double.NaN, 0.5, 2.0}, output)).containsExactly(0, 0, 3);
+        assertThat(output).containsExactly(Double.NaN, 0.5, 2.0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOverlappingBinsAreRejected() {
+        DoubleRangePartitioner.of(DoubleRange.atMost(0.0), DoubleRange.atLeast(-0.0));
+    }
+}
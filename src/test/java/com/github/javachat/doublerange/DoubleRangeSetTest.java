@@ -0,0 +1,90 @@
+package com.github.javachat.doublerange;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.DoublePredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DoubleRangeSetTest {
+    @Test
+    public void testAdjacentRangesAreCoalesced() {
+        DoubleRangeSet set = DoubleRangeSet.of(DoubleRange.closedOpen(1, 2), DoubleRange.closedOpen(2, 3));
+
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(set.contains(2.0)).isTrue();
+        assertThat(set.contains(1.0)).isFalse();
+        assertThat(set.contains(Math.nextUp(1.0))).isTrue();
+    }
+
+    @Test
+    public void testZeroes() {
+        DoubleRangeSet set = DoubleRangeSet.of(DoubleRange.open(-0.0, 1));
+
+        assertThat(set.contains(0.0)).isTrue();
+        assertThat(set.contains(-0.0)).isTrue();
+        assertThat(set).isEqualTo(DoubleRangeSet.of(DoubleRange.open(0.0, 1)));
+        assertThat(set.complement().contains(-0.0)).isFalse();
+        assertThat(set.complement().contains(-Double.MIN_VALUE)).isTrue();
+    }
+
+    @Test
+    public void testNaN() {
+        DoubleRangeSet bounded = DoubleRangeSet.of(DoubleRange.open(1, 2));
+
+        assertThat(bounded.contains(Double.NaN)).isFalse();
+        assertThat(bounded.complement().contains(Double.NaN)).isTrue();
+        assertThat(DoubleRangeSet.all().contains(Double.NaN)).isTrue();
+        assertThat(DoubleRangeSet.all().complement().isEmpty()).isTrue();
+        assertThat(bounded.union(bounded.complement())).isEqualTo(DoubleRangeSet.all());
+    }
+
+    @Test
+    public void testInfinities() {
+        DoubleRangeSet set = DoubleRangeSet.of(DoubleRange.atMost(0));
+
+        assertThat(set.contains(Double.NEGATIVE_INFINITY)).isTrue();
+        assertThat(set.complement().contains(Double.POSITIVE_INFINITY)).isTrue();
+        assertThat(set.get(0).contains(Double.NEGATIVE_INFINITY)).isTrue();
+    }
+
+    @Test
+    public void testPredicateMatchesContains() {
+        DoubleRangeSet set = DoubleRangeSet.empty();
+        for (int size = 0; size < 8; size++) {
+            DoublePredicate predicate = set.asPredicate();
+            DoublePredicate complement = set.complement().asPredicate();
+            for (double value = -1; value < 2 * size + 1; value += 0.25) {
+                assertThat(predicate.test(value)).isEqualTo(set.contains(value));
+                assertThat(complement.test(value)).isEqualTo(!set.contains(value));
+            }
+            assertThat(predicate.test(Double.NaN)).isFalse();
+            assertThat(complement.test(Double.NaN)).isTrue();
+
+            set = set.union(DoubleRangeSet.of(DoubleRange.closedOpen(2 * size, 2 * size + 1)));
+        }
+    }
+
+    @Test
+    public void testParallelIndexOfAllMatchesIndexOf() {
+        Random random = new Random(4);
+        DoubleRange[] ranges = new DoubleRange[300];
+        for (int i = 0; i < ranges.length; i++) {
+            double lower = random.nextDouble() * 1000;
+            ranges[i] = DoubleRange.closedOpen(lower, lower + random.nextDouble());
+        }
+        DoubleRangeSet set = DoubleRangeSet.of(ranges);
+        double[] values = random.doubles(50_000, -1, 1001).toArray();
+        values[0] = Double.NaN;
+        values[1] = -0.0;
+        Arrays.sort(values);
+        int[] indices = new int[values.length];
+
+        set.parallelIndexOfAll(values, indices);
+
+        for (int i = 0; i < values.length; i++)
+            assertThat(indices[i]).isEqualTo(set.indexOf(values[i]));
+    }
+}
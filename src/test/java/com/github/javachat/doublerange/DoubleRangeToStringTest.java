@@ -4,6 +4,9 @@ import com.github.javachat.common.BoundType;
 import org.assertj.core.api.Assertions;
 import org.testng.annotations.Test;
 
+import java.io.IOException;
+import java.io.StringWriter;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 
@@ -23,7 +26,7 @@ public class DoubleRangeToStringTest {
     @Test
     public void testHighPrecisionNumbers() {
         DoubleRange range = new DoubleRange(Math.E, BoundType.CLOSED, Math.PI, BoundType.CLOSED);
-        assertThat(range.toString()).isEqualTo("[2.718282..3.141593]");
+        assertThat(range.toString()).isEqualTo("[2.718281828459045..3.141592653589793]");
     }
 
     @Test
@@ -32,4 +35,13 @@ public class DoubleRangeToStringTest {
                 Double.POSITIVE_INFINITY, BoundType.OPEN);
         assertThat(range.toString()).isEqualTo("(-Infinity..Infinity)");
     }
+
+    @Test
+    public void testAppendTo() throws IOException {
+        DoubleRange range = DoubleRange.closedOpen(-1e-5, 1e7);
+        StringWriter writer = new StringWriter();
+
+        assertThat(range.appendTo(new StringBuilder("range ")).toString()).isEqualTo("range [-1.0E-5..1.0E7)");
+        assertThat(range.appendTo(writer).toString()).isEqualTo("[-1.0E-5..1.0E7)");
+    }
 }
@@ -0,0 +1,74 @@
+package com.github.javachat.doublerange;
+
+import com.github.javachat.common.BlockMatch;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DoubleZoneMapTest {
+    @Test
+    public void testSummaries() {
+        DoubleZoneMap zones = DoubleZoneMap.of(new double[]{5, 1, 3, 7, 9, 8, 20}, 3);
+
+        assertThat(zones.size()).isEqualTo(7);
+        assertThat(zones.blockCount()).isEqualTo(3);
+        assertThat(zones.summary(0)).isEqualTo(DoubleRange.open(1, 5));
+        assertThat(zones.summary(2)).isEqualTo(DoubleRange.ofValues(20, 20));
+        assertThat(zones.match(0, DoubleRange.open(0, 8))).isEqualTo(BlockMatch.ALL);
+        assertThat(zones.match(1, DoubleRange.open(0, 8))).isEqualTo(BlockMatch.SOME);
+        assertThat(zones.match(2, DoubleRange.open(0, 8))).isEqualTo(BlockMatch.NONE);
+        assertThat(zones.toString()).isEqualTo("zone map of 3 blocks of 3 values");
+    }
+
+    @Test
+    public void testMostlyOrderedValues() {
+        // Timestamps with some jitter: only the blocks at the ends of a query range are scanned
+        Random random = new Random(43);
+        double[] values = new double[100_000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i + random.nextDouble() * 50;
+        DoubleZoneMap zones = DoubleZoneMap.of(values, 1000);
+
+        for (int query = 0; query < 100; query++) {
+            double low = random.nextDouble() * 100_000;
+            DoubleRange range = DoubleRange.closedOpen(low, low + 5000);
+            int[] expected = IntStream.range(0, values.length).filter(i -> range.contains(values[i])).toArray();
+
+            assertThat(zones.count(values, range)).isEqualTo(expected.length);
+            assertThat(zones.select(values, range)).isEqualTo(expected);
+            long partial = IntStream.range(0, zones.blockCount())
+                    .filter(block -> zones.match(block, range) == BlockMatch.SOME).count();
+            assertThat(partial).isLessThanOrEqualTo(4);
+        }
+    }
+
+    @Test
+    public void testNaN() {
+        double[] values = {1, Double.NaN, 2, 3, Double.NaN, Double.NaN, 6};
+        DoubleZoneMap zones = DoubleZoneMap.of(values, 2);
+
+        // A block holding NaN is scanned even if its other values are in the query range
+        assertThat(zones.match(0, DoubleRange.open(0, 3))).isEqualTo(BlockMatch.SOME);
+        assertThat(zones.match(1, DoubleRange.open(0, 3))).isEqualTo(BlockMatch.ALL);
+        assertThat(zones.match(2, DoubleRange.open(0, 3))).isEqualTo(BlockMatch.NONE);
+        assertThat(zones.match(2, DoubleRange.all())).isEqualTo(BlockMatch.ALL);
+        assertThat(zones.summary(2).isEmpty()).isTrue();
+        assertThat(zones.match(3, DoubleRange.open(0, 6))).isEqualTo(BlockMatch.ALL);
+
+        assertThat(zones.count(values, DoubleRange.open(0, 3))).isEqualTo(3);
+        assertThat(zones.count(values, DoubleRange.all())).isEqualTo(7);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBlockSizeMustBePositive() {
+        DoubleZoneMap.builder(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testValuesMustBeThoseSummarized() {
+        DoubleZoneMap.of(new double[10], 4).count(new double[11], DoubleRange.all());
+    }
+}
@@ -0,0 +1,66 @@
+package com.github.javachat.doublerange;
+
+import com.github.javachat.common.BoundType;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MutableDoubleRangeTest {
+    private static DoubleRange randomRange(Random random) {
+        BoundType[] types = BoundType.values();
+        int shape = random.nextInt(8);
+        if (shape == 0)
+            return DoubleRange.all();
+        if (shape == 1)
+            return DoubleRange.upTo(random.nextInt(20) / 2.0, types[random.nextInt(2)]);
+        if (shape == 2)
+            return DoubleRange.downTo(random.nextInt(20) / 2.0, types[random.nextInt(2)]);
+
+        double lower = random.nextInt(20) / 2.0;
+        double upper = lower + (1 + random.nextInt(10)) / 2.0;
+        return DoubleRange.range(lower, types[random.nextInt(2)], upper, types[random.nextInt(2)]);
+    }
+
+    @Test
+    public void testQueriesMatchImmutableRange() {
+        Random random = new Random(1);
+        MutableDoubleRange mutable = new MutableDoubleRange();
+        MutableDoubleRange other = new MutableDoubleRange();
+        MutableDoubleRange result = new MutableDoubleRange();
+
+        for (int i = 0; i < 10_000; i++) {
+            DoubleRange range = randomRange(random);
+            DoubleRange otherRange = randomRange(random);
+            mutable.set(range);
+            other.set(otherRange);
+
+            for (double value : new double[]{Double.NEGATIVE_INFINITY, -1, 0, 0.25, 2.5, 7, 14.5, Double.NaN})
+                assertThat(mutable.contains(value)).isEqualTo(range.contains(value));
+            assertThat(mutable.encloses(otherRange)).isEqualTo(range.encloses(otherRange));
+            assertThat(mutable.encloses(other)).isEqualTo(range.encloses(otherRange));
+            assertThat(mutable.isConnected(otherRange)).isEqualTo(range.isConnected(otherRange));
+            assertThat(mutable.isConnected(other)).isEqualTo(range.isConnected(otherRange));
+            assertThat(mutable.freeze()).isEqualTo(range);
+
+            DoubleRange expected;
+            try {
+                expected = range.intersection(otherRange);
+            } catch (IllegalArgumentException e) {
+                expected = null;
+            }
+            if (expected != null)
+                assertThat(mutable.intersection(other, result).freeze()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testNaNEndpointIsRejected() {
+        MutableDoubleRange range = new MutableDoubleRange();
+
+        assertThatThrownBy(() -> range.setClosed(Double.NaN, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(range.contains(Double.NaN)).isTrue();
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.javachat.floatrange;
+
+import org.testng.annotations.Test;
+
+import static com.github.javachat.common.Allocations.allocatedBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookups, comparisons and set lookups must not allocate; intersections and spans only allocate their result.
+ */
+public class FloatRangeAllocationTest {
+    private static final FloatRange RANGE = FloatRange.closedOpen(0.0f, 100.0f);
+    private static final FloatRange OTHER = FloatRange.open(50.0f, 150.0f);
+    private static final FloatRange EQUAL = FloatRange.closedOpen(0.0f, 100.0f);
+
+    // Results are kept so that calls cannot be optimized away
+    private boolean sink;
+    private int hashSink;
+    // Ranges stored here escape, so that the JIT compiler cannot remove their allocation
+    private Object escaped;
+
+    @Test
+    public void testRangeQueriesDoNotAllocate() {
+        assertThat(allocatedBytes(i -> sink ^= RANGE.contains(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.encloses(OTHER))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.isConnected(OTHER))).isZero();
+
+        final float[] values = {1, 2, 3, 99};
+        assertThat(allocatedBytes(i -> sink ^= RANGE.containsAll(values))).isZero();
+    }
+
+    @Test
+    public void testObjectMethodsDoNotAllocate() {
+        assertThat(allocatedBytes(i -> hashSink += RANGE.hashCode())).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.equals(EQUAL))).isZero();
+        assertThat(RANGE.hashCode()).isEqualTo(EQUAL.hashCode());
+    }
+
+    @Test
+    public void testIntersectionOnlyAllocatesItsResult() {
+        final long result = allocatedBytes(i -> escaped = FloatRange.closed(50.0f, 100.0f));
+
+        assertThat(allocatedBytes(i -> escaped = RANGE.intersection(OTHER))).isEqualTo(result);
+        assertThat(allocatedBytes(i -> escaped = RANGE.span(OTHER))).isEqualTo(result);
+    }
+
+    @Test
+    public void testSetLookupsDoNotAllocate() {
+        final FloatRangeSet set = FloatRangeSet.of(RANGE, FloatRange.open(200.0f, 300.0f));
+
+        assertThat(allocatedBytes(i -> sink ^= set.contains(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> hashSink += set.indexOf(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= set.encloses(OTHER))).isZero();
+    }
+}
@@ -0,0 +1,96 @@
+package com.github.javachat.floatrange;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.shouldHaveThrown;
+
+public class FloatRangeParserTest {
+    private final FloatRangeParser parser = new FloatRangeParser();
+
+    @Test
+    public void testToStringRoundTrip() {
+        for (FloatRange range : new FloatRange[]{FloatRange.closedOpen(1, 2.5f), FloatRange.all(),
+                FloatRange.atMost(-0.125f), FloatRange.open(-Float.MAX_VALUE, Float.MIN_VALUE),
+                FloatRange.open(Float.MIN_NORMAL, 1e-10f)}) {
+            assertThat(parser.parse(range.toString())).isEqualTo(range);
+        }
+    }
+
+    @Test
+    public void testInfinities() {
+        FloatRange range = parser.parse("(-Infinity..Infinity)");
+
+        assertThat(range).isEqualTo(FloatRange.all());
+        assertThat(parser.parse("[3.4028236e38..1e39]").lowerEndpoint()).isEqualTo(Float.POSITIVE_INFINITY);
+        assertThat(parser.parse("[-1e39..0]").lowerEndpoint()).isEqualTo(Float.NEGATIVE_INFINITY);
+    }
+
+    @Test
+    public void testDigitAndExponentCutOffs() {
+        // Up to 7 digits and exponents within 10 take the exact path, others are rounded from 19 digits
+        for (String number : Arrays.asList("1234567", "12345678", "1.234567e10", "1.234567e11", "1234567e-10",
+                "1234567e-11", "16777217", "16777217e-7", "1.00000005960464477539062499",
+                "1.000000059604644775390625", "1.00000005960464477539062501", "1.17549435e-38", "1.4e-45",
+                "7e-46", "7.1e-46", "3.4028235e38", "3.40282356e38", "3.40282357e38")) {
+            FloatRange range = parser.parse("[" + number + ".." + number + "]");
+
+            assertThat(range.lowerEndpoint()).as(number).isEqualTo(Float.parseFloat(number));
+        }
+    }
+
+    @Test
+    public void testNumbersAreCorrectlyRounded() {
+        Random random = new Random(1);
+        StringBuilder sb = new StringBuilder();
+
+        for (int i = 0; i < 10_000; i++) {
+            String lower = Float.toString(random.nextFloat() * (float) Math.pow(10, random.nextInt(60) - 30));
+            String upper = random.nextLong() + "." + Math.abs(random.nextInt(1000)) + "e" + (random.nextInt(80) - 40);
+            sb.setLength(0);
+            sb.append('[').append(lower).append("..").append(upper).append(']');
+            if (Float.parseFloat(lower) > Float.parseFloat(upper))
+                continue;
+
+            FloatRange range = parser.parse(sb);
+
+            assertThat(range.lowerEndpoint()).isEqualTo(Float.parseFloat(lower));
+            assertThat(range.upperEndpoint()).isEqualTo(Float.parseFloat(upper));
+        }
+    }
+
+    @Test
+    public void testByteBuffers() {
+        String text = "x [0.1..123456789.123456789e-3) y";
+        ByteBuffer heap = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        heap.position(2).limit(text.length() - 2);
+        ByteBuffer direct = ByteBuffer.allocateDirect(text.length());
+        direct.put(text.getBytes(StandardCharsets.UTF_8));
+        direct.position(2);
+        direct.limit(text.length() - 2);
+
+        for (ByteBuffer buffer : Arrays.asList(heap, direct)) {
+            FloatRange range = parser.parse(buffer);
+
+            assertThat(range).isEqualTo(FloatRange.closedOpen(0.1f, 123456.789123456789f));
+            assertThat(buffer.position()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testInvalidNumbers() {
+        for (String text : Arrays.asList("[1..5e]", "[1..5x]", "[1.2.3..5]", "[..5]", "[1..+]")) {
+            try {
+                parser.parse(text);
+                shouldHaveThrown(IllegalArgumentException.class);
+            } catch (IllegalArgumentException e) {
+                assertThat(e).hasMessageStartingWith("invalid");
+            }
+        }
+    }
+}
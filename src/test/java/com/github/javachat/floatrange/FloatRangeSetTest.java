@@ -0,0 +1,88 @@
+package com.github.javachat.floatrange;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FloatRangeSetTest {
+    @Test
+    public void testAdjacentRangesAreCoalesced() {
+        FloatRangeSet set = FloatRangeSet.of(FloatRange.closedOpen(1, 2), FloatRange.closedOpen(2, 3));
+
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(set.contains(2.0f)).isTrue();
+        assertThat(set.contains(1.0f)).isFalse();
+        assertThat(set.contains(Math.nextUp(1.0f))).isTrue();
+        assertThat(set.lowestValue(0)).isEqualTo(Math.nextUp(1.0f));
+        assertThat(set.highestValue(0)).isEqualTo(3.0f);
+    }
+
+    @Test
+    public void testZeroes() {
+        FloatRangeSet set = FloatRangeSet.of(FloatRange.open(-0.0f, 1));
+
+        assertThat(set.contains(0.0f)).isTrue();
+        assertThat(set.contains(-0.0f)).isTrue();
+        assertThat(set).isEqualTo(FloatRangeSet.of(FloatRange.open(0.0f, 1)));
+        assertThat(set.complement().contains(-0.0f)).isFalse();
+        assertThat(set.complement().contains(-Float.MIN_VALUE)).isTrue();
+        assertThat(FloatRangeSet.of(FloatRange.atMost(-Float.MIN_VALUE), FloatRange.atLeast(0)).size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testNaNAndInfinities() {
+        FloatRangeSet bounded = FloatRangeSet.of(FloatRange.open(1, 2));
+
+        assertThat(bounded.contains(Float.NaN)).isFalse();
+        assertThat(bounded.complement().contains(Float.NaN)).isTrue();
+        assertThat(bounded.complement().contains(Float.NEGATIVE_INFINITY)).isTrue();
+        assertThat(bounded.union(bounded.complement())).isEqualTo(FloatRangeSet.all());
+        assertThat(FloatRangeSet.all().complement().isEmpty()).isTrue();
+        assertThat(FloatRangeSet.of(FloatRange.atMost(0)).contains(Float.intBitsToFloat(0xffc00000))).isFalse();
+        assertThat(FloatRangeSet.of(FloatRange.atLeast(0)).contains(Float.NaN)).isFalse();
+    }
+
+    @Test
+    public void testCombinationsMatchRanges() {
+        Random random = new Random(38);
+        for (int round = 0; round < 200; round++) {
+            FloatRange[] left = randomRanges(random);
+            FloatRange[] right = randomRanges(random);
+            FloatRangeSet leftSet = FloatRangeSet.of(left);
+            FloatRangeSet rightSet = FloatRangeSet.of(right);
+            FloatRangeSet union = leftSet.union(rightSet);
+            FloatRangeSet intersection = leftSet.intersection(rightSet);
+            FloatRangeSet difference = leftSet.difference(rightSet);
+
+            for (float value = -1; value < 21; value += 0.125f) {
+                boolean inLeft = anyContains(left, value);
+                boolean inRight = anyContains(right, value);
+                assertThat(leftSet.contains(value)).isEqualTo(inLeft);
+                assertThat(union.contains(value)).isEqualTo(inLeft || inRight);
+                assertThat(intersection.contains(value)).isEqualTo(inLeft && inRight);
+                assertThat(difference.contains(value)).isEqualTo(inLeft && !inRight);
+            }
+            for (FloatRange range : left)
+                assertThat(leftSet.encloses(range)).isTrue();
+        }
+    }
+
+    private static FloatRange[] randomRanges(Random random) {
+        FloatRange[] ranges = new FloatRange[random.nextInt(6)];
+        for (int i = 0; i < ranges.length; i++) {
+            float lower = random.nextInt(80) / 4.0f;
+            ranges[i] = FloatRange.closedOpen(lower, lower + 1 + random.nextInt(12) / 4.0f);
+        }
+        return ranges;
+    }
+
+    private static boolean anyContains(FloatRange[] ranges, float value) {
+        for (FloatRange range : ranges) {
+            if (range.contains(value))
+                return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package com.github.javachat.guava;
+
+import com.github.javachat.intrange.IntRange;
+import com.github.javachat.intrange.IntRangeSet;
+import com.github.javachat.longrange.LongRange;
+import com.github.javachat.longrange.LongRangeMap;
+import com.github.javachat.longrange.LongRangeSet;
+import com.google.common.collect.ImmutableRangeSet;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeMap;
+import com.google.common.collect.TreeRangeSet;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class GuavaRangeSetsTest {
+    @Test
+    public void testViewMatchesTreeRangeSet() {
+        Random random = new Random(39);
+        for (int round = 0; round < 100; round++) {
+            // Closed ranges which are never adjacent, as the view coalesces them
+            RangeSet<Integer> expected = TreeRangeSet.create();
+            for (int slot = 0; slot < 5; slot++) {
+                if (random.nextBoolean()) {
+                    int lower = 10 * slot + random.nextInt(3);
+                    expected.add(Range.closed(lower, lower + random.nextInt(6)));
+                }
+            }
+            IntRangeSet set = GuavaRangeSets.toIntRangeSet(expected);
+            RangeSet<Integer> view = GuavaRangeSets.asRangeSet(set);
+
+            assertThat(view).isEqualTo(expected);
+            assertThat(view.asRanges()).containsExactlyElementsOf(expected.asRanges());
+            assertThat(view.asDescendingSetOfRanges()).containsExactlyElementsOf(expected.asDescendingSetOfRanges());
+            assertThat(view.hashCode()).isEqualTo(expected.hashCode());
+            for (int value = -1; value < 50; value++) {
+                assertThat(view.contains(value)).isEqualTo(expected.contains(value));
+                assertThat(view.rangeContaining(value)).isEqualTo(expected.rangeContaining(value));
+                Range<Integer> probe = Range.closedOpen(value, value + random.nextInt(5));
+                assertThat(view.encloses(probe)).isEqualTo(expected.encloses(probe));
+                assertThat(((IntRangeSetView) view).intersects(probe)).isEqualTo(intersects(expected, probe));
+                Range<Integer> openProbe = Range.open(value, value + 1);
+                assertThat(((IntRangeSetView) view).intersects(openProbe)).isEqualTo(intersects(expected, openProbe));
+                assertThat(GuavaRangeSets.toIntRangeSet(view.subRangeSet(probe)))
+                        .isEqualTo(GuavaRangeSets.toIntRangeSet(expected.subRangeSet(probe)));
+            }
+            if (!expected.isEmpty())
+                assertThat(view.span()).isEqualTo(expected.span());
+            assertThat(GuavaRangeSets.toIntRangeSet(view)).isSameAs(set);
+        }
+    }
+
+    // Guava 19, which the tests run against, has no RangeSet.intersects(Range)
+    private static <C extends Comparable<C>> boolean intersects(final RangeSet<C> set, final Range<C> range) {
+        for (Range<C> candidate : set.asRanges()) {
+            if (candidate.isConnected(range) && !candidate.intersection(range).isEmpty())
+                return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void testLongViewIntersects() {
+        LongRangeSetView view = (LongRangeSetView) GuavaRangeSets.asRangeSet(
+                LongRangeSet.of(LongRange.atMost(-10), LongRange.open(0, 5), LongRange.atLeast(Long.MAX_VALUE - 1)));
+
+        assertThat(view.intersects(Range.closed(-20L, -15L))).isTrue();
+        assertThat(view.intersects(Range.open(-10L, 0L))).isFalse();
+        assertThat(view.intersects(Range.closed(-10L, 0L))).isTrue();
+        assertThat(view.intersects(Range.closed(6L, 100L))).isFalse();
+        assertThat(view.intersects(Range.greaterThan(5L))).isTrue();
+        assertThat(view.intersects(Range.<Long>all())).isTrue();
+        assertThat(((LongRangeSetView) GuavaRangeSets.asRangeSet(LongRangeSet.empty())).intersects(Range.<Long>all()))
+                .isFalse();
+    }
+
+    @Test
+    public void testViewsAreReadOnly() {
+        RangeSet<Long> view = GuavaRangeSets.asRangeSet(LongRangeSet.of(LongRange.atMost(0)));
+
+        assertThat(view.asRanges()).containsExactly(Range.atMost(0L));
+        assertThat(view.complement().asRanges()).containsExactly(Range.atLeast(1L));
+        assertThat(view.contains(Long.MIN_VALUE)).isTrue();
+        assertThatThrownBy(() -> view.add(Range.closed(1L, 2L))).isInstanceOf(UnsupportedOperationException.class);
+        assertThatThrownBy(view::clear).isInstanceOf(UnsupportedOperationException.class);
+    }
+
+    @Test
+    public void testBulkConversions() {
+        RangeSet<Long> rangeSet = ImmutableRangeSet.<Long>builder()
+                .add(Range.greaterThan(Long.MAX_VALUE - 1))
+                .add(Range.open(3L, 4L))
+                .add(Range.closed(-5L, 0L))
+                .build();
+        assertThat(GuavaRangeSets.toLongRangeSet(rangeSet))
+                .isEqualTo(LongRangeSet.ofValues(new long[]{-5, Long.MAX_VALUE}, new long[]{0, Long.MAX_VALUE}, 2));
+        assertThat(GuavaRangeSets.toIntRangeSet(ImmutableRangeSet.of(Range.greaterThan(Integer.MAX_VALUE))).isEmpty())
+                .isTrue();
+        assertThat(GuavaRangeSets.toIntRangeSet(TreeRangeSet.create(ImmutableRangeSet.of(Range.closed(1, 3)))))
+                .isEqualTo(IntRangeSet.of(IntRange.open(1, 3)));
+
+        RangeMap<Long, String> rangeMap = TreeRangeMap.create();
+        rangeMap.put(Range.closedOpen(0L, 10L), "a");
+        rangeMap.put(Range.closed(5L, 20L), "b");
+        rangeMap.put(Range.atLeast(30L), "c");
+        LongRangeMap<String> map = GuavaRangeSets.toLongRangeMap(rangeMap);
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.get(4)).isEqualTo("a");
+        assertThat(map.get(5)).isEqualTo("b");
+        assertThat(map.get(21)).isNull();
+        assertThat(map.get(Long.MAX_VALUE)).isEqualTo("c");
+    }
+}
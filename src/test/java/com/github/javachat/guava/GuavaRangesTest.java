@@ -0,0 +1,70 @@
+package com.github.javachat.guava;
+
+import com.github.javachat.doublerange.DoubleRange;
+import com.github.javachat.intrange.IntRange;
+import com.github.javachat.longrange.LongRange;
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GuavaRangesTest {
+    private static List<Range<Integer>> guavaIntRanges() {
+        List<Range<Integer>> ranges = new ArrayList<>();
+        for (BoundType lowerType : BoundType.values()) {
+            for (BoundType upperType : BoundType.values()) {
+                for (int lower = -2; lower <= 2; lower++) {
+                    for (int upper = lower; upper <= 2; upper++) {
+                        if (lower < upper || lowerType == BoundType.CLOSED || upperType == BoundType.CLOSED)
+                            ranges.add(Range.range(lower, lowerType, upper, upperType));
+                    }
+                }
+                ranges.add(Range.upTo(0, upperType));
+            }
+            ranges.add(Range.downTo(0, lowerType));
+        }
+        ranges.add(Range.<Integer>all());
+        ranges.add(Range.closed(Integer.MIN_VALUE, Integer.MIN_VALUE));
+        return ranges;
+    }
+
+    @Test
+    public void testIntRangesContainSameValues() {
+        for (Range<Integer> range : guavaIntRanges()) {
+            IntRange converted = GuavaRanges.toIntRange(range);
+            Range<Integer> back = GuavaRanges.toGuava(converted);
+            for (int value = -4; value <= 4; value++) {
+                assertThat(converted.contains(value)).as("%s contains %d", range, value).isEqualTo(range.contains(value));
+                assertThat(back.contains(value)).isEqualTo(range.contains(value));
+            }
+            assertThat(converted.contains(Integer.MIN_VALUE)).isEqualTo(range.contains(Integer.MIN_VALUE));
+        }
+    }
+
+    @Test
+    public void testRoundTripsKeepEndpoints() {
+        assertThat(GuavaRanges.toGuava(IntRange.closedOpen(1, 5))).isEqualTo(Range.openClosed(1, 5));
+        assertThat(GuavaRanges.toIntRange(Range.openClosed(1, 5))).isEqualTo(IntRange.closedOpen(1, 5));
+        assertThat(GuavaRanges.toGuava(LongRange.atLeast(3))).isEqualTo(Range.atLeast(3L));
+        assertThat(GuavaRanges.toLongRange(Range.lessThan(3L))).isEqualTo(LongRange.lessThan(3));
+        assertThat(GuavaRanges.toGuava(IntRange.closed(3, 3)).isEmpty()).isTrue();
+        assertThat(GuavaRanges.toGuava(DoubleRange.all())).isEqualTo(Range.<Double>all());
+    }
+
+    @Test
+    public void testDoubleSingletons() {
+        double[] values = {Double.NEGATIVE_INFINITY, -Double.MAX_VALUE, -1.5, 0.0, Double.MIN_VALUE,
+                Double.MAX_VALUE, Double.POSITIVE_INFINITY};
+        for (double value : values) {
+            DoubleRange range = GuavaRanges.toDoubleRange(Range.singleton(value));
+            assertThat(range.contains(value)).isTrue();
+            assertThat(range.contains(Math.nextDown(value))).isEqualTo(value == Double.NEGATIVE_INFINITY);
+            assertThat(range.contains(Math.nextUp(value))).isEqualTo(value == Double.POSITIVE_INFINITY);
+            assertThat(range.contains(Double.NaN)).isFalse();
+        }
+    }
+}
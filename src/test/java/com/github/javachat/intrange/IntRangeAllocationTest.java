@@ -0,0 +1,76 @@
+package com.github.javachat.intrange;
+
+import org.testng.annotations.Test;
+
+import java.util.function.IntPredicate;
+
+import static com.github.javachat.common.Allocations.allocatedBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookups, comparisons and set lookups must not allocate; intersections and spans only allocate their result.
+ */
+public class IntRangeAllocationTest {
+    private static final IntRange RANGE = IntRange.closedOpen(0, 100);
+    private static final IntRange OTHER = IntRange.open(50, 150);
+    private static final IntRange EQUAL = IntRange.closedOpen(0, 100);
+
+    // Results are kept so that calls cannot be optimized away
+    private boolean sink;
+    private int hashSink;
+    // Ranges stored here escape, so that the JIT compiler cannot remove their allocation
+    private Object escaped;
+
+    @Test
+    public void testRangeQueriesDoNotAllocate() {
+        assertThat(allocatedBytes(i -> sink ^= RANGE.contains(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.encloses(OTHER))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.isConnected(OTHER))).isZero();
+    }
+
+    @Test
+    public void testObjectMethodsDoNotAllocate() {
+        assertThat(allocatedBytes(i -> hashSink += RANGE.hashCode())).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.equals(EQUAL))).isZero();
+        assertThat(RANGE.hashCode()).isEqualTo(EQUAL.hashCode());
+    }
+
+    @Test
+    public void testIntersectionOnlyAllocatesItsResult() {
+        final long result = allocatedBytes(i -> escaped = IntRange.closed(50, 100));
+
+        assertThat(allocatedBytes(i -> escaped = RANGE.intersection(OTHER))).isEqualTo(result);
+        assertThat(allocatedBytes(i -> escaped = RANGE.span(OTHER))).isEqualTo(result);
+    }
+
+    @Test
+    public void testSetLookupsDoNotAllocate() {
+        final IntRangeSet set = IntRangeSet.of(RANGE, IntRange.open(200, 300));
+        final int[] values = new int[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i;
+        final int[] indices = new int[values.length];
+        final IntPredicate predicate = set.asPredicate();
+
+        assertThat(allocatedBytes(i -> sink ^= set.contains(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> hashSink += set.indexOf(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= set.encloses(OTHER))).isZero();
+        assertThat(allocatedBytes(i -> set.indexOfAll(values, indices))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= predicate.test(i % 400))).isZero();
+    }
+
+    @Test
+    public void testPersistentSetLookupsDoNotAllocate() {
+        // Added one at a time, the ranges are split differently in the leaves than in a copy
+        PersistentIntRangeSet built = PersistentIntRangeSet.empty();
+        for (int i = 0; i < 1000; i++)
+            built = built.add(IntRange.closedOpen(10 * i, 10 * i + 5));
+        final PersistentIntRangeSet set = built;
+        final PersistentIntRangeSet copy = PersistentIntRangeSet.copyOf(set.toRangeSet());
+
+        assertThat(set).isEqualTo(copy);
+        assertThat(allocatedBytes(i -> sink ^= set.contains(i))).isZero();
+        assertThat(allocatedBytes(i -> hashSink += set.hashCode())).isZero();
+        assertThat(allocatedBytes(i -> sink ^= set.equals(copy))).isZero();
+    }
+}
@@ -0,0 +1,108 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.AllocationPolicy;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IntRangeAllocatorTest {
+    @Test
+    public void testFreeCoalescesAdjacentBlocks() {
+        IntRangeAllocator allocator = new IntRangeAllocator(IntRange.closedOpen(-1, 100), AllocationPolicy.FIRST_FIT);
+
+        IntRange first = allocator.allocate(10);
+        IntRange second = allocator.allocate(10);
+        IntRange third = allocator.allocate(10);
+        assertThat(first).isEqualTo(IntRange.ofValues(0, 9));
+        assertThat(allocator.freeBlockCount()).isEqualTo(1);
+
+        allocator.free(first);
+        allocator.free(third);
+        assertThat(allocator.freeBlockCount()).isEqualTo(2);
+        assertThat(allocator.isFree(15)).isFalse();
+        assertThat(allocator.floorFree(15)).isEqualTo(IntRange.ofValues(0, 9));
+        assertThat(allocator.ceilingFree(15)).isEqualTo(IntRange.ofValues(20, 100));
+
+        allocator.free(second);
+        assertThat(allocator.freeBlocks()).isEqualTo(IntRangeSet.of(IntRange.ofValues(0, 100)));
+    }
+
+    @Test
+    public void testBestFitPrefersSmallestBlock() {
+        IntRangeAllocator allocator = new IntRangeAllocator(IntRange.ofValues(0, 99), AllocationPolicy.BEST_FIT);
+        List<IntRange> blocks = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            blocks.add(allocator.allocate(10));
+        allocator.free(blocks.get(1));
+        allocator.free(blocks.get(2));
+        allocator.free(blocks.get(5));
+
+        assertThat(allocator.allocate(5)).isEqualTo(IntRange.ofValues(50, 54));
+        assertThat(allocator.ceilingGap(0, 15)).isEqualTo(IntRange.ofValues(10, 24));
+        assertThat(allocator.ceilingGap(12, 8)).isEqualTo(IntRange.ofValues(12, 19));
+        assertThat(allocator.largestFreeBlock()).isEqualTo(IntRange.ofValues(10, 29));
+    }
+
+    @Test
+    public void testErrors() {
+        IntRangeAllocator allocator = new IntRangeAllocator(IntRange.ofValues(0, 9), AllocationPolicy.FIRST_FIT);
+        IntRange range = allocator.allocate(5);
+
+        assertThatThrownBy(() -> allocator.allocate(6)).isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> allocator.allocate(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> allocator.free(IntRange.ofValues(3, 7))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> allocator.free(IntRange.ofValues(-1, 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        allocator.free(range);
+        assertThatThrownBy(() -> allocator.free(range)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new IntRangeAllocator(IntRange.closed(1, 1), AllocationPolicy.FIRST_FIT))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testUnboundedPool() {
+        IntRangeAllocator allocator = new IntRangeAllocator(IntRange.all(), AllocationPolicy.BEST_FIT);
+
+        assertThat(allocator.largestFreeBlock()).isEqualTo(IntRange.ofValues(Integer.MIN_VALUE, Integer.MAX_VALUE));
+        assertThat(allocator.allocate(Integer.MAX_VALUE)).isEqualTo(IntRange.ofValues(Integer.MIN_VALUE, -2));
+        assertThat(allocator.allocate(Integer.MAX_VALUE)).isEqualTo(IntRange.ofValues(-1, Integer.MAX_VALUE - 2));
+        assertThat(allocator.allocate(2)).isEqualTo(IntRange.ofValues(Integer.MAX_VALUE - 1, Integer.MAX_VALUE));
+        assertThat(allocator.largestFreeBlock()).isNull();
+
+        allocator.free(IntRange.ofValues(Integer.MAX_VALUE, Integer.MAX_VALUE));
+        allocator.free(IntRange.ofValues(Integer.MIN_VALUE, Integer.MIN_VALUE));
+        assertThat(allocator.isFree(Integer.MAX_VALUE)).isTrue();
+        assertThat(allocator.ceilingGap(Integer.MIN_VALUE, 2)).isNull();
+        assertThat(allocator.freeBlockCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testRandomAllocationsAgainstRangeSet() {
+        for (AllocationPolicy policy : AllocationPolicy.values()) {
+            Random random = new Random(35);
+            IntRangeAllocator allocator = new IntRangeAllocator(IntRange.ofValues(0, 99_999), policy);
+            List<IntRange> allocated = new ArrayList<>();
+            IntRangeSet free = IntRangeSet.of(IntRange.ofValues(0, 99_999));
+            for (int i = 0; i < 5_000; i++) {
+                if (allocated.isEmpty() || random.nextInt(3) > 0) {
+                    IntRange range = allocator.allocate(1 + random.nextInt(10));
+                    assertThat(free.encloses(range)).isTrue();
+                    allocated.add(range);
+                    free = free.difference(IntRangeSet.of(range));
+                } else {
+                    IntRange range = allocated.remove(random.nextInt(allocated.size()));
+                    allocator.free(range);
+                    free = free.union(IntRangeSet.of(range));
+                }
+                assertThat(allocator.freeBlockCount()).isEqualTo(free.size());
+            }
+            assertThat(allocator.freeBlocks()).isEqualTo(free);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.BoundType;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class IntRangeArrayTest {
+    private static List<IntRange> randomRanges(Random random, int count) {
+        BoundType[] types = BoundType.values();
+        List<IntRange> ranges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int shape = random.nextInt(6);
+            if (shape == 0) {
+                ranges.add(IntRange.upTo(random.nextInt(100), types[random.nextInt(2)]));
+            } else if (shape == 1) {
+                ranges.add(IntRange.downTo(random.nextInt(100), types[random.nextInt(2)]));
+            } else {
+                int lower = random.nextInt(100);
+                ranges.add(IntRange.range(lower, types[random.nextInt(2)],
+                        lower + 1 + random.nextInt(5), types[random.nextInt(2)]));
+            }
+        }
+        return ranges;
+    }
+
+    @Test
+    public void testColumnsMatchRanges() {
+        List<IntRange> ranges = randomRanges(new Random(1), 100);
+        IntRangeArray array = IntRangeArray.copyOf(ranges);
+
+        assertThat(array.size()).isEqualTo(100);
+        assertThat(array.asList()).isEqualTo(ranges);
+        for (int i = 0; i < ranges.size(); i++) {
+            assertThat(array.hasLowerBound(i)).isEqualTo(ranges.get(i).hasLowerBound());
+            assertThat(array.upperBoundType(i)).isEqualTo(ranges.get(i).upperBoundType());
+            for (int value = -1; value < 110; value++)
+                assertThat(array.containsAt(i, value)).isEqualTo(ranges.get(i).contains(value));
+        }
+    }
+
+    @Test
+    public void testAnyContains() {
+        IntRangeArray array = new IntRangeArray(1)
+                .add(IntRange.closed(0, 5))
+                .add(IntRange.open(10, 12));
+
+        assertThat(array.anyContains(0)).isFalse();
+        assertThat(array.anyContains(3)).isTrue();
+        assertThat(array.anyContains(7)).isFalse();
+        assertThat(array.anyContains(12)).isTrue();
+    }
+
+    @Test
+    public void testSortByLower() {
+        List<IntRange> ranges = randomRanges(new Random(2), 1000);
+        IntRangeArray array = IntRangeArray.copyOf(ranges);
+
+        array.sortByLower();
+        ranges.sort(Comparator.comparingInt(IntRange::lowerEndpoint));
+
+        assertThat(array.asList()).isEqualTo(ranges);
+        array.add(IntRange.all());
+        assertThat(array.get(1000)).isEqualTo(IntRange.all());
+    }
+
+    @Test
+    public void testIndexIsChecked() {
+        IntRangeArray array = new IntRangeArray().add(IntRange.closed(0, 5));
+
+        assertThatThrownBy(() -> array.containsAt(1, 3)).isInstanceOf(IndexOutOfBoundsException.class);
+        array.clear();
+        assertThat(array.isEmpty()).isTrue();
+        assertThatThrownBy(() -> array.get(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
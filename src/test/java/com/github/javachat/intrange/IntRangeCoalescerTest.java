@@ -0,0 +1,66 @@
+package com.github.javachat.intrange;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.shouldHaveThrown;
+
+public class IntRangeCoalescerTest {
+    @Test
+    public void testConnectedRangesFromDifferentSourcesAreMerged() {
+        List<Iterator<IntRange>> sources = Arrays.asList(
+                Arrays.asList(IntRange.open(1, 3), IntRange.open(10, 12)).iterator(),
+                Arrays.asList(IntRange.open(4, 5), IntRange.open(20, 22)).iterator(),
+                Collections.<IntRange>emptyIterator());
+
+        List<IntRange> output = new ArrayList<>();
+        IntRangeCoalescer.of(sources).forEachRemaining(output::add);
+
+        assertThat(output).containsExactly(IntRange.open(1, 5), IntRange.open(10, 12), IntRange.open(20, 22));
+    }
+
+    @Test
+    public void testOutputMatchesRangeSet() {
+        Random random = new Random(7);
+        List<IntRange> all = new ArrayList<>();
+        List<Stream<IntRange>> streams = new ArrayList<>();
+
+        for (int source = 0; source < 10; source++) {
+            List<IntRange> ranges = new ArrayList<>();
+            int lower = random.nextInt(100);
+            for (int i = 0; i < 50; i++) {
+                int upper = lower + 1 + random.nextInt(10);
+                ranges.add(random.nextBoolean() ? IntRange.closedOpen(lower, upper) : IntRange.open(lower, upper));
+                lower = upper + random.nextInt(20);
+            }
+            all.addAll(ranges);
+            streams.add(ranges.stream());
+        }
+
+        List<IntRange> output = IntRangeCoalescer.coalesce(streams).collect(Collectors.toList());
+
+        assertThat(output).isEqualTo(IntRangeSet.copyOf(all).asRanges());
+    }
+
+    @Test
+    public void testUnsortedSource() {
+        Iterator<IntRange> unsorted = Arrays.asList(IntRange.open(5, 7), IntRange.open(1, 2)).iterator();
+        IntRangeCoalescer coalescer = IntRangeCoalescer.of(Collections.singletonList(unsorted));
+
+        try {
+            coalescer.next();
+            shouldHaveThrown(IllegalStateException.class);
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage(String.format(IntRangeCoalescer.UNSORTED_SOURCE, 0, "(1..2)", "(5..7)"));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.javachat.intrange;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntRangeCursorTest {
+    @Test
+    public void testAgainstBinarySearch() {
+        Random random = new Random(42);
+        IntRange[] ranges = new IntRange[1000];
+        for (int i = 0; i < ranges.length; i++) {
+            int low = random.nextInt(1_000_000) - 500_000;
+            ranges[i] = IntRange.open(low, low + 1 + random.nextInt(2000));
+        }
+        IntRangeSet set = IntRangeSet.of(ranges).union(IntRangeSet.of(IntRange.atMost(-900_000)));
+        IntRangeCursor cursor = set.cursor();
+
+        for (int value = -1_000_000; value < 1_000_000; value += random.nextInt(100))
+            assertThat(cursor.indexOf(value)).isEqualTo(set.indexOf(value));
+        for (int i = 0; i < 10_000; i++) {
+            int value = random.nextInt();
+            assertThat(cursor.indexOf(value)).isEqualTo(set.indexOf(value));
+        }
+    }
+}
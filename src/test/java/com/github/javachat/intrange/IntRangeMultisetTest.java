@@ -0,0 +1,68 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.BoundType;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntRangeMultisetTest {
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(1);
+        BoundType[] types = BoundType.values();
+        IntRangeMultiset multiset = new IntRangeMultiset();
+        long[] coverage = new long[120];
+
+        for (int i = 0; i < 200; i++) {
+            int lower = random.nextInt(100);
+            IntRange range = IntRange.range(lower, types[random.nextInt(2)],
+                    lower + 1 + random.nextInt(15), types[random.nextInt(2)]);
+            int occurrences = 1 + random.nextInt(3);
+            multiset.add(range, occurrences);
+            for (int value = 0; value < coverage.length; value++)
+                if (range.contains(value))
+                    coverage[value] += occurrences;
+
+            if (i % 50 == 49) {
+                long max = 0;
+                for (int value = 0; value < coverage.length; value++) {
+                    assertThat(multiset.coverCount(value)).isEqualTo(coverage[value]);
+                    max = Math.max(max, coverage[value]);
+                }
+                assertThat(multiset.maxOverlap()).isEqualTo(max);
+                assertThat(multiset.coverCount(-1)).isZero();
+                assertThat(multiset.coverCount(Integer.MAX_VALUE)).isZero();
+
+                for (int query = 0; query < 100; query++) {
+                    int from = random.nextInt(110);
+                    int to = from + random.nextInt(10);
+                    long expected = 0;
+                    for (int value = from; value <= to; value++)
+                        expected = Math.max(expected, coverage[value]);
+                    assertThat(multiset.maxOverlap(IntRange.ofValues(from, to))).isEqualTo(expected);
+                }
+
+                long threshold = max / 2;
+                IntRangeSet covered = multiset.coveredAtLeast(threshold);
+                for (int value = 0; value < coverage.length; value++)
+                    assertThat(covered.contains(value)).isEqualTo(coverage[value] >= threshold);
+            }
+        }
+    }
+
+    @Test
+    public void testUnboundedRanges() {
+        IntRangeMultiset multiset = new IntRangeMultiset()
+                .add(IntRange.all())
+                .add(IntRange.atLeast(10), 2)
+                .add(IntRange.atMost(20));
+
+        assertThat(multiset.coverCount(Integer.MIN_VALUE)).isEqualTo(2);
+        assertThat(multiset.coverCount(15)).isEqualTo(4);
+        assertThat(multiset.coverCount(Integer.MAX_VALUE)).isEqualTo(3);
+        assertThat(multiset.coveredAtLeast(3)).isEqualTo(IntRangeSet.of(IntRange.atLeast(10)));
+        assertThat(multiset.maxOverlap(IntRange.atMost(9))).isEqualTo(2);
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.BoundType;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntRangeOverlapJoinTest {
+    private static List<IntRange> randomRanges(Random random, int count, int bound, int maxLength) {
+        BoundType[] types = BoundType.values();
+        List<IntRange> ranges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int lower = random.nextInt(bound);
+            ranges.add(IntRange.range(lower, types[random.nextInt(2)],
+                    lower + 1 + random.nextInt(maxLength), types[random.nextInt(2)]));
+        }
+        return ranges;
+    }
+
+    private static boolean overlap(IntRange first, IntRange second) {
+        return Math.max(first.lowestValue(), second.lowestValue())
+                <= Math.min(first.highestValue(), second.highestValue());
+    }
+
+    @Test
+    public void testBoundTypesAtSharedEndpoints() {
+        List<IntRange> left = new ArrayList<>();
+        left.add(IntRange.openClosed(1, 5));
+        left.add(IntRange.open(1, 5));
+        List<IntRange> right = new ArrayList<>();
+        right.add(IntRange.open(5, 9));
+        right.add(IntRange.closed(5, 6));
+
+        List<String> pairs = new ArrayList<>();
+        IntRangeOverlapJoin.of(left, right).forEachOverlap((l, r) -> pairs.add(l + "-" + r));
+
+        assertThat(pairs).containsExactly("1-0");
+    }
+
+    @Test
+    public void testMatchesNestedLoops() {
+        Random random = new Random(1);
+        List<IntRange> left = randomRanges(random, 500, 1000, 20);
+        List<IntRange> right = randomRanges(random, 300, 1000, 50);
+        left.add(IntRange.all());
+        right.add(IntRange.upTo(100, BoundType.OPEN));
+
+        Set<Long> expected = new HashSet<>();
+        for (int l = 0; l < left.size(); l++)
+            for (int r = 0; r < right.size(); r++)
+                if (overlap(left.get(l), right.get(r)))
+                    expected.add((long) l << 32 | r);
+
+        List<Long> actual = new ArrayList<>();
+        IntRangeOverlapJoin.of(IntRangeArray.copyOf(left), IntRangeArray.copyOf(right))
+                .forEachOverlap((l, r) -> actual.add((long) l << 32 | r));
+
+        assertThat(actual).hasSameSizeAs(expected);
+        assertThat(new HashSet<>(actual)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        Random random = new Random(2);
+        IntRangeOverlapJoin join = IntRangeOverlapJoin.of(randomRanges(random, 60_000, 10_000_000, 500),
+                randomRanges(random, 40_000, 10_000_000, 2_000));
+
+        Set<Long> sequential = new HashSet<>();
+        join.forEachOverlap((l, r) -> sequential.add((long) l << 32 | r));
+        Set<Long> parallel = ConcurrentHashMap.newKeySet();
+        join.parallelForEachOverlap((l, r) -> assertThat(parallel.add((long) l << 32 | r)).isTrue());
+
+        assertThat(sequential).isNotEmpty();
+        assertThat(parallel).isEqualTo(sequential);
+    }
+}
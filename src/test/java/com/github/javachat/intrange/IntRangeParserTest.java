@@ -0,0 +1,94 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.BoundType;
+import com.github.javachat.common.RangeScanner;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.shouldHaveThrown;
+
+public class IntRangeParserTest {
+    private final IntRangeParser parser = new IntRangeParser();
+
+    @DataProvider
+    public Object[][] ranges() {
+        return new Object[][]{
+                {IntRange.closedOpen(1, 5)},
+                {IntRange.open(-7, 3)},
+                {IntRange.closed(Integer.MIN_VALUE, Integer.MAX_VALUE)},
+                {IntRange.upTo(3, BoundType.CLOSED)},
+                {IntRange.atLeast(-12)},
+                {IntRange.all()},
+        };
+    }
+
+    @Test(dataProvider = "ranges")
+    public void testToStringRoundTrip(IntRange range) {
+        IntRange parsed = parser.parse(range.toString());
+
+        assertThat(parsed.toString()).isEqualTo(range.toString());
+        assertThat(parsed.hasLowerBound()).isEqualTo(range.hasLowerBound());
+        assertThat(parsed.hasUpperBound()).isEqualTo(range.hasUpperBound());
+    }
+
+    @Test
+    public void testSlices() {
+        String text = "x [1..5) y";
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        buffer.position(2).limit(8);
+
+        assertThat(parser.parse(text, 2, 8)).isEqualTo(IntRange.closedOpen(1, 5));
+        assertThat(parser.parse(buffer)).isEqualTo(IntRange.closedOpen(1, 5));
+        assertThat(buffer.position()).isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidSyntax() {
+        for (String text : Arrays.asList("1..5", "[1,5)", "[1..5", "[..5]", "[1..Infinity]x", "[Infinity..5]")) {
+            try {
+                parser.parse(text);
+                shouldHaveThrown(IllegalArgumentException.class);
+            } catch (IllegalArgumentException e) {
+                assertThat(e).hasMessageStartingWith("invalid");
+            }
+        }
+    }
+
+    @Test
+    public void testOutOfRange() {
+        try {
+            parser.parse("[0..2147483648]");
+            shouldHaveThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage(String.format(RangeScanner.NUMBER_OUT_OF_RANGE, "2147483648"));
+        }
+    }
+
+    @Test
+    public void testParseLines() throws IOException {
+        Path file = Files.createTempFile("ranges", ".txt");
+        try {
+            Files.write(file, "[1..5)\r\n\n  (-Infinity..3]\n(7..9)".getBytes(StandardCharsets.UTF_8));
+            List<IntRange> ranges = new ArrayList<>();
+
+            parser.parseLines(file, ranges::add);
+
+            assertThat(ranges).hasSize(3);
+            assertThat(ranges.get(0)).isEqualTo(IntRange.closedOpen(1, 5));
+            assertThat(ranges.get(1).toString()).isEqualTo("(-Infinity..3]");
+            assertThat(ranges.get(2)).isEqualTo(IntRange.open(7, 9));
+        } finally {
+            Files.delete(file);
+        }
+    }
+}
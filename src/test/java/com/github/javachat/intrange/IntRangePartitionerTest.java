@@ -0,0 +1,68 @@
+package com.github.javachat.intrange;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntRangePartitionerTest {
+    @Test
+    public void testPartition() {
+        IntRange[] bins = {IntRange.open(10, 19), IntRange.openClosed(0, 10), IntRange.closed(30, 30),
+                IntRange.atMost(-5)};
+        IntRangePartitioner partitioner = IntRangePartitioner.of(bins);
+        int[] output = new int[8];
+
+        int[] offsets = partitioner.partition(new int[]{12, 3, -7, 20, 19, 10, 1, -5, 30}, output);
+
+        assertThat(offsets).containsExactly(0, 3, 5, 5, 7);
+        assertThat(output).startsWith(12, 19, 10, 3, 1, -7, -5);
+        assertThat(partitioner.binOf(10)).isEqualTo(0);
+        assertThat(partitioner.binOf(0)).isEqualTo(1);
+        assertThat(partitioner.binOf(20)).isEqualTo(-1);
+        assertThat(partitioner.toString()).isEqualTo("partitioner of 4 bins");
+    }
+
+    @Test
+    public void testParallelPartition() {
+        Random random = new Random(42);
+        IntRange[] bins = new IntRange[100];
+        for (int i = 0; i < bins.length; i++)
+            bins[i] = IntRange.closedOpen(1000 * i, 1000 * i + 1 + random.nextInt(1000));
+        int[] values = random.ints(1_000_000, -10_000, 110_000).toArray();
+        IntRangePartitioner partitioner = IntRangePartitioner.of(bins);
+
+        int[] output = new int[values.length];
+        int[] offsets = partitioner.partition(values, output);
+        int[] parallelOutput = new int[values.length];
+        assertThat(partitioner.parallelPartition(values, parallelOutput)).isEqualTo(offsets);
+        assertThat(parallelOutput).isEqualTo(output);
+
+        for (int bin = 0; bin < bins.length; bin++) {
+            IntRange range = bins[bin];
+            int[] expected = IntStream.of(values).filter(range::contains).toArray();
+            int[] region = IntStream.range(offsets[bin], offsets[bin + 1]).map(i -> output[i]).toArray();
+            assertThat(region).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testEmptyBins() {
+        IntRangePartitioner partitioner = IntRangePartitioner.of(IntRange.closed(1, 1), IntRange.all());
+
+        assertThat(partitioner.partition(new int[]{1, 2}, new int[2])).containsExactly(0, 0, 2);
+        assertThat(IntRangePartitioner.of().partition(new int[]{1}, new int[0])).containsExactly(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOverlappingBinsAreRejected() {
+        IntRangePartitioner.of(IntRange.closedOpen(0, 10), IntRange.open(5, 6), IntRange.openClosed(10, 20));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testShortOutputIsRejected() {
+        IntRangePartitioner.of(IntRange.all()).partition(new int[]{1, 2}, new int[1]);
+    }
+}
@@ -0,0 +1,132 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.RangeStats;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntRangeSetTest {
+    @Test
+    public void testOverlappingAndAdjacentRangesAreCoalesced() {
+        IntRangeSet set = IntRangeSet.of(IntRange.open(5, 8), IntRange.open(1, 3), IntRange.open(2, 4),
+                IntRange.openClosed(10, 12));
+
+        assertThat(set.size()).isEqualTo(2);
+        assertThat(set.lowestValue(0)).isEqualTo(1);
+        assertThat(set.highestValue(0)).isEqualTo(8);
+        assertThat(set.lowestValue(1)).isEqualTo(10);
+        assertThat(set.highestValue(1)).isEqualTo(11);
+    }
+
+    @Test
+    public void testEmptyRangesAreIgnored() {
+        assertThat(IntRangeSet.of(IntRange.closedOpen(4, 4), IntRange.singleton(3))).isEqualTo(IntRangeSet.empty());
+    }
+
+    @Test
+    public void testRangesContainTheSameValuesAsTheSet() {
+        IntRangeSet set = IntRangeSet.of(IntRange.closedOpen(1, 5), IntRange.atMost(-10), IntRange.open(7, 8));
+
+        for (int value = -20; value < 20; value++)
+            assertThat(set.contains(value)).isEqualTo(anyContains(set, value));
+        assertThat(set.contains(Integer.MIN_VALUE)).isTrue();
+        assertThat(set.get(0).hasLowerBound()).as("range reaching the minimum value is unbounded").isFalse();
+    }
+
+    @Test
+    public void testComplement() {
+        IntRangeSet set = IntRangeSet.of(IntRange.open(-5, 5));
+
+        assertThat(set.complement().contains(-5)).isFalse();
+        assertThat(set.complement().contains(-6)).isTrue();
+        assertThat(set.complement().contains(Integer.MAX_VALUE)).isTrue();
+        assertThat(set.complement().complement()).isEqualTo(set);
+        assertThat(IntRangeSet.all().complement()).isEqualTo(IntRangeSet.empty());
+        assertThat(IntRangeSet.empty().complement()).isEqualTo(IntRangeSet.all());
+    }
+
+    @Test
+    public void testIntersectionAndDifference() {
+        IntRangeSet first = IntRangeSet.of(IntRange.open(0, 10), IntRange.open(20, 30));
+        IntRangeSet second = IntRangeSet.of(IntRange.open(5, 25));
+
+        assertThat(first.intersection(second)).isEqualTo(IntRangeSet.of(IntRange.open(5, 10), IntRange.open(20, 25)));
+        assertThat(first.difference(second)).isEqualTo(IntRangeSet.of(IntRange.open(0, 4), IntRange.open(26, 30)));
+    }
+
+    @Test
+    public void testPredicateMatchesContainsForAllShapes() {
+        Random random = new Random(42);
+
+        for (int round = 0; round < 200; round++) {
+            IntRangeSet set = IntRangeSet.empty();
+            int ranges = random.nextInt(10);
+            for (int i = 0; i < ranges; i++) {
+                int lower = random.nextInt(200) - 100;
+                IntRangeSet operand = IntRangeSet.of(IntRange.open(lower, lower + 1 + random.nextInt(20)));
+                set = random.nextBoolean() ? set.union(operand) : set.union(operand.complement()).complement();
+            }
+
+            IntPredicate predicate = set.asPredicate();
+            for (int value = -130; value < 130; value++)
+                assertThat(predicate.test(value)).as("%s contains %d", set, value).isEqualTo(set.contains(value));
+            assertThat(predicate.test(Integer.MIN_VALUE)).isEqualTo(set.contains(Integer.MIN_VALUE));
+            assertThat(predicate.test(Integer.MAX_VALUE)).isEqualTo(set.contains(Integer.MAX_VALUE));
+        }
+    }
+
+    @Test
+    public void testIndexOfAllMatchesIndexOf() {
+        Random random = new Random(3);
+        IntRange[] ranges = new IntRange[500];
+        for (int i = 0; i < ranges.length; i++) {
+            int lower = random.nextInt(100_000);
+            ranges[i] = IntRange.open(lower, lower + 1 + random.nextInt(50));
+        }
+        IntRangeSet set = IntRangeSet.of(ranges);
+        int[] values = random.ints(100_000, -10, 100_100).sorted().toArray();
+        int[] indices = new int[values.length];
+        int[] parallelIndices = new int[values.length];
+
+        set.indexOfAll(values, indices);
+        set.parallelIndexOfAll(values, parallelIndices);
+
+        for (int i = 0; i < values.length; i++)
+            assertThat(indices[i]).isEqualTo(set.indexOf(values[i]));
+        assertThat(parallelIndices).isEqualTo(indices);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIndexOfAllRejectsUnsortedValues() {
+        IntRangeSet.of(IntRange.open(0, 10)).indexOfAll(new int[]{1, 3, 2}, new int[3]);
+    }
+
+    @Test
+    public void testMonitoredLookupsAreRecorded() {
+        IntRangeSet set = IntRangeSet.of(IntRange.open(0, 9), IntRange.open(20, 29), IntRange.open(40, 49));
+        RangeStats stats = RangeStats.named("test-int-range-set");
+        IntRangeSet monitored = set.monitored(stats);
+
+        assertThat(monitored).isEqualTo(set);
+        assertThat(stats.rangeCount()).isEqualTo(3);
+        assertThat(stats.footprintBytes()).isEqualTo(set.footprintBytes());
+        for (int value = -5; value < 55; value++)
+            assertThat(monitored.indexOf(value)).isEqualTo(set.indexOf(value));
+        assertThat(stats.lookups()).isEqualTo(60);
+        assertThat(stats.averageSearchDepth()).isBetween(1.0, 2.0);
+
+        monitored.union(set).contains(0);
+        assertThat(stats.lookups()).isEqualTo(60);
+        RangeStats.remove("test-int-range-set");
+    }
+
+    private static boolean anyContains(IntRangeSet set, int value) {
+        for (IntRange range : set.asRanges())
+            if (range.contains(value))
+                return true;
+        return false;
+    }
+}
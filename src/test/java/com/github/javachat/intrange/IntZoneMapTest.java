@@ -0,0 +1,57 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.BlockMatch;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IntZoneMapTest {
+    @Test
+    public void testSummaries() {
+        IntZoneMap zones = IntZoneMap.of(new int[]{5, 1, 3, 7, 9, 8, 20}, 3);
+
+        assertThat(zones.size()).isEqualTo(7);
+        assertThat(zones.blockCount()).isEqualTo(3);
+        assertThat(zones.summary(0)).isEqualTo(IntRange.open(1, 5));
+        assertThat(zones.summary(2)).isEqualTo(IntRange.closedOpen(19, 20));
+        assertThat(zones.match(0, IntRange.open(0, 8))).isEqualTo(BlockMatch.ALL);
+        assertThat(zones.match(1, IntRange.open(0, 8))).isEqualTo(BlockMatch.SOME);
+        assertThat(zones.match(2, IntRange.open(0, 8))).isEqualTo(BlockMatch.NONE);
+        assertThat(zones.toString()).isEqualTo("zone map of 3 blocks of 3 values");
+    }
+
+    @Test
+    public void testMostlyOrderedValues() {
+        // Timestamps with some jitter: only the blocks at the ends of a query range are scanned
+        Random random = new Random(43);
+        int[] values = new int[100_000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i + random.nextInt(50);
+        IntZoneMap zones = IntZoneMap.of(values, 1000);
+
+        for (int query = 0; query < 100; query++) {
+            int low = random.nextInt(100_000);
+            IntRange range = IntRange.closedOpen(low, low + 5000);
+            int[] expected = IntStream.range(0, values.length).filter(i -> range.contains(values[i])).toArray();
+
+            assertThat(zones.count(values, range)).isEqualTo(expected.length);
+            assertThat(zones.select(values, range)).isEqualTo(expected);
+            long partial = IntStream.range(0, zones.blockCount())
+                    .filter(block -> zones.match(block, range) == BlockMatch.SOME).count();
+            assertThat(partial).isLessThanOrEqualTo(4);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBlockSizeMustBePositive() {
+        IntZoneMap.builder(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testValuesMustBeThoseSummarized() {
+        IntZoneMap.of(new int[10], 4).count(new int[11], IntRange.all());
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.javachat.intrange;
+
+import com.github.javachat.common.BoundType;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MutableIntRangeTest {
+    private static IntRange randomRange(Random random) {
+        BoundType[] types = BoundType.values();
+        int shape = random.nextInt(8);
+        if (shape == 0)
+            return IntRange.all();
+        if (shape == 1)
+            return IntRange.upTo(random.nextInt(20), types[random.nextInt(2)]);
+        if (shape == 2)
+            return IntRange.downTo(random.nextInt(20), types[random.nextInt(2)]);
+
+        int lower = random.nextInt(20);
+        int upper = lower + 1 + random.nextInt(10);
+        return IntRange.range(lower, types[random.nextInt(2)], upper, types[random.nextInt(2)]);
+    }
+
+    @Test
+    public void testQueriesMatchImmutableRange() {
+        Random random = new Random(1);
+        MutableIntRange mutable = new MutableIntRange();
+        MutableIntRange other = new MutableIntRange();
+        MutableIntRange result = new MutableIntRange();
+
+        for (int i = 0; i < 10_000; i++) {
+            IntRange range = randomRange(random);
+            IntRange otherRange = randomRange(random);
+            mutable.set(range);
+            other.set(otherRange);
+
+            for (int value = -2; value < 35; value++)
+                assertThat(mutable.contains(value)).isEqualTo(range.contains(value));
+            assertThat(mutable.encloses(otherRange)).isEqualTo(range.encloses(otherRange));
+            assertThat(mutable.encloses(other)).isEqualTo(range.encloses(otherRange));
+            assertThat(mutable.isConnected(otherRange)).isEqualTo(range.isConnected(otherRange));
+            assertThat(mutable.isConnected(other)).isEqualTo(range.isConnected(otherRange));
+            assertThat(mutable.isEmpty()).isEqualTo(range.isEmpty());
+            assertThat(mutable.freeze()).isEqualTo(range);
+
+            IntRange expected;
+            try {
+                expected = range.intersection(otherRange);
+            } catch (IllegalArgumentException e) {
+                expected = null;
+            }
+            if (expected != null)
+                assertThat(mutable.intersection(other, result).freeze()).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void testIntersectionIntoItself() {
+        MutableIntRange range = new MutableIntRange().setClosed(0, 10);
+
+        range.intersection(IntRange.open(5, 20), range);
+
+        assertThat(range.freeze()).isEqualTo(IntRange.openClosed(5, 10));
+    }
+
+    @Test
+    public void testInvalidEndpointsLeaveRangeUnchanged() {
+        MutableIntRange range = new MutableIntRange().setOpen(1, 3);
+
+        assertThatThrownBy(() -> range.setOpen(5, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> range.setOpen(4, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(range.toString()).isEqualTo("(1..3)");
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.javachat.intrange;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PackedIntRangeSetTest {
+    @Test
+    public void testLookups() {
+        IntRangeSet set = IntRangeSet.of(IntRange.open(1, 5), IntRange.open(10, 20), IntRange.open(22, 23));
+        PackedIntRangeSet packed = PackedIntRangeSet.copyOf(set);
+
+        assertThat(packed.size()).isEqualTo(3);
+        for (int value = -5; value < 30; value++)
+            assertThat(packed.indexOf(value)).as("index of %d", value).isEqualTo(set.indexOf(value));
+        assertThat(packed.toRangeSet()).isEqualTo(set);
+    }
+
+    @Test
+    public void testExtremeValues() {
+        assertThat(PackedIntRangeSet.copyOf(IntRangeSet.all()).toRangeSet()).isEqualTo(IntRangeSet.all());
+
+        IntRangeSet extremes = IntRangeSet.of(IntRange.open(Integer.MIN_VALUE, Integer.MIN_VALUE + 1),
+                IntRange.open(Integer.MAX_VALUE - 1, Integer.MAX_VALUE));
+        PackedIntRangeSet packed = PackedIntRangeSet.copyOf(extremes);
+        assertThat(packed.toRangeSet()).isEqualTo(extremes);
+        assertThat(packed.indexOf(Integer.MAX_VALUE)).isEqualTo(1);
+        assertThat(packed.indexOf(0)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testRandomSetsAgainstRangeSets() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            IntRangeSet.Builder builder = new IntRangeSet.Builder(1000);
+            long low = random.nextInt(1 << 20) - (1 << 19);
+            for (int i = random.nextInt(2000); i > 0; i--) {
+                long gap = random.nextInt(20) == 0 ? random.nextInt(1 << 16) : random.nextInt(10);
+                long length = random.nextInt(4);
+                builder.add((int) low, (int) (low + length));
+                low += length + 2 + gap;
+            }
+            IntRangeSet set = builder.build();
+            PackedIntRangeSet packed = PackedIntRangeSet.copyOf(set);
+
+            assertThat(packed.toRangeSet()).isEqualTo(set);
+            for (int i = 0; i < set.size(); i++) {
+                assertThat(packed.indexOf(set.lowestValue(i))).isEqualTo(i);
+                assertThat(packed.indexOf(set.highestValue(i))).isEqualTo(i);
+                assertThat(packed.contains(set.highestValue(i) + 1)).isEqualTo(set.contains(set.highestValue(i) + 1));
+            }
+            assertThat(packed.footprintBytes()).isLessThan(set.footprintBytes());
+        }
+    }
+
+    @Test
+    public void testBuilderRejectsUnsortedRanges() {
+        PackedIntRangeSet.Builder builder = PackedIntRangeSet.builder().add(IntRange.open(10, 20));
+        assertThatThrownBy(() -> builder.add(IntRange.open(5, 30)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
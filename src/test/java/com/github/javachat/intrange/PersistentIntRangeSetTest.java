@@ -0,0 +1,47 @@
+package com.github.javachat.intrange;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistentIntRangeSetTest {
+    @Test
+    public void testAgainstRangeSets() {
+        Random random = new Random(42);
+        PersistentIntRangeSet set = PersistentIntRangeSet.empty();
+        IntRangeSet model = IntRangeSet.empty();
+        PersistentIntRangeSet snapshot = null;
+        IntRangeSet snapshotModel = null;
+
+        for (int i = 0; i < 20_000; i++) {
+            int low = random.nextInt(1_000_000) - 500_000;
+            IntRange range = i % 1000 == 0
+                    ? IntRange.ofValues(Integer.MIN_VALUE, random.nextBoolean() ? low : Integer.MAX_VALUE)
+                    : IntRange.ofValues(low, low + random.nextInt(i % 3 == 0 ? 50_000 : 100));
+            if (random.nextInt(3) == 0) {
+                set = set.remove(range);
+                model = model.difference(IntRangeSet.of(range));
+            } else {
+                set = set.add(range);
+                model = model.union(IntRangeSet.of(range));
+            }
+            if (i == 10_000) {
+                snapshot = set;
+                snapshotModel = model;
+            }
+        }
+
+        assertThat(set.toRangeSet()).isEqualTo(model);
+        assertThat(snapshot.toRangeSet()).isEqualTo(snapshotModel);
+        assertThat(PersistentIntRangeSet.copyOf(model)).isEqualTo(set);
+        assertThat(set.hashCode()).isEqualTo(model.hashCode());
+        assertThat(snapshot).isNotEqualTo(set);
+        assertThat(PersistentIntRangeSet.empty().hashCode()).isEqualTo(IntRangeSet.empty().hashCode());
+        for (int i = 0; i < 10_000; i++) {
+            int value = random.nextInt(1_200_000) - 600_000;
+            assertThat(set.contains(value)).isEqualTo(model.contains(value));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.javachat.longrange;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ExpiringLongRangeSetTest {
+    private long now;
+
+    @BeforeMethod
+    public void resetClock() {
+        now = 0;
+    }
+
+    @Test
+    public void testExpiry() {
+        ExpiringLongRangeSet set = new ExpiringLongRangeSet(() -> now);
+        set.add(LongRange.open(10, 20), 100);
+        now = 50;
+        set.add(LongRange.open(15, 30), 100);
+
+        now = 99;
+        assertThat(set.contains(12)).isTrue();
+        assertThat(set.toRangeSet()).isEqualTo(LongRangeSet.of(LongRange.open(10, 30)));
+
+        now = 100;
+        assertThat(set.contains(12)).isFalse();
+        assertThat(set.contains(15)).isTrue();
+        assertThat(set.size()).isEqualTo(1);
+
+        now = 150;
+        assertThat(set.contains(20)).isFalse();
+        assertThat(set.isEmpty()).isTrue();
+        assertThat(set.toRangeSet()).isEqualTo(LongRangeSet.empty());
+    }
+
+    @Test
+    public void testAgainstBruteForce() {
+        Random random = new Random(42);
+        ExpiringLongRangeSet set = new ExpiringLongRangeSet(() -> now);
+        // Lowest value, highest value and expiry time of each range
+        List<long[]> ranges = new ArrayList<>();
+
+        for (int step = 0; step < 20_000; step++) {
+            now += random.nextInt(3);
+            if (random.nextBoolean()) {
+                long low = random.nextInt(10_000);
+                long high = low + random.nextInt(100);
+                long timeToLive = 1 + random.nextInt(1000);
+                set.add(LongRange.ofValues(low, high), timeToLive);
+                ranges.add(new long[]{low, high, now + timeToLive});
+            }
+            ranges.removeIf(range -> range[2] <= now);
+
+            long value = random.nextInt(10_100);
+            boolean expected = ranges.stream().anyMatch(range -> range[0] <= value && value <= range[1]);
+            assertThat(set.contains(value)).isEqualTo(expected);
+            assertThat(set.size()).isEqualTo(ranges.size());
+            if (step % 1000 == 0) {
+                List<LongRange> live = new ArrayList<>();
+                ranges.forEach(range -> live.add(LongRange.ofValues(range[0], range[1])));
+                assertThat(set.toRangeSet()).isEqualTo(LongRangeSet.copyOf(live));
+            }
+        }
+        assertThat(set.toString()).isEqualTo("expiring set of " + ranges.size() + " ranges");
+    }
+
+    @Test
+    public void testEndlessTimeToLive() {
+        now = 1000;
+        ExpiringLongRangeSet set = new ExpiringLongRangeSet(() -> now);
+        set.add(LongRange.all(), Long.MAX_VALUE);
+        set.add(LongRange.closed(0, 1), 1);
+
+        now = Long.MAX_VALUE - 1;
+        assertThat(set.contains(Long.MIN_VALUE)).isTrue();
+        assertThat(set.size()).isEqualTo(1);
+        assertThat(set.expire()).isZero();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIllegalTimeToLiveIsRejected() {
+        new ExpiringLongRangeSet(() -> now).add(LongRange.all(), 0);
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.javachat.longrange;
+
+import org.testng.annotations.Test;
+
+import java.util.function.LongPredicate;
+
+import static com.github.javachat.common.Allocations.allocatedBytes;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Lookups, comparisons and set lookups must not allocate; intersections and spans only allocate their result.
+ */
+public class LongRangeAllocationTest {
+    private static final LongRange RANGE = LongRange.closedOpen(0L, 100L);
+    private static final LongRange OTHER = LongRange.open(50L, 150L);
+    private static final LongRange EQUAL = LongRange.closedOpen(0L, 100L);
+
+    // Results are kept so that calls cannot be optimized away
+    private boolean sink;
+    private int hashSink;
+    // Ranges stored here escape, so that the JIT compiler cannot remove their allocation
+    private Object escaped;
+
+    @Test
+    public void testRangeQueriesDoNotAllocate() {
+        assertThat(allocatedBytes(i -> sink ^= RANGE.contains(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.encloses(OTHER))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.isConnected(OTHER))).isZero();
+    }
+
+    @Test
+    public void testObjectMethodsDoNotAllocate() {
+        assertThat(allocatedBytes(i -> hashSink += RANGE.hashCode())).isZero();
+        assertThat(allocatedBytes(i -> sink ^= RANGE.equals(EQUAL))).isZero();
+        assertThat(RANGE.hashCode()).isEqualTo(EQUAL.hashCode());
+    }
+
+    @Test
+    public void testIntersectionOnlyAllocatesItsResult() {
+        final long result = allocatedBytes(i -> escaped = LongRange.closed(50L, 100L));
+
+        assertThat(allocatedBytes(i -> escaped = RANGE.intersection(OTHER))).isEqualTo(result);
+        assertThat(allocatedBytes(i -> escaped = RANGE.span(OTHER))).isEqualTo(result);
+    }
+
+    @Test
+    public void testSetLookupsDoNotAllocate() {
+        final LongRangeSet set = LongRangeSet.of(RANGE, LongRange.open(200L, 300L));
+        final long[] values = new long[1000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i;
+        final int[] indices = new int[values.length];
+        final LongPredicate predicate = set.asPredicate();
+
+        assertThat(allocatedBytes(i -> sink ^= set.contains(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> hashSink += set.indexOf(i % 400))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= set.encloses(OTHER))).isZero();
+        assertThat(allocatedBytes(i -> set.indexOfAll(values, indices))).isZero();
+        assertThat(allocatedBytes(i -> sink ^= predicate.test(i % 400))).isZero();
+    }
+
+    @Test
+    public void testPersistentSetLookupsDoNotAllocate() {
+        // Added one at a time, the ranges are split differently in the leaves than in a copy
+        PersistentLongRangeSet built = PersistentLongRangeSet.empty();
+        for (int i = 0; i < 1000; i++)
+            built = built.add(LongRange.closedOpen(10L * i, 10L * i + 5));
+        final PersistentLongRangeSet set = built;
+        final PersistentLongRangeSet copy = PersistentLongRangeSet.copyOf(set.toRangeSet());
+
+        assertThat(set).isEqualTo(copy);
+        assertThat(allocatedBytes(i -> sink ^= set.contains(i))).isZero();
+        assertThat(allocatedBytes(i -> hashSink += set.hashCode())).isZero();
+        assertThat(allocatedBytes(i -> sink ^= set.equals(copy))).isZero();
+    }
+}
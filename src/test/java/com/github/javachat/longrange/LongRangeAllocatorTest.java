@@ -0,0 +1,277 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.AllocationPolicy;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LongRangeAllocatorTest {
+    @Test
+    public void testFreeCoalescesAdjacentBlocks() {
+        LongRangeAllocator allocator = new LongRangeAllocator(LongRange.closedOpen(-1, 100), AllocationPolicy.FIRST_FIT);
+
+        LongRange first = allocator.allocate(10);
+        LongRange second = allocator.allocate(10);
+        LongRange third = allocator.allocate(10);
+        assertThat(first).isEqualTo(LongRange.ofValues(0, 9));
+        assertThat(allocator.freeBlockCount()).isEqualTo(1);
+
+        allocator.free(first);
+        allocator.free(third);
+        assertThat(allocator.freeBlockCount()).isEqualTo(2);
+        assertThat(allocator.isFree(15)).isFalse();
+        assertThat(allocator.floorFree(15)).isEqualTo(LongRange.ofValues(0, 9));
+        assertThat(allocator.ceilingFree(15)).isEqualTo(LongRange.ofValues(20, 100));
+
+        allocator.free(second);
+        assertThat(allocator.freeBlocks()).isEqualTo(LongRangeSet.of(LongRange.ofValues(0, 100)));
+    }
+
+    @Test
+    public void testBestFitPrefersSmallestBlock() {
+        LongRangeAllocator allocator = new LongRangeAllocator(LongRange.ofValues(0, 99), AllocationPolicy.BEST_FIT);
+        List<LongRange> blocks = new ArrayList<>();
+        for (int i = 0; i < 10; i++)
+            blocks.add(allocator.allocate(10));
+        allocator.free(blocks.get(1));
+        allocator.free(blocks.get(2));
+        allocator.free(blocks.get(5));
+
+        assertThat(allocator.allocate(5)).isEqualTo(LongRange.ofValues(50, 54));
+        assertThat(allocator.ceilingGap(0, 15)).isEqualTo(LongRange.ofValues(10, 24));
+        assertThat(allocator.ceilingGap(12, 8)).isEqualTo(LongRange.ofValues(12, 19));
+        assertThat(allocator.largestFreeBlock()).isEqualTo(LongRange.ofValues(10, 29));
+    }
+
+    @Test
+    public void testErrors() {
+        LongRangeAllocator allocator = new LongRangeAllocator(LongRange.ofValues(0, 9), AllocationPolicy.FIRST_FIT);
+        LongRange range = allocator.allocate(5);
+
+        assertThatThrownBy(() -> allocator.allocate(6)).isInstanceOf(NoSuchElementException.class);
+        assertThatThrownBy(() -> allocator.free(LongRange.ofValues(3, 7))).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> allocator.free(LongRange.ofValues(-1, 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        allocator.free(range);
+        assertThatThrownBy(() -> allocator.free(range)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testUnboundedPool() {
+        LongRangeAllocator allocator = new LongRangeAllocator(LongRange.all(), AllocationPolicy.BEST_FIT);
+
+        assertThat(allocator.allocate(Long.MAX_VALUE)).isEqualTo(LongRange.ofValues(Long.MIN_VALUE, -2));
+        assertThat(allocator.allocate(Long.MAX_VALUE)).isEqualTo(LongRange.ofValues(-1, Long.MAX_VALUE - 2));
+        assertThat(allocator.allocate(2)).isEqualTo(LongRange.ofValues(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+        assertThat(allocator.largestFreeBlock()).isNull();
+    }
+
+    /**
+     * Chooses a free block of the model, kept sorted by lowest value, by scanning all of them.
+     */
+    private static Map.Entry<Long, Long> scan(TreeMap<Long, Long> free, long count, AllocationPolicy policy) {
+        Map.Entry<Long, Long> chosen = null;
+        for (Map.Entry<Long, Long> block : free.entrySet()) {
+            long length = block.getValue() - block.getKey() + 1;
+            if (length < count)
+                continue;
+            if (policy == AllocationPolicy.FIRST_FIT)
+                return block;
+            if (chosen == null || length < chosen.getValue() - chosen.getKey() + 1)
+                chosen = block;
+        }
+        return chosen;
+    }
+
+    @Test
+    public void testPoliciesMatchLinearScan() {
+        for (AllocationPolicy policy : AllocationPolicy.values()) {
+            Random random = new Random(3);
+            LongRangeAllocator allocator = new LongRangeAllocator(LongRange.ofValues(0, 99_999), policy);
+            TreeMap<Long, Long> free = new TreeMap<>();
+            free.put(0L, 99_999L);
+            List<LongRange> allocated = new ArrayList<>();
+
+            for (int i = 0; i < 20_000; i++) {
+                if (allocated.isEmpty() || random.nextInt(5) < 3) {
+                    long count = 1 + random.nextInt(random.nextBoolean() ? 10 : 300);
+                    Map.Entry<Long, Long> block = scan(free, count, policy);
+                    if (block == null) {
+                        assertThatThrownBy(() -> allocator.allocate(count))
+                                .isInstanceOf(NoSuchElementException.class);
+                        continue;
+                    }
+                    long low = block.getKey();
+                    long high = free.remove(low);
+                    LongRange range = allocator.allocate(count);
+                    assertThat(range).isEqualTo(LongRange.ofValues(low, low + count - 1));
+                    if (high > range.highestValue())
+                        free.put(range.highestValue() + 1, high);
+                    allocated.add(range);
+                } else {
+                    LongRange range = allocated.remove(random.nextInt(allocated.size()));
+                    allocator.free(range);
+                    long low = range.lowestValue();
+                    long high = range.highestValue();
+                    Map.Entry<Long, Long> previous = free.lowerEntry(low);
+                    if (previous != null && previous.getValue() + 1 == low) {
+                        low = previous.getKey();
+                        free.remove(low);
+                    }
+                    Long next = free.higherKey(high);
+                    if (next != null && next == high + 1)
+                        high = free.remove(next);
+                    free.put(low, high);
+                }
+
+                if (i % 1000 == 0) {
+                    assertThat(allocator.freeBlockCount()).isEqualTo(free.size());
+                    long value = random.nextInt(100_000);
+                    long count = 1 + random.nextInt(500);
+                    LongRange gap = null;
+                    for (Map.Entry<Long, Long> block : free.entrySet()) {
+                        long from = Math.max(value, block.getKey());
+                        if (block.getValue() - from + 1 >= count) {
+                            gap = LongRange.ofValues(from, from + count - 1);
+                            break;
+                        }
+                    }
+                    assertThat(allocator.ceilingGap(value, count)).isEqualTo(gap);
+                    Map.Entry<Long, Long> largest = null;
+                    for (Map.Entry<Long, Long> block : free.entrySet())
+                        if (largest == null
+                                || block.getValue() - block.getKey() > largest.getValue() - largest.getKey())
+                            largest = block;
+                    assertThat(allocator.largestFreeBlock()).isEqualTo(largest == null ? null
+                            : LongRange.ofValues(largest.getKey(), largest.getValue()));
+                }
+            }
+
+            LongRangeSet.Builder expected = new LongRangeSet.Builder(free.size());
+            for (Map.Entry<Long, Long> block : free.entrySet())
+                expected.add(block.getKey(), block.getValue());
+            assertThat(allocator.freeBlocks()).isEqualTo(expected.build());
+        }
+    }
+
+    @Test
+    public void testFreeAll() {
+        LongRangeAllocator allocator = new LongRangeAllocator(LongRange.ofValues(0, 99), AllocationPolicy.FIRST_FIT);
+        allocator.allocate(100);
+        allocator.free(LongRange.ofValues(50, 59));
+
+        allocator.freeAll(new long[]{0, 10, 60, 90}, new long[]{9, 19, 69, 99}, 4);
+        assertThat(allocator.freeBlocks()).isEqualTo(LongRangeSet.of(LongRange.ofValues(0, 19),
+                LongRange.ofValues(50, 69), LongRange.ofValues(90, 99)));
+
+        // Invalid ranges are skipped and reported once the others are freed
+        assertThatThrownBy(() -> allocator.freeAll(new long[]{20, 55, 80}, new long[]{29, 56, 89}, 3))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(allocator.freeBlocks()).isEqualTo(LongRangeSet.of(LongRange.ofValues(0, 29),
+                LongRange.ofValues(50, 69), LongRange.ofValues(80, 99)));
+    }
+
+    @Test
+    public void testConcurrentFreesAreBufferedThenBatched() {
+        ConcurrentLongRangeAllocator allocator = new ConcurrentLongRangeAllocator(LongRange.ofValues(0, 9_999),
+                AllocationPolicy.FIRST_FIT, 1_000);
+        List<LongRange> ranges = new ArrayList<>();
+        for (int i = 0; i < 2 * ConcurrentLongRangeAllocator.FREE_BATCH_SIZE; i++)
+            ranges.add(allocator.allocate(3));
+
+        // Values still in the chunk are not allocated
+        LongRange last = ranges.remove(ranges.size() - 1);
+        assertThatThrownBy(() -> allocator.free(LongRange.ofValues(last.highestValue() + 1,
+                last.highestValue() + 2))).isInstanceOf(IllegalArgumentException.class);
+
+        // Every other range is buffered, until a batch is full
+        for (int i = 0; i < ConcurrentLongRangeAllocator.FREE_BATCH_SIZE - 1; i++)
+            allocator.free(ranges.get(2 * i));
+        assertThat(allocator.isFree(ranges.get(0).lowestValue())).isFalse();
+        allocator.free(ranges.get(2 * ConcurrentLongRangeAllocator.FREE_BATCH_SIZE - 2));
+        assertThat(allocator.isFree(ranges.get(0).lowestValue())).isTrue();
+
+        allocator.free(last);
+        for (int i = 1; i < ranges.size(); i += 2)
+            allocator.free(ranges.get(i));
+        allocator.releaseCachedChunk();
+        assertThat(allocator.freeBlocks()).isEqualTo(LongRangeSet.of(LongRange.ofValues(0, 9_999)));
+    }
+
+    @Test
+    public void testDoubleFreeNextToTheChunkIsReported() {
+        ConcurrentLongRangeAllocator allocator = new ConcurrentLongRangeAllocator(LongRange.ofValues(0, 9_999),
+                AllocationPolicy.FIRST_FIT, 16);
+        allocator.allocate(5);
+        LongRange last = allocator.allocate(5);
+        allocator.free(last);
+        allocator.free(last);
+
+        assertThatThrownBy(allocator::releaseCachedChunk).isInstanceOf(IllegalArgumentException.class);
+        assertThat(allocator.allocate(16)).isEqualTo(LongRange.ofValues(5, 20));
+        assertThat(allocator.isFree(last.lowestValue())).isFalse();
+    }
+
+    @Test
+    public void testBufferedDoubleFreeIsReportedOnFlush() {
+        ConcurrentLongRangeAllocator allocator = new ConcurrentLongRangeAllocator(LongRange.ofValues(0, 9_999),
+                AllocationPolicy.FIRST_FIT, 16);
+        LongRange first = allocator.allocate(5);
+        allocator.allocate(5);
+        allocator.free(first);
+        allocator.free(first);
+
+        assertThatThrownBy(allocator::releaseCachedChunk).isInstanceOf(IllegalArgumentException.class);
+        assertThat(allocator.isFree(first.lowestValue())).isTrue();
+    }
+
+    @Test
+    public void testConcurrentAllocationsAreDisjoint() throws Exception {
+        ConcurrentLongRangeAllocator allocator = new ConcurrentLongRangeAllocator(LongRange.ofValues(0, 99_999),
+                AllocationPolicy.FIRST_FIT, 64);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<List<LongRange>>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                List<LongRange> ranges = new ArrayList<>();
+                for (int i = 0; i < 2_000; i++)
+                    ranges.add(allocator.allocate(1 + i % 7));
+                for (int i = 0; i < ranges.size(); i += 2)
+                    allocator.free(ranges.get(i));
+                allocator.releaseCachedChunk();
+                return ranges;
+            }));
+        }
+
+        List<LongRange> allocated = new ArrayList<>();
+        long count = 0;
+        for (Future<List<LongRange>> future : futures) {
+            List<LongRange> ranges = future.get();
+            for (int i = 1; i < ranges.size(); i += 2) {
+                allocated.add(ranges.get(i));
+                count += ranges.get(i).highestValue() - ranges.get(i).lowestValue() + 1;
+            }
+        }
+        executor.shutdown();
+
+        LongRangeSet free = allocator.freeBlocks();
+        LongRangeSet used = LongRangeSet.copyOf(allocated);
+        long usedCount = 0;
+        for (int i = 0; i < used.size(); i++)
+            usedCount += used.highestValue(i) - used.lowestValue(i) + 1;
+        assertThat(usedCount).isEqualTo(count);
+        assertThat(free.intersection(used).isEmpty()).isTrue();
+        assertThat(free.union(used)).isEqualTo(LongRangeSet.of(LongRange.ofValues(0, 99_999)));
+    }
+}
@@ -0,0 +1,172 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.BoundType;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LongRangeArrayTest {
+    private static final long[] EXTREMES = {Long.MIN_VALUE, Long.MIN_VALUE + 1, -1, 0, 1, Long.MAX_VALUE - 1,
+            Long.MAX_VALUE};
+
+    private static List<LongRange> randomRanges(Random random, int count) {
+        BoundType[] types = BoundType.values();
+        List<LongRange> ranges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int shape = random.nextInt(8);
+            if (shape == 0) {
+                ranges.add(LongRange.upTo(1 + random.nextInt(100), types[random.nextInt(2)]));
+            } else if (shape == 1) {
+                ranges.add(LongRange.downTo(random.nextInt(100), types[random.nextInt(2)]));
+            } else if (shape == 2) {
+                ranges.add(LongRange.all());
+            } else if (shape == 3) {
+                // Bounded ranges sharing the symbolical endpoints of unbounded ones
+                BoundType type = types[random.nextInt(2)];
+                ranges.add(random.nextBoolean()
+                        ? LongRange.range(Long.MIN_VALUE, type, random.nextInt(100), BoundType.OPEN)
+                        : LongRange.range(random.nextInt(100), BoundType.OPEN, Long.MAX_VALUE, type));
+            } else {
+                long lower = random.nextInt(100);
+                ranges.add(LongRange.range(lower, types[random.nextInt(2)],
+                        lower + 1 + random.nextInt(5), types[random.nextInt(2)]));
+            }
+        }
+        return ranges;
+    }
+
+    private static void assertColumnsMatch(LongRangeArray array, List<LongRange> ranges) {
+        assertThat(array.size()).isEqualTo(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            LongRange range = ranges.get(i);
+            assertThat(array.lowerEndpoint(i)).isEqualTo(range.lowerEndpoint());
+            assertThat(array.upperEndpoint(i)).isEqualTo(range.upperEndpoint());
+            assertThat(array.lowerBoundType(i)).isEqualTo(range.lowerBoundType());
+            assertThat(array.upperBoundType(i)).isEqualTo(range.upperBoundType());
+            assertThat(array.hasLowerBound(i)).isEqualTo(range.hasLowerBound());
+            assertThat(array.hasUpperBound(i)).isEqualTo(range.hasUpperBound());
+            assertThat(array.get(i).toString()).isEqualTo(range.toString());
+        }
+    }
+
+    @Test
+    public void testColumnsMatchRanges() {
+        List<LongRange> ranges = randomRanges(new Random(1), 100);
+        LongRangeArray array = LongRangeArray.copyOf(ranges);
+
+        assertThat(array.asList()).isEqualTo(ranges);
+        assertColumnsMatch(array, ranges);
+        for (int i = 0; i < ranges.size(); i++) {
+            for (int value = -1; value < 110; value++)
+                assertThat(array.containsAt(i, value)).isEqualTo(ranges.get(i).contains(value));
+            for (long value : EXTREMES)
+                assertThat(array.containsAt(i, value)).isEqualTo(ranges.get(i).contains(value));
+            assertThat(array.lowestValue(i)).isEqualTo(ranges.get(i).lowestValue());
+            assertThat(array.highestValue(i)).isEqualTo(ranges.get(i).highestValue());
+            assertThat(array.hasValues(i)).isEqualTo(ranges.get(i).hasValues());
+        }
+    }
+
+    @Test
+    public void testFlagPacking() {
+        // All 16 combinations of the 4 flags, over more than one word of flags and from a capacity of one
+        List<LongRange> ranges = new ArrayList<>();
+        for (int i = 0; i < 3 * 16 + 5; i++) {
+            BoundType lowerType = (i & 1) != 0 ? BoundType.OPEN : BoundType.CLOSED;
+            BoundType upperType = (i & 4) != 0 ? BoundType.OPEN : BoundType.CLOSED;
+            boolean hasLower = (i & 2) != 0;
+            boolean hasUpper = (i & 8) != 0;
+            ranges.add(new LongRange(hasLower ? i : Long.MIN_VALUE, hasLower ? lowerType : BoundType.OPEN, hasLower,
+                    hasUpper ? i + 2 : Long.MAX_VALUE, hasUpper ? upperType : BoundType.OPEN, hasUpper));
+        }
+        LongRangeArray array = new LongRangeArray(1);
+        for (LongRange range : ranges)
+            array.add(range);
+
+        assertColumnsMatch(array, ranges);
+
+        // Cleared flags must not leak into the ranges added next
+        array.clear();
+        List<LongRange> closed = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            closed.add(LongRange.closed(i, i + 2));
+            array.add(i, BoundType.CLOSED, i + 2, BoundType.CLOSED);
+        }
+        assertColumnsMatch(array, closed);
+    }
+
+    @Test
+    public void testAnyContains() {
+        LongRangeArray array = new LongRangeArray(1)
+                .add(LongRange.closed(0, 5))
+                .add(LongRange.open(10, 12))
+                .add(LongRange.greaterThan(Long.MAX_VALUE - 1));
+
+        assertThat(array.anyContains(0)).isFalse();
+        assertThat(array.anyContains(3)).isTrue();
+        assertThat(array.anyContains(7)).isFalse();
+        assertThat(array.anyContains(12)).isTrue();
+        assertThat(array.anyContains(Long.MAX_VALUE)).isTrue();
+        assertThat(array.anyContains(Long.MIN_VALUE)).isFalse();
+    }
+
+    @Test
+    public void testSortByLower() {
+        List<LongRange> ranges = randomRanges(new Random(2), 1000);
+        LongRangeArray array = LongRangeArray.copyOf(ranges);
+
+        array.sortByLower();
+        ranges.sort(Comparator.comparingLong(LongRange::lowerEndpoint));
+
+        assertThat(array.asList()).isEqualTo(ranges);
+        assertColumnsMatch(array, ranges);
+        array.add(LongRange.all());
+        assertThat(array.get(1000)).isEqualTo(LongRange.all());
+    }
+
+    @Test
+    public void testSortByLowerWithExtremes() {
+        List<LongRange> ranges = new ArrayList<>();
+        ranges.add(LongRange.open(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+        ranges.add(LongRange.greaterThan(Long.MAX_VALUE - 1));
+        ranges.add(LongRange.open(Long.MIN_VALUE, 0));
+        ranges.add(LongRange.all());
+        ranges.add(LongRange.open(-1, Long.MAX_VALUE));
+        ranges.add(LongRange.atMost(Long.MIN_VALUE + 1));
+        ranges.add(LongRange.closedOpen(Long.MIN_VALUE, Long.MIN_VALUE + 1));
+        LongRangeArray array = LongRangeArray.copyOf(ranges);
+
+        array.sortByLower();
+
+        // Ties on Long.MIN_VALUE, bounded or not, keep their relative order
+        assertThat(array.asList()).containsExactly(LongRange.open(Long.MIN_VALUE, 0), LongRange.all(),
+                LongRange.atMost(Long.MIN_VALUE + 1), LongRange.closedOpen(Long.MIN_VALUE, Long.MIN_VALUE + 1),
+                LongRange.open(-1, Long.MAX_VALUE), LongRange.open(Long.MAX_VALUE - 1, Long.MAX_VALUE),
+                LongRange.greaterThan(Long.MAX_VALUE - 1));
+        assertThat(array.hasLowerBound(0)).isTrue();
+        assertThat(array.hasLowerBound(1)).isFalse();
+        assertThat(array.hasUpperBound(1)).isFalse();
+        assertThat(array.hasLowerBound(2)).isFalse();
+        assertThat(array.lowerBoundType(3)).isEqualTo(BoundType.CLOSED);
+        assertThat(array.hasUpperBound(6)).isFalse();
+        assertThat(array.containsAt(6, Long.MAX_VALUE)).isTrue();
+        assertThat(array.containsAt(2, Long.MIN_VALUE)).isTrue();
+        assertThat(array.containsAt(3, Long.MIN_VALUE)).isFalse();
+    }
+
+    @Test
+    public void testIndexIsChecked() {
+        LongRangeArray array = new LongRangeArray().add(LongRange.closed(0, 5));
+
+        assertThatThrownBy(() -> array.containsAt(1, 3)).isInstanceOf(IndexOutOfBoundsException.class);
+        array.clear();
+        assertThat(array.isEmpty()).isTrue();
+        assertThatThrownBy(() -> array.get(0)).isInstanceOf(IndexOutOfBoundsException.class);
+    }
+}
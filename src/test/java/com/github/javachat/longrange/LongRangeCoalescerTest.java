@@ -0,0 +1,116 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.ExtremeLongRanges;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.shouldHaveThrown;
+
+public class LongRangeCoalescerTest {
+    private static List<LongRange> coalesce(List<List<LongRange>> sources) {
+        List<Iterator<LongRange>> iterators = new ArrayList<>();
+        for (List<LongRange> source : sources)
+            iterators.add(source.iterator());
+        List<LongRange> output = new ArrayList<>();
+        LongRangeCoalescer.of(iterators).forEachRemaining(output::add);
+        return output;
+    }
+
+    @Test
+    public void testConnectedRangesFromDifferentSourcesAreMerged() {
+        List<Iterator<LongRange>> sources = Arrays.asList(
+                Arrays.asList(LongRange.open(1, 3), LongRange.open(10, 12)).iterator(),
+                Arrays.asList(LongRange.open(4, 5), LongRange.open(20, 22)).iterator(),
+                Collections.<LongRange>emptyIterator());
+
+        List<LongRange> output = new ArrayList<>();
+        LongRangeCoalescer.of(sources).forEachRemaining(output::add);
+
+        assertThat(output).containsExactly(LongRange.open(1, 5), LongRange.open(10, 12), LongRange.open(20, 22));
+    }
+
+    @Test
+    public void testSourcesTouchingMaxValue() {
+        // Once a range reaches Long.MAX_VALUE, the value following it overflows: every later range is connected
+        List<LongRange> output = coalesce(Arrays.asList(
+                Arrays.asList(LongRange.open(1, 3), LongRange.open(Long.MAX_VALUE - 10, Long.MAX_VALUE)),
+                Arrays.asList(LongRange.atLeast(Long.MAX_VALUE - 5), LongRange.greaterThan(Long.MAX_VALUE - 1)),
+                Arrays.asList(LongRange.open(Long.MAX_VALUE - 3, Long.MAX_VALUE - 2),
+                        LongRange.closed(Long.MAX_VALUE - 1, Long.MAX_VALUE))));
+
+        assertThat(output).hasSize(2);
+        assertThat(output.get(0)).isEqualTo(LongRange.open(1, 3));
+        assertThat(output.get(1).toString()).isEqualTo(LongRange.atLeast(Long.MAX_VALUE - 10).toString());
+        assertThat(output.get(1).hasUpperBound()).isFalse();
+    }
+
+    @Test
+    public void testRangesAdjacentToExtremes() {
+        // Ranges ending just before an extreme value and starting at it leave no value between them
+        List<LongRange> output = coalesce(Arrays.asList(
+                Arrays.asList(LongRange.lessThan(Long.MIN_VALUE + 1),
+                        LongRange.open(Long.MAX_VALUE - 4, Long.MAX_VALUE - 1)),
+                Arrays.asList(LongRange.open(Long.MIN_VALUE + 1, Long.MIN_VALUE + 2),
+                        LongRange.greaterThan(Long.MAX_VALUE - 1))));
+
+        assertThat(output).hasSize(2);
+        assertThat(output.get(0).toString()).isEqualTo(LongRange.atMost(Long.MIN_VALUE + 2).toString());
+        assertThat(output.get(0).hasLowerBound()).isFalse();
+        assertThat(output.get(1).toString()).isEqualTo(LongRange.atLeast(Long.MAX_VALUE - 4).toString());
+        assertThat(output.get(1).hasUpperBound()).isFalse();
+    }
+
+    @Test
+    public void testOutputMatchesRangeSet() {
+        Random random = new Random(7);
+        long[] origins = ExtremeLongRanges.origins(2_000);
+        List<LongRange> all = new ArrayList<>();
+        List<Stream<LongRange>> streams = new ArrayList<>();
+
+        for (int source = 0; source < 10; source++) {
+            List<LongRange> ranges = new ArrayList<>();
+            for (long origin : origins) {
+                long lower = origin + random.nextInt(100);
+                for (int i = 0; i < 50; i++) {
+                    long upper = lower + 1 + random.nextInt(10);
+                    ranges.add(random.nextBoolean()
+                            ? LongRange.closedOpen(lower, upper)
+                            : LongRange.open(lower, upper));
+                    lower = upper + random.nextInt(20);
+                }
+            }
+            // Half of the sources reach Long.MAX_VALUE
+            if (source % 2 == 0)
+                ranges.add(LongRange.atLeast(Long.MAX_VALUE - random.nextInt(300)));
+            all.addAll(ranges);
+            streams.add(ranges.stream());
+        }
+
+        List<LongRange> output = LongRangeCoalescer.coalesce(streams).collect(Collectors.toList());
+
+        assertThat(output).isEqualTo(LongRangeSet.copyOf(all).asRanges());
+        assertThat(output.get(output.size() - 1).hasUpperBound()).isFalse();
+    }
+
+    @Test
+    public void testUnsortedSource() {
+        Iterator<LongRange> unsorted = Arrays.asList(LongRange.open(5, 7), LongRange.open(1, 2)).iterator();
+        LongRangeCoalescer coalescer = LongRangeCoalescer.of(Collections.singletonList(unsorted));
+
+        try {
+            coalescer.next();
+            shouldHaveThrown(IllegalStateException.class);
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessage(String.format(LongRangeCoalescer.UNSORTED_SOURCE, 0, "(1..2)", "(5..7)"));
+        }
+    }
+}
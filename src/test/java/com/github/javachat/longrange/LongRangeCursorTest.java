@@ -0,0 +1,85 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.RangeStats;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongRangeCursorTest {
+    private static LongRangeSet randomSet(Random random, int size) {
+        long[] lowest = new long[size];
+        long[] highest = new long[size];
+        long value = -1000L * size;
+        for (int i = 0; i < size; i++) {
+            lowest[i] = value += 1 + random.nextInt(1000);
+            highest[i] = value += random.nextInt(1000);
+        }
+        return LongRangeSet.ofValues(lowest, highest, size);
+    }
+
+    @Test
+    public void testOrderedValues() {
+        Random random = new Random(42);
+        LongRangeSet set = randomSet(random, 10_000);
+        LongRangeCursor cursor = set.cursor();
+
+        for (long value = -11_000_000; value < 11_000_000; value += random.nextInt(300))
+            assertThat(cursor.indexOf(value)).isEqualTo(set.indexOf(value));
+    }
+
+    @Test
+    public void testRandomValues() {
+        Random random = new Random(43);
+        LongRangeSet set = randomSet(random, 1000);
+        LongRangeCursor cursor = set.cursor();
+
+        for (int i = 0; i < 100_000; i++) {
+            long value = random.nextInt(3_000_000) - 1_500_000;
+            if (i % 1000 == 0)
+                value = random.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE;
+            assertThat(cursor.contains(value)).isEqualTo(set.contains(value));
+        }
+    }
+
+    @Test
+    public void testNearlyOrderedLookupsTakeFewSteps() {
+        Random random = new Random(44);
+        RangeStats stats = RangeStats.named("cursor test");
+        stats.reset();
+        LongRangeSet set = randomSet(random, 100_000).monitored(stats);
+        LongRangeCursor cursor = set.cursor();
+
+        // Timestamps slightly out of order
+        for (long value = -90_000_000; value < 90_000_000; value += 100)
+            cursor.indexOf(value - random.nextInt(1000));
+        assertThat(stats.averageSearchDepth()).isLessThan(2.5);
+        RangeStats.remove("cursor test");
+    }
+
+    @Test
+    public void testMapCursor() {
+        LongRangeMap<String> map = LongRangeMap.<String>builder()
+                .put(LongRange.open(0, 9), "a")
+                .put(LongRange.open(20, 29), "b")
+                .put(LongRange.open(30, 39), "c")
+                .build();
+        LongRangeCursor cursor = map.cursor();
+
+        assertThat(map.getValue(cursor.indexOf(5))).isEqualTo("a");
+        assertThat(map.getValue(cursor.indexOf(35))).isEqualTo("c");
+        assertThat(cursor.indexOf(15)).isEqualTo(-1);
+        assertThat(map.getValue(cursor.indexOf(29))).isEqualTo("b");
+        assertThat(cursor.indexOf(-1)).isEqualTo(-1);
+        assertThat(cursor.toString()).isEqualTo("cursor at -1 of 3 ranges");
+    }
+
+    @Test
+    public void testEmptySet() {
+        LongRangeCursor cursor = LongRangeSet.empty().cursor();
+
+        assertThat(cursor.contains(0)).isFalse();
+        assertThat(cursor.contains(Long.MIN_VALUE)).isFalse();
+    }
+}
@@ -0,0 +1,87 @@
+package com.github.javachat.longrange;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongRangeFileSorterTest {
+    private Path directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("ranges");
+    }
+
+    @AfterMethod
+    public void deleteDirectory() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Test
+    public void testSingleRun() throws IOException {
+        List<LongRange> ranges = randomRanges(1000);
+
+        assertThat(sortAndCoalesce(ranges, 1 << 20)).isEqualTo(LongRangeSet.copyOf(ranges).asRanges());
+        try (Stream<Path> paths = Files.list(directory)) {
+            assertThat(paths.count()).as("temporary runs are deleted").isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testSeveralMergePasses() throws IOException {
+        // Runs of about 4000 records, merged two at a time
+        List<LongRange> ranges = randomRanges(50_000);
+
+        assertThat(sortAndCoalesce(ranges, 3 * LongRangeFileSorter.MIN_BUFFER_BYTES))
+                .isEqualTo(LongRangeSet.copyOf(ranges).asRanges());
+        try (Stream<Path> paths = Files.list(directory)) {
+            assertThat(paths.count()).as("temporary runs are deleted").isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testExtremeValues() throws IOException {
+        List<LongRange> ranges = new ArrayList<>();
+        ranges.add(LongRange.atLeast(Long.MAX_VALUE - 1));
+        ranges.add(LongRange.lessThan(Long.MIN_VALUE + 1));
+        ranges.add(LongRange.closedOpen(Long.MAX_VALUE - 10, Long.MAX_VALUE - 2));
+
+        assertThat(sortAndCoalesce(ranges, 1 << 20)).isEqualTo(LongRangeSet.copyOf(ranges).asRanges());
+    }
+
+    private List<LongRange> sortAndCoalesce(List<LongRange> ranges, long memoryBytes) throws IOException {
+        Path input = directory.resolve("input");
+        Path output = directory.resolve("output");
+        LongRangeFileSorter.writeRecords(input, ranges);
+
+        long written = new LongRangeFileSorter(memoryBytes, directory).sortAndCoalesce(input, output);
+
+        List<LongRange> result = new ArrayList<>();
+        LongRangeFileSorter.readRecords(output, result::add);
+        assertThat(result).hasSize((int) written);
+        return result;
+    }
+
+    private static List<LongRange> randomRanges(int count) {
+        Random random = new Random(count);
+        List<LongRange> ranges = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            long lower = random.nextInt(100 * count) * 1_000_000L;
+            ranges.add(LongRange.closedOpen(lower, lower + 1 + random.nextInt(100_000_000)));
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.javachat.longrange;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongRangeFilterTest {
+    @Test
+    public void testNoFalseNegatives() {
+        Random random = new Random(42);
+        long[] keys = random.longs(10_000).toArray();
+        keys[0] = Long.MIN_VALUE;
+        keys[1] = Long.MAX_VALUE;
+        keys[2] = -1;
+        keys[3] = 0;
+        LongRangeFilter filter = LongRangeFilter.of(keys, 0.01);
+
+        for (long key : keys) {
+            assertThat(filter.mightContain(key)).isTrue();
+            assertThat(filter.mightContainAny(LongRange.ofValues(key, key))).isTrue();
+            assertThat(filter.mightContainAny(LongRange.ofValues(Long.MIN_VALUE, key))).isTrue();
+            assertThat(filter.mightContainAny(LongRange.ofValues(key, Long.MAX_VALUE))).isTrue();
+            long width = 1L << random.nextInt(62);
+            long below = (long) (random.nextDouble() * width);
+            long low = key - below > key ? Long.MIN_VALUE : key - below;
+            long high = key + width - below < key ? Long.MAX_VALUE : key + width - below;
+            assertThat(filter.mightContainAny(LongRange.ofValues(low, high))).isTrue();
+        }
+        assertThat(filter.mightContainAny(LongRange.all())).isTrue();
+    }
+
+    @Test
+    public void testFalsePositiveRate() {
+        // Sequential ids with gaps, as in a table, looked up with short ranges between them
+        Random random = new Random(43);
+        long[] keys = new long[100_000];
+        for (int i = 1; i < keys.length; i++)
+            keys[i] = keys[i - 1] + 1 + random.nextInt(1000);
+        LongRangeFilter filter = LongRangeFilter.of(keys, 0.01);
+
+        int keyPositives = 0;
+        int rangePositives = 0;
+        int misses = 0;
+        while (misses < 100_000) {
+            long low = random.nextLong() % (2 * keys[keys.length - 1]);
+            LongRange range = LongRange.ofValues(low, low + 10);
+            if (containsAny(keys, range))
+                continue;
+            misses++;
+            if (filter.mightContain(low))
+                keyPositives++;
+            if (filter.mightContainAny(range))
+                rangePositives++;
+        }
+        assertThat(keyPositives).isBetween(1, 2000);
+        assertThat(rangePositives).isBetween(1, 5000);
+    }
+
+    @Test
+    public void testEmptyFilter() {
+        LongRangeFilter filter = LongRangeFilter.builder(0.1).build();
+
+        assertThat(filter.mightContain(0)).isFalse();
+        assertThat(filter.mightContainAny(LongRange.all())).isFalse();
+        assertThat(filter.serializedSize()).isEqualTo(16);
+        assertThat(filter.toString()).isEqualTo("range filter of 64 bits and 3 hashes");
+    }
+
+    @Test
+    public void testEmptyRange() {
+        LongRangeFilter filter = LongRangeFilter.of(new long[]{5}, 0.01);
+
+        assertThat(filter.mightContainAny(LongRange.closed(5, 6))).isFalse();
+        assertThat(filter.mightContainAny(LongRange.closedOpen(4, 5))).isTrue();
+    }
+
+    @Test
+    public void testSerialization() {
+        Random random = new Random(44);
+        long[] keys = random.longs(1000, -1_000_000, 1_000_000).toArray();
+        LongRangeFilter filter = LongRangeFilter.of(keys, 0.05);
+
+        for (ByteOrder order : new ByteOrder[]{ByteOrder.BIG_ENDIAN, ByteOrder.LITTLE_ENDIAN}) {
+            ByteBuffer buffer = ByteBuffer.allocate(filter.serializedSize() + 3).order(order);
+            buffer.put((byte) 1);
+            filter.writeTo(buffer);
+            assertThat(buffer.position()).isEqualTo(filter.serializedSize() + 1);
+
+            buffer.flip();
+            buffer.get();
+            LongRangeFilter read = LongRangeFilter.readFrom(buffer);
+            assertThat(buffer.position()).isEqualTo(filter.serializedSize() + 1);
+            assertThat(read.toString()).isEqualTo(filter.toString());
+            for (int i = 0; i < 1000; i++) {
+                long low = random.nextInt(3_000_000) - 1_500_000;
+                LongRange range = LongRange.ofValues(low, low + random.nextInt(1000));
+                assertThat(read.mightContainAny(range)).isEqualTo(filter.mightContainAny(range));
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTruncatedFilterIsRejected() {
+        LongRangeFilter filter = LongRangeFilter.of(new long[]{1, 2, 3}, 0.01);
+        ByteBuffer buffer = ByteBuffer.allocate(filter.serializedSize());
+        filter.writeTo(buffer);
+
+        LongRangeFilter.readFrom(ByteBuffer.wrap(buffer.array(), 0, filter.serializedSize() - 1));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testIllegalRateIsRejected() {
+        LongRangeFilter.builder(1);
+    }
+
+    private static boolean containsAny(long[] sortedKeys, LongRange range) {
+        int index = Arrays.binarySearch(sortedKeys, range.lowestValue());
+        if (index >= 0)
+            return true;
+        index = -index - 1;
+        return index < sortedKeys.length && sortedKeys[index] <= range.highestValue();
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.javachat.longrange;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LongRangeMapDeltaTest {
+    @Test
+    public void testBetween() {
+        LongRangeMap<String> before = LongRangeMap.<String>builder()
+                .put(1, 10, "a")
+                .put(11, 20, "b")
+                .put(30, 40, "c")
+                .build();
+        LongRangeMap<String> after = LongRangeMap.<String>builder()
+                .put(1, 10, "a")
+                .put(11, 15, "d")
+                .put(16, 20, "b")
+                .put(35, 50, "c")
+                .build();
+
+        LongRangeMapDelta<String> delta = LongRangeMapDelta.between(before, after);
+
+        assertThat(delta.removed()).isEqualTo(LongRangeSet.of(LongRange.open(30, 34)));
+        assertThat(delta.puts()).isEqualTo(LongRangeMap.<String>builder()
+                .put(11, 15, "d")
+                .put(16, 20, "b")
+                .put(35, 50, "c")
+                .build());
+        assertThat(delta.applyTo(before)).isEqualTo(after);
+        assertThat(LongRangeMapDelta.between(after, after)).isSameAs(LongRangeMapDelta.empty());
+        assertThat(LongRangeMapDelta.<String>empty().applyTo(after)).isSameAs(after);
+    }
+
+    @Test
+    public void testRandomVersions() {
+        Random random = new Random(42);
+        LongRangeMap<Integer> before = LongRangeMap.empty();
+        for (int i = 0; i < 300; i++) {
+            LongRangeMap<Integer> after = randomMap(random);
+
+            LongRangeMapDelta<Integer> delta = LongRangeMapDelta.between(before, after);
+            ByteBuffer buffer = ByteBuffer.allocate(delta.keysSize() + 4 * delta.puts().size());
+            delta.writeTo(buffer, (value, output) -> output.putInt(value));
+            assertThat(buffer.hasRemaining()).isFalse();
+            buffer.flip();
+            LongRangeMapDelta<Integer> read = LongRangeMapDelta.readFrom(buffer, ByteBuffer::getInt);
+
+            assertThat(read).isEqualTo(delta);
+            assertThat(read.applyTo(before)).isEqualTo(after);
+            before = after;
+        }
+    }
+
+    private static LongRangeMap<Integer> randomMap(final Random random) {
+        LongRangeMap.Builder<Integer> builder = LongRangeMap.builder();
+        long low = random.nextBoolean() ? Long.MIN_VALUE : random.nextInt(100);
+        for (int j = random.nextInt(20); j > 0 && low < Long.MAX_VALUE; j--) {
+            long high = j == 1 && random.nextBoolean() ? Long.MAX_VALUE : low + random.nextInt(100);
+            builder.put(low, high, random.nextInt(3));
+            if (high == Long.MAX_VALUE)
+                break;
+            low = high + 1 + random.nextInt(3) * random.nextInt(50);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testMalformedDelta() {
+        LongRangeMapDelta<Integer> delta = LongRangeMapDelta.between(
+                LongRangeMap.<Integer>builder().put(1, 10, 1).put(20, 30, 2).build(),
+                LongRangeMap.<Integer>builder().put(5, 25, 3).build());
+        ByteBuffer buffer = ByteBuffer.allocate(delta.keysSize() + 4 * delta.puts().size());
+        delta.writeTo(buffer, (value, output) -> output.putInt(value));
+
+        for (int size = 0; size < buffer.capacity(); size++) {
+            ByteBuffer truncated = ByteBuffer.wrap(buffer.array(), 0, size);
+            assertThatThrownBy(() -> LongRangeMapDelta.readFrom(truncated, input -> {
+                if (input.remaining() < Integer.BYTES)
+                    throw new IllegalArgumentException("truncated value");
+                return input.getInt();
+            })).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        // Keys both removed and put
+        ByteBuffer overlapping = ByteBuffer.allocate(64);
+        LongRangeSetDelta.writeRanges(overlapping, LongRangeSet.of(LongRange.open(1, 5)));
+        LongRangeSetDelta.writeVarLong(overlapping, 1);
+        LongRangeSetDelta.writeVarLong(overlapping, 5 ^ Long.MIN_VALUE);
+        LongRangeSetDelta.writeVarLong(overlapping, 0);
+        overlapping.putInt(7);
+        overlapping.flip();
+        assertThatThrownBy(() -> LongRangeMapDelta.readFrom(overlapping, ByteBuffer::getInt))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
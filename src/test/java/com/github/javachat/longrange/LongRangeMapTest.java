@@ -0,0 +1,105 @@
+package com.github.javachat.longrange;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LongRangeMapTest {
+    @Test
+    public void testPutTrimsOverlappedEntries() {
+        LongRangeMap<String> map = LongRangeMap.<String>empty()
+                .put(LongRange.ofValues(0, 99), "a")
+                .put(LongRange.ofValues(200, 299), "b")
+                .put(LongRange.ofValues(50, 249), "c");
+
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.asRanges()).containsExactly(LongRange.ofValues(0, 49), LongRange.ofValues(50, 249),
+                LongRange.ofValues(250, 299));
+        assertThat(map.get(49)).isEqualTo("a");
+        assertThat(map.get(50)).isEqualTo("c");
+        assertThat(map.get(250)).isEqualTo("b");
+        assertThat(map.get(300)).isNull();
+        assertThat(map.domain()).isEqualTo(LongRangeSet.of(LongRange.ofValues(0, 299)));
+
+        LongRangeMap<String> removed = map.remove(LongRange.ofValues(40, 259));
+        assertThat(removed.asRanges()).containsExactly(LongRange.ofValues(0, 39), LongRange.ofValues(260, 299));
+        assertThat(removed.remove(LongRange.all())).isSameAs(LongRangeMap.empty());
+        assertThat(map.get(100)).isEqualTo("c");
+    }
+
+    @Test
+    public void testSplitAndMerge() {
+        LongRangeMap<String> map = LongRangeMap.of(LongRange.all(), "a")
+                .split(0, "b")
+                .split(1000, "c");
+
+        assertThat(map.asRanges()).containsExactly(LongRange.ofValues(Long.MIN_VALUE, -1),
+                LongRange.ofValues(0, 999), LongRange.ofValues(1000, Long.MAX_VALUE));
+        assertThat(map.get(Long.MIN_VALUE)).isEqualTo("a");
+        assertThat(map.get(999)).isEqualTo("b");
+        assertThat(map.get(Long.MAX_VALUE)).isEqualTo("c");
+
+        LongRangeMap<String> merged = map.merge(500, "d");
+        assertThat(merged.asRanges()).containsExactly(LongRange.ofValues(Long.MIN_VALUE, -1),
+                LongRange.ofValues(0, Long.MAX_VALUE));
+        assertThat(merged.get(1000)).isEqualTo("d");
+        assertThat(merged.getValue(0)).isEqualTo("a");
+
+        assertThatThrownBy(() -> map.split(1000, "e")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> map.merge(1000, "e")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> map.remove(LongRange.ofValues(0, 0)).merge(-1, "e"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testForEachDifference() {
+        LongRangeMap<String> before = LongRangeMap.of(LongRange.ofValues(0, 99), "a")
+                .put(LongRange.ofValues(100, 199), "b");
+        LongRangeMap<String> after = before.split(50, "a")
+                .put(LongRange.ofValues(150, 249), "c");
+
+        List<String> changes = new ArrayList<>();
+        before.forEachDifference(after, (range, from, to) -> changes.add(range + " " + from + "->" + to));
+        assertThat(changes).containsExactly("(150..199) b->c", "(200..249) null->c");
+        assertThat(before.differingKeys(after)).isEqualTo(LongRangeSet.of(LongRange.ofValues(150, 249)));
+        assertThat(after.differingKeys(after)).isEqualTo(LongRangeSet.empty());
+    }
+
+    @Test
+    public void testRandomUpdatesMatchNaiveMap() {
+        Random random = new Random(37);
+        String[] naive = new String[200];
+        LongRangeMap<String> map = LongRangeMap.empty();
+
+        for (int round = 0; round < 2000; round++) {
+            long low = random.nextInt(naive.length);
+            long high = Math.min(naive.length - 1, low + random.nextInt(30));
+            String value = random.nextInt(4) == 0 ? null : String.valueOf((char) ('a' + random.nextInt(3)));
+            LongRangeMap<String> previous = map;
+            map = value == null ? map.remove(LongRange.ofValues(low, high)) : map.put(LongRange.ofValues(low, high), value);
+            for (long key = low; key <= high; key++)
+                naive[(int) key] = value;
+
+            for (int key = 0; key < naive.length; key++)
+                assertThat(map.get(key)).isEqualTo(naive[key]);
+            for (int i = 1; i < map.size(); i++)
+                assertThat(map.lowestValue(i)).isGreaterThan(map.highestValue(i - 1));
+
+            List<Long> changed = new ArrayList<>();
+            previous.forEachDifference(map, (range, from, to) -> {
+                for (long key = range.lowestValue(); key <= range.highestValue(); key++)
+                    changed.add(key);
+            });
+            for (long key : changed)
+                assertThat(previous.get(key)).isNotEqualTo(map.get(key));
+            for (int key = 0; key < naive.length; key++)
+                assertThat(changed.contains((long) key))
+                        .isEqualTo(previous.get(key) == null ? map.get(key) != null : !previous.get(key).equals(map.get(key)));
+        }
+    }
+}
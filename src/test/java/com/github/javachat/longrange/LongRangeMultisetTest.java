@@ -0,0 +1,130 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.ExtremeLongRanges;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LongRangeMultisetTest {
+    // Ranges stay within 100 values of an origin, some of which are next to both extremes
+    private static final long[] ORIGINS = ExtremeLongRanges.origins(100);
+
+    private static long coverage(List<LongRange> ranges, List<Long> occurrences, long value) {
+        long count = 0;
+        for (int i = 0; i < ranges.size(); i++)
+            if (ranges.get(i).contains(value))
+                count += occurrences.get(i);
+        return count;
+    }
+
+    @Test
+    public void testMatchesBruteForce() {
+        Random random = new Random(1);
+        LongRangeMultiset multiset = new LongRangeMultiset();
+        List<LongRange> ranges = new ArrayList<>();
+        List<Long> occurrences = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            LongRange range = ExtremeLongRanges.range(random, ORIGINS, 90, 9);
+            long count = 1 + random.nextInt(3);
+            multiset.add(range, count);
+            ranges.add(range);
+            occurrences.add(count);
+
+            if (i % 50 == 49) {
+                // Coverage only changes within 100 values of an origin, so that the values around them are enough
+                long[] coverage = new long[ORIGINS.length * 102];
+                long max = 0;
+                for (int o = 0; o < ORIGINS.length; o++) {
+                    for (int offset = 0; offset < 102; offset++) {
+                        long value = ORIGINS[o] + offset - 1;
+                        long expected = coverage(ranges, occurrences, value);
+                        coverage[o * 102 + offset] = expected;
+                        assertThat(multiset.coverCount(value)).as("%d", value).isEqualTo(expected);
+                        max = Math.max(max, expected);
+                    }
+                }
+                assertThat(multiset.maxOverlap()).isEqualTo(max);
+                assertThat(multiset.coverCount(Long.MIN_VALUE))
+                        .isEqualTo(coverage(ranges, occurrences, Long.MIN_VALUE));
+                assertThat(multiset.coverCount(Long.MAX_VALUE))
+                        .isEqualTo(coverage(ranges, occurrences, Long.MAX_VALUE));
+
+                for (int query = 0; query < 100; query++) {
+                    int o = random.nextInt(ORIGINS.length);
+                    // Values from the origin, not to wrap around at the extremes
+                    int from = 1 + random.nextInt(100);
+                    int to = Math.min(100, from + random.nextInt(20));
+                    long expected = 0;
+                    for (int offset = from; offset <= to; offset++)
+                        expected = Math.max(expected, coverage[o * 102 + offset]);
+                    LongRange within = LongRange.ofValues(ORIGINS[o] + from - 1, ORIGINS[o] + to - 1);
+                    assertThat(multiset.maxOverlap(within)).isEqualTo(expected);
+                }
+
+                long threshold = max / 2 + 1;
+                LongRangeSet covered = multiset.coveredAtLeast(threshold);
+                for (int o = 0; o < ORIGINS.length; o++)
+                    for (int offset = 0; offset < 102; offset++)
+                        assertThat(covered.contains(ORIGINS[o] + offset - 1))
+                                .isEqualTo(coverage[o * 102 + offset] >= threshold);
+            }
+        }
+    }
+
+    @Test
+    public void testUnboundedRanges() {
+        LongRangeMultiset multiset = new LongRangeMultiset()
+                .add(LongRange.all())
+                .add(LongRange.atLeast(10), 2)
+                .add(LongRange.atMost(20));
+
+        assertThat(multiset.coverCount(Long.MIN_VALUE)).isEqualTo(2);
+        assertThat(multiset.coverCount(15)).isEqualTo(4);
+        assertThat(multiset.coverCount(Long.MAX_VALUE)).isEqualTo(3);
+        assertThat(multiset.coveredAtLeast(3)).isEqualTo(LongRangeSet.of(LongRange.atLeast(10)));
+        assertThat(multiset.maxOverlap(LongRange.atMost(9))).isEqualTo(2);
+    }
+
+    @Test
+    public void testExtremes() {
+        LongRangeMultiset multiset = new LongRangeMultiset()
+                .add(LongRange.open(Long.MIN_VALUE, Long.MIN_VALUE + 1), 3)
+                .add(LongRange.lessThan(Long.MIN_VALUE + 1))
+                .add(LongRange.greaterThan(Long.MAX_VALUE - 1), 5)
+                .add(LongRange.open(Long.MAX_VALUE - 1, Long.MAX_VALUE), 2)
+                // Holds no value, and is ignored
+                .add(LongRange.closed(Long.MAX_VALUE - 1, Long.MAX_VALUE), 7);
+
+        assertThat(multiset.coverCount(Long.MIN_VALUE)).isEqualTo(4);
+        assertThat(multiset.coverCount(Long.MIN_VALUE + 1)).isEqualTo(3);
+        assertThat(multiset.coverCount(Long.MIN_VALUE + 2)).isZero();
+        assertThat(multiset.coverCount(0)).isZero();
+        assertThat(multiset.coverCount(Long.MAX_VALUE - 2)).isZero();
+        assertThat(multiset.coverCount(Long.MAX_VALUE - 1)).isEqualTo(2);
+        assertThat(multiset.coverCount(Long.MAX_VALUE)).isEqualTo(7);
+        assertThat(multiset.maxOverlap()).isEqualTo(7);
+        assertThat(multiset.maxOverlap(LongRange.atMost(0))).isEqualTo(4);
+        assertThat(multiset.maxOverlap(LongRange.open(0, Long.MAX_VALUE - 1))).isEqualTo(2);
+        assertThat(multiset.coveredAtLeast(3)).isEqualTo(LongRangeSet.of(
+                LongRange.open(Long.MIN_VALUE, Long.MIN_VALUE + 1), LongRange.greaterThan(Long.MAX_VALUE - 1)));
+        assertThat(multiset.coveredAtLeast(8)).isEqualTo(LongRangeSet.empty());
+    }
+
+    @Test
+    public void testEmptyAndInvalid() {
+        LongRangeMultiset multiset = new LongRangeMultiset();
+
+        assertThat(multiset.isEmpty()).isTrue();
+        assertThat(multiset.coverCount(Long.MAX_VALUE)).isZero();
+        assertThat(multiset.maxOverlap()).isZero();
+        assertThat(multiset.coveredAtLeast(0)).isEqualTo(LongRangeSet.all());
+        assertThat(multiset.coveredAtLeast(1)).isEqualTo(LongRangeSet.empty());
+        assertThatThrownBy(() -> multiset.add(LongRange.all(), 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,116 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.BoundType;
+import com.github.javachat.common.ExtremeLongRanges;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongRangeOverlapJoinTest {
+    // Ranges are drawn around zero and next to both extremes, far enough from Long.MAX_VALUE not to overflow
+    private static final long[] ORIGINS = ExtremeLongRanges.origins(1_000_200);
+
+    private static List<LongRange> randomRanges(Random random, int count, int spread, int maxLength) {
+        List<LongRange> ranges = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            ranges.add(ExtremeLongRanges.boundedRange(random, ORIGINS, spread, maxLength));
+        return ranges;
+    }
+
+    private static boolean overlap(LongRange first, LongRange second) {
+        return first.hasValues() && second.hasValues()
+                && Math.max(first.lowestValue(), second.lowestValue())
+                <= Math.min(first.highestValue(), second.highestValue());
+    }
+
+    private static Set<Long> nestedLoops(List<LongRange> left, List<LongRange> right) {
+        Set<Long> expected = new HashSet<>();
+        for (int l = 0; l < left.size(); l++)
+            for (int r = 0; r < right.size(); r++)
+                if (overlap(left.get(l), right.get(r)))
+                    expected.add((long) l << 32 | r);
+        return expected;
+    }
+
+    @Test
+    public void testBoundTypesAtSharedEndpoints() {
+        List<LongRange> left = new ArrayList<>();
+        left.add(LongRange.openClosed(1, 5));
+        left.add(LongRange.open(1, 5));
+        List<LongRange> right = new ArrayList<>();
+        right.add(LongRange.open(5, 9));
+        right.add(LongRange.closed(5, 6));
+
+        List<String> pairs = new ArrayList<>();
+        LongRangeOverlapJoin.of(left, right).forEachOverlap((l, r) -> pairs.add(l + "-" + r));
+
+        assertThat(pairs).containsExactly("1-0");
+    }
+
+    @Test
+    public void testUnboundedRangesAndExtremes() {
+        List<LongRange> left = new ArrayList<>();
+        left.add(LongRange.all());
+        left.add(LongRange.atMost(Long.MIN_VALUE + 1));
+        left.add(LongRange.greaterThan(Long.MAX_VALUE - 1));
+        left.add(LongRange.closed(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+        List<LongRange> right = new ArrayList<>();
+        right.add(LongRange.open(Long.MIN_VALUE, Long.MIN_VALUE + 1));
+        right.add(LongRange.atLeast(Long.MAX_VALUE - 1));
+        right.add(LongRange.lessThan(Long.MIN_VALUE + 1));
+        right.add(LongRange.closedOpen(Long.MAX_VALUE - 1, Long.MAX_VALUE));
+
+        List<String> pairs = new ArrayList<>();
+        LongRangeOverlapJoin.of(left, right).forEachOverlap((l, r) -> pairs.add(l + "-" + r));
+
+        // closed(Long.MAX_VALUE - 1, Long.MAX_VALUE) holds no value and overlaps nothing
+        assertThat(pairs).containsOnly("0-0", "0-1", "0-2", "0-3", "1-0", "1-2", "2-1", "2-3");
+        assertThat(pairs).hasSize(8);
+    }
+
+    @Test
+    public void testMatchesNestedLoops() {
+        Random random = new Random(1);
+        List<LongRange> left = randomRanges(random, 500, 1000, 20);
+        List<LongRange> right = randomRanges(random, 300, 1000, 50);
+        left.add(LongRange.all());
+        left.add(LongRange.greaterThan(ORIGINS[2] + 500));
+        right.add(LongRange.upTo(ORIGINS[0] + 100, BoundType.OPEN));
+        right.add(LongRange.atLeast(ORIGINS[1] + 50));
+
+        Set<Long> expected = nestedLoops(left, right);
+
+        List<Long> actual = new ArrayList<>();
+        LongRangeOverlapJoin.of(LongRangeArray.copyOf(left), LongRangeArray.copyOf(right))
+                .forEachOverlap((l, r) -> actual.add((long) l << 32 | r));
+
+        assertThat(actual).hasSameSizeAs(expected);
+        assertThat(new HashSet<>(actual)).isEqualTo(expected);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        Random random = new Random(2);
+        List<LongRange> left = randomRanges(random, 60_000, 1_000_000, 50);
+        List<LongRange> right = randomRanges(random, 40_000, 1_000_000, 200);
+        left.add(LongRange.atMost(Long.MIN_VALUE + 1_000));
+        right.add(LongRange.atLeast(Long.MAX_VALUE - 1_000));
+        right.add(LongRange.all());
+        LongRangeOverlapJoin join = LongRangeOverlapJoin.of(left, right);
+
+        Set<Long> sequential = new HashSet<>();
+        join.forEachOverlap((l, r) -> sequential.add((long) l << 32 | r));
+        Set<Long> parallel = ConcurrentHashMap.newKeySet();
+        join.parallelForEachOverlap((l, r) -> assertThat(parallel.add((long) l << 32 | r)).isTrue());
+
+        assertThat(sequential).isNotEmpty();
+        assertThat(parallel).isEqualTo(sequential);
+    }
+}
@@ -0,0 +1,104 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.BoundType;
+import com.github.javachat.common.RangeScanner;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.shouldHaveThrown;
+
+public class LongRangeParserTest {
+    private final LongRangeParser parser = new LongRangeParser();
+
+    @DataProvider
+    public Object[][] ranges() {
+        return new Object[][]{
+                {LongRange.closedOpen(1, 5)},
+                {LongRange.open(-7, 3)},
+                {LongRange.closed(Long.MIN_VALUE, Long.MAX_VALUE)},
+                {LongRange.open(Long.MIN_VALUE, Long.MAX_VALUE)},
+                {LongRange.upTo(3, BoundType.CLOSED)},
+                {LongRange.atLeast(-12)},
+                {LongRange.atMost(Long.MAX_VALUE)},
+                {LongRange.all()},
+        };
+    }
+
+    @Test(dataProvider = "ranges")
+    public void testToStringRoundTrip(LongRange range) {
+        LongRange parsed = parser.parse(range.toString());
+
+        assertThat(parsed.toString()).isEqualTo(range.toString());
+        assertThat(parsed.hasLowerBound()).isEqualTo(range.hasLowerBound());
+        assertThat(parsed.hasUpperBound()).isEqualTo(range.hasUpperBound());
+    }
+
+    @Test
+    public void testExtremes() {
+        LongRange range = parser.parse("[-9223372036854775808..+9223372036854775807]");
+
+        assertThat(range.lowerEndpoint()).isEqualTo(Long.MIN_VALUE);
+        assertThat(range.upperEndpoint()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testOverflow() {
+        for (String number : Arrays.asList("9223372036854775808", "-9223372036854775809", "10000000000000000000",
+                "-92233720368547758080", "99999999999999999999999")) {
+            try {
+                parser.parse("[0.." + number + "]");
+                shouldHaveThrown(IllegalArgumentException.class);
+            } catch (IllegalArgumentException e) {
+                assertThat(e).hasMessage(String.format(RangeScanner.NUMBER_OUT_OF_RANGE, number));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidSyntax() {
+        for (String text : Arrays.asList("1..5", "[1,5)", "[1..5", "[..5]", "[1.5..6]", "[-..5]", "[1e3..5]")) {
+            try {
+                parser.parse(text);
+                shouldHaveThrown(IllegalArgumentException.class);
+            } catch (IllegalArgumentException e) {
+                assertThat(e).hasMessageStartingWith("invalid");
+            }
+        }
+    }
+
+    @Test
+    public void testByteBuffers() {
+        String text = "x [-9223372036854775808..Infinity) y";
+        ByteBuffer heap = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        heap.position(2).limit(text.length() - 2);
+        ByteBuffer direct = ByteBuffer.allocateDirect(text.length());
+        direct.put(text.getBytes(StandardCharsets.UTF_8));
+        direct.position(2);
+        direct.limit(text.length() - 2);
+
+        for (ByteBuffer buffer : Arrays.asList(heap, direct)) {
+            LongRange range = parser.parse(buffer);
+
+            assertThat(range.lowerEndpoint()).isEqualTo(Long.MIN_VALUE);
+            assertThat(range.hasUpperBound()).isFalse();
+            assertThat(buffer.position()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    public void testByteBufferErrorsOnlyShowTheNumber() {
+        ByteBuffer buffer = ByteBuffer.wrap("[0..9223372036854775808]".getBytes(StandardCharsets.UTF_8));
+
+        try {
+            parser.parse(buffer);
+            shouldHaveThrown(IllegalArgumentException.class);
+        } catch (IllegalArgumentException e) {
+            assertThat(e).hasMessage(String.format(RangeScanner.NUMBER_OUT_OF_RANGE, "9223372036854775808"));
+        }
+    }
+}
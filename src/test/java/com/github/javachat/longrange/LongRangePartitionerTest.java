@@ -0,0 +1,40 @@
+package com.github.javachat.longrange;
+
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongRangePartitionerTest {
+    @Test
+    public void testParallelPartition() {
+        Random random = new Random(42);
+        LongRange[] bins = {LongRange.lessThan(-1L << 40), LongRange.closedOpen(0, 1L << 40),
+                LongRange.atLeast(Long.MAX_VALUE - 1000)};
+        long[] values = new long[500_000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = i % 10 == 0 ? Long.MAX_VALUE - random.nextInt(2000) : random.nextLong() >> 22;
+        LongRangePartitioner partitioner = LongRangePartitioner.of(bins);
+
+        long[] output = new long[values.length];
+        int[] offsets = partitioner.partition(values, output);
+        long[] parallelOutput = new long[values.length];
+        assertThat(partitioner.parallelPartition(values, parallelOutput)).isEqualTo(offsets);
+        assertThat(parallelOutput).isEqualTo(output);
+
+        for (int bin = 0; bin < bins.length; bin++) {
+            LongRange range = bins[bin];
+            long[] expected = LongStream.of(values).filter(range::contains).toArray();
+            long[] region = IntStream.range(offsets[bin], offsets[bin + 1]).mapToLong(i -> output[i]).toArray();
+            assertThat(region).isEqualTo(expected);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOverlappingBinsAreRejected() {
+        LongRangePartitioner.of(LongRange.atLeast(0), LongRange.open(Long.MAX_VALUE, Long.MAX_VALUE));
+    }
+}
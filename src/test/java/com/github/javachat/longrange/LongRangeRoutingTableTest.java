@@ -0,0 +1,91 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.RangeStats;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongRangeRoutingTableTest {
+    @Test
+    public void testVersionsAreImmutable() {
+        LongRangeRoutingTable<String> table =
+                new LongRangeRoutingTable<>(LongRangeMap.of(LongRange.ofValues(0, 999), "shard-0"));
+        LongRangeRoutingTable.Version<String> initial = table.current();
+
+        LongRangeRoutingTable.Version<String> split = table.split(500, "shard-1");
+        assertThat(split.number()).isEqualTo(1);
+        assertThat(table.route(499)).isEqualTo("shard-0");
+        assertThat(table.route(500)).isEqualTo("shard-1");
+        assertThat(initial.route(500)).isEqualTo("shard-0");
+        assertThat(initial.differingKeys(split)).isEqualTo(LongRangeSet.of(LongRange.ofValues(500, 999)));
+
+        assertThat(table.update(routes -> routes)).isSameAs(split);
+        assertThat(table.compareAndPublish(initial, LongRangeMap.empty())).isNull();
+
+        LongRangeRoutingTable.Version<String> merged = table.merge(0, "shard-2");
+        assertThat(merged.number()).isEqualTo(2);
+        assertThat(merged.routes().size()).isEqualTo(1);
+        assertThat(table.route(999)).isEqualTo("shard-2");
+        assertThat(table.toString()).isEqualTo("v2 {(0..999)=shard-2}");
+    }
+
+    @Test
+    public void testMonitoredTableRecordsLookupsOfAllVersions() {
+        RangeStats stats = RangeStats.named("test-routing-table");
+        LongRangeRoutingTable<String> table =
+                new LongRangeRoutingTable<>(LongRangeMap.of(LongRange.ofValues(0, 999), "shard-0"), stats);
+        assertThat(stats.rangeCount()).isEqualTo(1);
+
+        table.route(10);
+        table.split(500, "shard-1");
+        assertThat(stats.rangeCount()).isEqualTo(2);
+        assertThat(stats.footprintBytes()).isEqualTo(table.current().routes().footprintBytes());
+        table.route(10);
+        table.current().route(600);
+        // The split looks up its key too
+        assertThat(stats.lookups()).isEqualTo(4);
+        RangeStats.remove("test-routing-table");
+    }
+
+    @Test
+    public void testLookupsDuringRebalancing() throws Exception {
+        // Every key is always routed, to a shard whose number does not decrease
+        LongRangeRoutingTable<Integer> table =
+                new LongRangeRoutingTable<>(LongRangeMap.of(LongRange.ofValues(0, 1 << 20), 0));
+        AtomicBoolean done = new AtomicBoolean();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Long> lookups = executor.submit(() -> {
+                long count = 0;
+                int last = 0;
+                while (!done.get()) {
+                    Integer shard = table.route(1 << 19);
+                    assertThat(shard).isNotNull().isGreaterThanOrEqualTo(last);
+                    last = shard;
+                    count++;
+                }
+                return count;
+            });
+            Future<?> updates = executor.submit(() -> {
+                for (int shard = 1; shard <= 1000; shard++) {
+                    final int target = shard;
+                    table.split(shard, target);
+                    table.assign(LongRange.ofValues(1 << 19, 1 << 19), target);
+                }
+                done.set(true);
+            });
+
+            updates.get();
+            assertThat(lookups.get()).isPositive();
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(table.current().number()).isEqualTo(2000);
+        assertThat(table.route(1 << 19)).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,115 @@
+package com.github.javachat.longrange;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class LongRangeSetDeltaTest {
+    @Test
+    public void testBetween() {
+        LongRangeSet before = LongRangeSet.of(LongRange.open(1, 10), LongRange.open(20, 30));
+        LongRangeSet after = LongRangeSet.of(LongRange.open(5, 10), LongRange.open(20, 35));
+
+        LongRangeSetDelta delta = LongRangeSetDelta.between(before, after);
+
+        assertThat(delta.added()).isEqualTo(LongRangeSet.of(LongRange.open(31, 35)));
+        assertThat(delta.removed()).isEqualTo(LongRangeSet.of(LongRange.open(1, 4)));
+        assertThat(delta.applyTo(before)).isEqualTo(after);
+        assertThat(delta.applyTo(PersistentLongRangeSet.copyOf(before)).toRangeSet()).isEqualTo(after);
+        assertThat(delta.toString()).isEqualTo("+" + delta.added() + " -" + delta.removed());
+        assertThat(LongRangeSetDelta.between(after, after)).isSameAs(LongRangeSetDelta.empty());
+        assertThat(LongRangeSetDelta.empty().applyTo(after)).isSameAs(after);
+    }
+
+    @Test
+    public void testSerialization() {
+        LongRangeSetDelta delta = LongRangeSetDelta.between(
+                LongRangeSet.of(LongRange.open(Long.MIN_VALUE, -1), LongRange.open(1_000, 1_010)),
+                LongRangeSet.of(LongRange.open(1_005, 1_020), LongRange.ofValues(Long.MAX_VALUE, Long.MAX_VALUE)));
+        ByteBuffer buffer = ByteBuffer.allocate(delta.serializedSize());
+
+        delta.writeTo(buffer);
+        assertThat(buffer.hasRemaining()).isFalse();
+        buffer.flip();
+
+        assertThat(LongRangeSetDelta.readFrom(buffer)).isEqualTo(delta);
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    public void testSmallGapsTakeFewBytes() {
+        LongRangeSet.Builder builder = new LongRangeSet.Builder(1000);
+        for (int i = 0; i < 1000; i++)
+            builder.add(1_000_000 + 10L * i, 1_000_000 + 10L * i + 3);
+
+        LongRangeSetDelta delta = LongRangeSetDelta.between(LongRangeSet.empty(), builder.build());
+
+        // Count, the two bytes of the offset of the first range from Long.MIN_VALUE, and one byte for each other value
+        assertThat(delta.serializedSize()).isLessThan(2 * 1000 + 16);
+    }
+
+    @Test
+    public void testRandomVersions() {
+        Random random = new Random(42);
+        LongRangeSet before = LongRangeSet.empty();
+        for (int i = 0; i < 500; i++) {
+            LongRangeSet after = before;
+            for (int j = random.nextInt(20); j >= 0; j--) {
+                long low = random.nextInt(100_000);
+                LongRangeSet range = LongRangeSet.of(LongRange.ofValues(low, low + random.nextInt(1_000)));
+                after = random.nextBoolean() ? after.union(range) : after.difference(range);
+            }
+
+            LongRangeSetDelta delta = LongRangeSetDelta.between(before, after);
+            ByteBuffer buffer = ByteBuffer.allocate(delta.serializedSize());
+            delta.writeTo(buffer);
+            buffer.flip();
+            LongRangeSetDelta read = LongRangeSetDelta.readFrom(buffer);
+
+            assertThat(read).isEqualTo(delta);
+            assertThat(read.applyTo(before)).isEqualTo(after);
+            assertThat(read.applyTo(PersistentLongRangeSet.copyOf(before)).toRangeSet()).isEqualTo(after);
+            assertThat(read.added().intersection(before).isEmpty()).isTrue();
+            assertThat(read.removed().intersection(after).isEmpty()).isTrue();
+            before = after;
+        }
+    }
+
+    @Test
+    public void testMalformedDelta() {
+        LongRangeSetDelta delta = LongRangeSetDelta.between(LongRangeSet.of(LongRange.open(1, 10)),
+                LongRangeSet.of(LongRange.open(5, 20)));
+        ByteBuffer buffer = ByteBuffer.allocate(delta.serializedSize());
+        delta.writeTo(buffer);
+
+        for (int size = 0; size < buffer.capacity(); size++) {
+            ByteBuffer truncated = ByteBuffer.wrap(buffer.array(), 0, size);
+            assertThatThrownBy(() -> LongRangeSetDelta.readFrom(truncated))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+
+        // Ranges wrapping around past Long.MAX_VALUE
+        ByteBuffer wrapping = ByteBuffer.allocate(64);
+        LongRangeSetDelta.writeVarLong(wrapping, 2);
+        LongRangeSetDelta.writeVarLong(wrapping, -2);
+        LongRangeSetDelta.writeVarLong(wrapping, 0);
+        LongRangeSetDelta.writeVarLong(wrapping, 0);
+        LongRangeSetDelta.writeVarLong(wrapping, 0);
+        LongRangeSetDelta.writeVarLong(wrapping, 0);
+        wrapping.flip();
+        assertThatThrownBy(() -> LongRangeSetDelta.readFrom(wrapping))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        // Values both added and removed
+        ByteBuffer overlapping = ByteBuffer.allocate(64);
+        LongRangeSetDelta.writeRanges(overlapping, LongRangeSet.of(LongRange.open(1, 5)));
+        LongRangeSetDelta.writeRanges(overlapping, LongRangeSet.of(LongRange.open(5, 8)));
+        overlapping.flip();
+        assertThatThrownBy(() -> LongRangeSetDelta.readFrom(overlapping))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
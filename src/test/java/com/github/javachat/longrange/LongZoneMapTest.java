@@ -0,0 +1,57 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.BlockMatch;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LongZoneMapTest {
+    @Test
+    public void testSummaries() {
+        LongZoneMap zones = LongZoneMap.of(new long[]{5, 1, 3, 7, 9, 8, 20}, 3);
+
+        assertThat(zones.size()).isEqualTo(7);
+        assertThat(zones.blockCount()).isEqualTo(3);
+        assertThat(zones.summary(0)).isEqualTo(LongRange.open(1, 5));
+        assertThat(zones.summary(2)).isEqualTo(LongRange.ofValues(20, 20));
+        assertThat(zones.match(0, LongRange.open(0, 8))).isEqualTo(BlockMatch.ALL);
+        assertThat(zones.match(1, LongRange.open(0, 8))).isEqualTo(BlockMatch.SOME);
+        assertThat(zones.match(2, LongRange.open(0, 8))).isEqualTo(BlockMatch.NONE);
+        assertThat(zones.toString()).isEqualTo("zone map of 3 blocks of 3 values");
+    }
+
+    @Test
+    public void testMostlyOrderedValues() {
+        // Timestamps with some jitter: only the blocks at the ends of a query range are scanned
+        Random random = new Random(43);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++)
+            values[i] = 1_500_000_000_000L + 1000L * i + random.nextInt(50_000);
+        LongZoneMap zones = LongZoneMap.of(values, 1000);
+
+        for (int query = 0; query < 100; query++) {
+            long low = 1_500_000_000_000L + 1000L * random.nextInt(100_000);
+            LongRange range = LongRange.closedOpen(low, low + 5_000_000L);
+            int[] expected = IntStream.range(0, values.length).filter(i -> range.contains(values[i])).toArray();
+
+            assertThat(zones.count(values, range)).isEqualTo(expected.length);
+            assertThat(zones.select(values, range)).isEqualTo(expected);
+            long partial = IntStream.range(0, zones.blockCount())
+                    .filter(block -> zones.match(block, range) == BlockMatch.SOME).count();
+            assertThat(partial).isLessThanOrEqualTo(4);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBlockSizeMustBePositive() {
+        LongZoneMap.builder(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testValuesMustBeThoseSummarized() {
+        LongZoneMap.of(new long[10], 4).count(new long[11], LongRange.all());
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.BoundType;
+import com.github.javachat.common.ExtremeLongRanges;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MutableLongRangeTest {
+    // Ranges are drawn around zero and around both extremes, which are also the symbolical endpoints of unbounded sides
+    private static final long[] ORIGINS = ExtremeLongRanges.origins(30);
+
+    private static LongRange randomRange(Random random) {
+        return random.nextInt(8) == 0 ? LongRange.all() : ExtremeLongRanges.range(random, ORIGINS, 20, 10);
+    }
+
+    private static void assertSameRange(MutableLongRange mutable, LongRange range) {
+        LongRange frozen = mutable.freeze();
+
+        assertThat(frozen).isEqualTo(range);
+        assertThat(frozen.toString()).isEqualTo(range.toString());
+        assertThat(mutable.hasLowerBound()).isEqualTo(range.hasLowerBound());
+        assertThat(mutable.hasUpperBound()).isEqualTo(range.hasUpperBound());
+        assertThat(frozen.hasLowerBound()).isEqualTo(range.hasLowerBound());
+        assertThat(frozen.hasUpperBound()).isEqualTo(range.hasUpperBound());
+    }
+
+    @Test
+    public void testQueriesMatchImmutableRange() {
+        Random random = new Random(1);
+        MutableLongRange mutable = new MutableLongRange();
+        MutableLongRange other = new MutableLongRange();
+        MutableLongRange result = new MutableLongRange();
+
+        for (int i = 0; i < 10_000; i++) {
+            LongRange range = randomRange(random);
+            LongRange otherRange = randomRange(random);
+            mutable.set(range);
+            other.set(otherRange);
+
+            for (long origin : ORIGINS) {
+                for (long value = origin - 2; value != origin + 35; value++)
+                    assertThat(mutable.contains(value)).isEqualTo(range.contains(value));
+            }
+            assertThat(mutable.encloses(otherRange)).isEqualTo(range.encloses(otherRange));
+            assertThat(mutable.encloses(other)).isEqualTo(range.encloses(otherRange));
+            assertThat(mutable.isConnected(otherRange)).isEqualTo(range.isConnected(otherRange));
+            assertThat(mutable.isConnected(other)).isEqualTo(range.isConnected(otherRange));
+            assertThat(mutable.isEmpty()).isEqualTo(range.isEmpty());
+            assertSameRange(mutable, range);
+
+            LongRange expected;
+            try {
+                expected = range.intersection(otherRange);
+            } catch (IllegalArgumentException e) {
+                expected = null;
+            }
+            if (expected != null) {
+                assertSameRange(mutable.intersection(other, result), expected);
+                assertSameRange(mutable.intersection(otherRange, result), expected);
+            }
+        }
+    }
+
+    @Test
+    public void testBoundFlagsFollowTheSetter() {
+        MutableLongRange range = new MutableLongRange();
+        assertSameRange(range, LongRange.all());
+
+        // Same endpoints as all(), but bounded: Long.MIN_VALUE and Long.MAX_VALUE are contained
+        assertSameRange(range.setOpen(Long.MIN_VALUE, Long.MAX_VALUE), LongRange.open(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertSameRange(range.setUpTo(Long.MAX_VALUE, BoundType.CLOSED), LongRange.lessThan(Long.MAX_VALUE));
+        assertThat(range.contains(Long.MIN_VALUE)).isTrue();
+        assertThat(range.contains(Long.MAX_VALUE)).isFalse();
+        assertSameRange(range.setDownTo(Long.MIN_VALUE, BoundType.CLOSED), LongRange.greaterThan(Long.MIN_VALUE));
+        assertThat(range.contains(Long.MIN_VALUE)).isFalse();
+        assertThat(range.contains(Long.MAX_VALUE)).isTrue();
+        assertSameRange(range.setAll(), LongRange.all());
+        assertSameRange(range.set(LongRange.atLeast(5)), LongRange.atLeast(5));
+        assertSameRange(new MutableLongRange().set(range), LongRange.atLeast(5));
+    }
+
+    @Test
+    public void testIntersectionKeepsUnboundedSides() {
+        MutableLongRange range = new MutableLongRange().setUpTo(10, BoundType.OPEN);
+
+        range.intersection(LongRange.atMost(20), range);
+
+        assertSameRange(range, LongRange.atMost(10));
+        range.setAll().intersection(LongRange.greaterThan(Long.MAX_VALUE - 1), range);
+        assertSameRange(range, LongRange.greaterThan(Long.MAX_VALUE - 1));
+        assertThat(range.contains(Long.MAX_VALUE)).isTrue();
+    }
+
+    @Test
+    public void testIntersectionIntoItself() {
+        MutableLongRange range = new MutableLongRange().setClosed(0, 10);
+
+        range.intersection(LongRange.open(5, 20), range);
+
+        assertThat(range.freeze()).isEqualTo(LongRange.openClosed(5, 10));
+    }
+
+    @Test
+    public void testInvalidEndpointsLeaveRangeUnchanged() {
+        MutableLongRange range = new MutableLongRange().setOpen(1, 3);
+
+        assertThatThrownBy(() -> range.setOpen(5, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> range.setOpen(4, 4)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> range.setClosed(Long.MAX_VALUE, Long.MIN_VALUE))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(range.toString()).isEqualTo("(1..3)");
+        assertThat(range.hasLowerBound()).isTrue();
+        assertThat(range.hasUpperBound()).isTrue();
+    }
+}
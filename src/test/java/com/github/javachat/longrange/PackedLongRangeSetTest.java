@@ -0,0 +1,125 @@
+package com.github.javachat.longrange;
+
+import com.github.javachat.common.PackedRanges;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PackedLongRangeSetTest {
+    @Test
+    public void testLookups() {
+        LongRangeSet set = LongRangeSet.of(LongRange.open(1, 5), LongRange.open(10, 20), LongRange.open(22, 23));
+        PackedLongRangeSet packed = PackedLongRangeSet.copyOf(set);
+
+        assertThat(packed.size()).isEqualTo(3);
+        for (long value = -5; value < 30; value++)
+            assertThat(packed.indexOf(value)).as("index of %d", value).isEqualTo(set.indexOf(value));
+        assertThat(packed.toRangeSet()).isEqualTo(set);
+        assertThat(packed.toString()).isEqualTo("packed set of 3 ranges in 1 blocks");
+    }
+
+    @Test
+    public void testEmptyAndExtremeValues() {
+        assertThat(PackedLongRangeSet.copyOf(LongRangeSet.empty())).isSameAs(PackedLongRangeSet.empty());
+        assertThat(PackedLongRangeSet.empty().contains(0)).isFalse();
+        assertThat(PackedLongRangeSet.empty().toRangeSet()).isEqualTo(LongRangeSet.empty());
+
+        PackedLongRangeSet all = PackedLongRangeSet.copyOf(LongRangeSet.all());
+        assertThat(all.contains(Long.MIN_VALUE)).isTrue();
+        assertThat(all.contains(Long.MAX_VALUE)).isTrue();
+        assertThat(all.toRangeSet()).isEqualTo(LongRangeSet.all());
+
+        LongRangeSet extremes = LongRangeSet.of(LongRange.ofValues(Long.MIN_VALUE, Long.MIN_VALUE),
+                LongRange.ofValues(0, 0), LongRange.ofValues(Long.MAX_VALUE, Long.MAX_VALUE));
+        PackedLongRangeSet packed = PackedLongRangeSet.copyOf(extremes);
+        assertThat(packed.toRangeSet()).isEqualTo(extremes);
+        assertThat(packed.indexOf(Long.MAX_VALUE)).isEqualTo(2);
+        assertThat(packed.indexOf(Long.MAX_VALUE - 1)).isEqualTo(-1);
+    }
+
+    @Test
+    public void testRandomSetsAgainstRangeSets() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            LongRangeSet.Builder builder = new LongRangeSet.Builder(1000);
+            long low = random.nextLong() / 2;
+            int size = random.nextInt(2000);
+            for (int i = 0; i < size; i++) {
+                // Mostly small gaps and lengths, with a few large ones becoming exceptions
+                long gap = random.nextInt(20) == 0 ? random.nextInt(Integer.MAX_VALUE) : random.nextInt(10);
+                long length = random.nextInt(30) == 0 ? random.nextInt(1 << 20) : random.nextInt(4);
+                builder.add(low, low + length);
+                low += length + 2 + gap;
+            }
+            LongRangeSet set = builder.build();
+            PackedLongRangeSet packed = PackedLongRangeSet.copyOf(set);
+
+            assertThat(packed.size()).isEqualTo(set.size());
+            assertThat(packed.toRangeSet()).isEqualTo(set);
+            for (int i = 0; i < set.size(); i++) {
+                long lowest = set.lowestValue(i);
+                long highest = set.highestValue(i);
+                assertThat(packed.indexOf(lowest)).isEqualTo(i);
+                assertThat(packed.indexOf(highest)).isEqualTo(i);
+                assertThat(packed.indexOf(lowest - 1)).isEqualTo(set.indexOf(lowest - 1));
+                assertThat(packed.indexOf(highest + 1)).isEqualTo(set.indexOf(highest + 1));
+            }
+        }
+    }
+
+    @Test
+    public void testSmallGapsAreCompressed() {
+        PackedLongRangeSet.Builder builder = PackedLongRangeSet.builder();
+        LongRangeSet.Builder expected = new LongRangeSet.Builder(100_000);
+        Random random = new Random(42);
+        long low = 1_000_000_000_000L;
+        for (int i = 0; i < 100_000; i++) {
+            long high = low + random.nextInt(8);
+            builder.add(LongRange.ofValues(low, high));
+            expected.add(low, high);
+            low = high + 2 + random.nextInt(16);
+        }
+        PackedLongRangeSet packed = builder.build();
+        LongRangeSet set = expected.build();
+
+        assertThat(packed.size()).isEqualTo(100_000);
+        assertThat(packed.toRangeSet()).isEqualTo(set);
+        assertThat(packed.footprintBytes()).isLessThan(set.footprintBytes() / 8);
+        assertThat(packed).isEqualTo(PackedLongRangeSet.copyOf(set));
+        assertThat(packed.hashCode()).isEqualTo(PackedLongRangeSet.copyOf(set).hashCode());
+    }
+
+    @Test
+    public void testBuilderCoalescesAndRejectsUnsortedRanges() {
+        PackedLongRangeSet packed = PackedLongRangeSet.builder()
+                .add(LongRange.open(1, 5))
+                .add(LongRange.open(3, 8))
+                .add(LongRange.open(9, 10))
+                .add(LongRange.closed(20, 20))
+                .add(LongRange.open(12, 15))
+                .build();
+        assertThat(packed.toRangeSet()).isEqualTo(LongRangeSet.of(LongRange.open(1, 10), LongRange.open(12, 15)));
+
+        PackedLongRangeSet.Builder builder = PackedLongRangeSet.builder().add(LongRange.open(10, 20));
+        assertThatThrownBy(() -> builder.add(LongRange.open(5, 30)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testBlockBoundaries() {
+        PackedLongRangeSet.Builder builder = PackedLongRangeSet.builder();
+        int size = 3 * PackedRanges.BLOCK_SIZE + 1;
+        for (int i = 0; i < size; i++)
+            builder.add(LongRange.open(10L * i, 10L * i + 1));
+        PackedLongRangeSet packed = builder.build();
+
+        assertThat(packed.toString()).isEqualTo("packed set of " + size + " ranges in 4 blocks");
+        for (int i = 0; i < size; i++) {
+            assertThat(packed.indexOf(10L * i + 1)).isEqualTo(i);
+            assertThat(packed.contains(10L * i + 2)).isFalse();
+        }
+    }
+}
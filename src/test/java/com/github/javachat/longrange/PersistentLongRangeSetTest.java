@@ -0,0 +1,107 @@
+package com.github.javachat.longrange;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PersistentLongRangeSetTest {
+    @Test
+    public void testAddAndRemove() {
+        PersistentLongRangeSet set = PersistentLongRangeSet.empty()
+                .add(LongRange.open(1, 5))
+                .add(LongRange.open(10, 20))
+                .add(LongRange.open(6, 8));
+
+        assertThat(set.toRangeSet()).isEqualTo(LongRangeSet.of(LongRange.open(1, 8), LongRange.open(10, 20)));
+        assertThat(set.size()).isEqualTo(2);
+
+        set = set.remove(LongRange.open(3, 12));
+        assertThat(set.toRangeSet()).isEqualTo(LongRangeSet.of(LongRange.open(1, 2), LongRange.open(13, 20)));
+        assertThat(set.contains(2)).isTrue();
+        assertThat(set.contains(3)).isFalse();
+        assertThat(set.toString()).isEqualTo(set.toRangeSet().toString());
+
+        assertThat(set.remove(LongRange.all()).isEmpty()).isTrue();
+        assertThat(PersistentLongRangeSet.empty().add(LongRange.all()).contains(Long.MIN_VALUE)).isTrue();
+    }
+
+    @Test
+    public void testUnchangedSetIsReturned() {
+        PersistentLongRangeSet set = PersistentLongRangeSet.empty().add(LongRange.open(10, 20));
+
+        assertThat(set.add(LongRange.open(12, 20))).isSameAs(set);
+        assertThat(set.remove(LongRange.open(21, 30))).isSameAs(set);
+        assertThat(set.remove(LongRange.closed(5, 6))).isSameAs(set);
+    }
+
+    @Test
+    public void testSnapshotsAgainstRangeSets() {
+        Random random = new Random(42);
+        List<PersistentLongRangeSet> versions = new ArrayList<>();
+        List<LongRangeSet> expected = new ArrayList<>();
+        PersistentLongRangeSet set = PersistentLongRangeSet.empty();
+        LongRangeSet model = LongRangeSet.empty();
+
+        for (int i = 0; i < 20_000; i++) {
+            long low = random.nextInt(1_000_000) - 500_000;
+            LongRange range = i % 1000 == 0
+                    ? LongRange.ofValues(random.nextBoolean() ? Long.MIN_VALUE : low, Long.MAX_VALUE)
+                    : LongRange.ofValues(low, low + random.nextInt(i % 3 == 0 ? 50_000 : 100));
+            if (random.nextInt(3) == 0) {
+                set = set.remove(range);
+                model = model.difference(LongRangeSet.of(range));
+            } else {
+                set = set.add(range);
+                model = model.union(LongRangeSet.of(range));
+            }
+            if (i % 500 == 0) {
+                versions.add(set);
+                expected.add(model);
+            }
+        }
+
+        for (int i = 0; i < versions.size(); i++) {
+            assertThat(versions.get(i).toRangeSet()).isEqualTo(expected.get(i));
+            assertThat(versions.get(i).size()).isEqualTo(expected.get(i).size());
+        }
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextInt(1_200_000) - 600_000;
+            assertThat(set.contains(value)).isEqualTo(model.contains(value));
+        }
+    }
+
+    @Test
+    public void testCopyOf() {
+        long[] lowest = new long[10_000];
+        long[] highest = new long[lowest.length];
+        for (int i = 0; i < lowest.length; i++) {
+            lowest[i] = 10L * i;
+            highest[i] = 10L * i + 5;
+        }
+        LongRangeSet ranges = LongRangeSet.ofValues(lowest, highest, lowest.length);
+        PersistentLongRangeSet set = PersistentLongRangeSet.copyOf(ranges);
+
+        assertThat(set.toRangeSet()).isEqualTo(ranges);
+        PersistentLongRangeSet added = PersistentLongRangeSet.empty();
+        for (int i = lowest.length - 1; i >= 0; i--)
+            added = added.add(LongRange.ofValues(lowest[i], highest[i]));
+        assertThat(added).isEqualTo(set);
+        assertThat(added.hashCode()).isEqualTo(set.hashCode());
+        assertThat(set.hashCode()).isEqualTo(ranges.hashCode());
+        assertThat(PersistentLongRangeSet.empty().hashCode()).isEqualTo(LongRangeSet.empty().hashCode());
+        assertThat(added.remove(LongRange.ofValues(lowest[5000], lowest[5000]))).isNotEqualTo(set);
+        assertThat(added.add(LongRange.ofValues(highest[5000] + 1, highest[5000] + 1))).isNotEqualTo(set);
+
+        // Removing all but the last ranges merges the nodes left narrow
+        PersistentLongRangeSet smaller = set;
+        for (int i = 0; i < lowest.length - 10; i++)
+            smaller = smaller.remove(LongRange.ofValues(lowest[i], highest[i]));
+        assertThat(smaller.size()).isEqualTo(10);
+        assertThat(smaller.contains(highest[lowest.length - 1])).isTrue();
+        assertThat(set.size()).isEqualTo(lowest.length);
+    }
+}
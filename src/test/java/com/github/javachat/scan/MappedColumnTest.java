@@ -0,0 +1,187 @@
+package com.github.javachat.scan;
+
+import com.github.javachat.doublerange.DoubleRange;
+import com.github.javachat.doublerange.DoubleRangeSet;
+import com.github.javachat.floatrange.FloatRange;
+import com.github.javachat.intrange.IntRange;
+import com.github.javachat.intrange.IntRangeSet;
+import com.github.javachat.intrange.IntZoneMap;
+import com.github.javachat.longrange.LongRange;
+import com.github.javachat.longrange.LongZoneMap;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MappedColumnTest {
+    // Chunks of 1000 ints or 500 longs, and slices of 256 rows, so that scans cross both boundaries
+    private static final int CHUNK_BYTES = 4000;
+    private static final int SLICE_ROWS = 256;
+    private static final int SIZE = 10_000;
+
+    private Path file;
+
+    @BeforeMethod
+    public void createFile() throws IOException {
+        file = Files.createTempFile("column", ".bin");
+    }
+
+    @AfterMethod
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    @Test
+    public void testIntColumn() throws IOException {
+        Random random = new Random(42);
+        int[] values = new int[SIZE];
+        ByteBuffer buffer = buffer(SIZE * Integer.BYTES);
+        for (int i = 0; i < SIZE; i++)
+            buffer.putInt(values[i] = random.nextInt(1000) - 500);
+        Files.write(file, buffer.array());
+
+        MappedColumn column = MappedColumn.map(file, ColumnType.INT, CHUNK_BYTES, SLICE_ROWS);
+        assertThat(column.size()).isEqualTo(SIZE);
+
+        IntRange range = IntRange.closedOpen(-100, 100);
+        assertScan(column, ColumnPredicate.of(range), i -> range.contains(values[i]));
+
+        IntRangeSet set = IntRangeSet.of(IntRange.atMost(-400), IntRange.open(0, 10), IntRange.greaterThan(400));
+        assertScan(column, ColumnPredicate.of(set), i -> set.contains(values[i]));
+
+        assertScan(column, ColumnPredicate.of(IntRangeSet.empty()), i -> false);
+    }
+
+    @Test
+    public void testLongColumn() throws IOException {
+        Random random = new Random(42);
+        long[] values = new long[SIZE];
+        ByteBuffer buffer = buffer(SIZE * Long.BYTES);
+        for (int i = 0; i < SIZE; i++)
+            buffer.putLong(values[i] = random.nextLong());
+        Files.write(file, buffer.array());
+
+        MappedColumn column = MappedColumn.map(file, ColumnType.LONG, CHUNK_BYTES, SLICE_ROWS);
+        LongRange range = LongRange.atLeast(Long.MAX_VALUE / 2);
+        assertScan(column, ColumnPredicate.of(range), i -> range.contains(values[i]));
+    }
+
+    @Test
+    public void testFloatColumn() throws IOException {
+        Random random = new Random(42);
+        float[] values = new float[SIZE];
+        ByteBuffer buffer = buffer(SIZE * Float.BYTES);
+        for (int i = 0; i < SIZE; i++)
+            buffer.putFloat(values[i] = i % 100 == 0 ? Float.NaN : random.nextFloat() * 2 - 1);
+        Files.write(file, buffer.array());
+
+        MappedColumn column = MappedColumn.map(file, ColumnType.FLOAT, CHUNK_BYTES, SLICE_ROWS);
+        FloatRange range = FloatRange.open(-0.5f, 0.0f);
+        assertScan(column, ColumnPredicate.of(range), i -> range.contains(values[i]));
+        assertScan(column, ColumnPredicate.of(FloatRange.all()), i -> true);
+    }
+
+    @Test
+    public void testDoubleColumn() throws IOException {
+        Random random = new Random(42);
+        double[] values = new double[SIZE];
+        ByteBuffer buffer = buffer(SIZE * Double.BYTES);
+        for (int i = 0; i < SIZE; i++)
+            buffer.putDouble(values[i] = i % 100 == 0 ? Double.NaN : random.nextGaussian());
+        Files.write(file, buffer.array());
+
+        MappedColumn column = MappedColumn.map(file, ColumnType.DOUBLE, CHUNK_BYTES, SLICE_ROWS);
+        DoubleRangeSet outliers = DoubleRangeSet.of(DoubleRange.lessThan(-2), DoubleRange.greaterThan(2));
+        assertScan(column, ColumnPredicate.of(outliers), i -> outliers.contains(values[i]));
+
+        // NaN is only part of the complement
+        DoubleRangeSet others = outliers.complement();
+        assertScan(column, ColumnPredicate.of(others), i -> others.contains(values[i]));
+    }
+
+    @Test
+    public void testZoneMaps() throws IOException {
+        // Mostly ordered timestamps
+        Random random = new Random(42);
+        long[] values = new long[SIZE];
+        ByteBuffer buffer = buffer(SIZE * Long.BYTES);
+        for (int i = 0; i < SIZE; i++)
+            buffer.putLong(values[i] = 1000L * i + random.nextInt(5000));
+        Files.write(file, buffer.array());
+
+        MappedColumn column = MappedColumn.map(file, ColumnType.LONG, CHUNK_BYTES, SLICE_ROWS);
+        LongZoneMap zones = column.longZoneMap(100);
+        assertThat(zones).usingRecursiveComparison().isEqualTo(LongZoneMap.of(values, 100));
+
+        LongRange range = LongRange.closedOpen(2_000_000, 3_000_000);
+        long[] rows = IntStream.range(0, SIZE).filter(i -> range.contains(values[i])).asLongStream().toArray();
+        assertThat(column.count(range, zones)).isEqualTo(rows.length);
+        assertThat(column.select(range, zones)).isEqualTo(rows);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testZoneMapOfAnotherColumnIsRejected() throws IOException {
+        Files.write(file, new byte[40]);
+        MappedColumn column = MappedColumn.map(file, ColumnType.INT);
+        column.count(IntRange.all(), IntZoneMap.of(new int[9], 4));
+    }
+
+    @Test
+    public void testDefaultChunks() throws IOException {
+        ByteBuffer buffer = buffer(3 * Integer.BYTES);
+        buffer.putInt(1).putInt(2).putInt(3);
+        Files.write(file, buffer.array());
+
+        MappedColumn column = MappedColumn.map(file, ColumnType.INT);
+        assertThat(column.parallelSelect(ColumnPredicate.of(IntRange.atLeast(2)))).containsExactly(1, 2);
+        assertThat(column.toString()).isEqualTo("INT column of 3 values");
+    }
+
+    @Test
+    public void testEmptyFile() throws IOException {
+        MappedColumn column = MappedColumn.map(file, ColumnType.DOUBLE);
+
+        assertThat(column.count(ColumnPredicate.of(DoubleRange.all()))).isZero();
+        assertThat(column.parallelBitmap(ColumnPredicate.of(DoubleRange.all()))).isEmpty();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTruncatedFileIsRejected() throws IOException {
+        Files.write(file, new byte[6]);
+        MappedColumn.map(file, ColumnType.INT);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPredicateOfAnotherTypeIsRejected() throws IOException {
+        MappedColumn.map(file, ColumnType.LONG).count(ColumnPredicate.of(IntRange.all()));
+    }
+
+    private static ByteBuffer buffer(int bytes) {
+        return ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void assertScan(MappedColumn column, ColumnPredicate predicate, IntPredicate expected) {
+        long[] rows = IntStream.range(0, SIZE).filter(expected).asLongStream().toArray();
+        BitSet bits = new BitSet();
+        for (long row : rows)
+            bits.set((int) row);
+
+        assertThat(column.count(predicate)).isEqualTo(rows.length);
+        assertThat(column.parallelCount(predicate)).isEqualTo(rows.length);
+        assertThat(column.select(predicate)).isEqualTo(rows);
+        assertThat(column.parallelSelect(predicate)).isEqualTo(rows);
+        assertThat(BitSet.valueOf(column.bitmap(predicate))).isEqualTo(bits);
+        assertThat(BitSet.valueOf(column.parallelBitmap(predicate))).isEqualTo(bits);
+    }
+}